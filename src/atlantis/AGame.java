@@ -1,13 +1,11 @@
 package atlantis;
 
 import static atlantis.Atlantis.getBwapi;
+import atlantis.production.ATechTree;
 import atlantis.units.AUnitType;
-import atlantis.units.Select;
 import atlantis.util.AtlantisUtilities;
-import atlantis.wrappers.ATech;
 import bwapi.Player;
 import bwapi.Race;
-import bwapi.TechType;
 import bwapi.UpgradeType;
 import java.util.List;
 
@@ -19,8 +17,10 @@ import java.util.List;
 public class AGame {
 
     private static boolean umtMode = false; // Should be set to `true` on UMT (custom) maps
-    private static boolean isPaused = false; // On PauseBreak a pause mode can be enabled
+    private static volatile boolean isPaused = false; // On PauseBreak a pause mode can be enabled
     private static Player _enemy = null; // Cached enemy player
+    private static Player _replayPlayer = null; // Player we act as when following a replay
+    private static Boolean _isReplay = null; // Cached, it doesn't change during the game
 
     // =========================================================
     /**
@@ -34,14 +34,7 @@ public class AGame {
      * Returns true if we have all techs needed for given unit (but we may NOT have some of the buildings!).
      */
     public static boolean hasTechToProduce(AUnitType unitType) {
-
-        // Needs to have tech
-        TechType techType = unitType.getRequiredTech();
-        if (techType != null && techType != TechType.None && !ATech.isResearched(techType)) {
-            return false;
-        }
-
-        return true;
+        return ATechTree.hasRequiredTech(unitType);
     }
 
     /**
@@ -51,21 +44,7 @@ public class AGame {
      * true e.g. to produce Zealot you need at least one finished Gateway
      */
     public static boolean hasBuildingsToProduce(AUnitType unitType, boolean countUnfinished) {
-
-        // Need to have every prerequisite building
-        for (AUnitType requiredType : unitType.getRequiredUnits().keySet()) {
-            if (requiredType.equals(AUnitType.Zerg_Larva)) {
-                continue;
-            }
-
-            int requiredAmount = unitType.getRequiredUnits().get(requiredType);
-            int weHaveAmount = requiredType.equals(AUnitType.Zerg_Larva)
-                    ? Select.ourLarva().count() : Select.our().ofType(requiredType).count();
-            if (weHaveAmount < requiredAmount) {
-                return false;
-            }
-        }
-        return true;
+        return ATechTree.hasRequiredUnits(unitType);
     }
 
     /**
@@ -85,10 +64,10 @@ public class AGame {
     }
     
     /**
-     * Enable/disable pause.
+     * Enable/disable pause. Applied at the beginning of the next frame, see <b>AGameControls</b>.
      */
     public static void pauseModeToggle() {
-        isPaused = !isPaused;
+        AGameControls.postTogglePause();
     }
     
     /**
@@ -98,47 +77,30 @@ public class AGame {
         return isPaused;
     }
     
+    /**
+     * Updates pause flag, called by <b>AGameControls</b> once the pause was really applied.
+     */
+    protected static void setPaused(boolean paused) {
+        isPaused = paused;
+    }
+    
     /**
      * Changes game speed. 0 - fastest 1 - very quick 20 - around default
+     * <br /><br />
+     * Doesn't block, speed is applied at the beginning of the next frame, see <b>AGameControls</b>.
      */
     public static void changeSpeedTo(int speed) {
-        if (speed < 0) {
-            speed = 0;
-        }
-
-        AtlantisConfig.GAME_SPEED = speed;
-        
-        try {
-            getBwapi().setLocalSpeed(AtlantisConfig.GAME_SPEED);
-            Thread.sleep(40);
-            getBwapi().setLocalSpeed(AtlantisConfig.GAME_SPEED);
-            Thread.sleep(40);
-        } catch (InterruptedException ex) { 
-            // Ignore
-        }
-        getBwapi().setLocalSpeed(AtlantisConfig.GAME_SPEED);
-
-        String speedString = AtlantisConfig.GAME_SPEED + (AtlantisConfig.GAME_SPEED == 0 ? " (Max)" : "");
-        sendMessage("Game speed: " + speedString);
+        AGameControls.postSetSpeed(speed);
     }
 
     /**
      * Changes game speed by given ammount of units. Total game speed: 0 - fastest 1 - very quick 20 - around
      * default
+     * <br /><br />
+     * Doesn't block, speed is applied at the beginning of the next frame, see <b>AGameControls</b>.
      */
     public static void changeSpeedBy(int deltaSpeed) {
-        int speed = AtlantisConfig.GAME_SPEED + deltaSpeed;
-        if (speed < 0) {
-            speed = 0;
-        }
-
-        if (getBwapi() != null) {
-            AtlantisConfig.GAME_SPEED = speed;
-            changeSpeedTo(AtlantisConfig.GAME_SPEED);
-        }
-        else {
-            System.err.println("Can't change game speed, bwapi is null.");
-        }
+        AGameControls.postChangeSpeedBy(deltaSpeed);
     }
 
     /**
@@ -166,14 +128,14 @@ public class AGame {
      * Number of minerals.
      */
     public static int getMinerals() {
-        return Atlantis.getBwapi().self().minerals();
+        return getPlayerUs().minerals();
     }
 
     /**
      * Number of gas.
      */
     public static int getGas() {
-        return Atlantis.getBwapi().self().gas();
+        return getPlayerUs().gas();
     }
 
     /**
@@ -187,23 +149,58 @@ public class AGame {
      * Number of supply used.
      */
     public static int getSupplyUsed() {
-        return Atlantis.getBwapi().self().supplyUsed() / 2;
+        return getPlayerUs().supplyUsed() / 2;
     }
 
     /**
      * Number of supply totally available.
      */
     public static int getSupplyTotal() {
-        return Atlantis.getBwapi().self().supplyTotal() / 2;
+        return getPlayerUs().supplyTotal() / 2;
     }
 
     /**
-     * Returns current player.
+     * Returns current player. When following a replay it's the player defined by <b>getReplayPlayer()</b>.
      */
     public static Player getPlayerUs() {
+        if (isReplay()) {
+            return getReplayPlayer();
+        }
         return Atlantis.getBwapi().self();
     }
 
+    /**
+     * Returns true if the bot doesn't play, but follows a replay of some game. It then acts as one of the
+     * players, but its commands are only recorded (see <b>AGameRecorder</b>).
+     */
+    public static boolean isReplay() {
+        if (_isReplay == null) {
+            _isReplay = Atlantis.getBwapi().isReplay();
+        }
+        return _isReplay;
+    }
+
+    /**
+     * Returns player the bot acts as when following a replay: the one whose name contains the
+     * <b>atlantis.replayPlayer</b> system property, or else one named like the bot, or else the first one playing.
+     */
+    private static Player getReplayPlayer() {
+        if (_replayPlayer == null) {
+            String wantedName = System.getProperty("atlantis.replayPlayer", "Atlantis").toLowerCase();
+            for (Player player : getPlayers()) {
+                if (isPlaying(player) && (_replayPlayer == null
+                        || player.getName().toLowerCase().contains(wantedName))) {
+                    _replayPlayer = player;
+                }
+            }
+        }
+        return _replayPlayer;
+    }
+
+    private static boolean isPlaying(Player player) {
+        return !player.isNeutral() && !player.isObserver();
+    }
+
     /**
      * Returns all players.
      */
@@ -216,7 +213,7 @@ public class AGame {
      */
     public static Player enemy() {
         if (_enemy == null) {
-            _enemy = Atlantis.getBwapi().enemies().iterator().next();
+            _enemy = defineEnemy();
         }
         return _enemy;
     }
@@ -226,11 +223,25 @@ public class AGame {
      */
     public static Player getEnemy() {
         if (_enemy == null) {
-            _enemy = Atlantis.getBwapi().enemies().iterator().next();
+            _enemy = defineEnemy();
         }
         return _enemy;
     }
 
+    private static Player defineEnemy() {
+        if (!isReplay()) {
+            return Atlantis.getBwapi().enemies().iterator().next();
+        }
+
+        // Replay has no "self", so enemies are defined relative to the player we act as
+        for (Player player : getPlayers()) {
+            if (isPlaying(player) && player.isEnemy(getPlayerUs())) {
+                return player;
+            }
+        }
+        return null;
+    }
+
     /**
      * Returns neutral player (minerals, geysers, critters).
      */
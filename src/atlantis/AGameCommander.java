@@ -11,6 +11,7 @@ import atlantis.repair.ARepairCommander;
 import atlantis.scout.AScoutManager;
 import atlantis.strategy.AStrategyCommander;
 import atlantis.units.AUnit;
+import atlantis.units.AUnitCounts;
 import atlantis.units.Select;
 import atlantis.workers.AWorkerCommander;
 
@@ -30,6 +31,10 @@ public class AGameCommander {
         
         APainter.paint();
 
+        // === Count units that got finished ================================
+
+        AUnitCounts.update();
+
         // === Execute code of every Commander and Manager ==================
         
         AStrategyCommander.update();
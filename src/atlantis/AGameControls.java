@@ -0,0 +1,119 @@
+package atlantis;
+
+import static atlantis.Atlantis.getBwapi;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Control-plane queue for commands coming from outside the game loop (keyboard, debug tools) or which
+ * shouldn't be applied in the middle of the frame, like pause or game speed change.
+ * <br /><br />
+ * Any thread can post a command, it never blocks. Commands are applied by the BWAPI thread at the very
+ * beginning of <b>onFrame()</b>, so the BWAPI client is never stalled and frame time isn't skewed.
+ */
+public class AGameControls {
+
+    private enum CommandType {
+        TOGGLE_PAUSE, SET_SPEED, CHANGE_SPEED_BY
+    }
+
+    private static class Command {
+
+        private final CommandType type;
+        private final int value;
+
+        private Command(CommandType type, int value) {
+            this.type = type;
+            this.value = value;
+        }
+
+    }
+
+    /**
+     * setLocalSpeed isn't always respected by Starcraft right away, so it is re-applied on this many
+     * following frames (used to be done by sleeping on the game thread).
+     */
+    private static final int SPEED_REAPPLY_FRAMES = 2;
+
+    private static final ConcurrentLinkedQueue<Command> commands = new ConcurrentLinkedQueue<>();
+
+    private static int speedReapplyFramesLeft = 0;
+
+    // =========================================================
+    // Posting commands, safe to be called from any thread
+
+    /**
+     * Pauses the game if it's running, resumes it if it's paused.
+     */
+    public static void postTogglePause() {
+        commands.add(new Command(CommandType.TOGGLE_PAUSE, 0));
+    }
+
+    /**
+     * Sets game speed. 0 - fastest 1 - very quick 20 - around default
+     */
+    public static void postSetSpeed(int speed) {
+        commands.add(new Command(CommandType.SET_SPEED, speed));
+    }
+
+    /**
+     * Changes game speed by given amount of units, relatively to the speed at the moment of applying.
+     */
+    public static void postChangeSpeedBy(int deltaSpeed) {
+        commands.add(new Command(CommandType.CHANGE_SPEED_BY, deltaSpeed));
+    }
+
+    // =========================================================
+    // Applying commands, BWAPI thread only
+
+    /**
+     * Applies all pending commands. Must be called on the BWAPI thread at the frame boundary.
+     */
+    public static void applyPendingCommands() {
+        if (speedReapplyFramesLeft > 0) {
+            speedReapplyFramesLeft--;
+            getBwapi().setLocalSpeed(AtlantisConfig.GAME_SPEED);
+        }
+
+        Command command;
+        while ((command = commands.poll()) != null) {
+            switch (command.type) {
+                case TOGGLE_PAUSE:
+                    togglePause();
+                    break;
+                case SET_SPEED:
+                    applySpeed(command.value);
+                    break;
+                case CHANGE_SPEED_BY:
+                    applySpeed(AtlantisConfig.GAME_SPEED + command.value);
+                    break;
+            }
+        }
+    }
+
+    private static void togglePause() {
+        if (AGame.isPaused()) {
+            getBwapi().resumeGame();
+            AGame.setPaused(false);
+        }
+        else {
+            getBwapi().pauseGame();
+            AGame.setPaused(true);
+        }
+
+        System.out.println("Notice: " + (AGame.isPaused() ? "" : "UN") + "PAUSED");
+    }
+
+    private static void applySpeed(int speed) {
+        if (speed < 0) {
+            speed = 0;
+        }
+
+        AtlantisConfig.GAME_SPEED = speed;
+        getBwapi().setLocalSpeed(AtlantisConfig.GAME_SPEED);
+        speedReapplyFramesLeft = SPEED_REAPPLY_FRAMES;
+
+        String speedString = AtlantisConfig.GAME_SPEED + (AtlantisConfig.GAME_SPEED == 0 ? " (Max)" : "");
+        AGame.sendMessage("Game speed: " + speedString);
+    }
+
+}
@@ -1,18 +1,28 @@
 package atlantis;
 
+import atlantis.buildings.managers.AGasManager;
 import atlantis.combat.squad.ASquadManager;
+import atlantis.constructing.ABuilderPreTravel;
 import atlantis.constructing.AConstructionManager;
 import atlantis.constructing.ConstructionOrder;
 import atlantis.constructing.ConstructionOrderStatus;
 import atlantis.constructing.ProtossConstructionManager;
+import atlantis.debug.AGameRecorder;
 import atlantis.enemy.AEnemyUnits;
+import atlantis.information.AExpansions;
+import atlantis.information.AOpponentHistory;
 import atlantis.information.AOurUnitsExtraInfo;
 import atlantis.init.AInitialActions;
 import atlantis.production.orders.ABuildOrderLoader;
 import atlantis.production.orders.ABuildOrderManager;
+import atlantis.repair.ASupportAssignment;
 import atlantis.units.AUnit;
+import atlantis.units.AUnitCounts;
+import atlantis.units.AUnitRoles;
 import atlantis.units.AUnitType;
 import atlantis.util.ProcessHelper;
+import atlantis.workers.AMineralGathering;
+import atlantis.workers.AMiningTelemetry;
 import bwapi.*;
 import bwta.BWTA;
 
@@ -99,7 +109,7 @@ public class Atlantis implements BWEventListener {
         // #### INITIALIZE CONFIG AND PRODUCTION QUEUE ####
         // =========================================================
         // Set up base configuration based on race used.
-        Race racePlayed = bwapi.self().getRace(); //AGame.getPlayerUs().getRace();
+        Race racePlayed = AGame.getPlayerUs().getRace();
         if (racePlayed.equals(Race.Protoss)) {
             AtlantisConfig.useConfigForProtoss();
         } else if (racePlayed.equals(Race.Terran)) {
@@ -111,6 +121,8 @@ public class Atlantis implements BWEventListener {
         System.out.print("Analyzing map... ");
         BWTA.readMap();
         BWTA.analyze();
+        AExpansions.initialize();
+        AUnitCounts.initialize();
         System.out.println("Map data ready.");
         
         // === Set some BWAPI params ===============================
@@ -124,7 +136,10 @@ public class Atlantis implements BWEventListener {
         // Set production strategy (build orders) to use. It can be always changed dynamically.
         
         try {
-            ABuildOrderManager.switchToBuildOrder(AtlantisConfig.DEFAULT_BUILD_ORDER);
+            AOpponentHistory.load();
+            ABuildOrderManager.switchToBuildOrder(
+                    AOpponentHistory.chooseBuildOrder(AtlantisConfig.DEFAULT_BUILD_ORDER)
+            );
             
             System.out.println();
             if (ABuildOrderManager.getCurrentBuildOrder() != null) {
@@ -157,6 +172,8 @@ public class Atlantis implements BWEventListener {
         // Validate AtlantisConfig and exit if it's invalid
         AtlantisConfig.validate();
 
+        AGameRecorder.onStart();
+
         // Display ok message
         System.out.println("Atlantis config is valid.");
         System.out.println();
@@ -168,18 +185,17 @@ public class Atlantis implements BWEventListener {
     @Override
     public void onFrame() {
 
-        // === Handle PAUSE ================================================
-        // If game is paused wait 100ms - pause is handled by PauseBreak button
-        while (AGame.isPaused()) {
-            try {
-                Thread.sleep(100);
-            } catch (InterruptedException e) {
-                // No need to handle
-            }
-        } 
+        // === Handle PAUSE and speed changes ==============================
+        // Commands posted by keyboard etc. are applied here, at the frame boundary. BWAPI keeps calling
+        // onFrame while the game is paused, so just skip all the logic instead of blocking.
+        AGameControls.applyPendingCommands();
+        if (AGame.isPaused()) {
+            return;
+        }
 
         // === All game actions that take place every frame ==================================================
         
+        AGameRecorder.onFrameStart();
         try {
             
             // Initial actions - those should be executed only once (optimally assign mineral gatherers).
@@ -199,8 +215,6 @@ public class Atlantis implements BWEventListener {
             else {
                 System.err.println("Game Commander is null, totally screwed.");
             }
-            
-            return;
         } 
 
         // === Catch any exception that occur not to "kill" the bot with one trivial error ===================
@@ -208,6 +222,7 @@ public class Atlantis implements BWEventListener {
             System.err.println("### AN ERROR HAS OCCURRED ###");
             e.printStackTrace();
         }
+        AGameRecorder.onFrameEnd();
     }
 
     /**
@@ -218,14 +233,23 @@ public class Atlantis implements BWEventListener {
      */
     @Override
     public void onUnitCreate(Unit u) {
+        AGameRecorder.onUnitEvent(AGameRecorder.EVENT_CREATE, u);
         AUnit unit = AUnit.createFrom(u);
         if (unit != null) {
             unit.removeTooltip();
+            if (unit.getType().isBuilding()) {
+                ABuilderPreTravel.onBuildingsChanged();
+            }
 
             // Our unit
             if (unit.isOurUnit()) {
+                AUnitCounts.our().refresh(unit);
                 ABuildOrderManager.rebuildQueue();
 
+                if (unit.isBase()) {
+                    AExpansions.baseTaken(unit);
+                }
+
                 // Apply construction fix: detect new Protoss buildings and remove them from queue.
                 if (AGame.playsAsProtoss() && unit.getType().isBuilding()) {
                     ProtossConstructionManager.handleWarpingNewBuilding(unit);
@@ -240,15 +264,22 @@ public class Atlantis implements BWEventListener {
      */
     @Override
     public void onUnitComplete(Unit u) {
+        AGameRecorder.onUnitEvent(AGameRecorder.EVENT_COMPLETE, u);
         AUnit unit = AUnit.createFrom(u);
         if (unit != null) {
             unit.refreshType();
+            if (unit.isOurUnit()) {
+                AUnitCounts.our().refresh(unit);
+            }
             
             ABuildOrderManager.rebuildQueue();
 
             // Our unit
             if (unit.isOurUnit()) {
                 ASquadManager.possibleCombatUnitCreated(unit);
+                if (unit.getType().isGasBuilding()) {
+                    AGasManager.onGasBuildingCompleted(unit);
+                }
             }
         }
         else {
@@ -261,10 +292,24 @@ public class Atlantis implements BWEventListener {
      */
     @Override
     public void onUnitDestroy(Unit u) {
+        AGameRecorder.onUnitEvent(AGameRecorder.EVENT_DESTROY, u);
         AUnit unit = AUnit.createFrom(u);
 
 //        Unit theUnit = AtlantisUnitInformationManager.getUnitDataByID(unit.getID()).getUnit();
         if (unit != null) {
+            AMineralGathering.onUnitDestroyed(unit);
+            AMiningTelemetry.onUnitDestroyed(unit);
+            AGasManager.onUnitDestroyed(unit);
+            ASupportAssignment.onUnitDestroyed(unit);
+            AUnitRoles.onUnitDestroyed(unit);
+            if (unit.getType().isBuilding()) {
+                ABuilderPreTravel.onBuildingsChanged();
+            }
+            AUnitCounts.onUnitDestroyed(unit);
+            if (unit.isBase()) {
+                AExpansions.baseLost(unit);
+            }
+            
             if (unit.isEnemyUnit()) {
                 AEnemyUnits.unitDestroyed(unit);
             }
@@ -292,12 +337,16 @@ public class Atlantis implements BWEventListener {
      */
     @Override
     public void onUnitDiscover(Unit u) {
+        AGameRecorder.onUnitEvent(AGameRecorder.EVENT_DISCOVER, u);
         AUnit unit = AUnit.createFrom(u);
         if (unit != null) {
 
             // Enemy unit
             if (unit.isEnemyUnit()) {
                 AEnemyUnits.discoveredEnemyUnit(unit);
+                if (unit.isBase()) {
+                    AExpansions.baseTaken(unit);
+                }
             }
         }
     }
@@ -307,6 +356,7 @@ public class Atlantis implements BWEventListener {
      */
     @Override
     public void onUnitEvade(Unit u) {
+        AGameRecorder.onUnitEvent(AGameRecorder.EVENT_EVADE, u);
 //        AUnit unit = AUnit.createFrom(u);
     }
 
@@ -315,6 +365,7 @@ public class Atlantis implements BWEventListener {
      */
     @Override
     public void onUnitHide(Unit u) {
+        AGameRecorder.onUnitEvent(AGameRecorder.EVENT_HIDE, u);
 //        AUnit unit = AUnit.createFrom(u);
     }
 
@@ -326,6 +377,7 @@ public class Atlantis implements BWEventListener {
      */
     @Override
     public void onUnitMorph(Unit u) {
+        AGameRecorder.onUnitEvent(AGameRecorder.EVENT_MORPH, u);
         AUnit unit = AUnit.createFrom(u);
 
         // A bit of safe approach: forget the unit and remember it again.
@@ -334,6 +386,9 @@ public class Atlantis implements BWEventListener {
         if (unit != null) {
             if (unit.isOurUnit()) {
                 ASquadManager.battleUnitDestroyed(unit);
+                AMineralGathering.releaseWorker(unit);
+                AMiningTelemetry.releaseWorker(unit);
+                AGasManager.releaseWorker(unit);
             } else {
                 AEnemyUnits.unitDestroyed(unit);
             }
@@ -346,6 +401,7 @@ public class Atlantis implements BWEventListener {
 
             // Our unit
             if (unit.isOurUnit()) {
+                AUnitCounts.our().refresh(unit);
 
                 // === Fix for Zerg Extractor ========================================
                 // Detect morphed gas building meaning construction has just started
@@ -359,6 +415,11 @@ public class Atlantis implements BWEventListener {
                     }
                 }
 
+                // Drone has just morphed into Hatchery
+                if (unit.isBase()) {
+                    AExpansions.baseTaken(unit);
+                }
+
                 // =========================================================
                 ABuildOrderManager.rebuildQueue();
 
@@ -378,6 +439,7 @@ public class Atlantis implements BWEventListener {
      */
     @Override
     public void onUnitShow(Unit u) {
+        AGameRecorder.onUnitEvent(AGameRecorder.EVENT_SHOW, u);
         AUnit unit = AUnit.createFrom(u);
         if (unit.isEnemyUnit()) {
             AEnemyUnits.updateEnemyUnitPosition(unit);
@@ -389,7 +451,11 @@ public class Atlantis implements BWEventListener {
      */
     @Override
     public void onUnitRenegade(Unit u) {
-//        AUnit unit = AUnit.createFrom(u);
+        AGameRecorder.onUnitEvent(AGameRecorder.EVENT_RENEGADE, u);
+        AUnit unit = AUnit.createFrom(u);
+        if (unit != null) {
+            AUnitCounts.our().refresh(unit);
+        }
     }
 
     /**
@@ -420,6 +486,9 @@ public class Atlantis implements BWEventListener {
     @Override
     public void onEnd(boolean winner) {
 //        instance = new Atlantis();
+        AOpponentHistory.saveGameResult(ABuildOrderManager.getCurrentBuildOrder(), winner);
+        AMiningTelemetry.printSummary();
+        AGameRecorder.onEnd(winner);
         ProcessHelper.killStarcraftProcess();
         ProcessHelper.killChaosLauncherProcess();
         System.out.println();
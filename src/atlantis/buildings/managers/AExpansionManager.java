@@ -4,9 +4,12 @@ import atlantis.AGame;
 import atlantis.AtlantisConfig;
 import atlantis.constructing.AConstructionManager;
 import static atlantis.constructing.AConstructionManager.requestConstructionOf;
-import atlantis.information.AMap;
+import atlantis.information.AExpansions;
+import atlantis.production.AResourceLedger;
 import atlantis.production.ProductionOrder;
 import atlantis.production.orders.ABuildOrderManager;
+import atlantis.units.AUnitCounts;
+import atlantis.units.AUnitType;
 import atlantis.units.Select;
 import java.util.ArrayList;
 
@@ -21,20 +24,23 @@ public class AExpansionManager {
 //            return;
 //        }
 
-        if (AGame.playsAsZerg() && !AGame.hasMinerals(1300)) {
+        // Minerals reserved for constructions and the build order aren't ours to expand with
+        int spendableMinerals = AResourceLedger.getSpendableMinerals();
+
+        if (AGame.playsAsZerg() && spendableMinerals < 1300) {
             return;
         }
         
         int minMinerals = 100 + (AGame.playsAsZerg() ? 268 : 356);
 
         // It makes sense to think about expansion only if we have a lot of minerals.
-        if (!AGame.hasMinerals(minMinerals)) {
+        if (spendableMinerals < minMinerals) {
             return;
         }
 
         // If there're still things to produce, don't auto-expand.
         ArrayList<ProductionOrder> nextOrders = ABuildOrderManager.getProductionQueueNext(5);
-        if (nextOrders.size() >= 3 && !AGame.hasMinerals(minMinerals + 50)) {
+        if (nextOrders.size() >= 3 && spendableMinerals < minMinerals + 50) {
             return;
         }
         
@@ -45,14 +51,15 @@ public class AExpansionManager {
         
         // Enforce too have a lot of tanks before expansion
         if (AGame.playsAsTerran() && numberOfBases >= 2) {
-            if (Select.ourTanks().count() <= 8) {
+            if (AUnitCounts.our().countCompleted(
+                    AUnitType.Terran_Siege_Tank_Tank_Mode, AUnitType.Terran_Siege_Tank_Siege_Mode) <= 8) {
                 return;
             }
         }
         
-        // === Check if we have almost as many bases as base locations; if so, exit ======
+        // === Check if there's any free base location left; if not, exit ===============
         
-        if (numberOfBases >= AMap.getBaseLocations().size() - 2) {
+        if (AExpansions.getNextExpansion() == null) {
             return;
         }
 
@@ -60,18 +67,18 @@ public class AExpansionManager {
         int numberOfUnfinishedBases
                 = AConstructionManager.countNotFinishedConstructionsOfType(AtlantisConfig.BASE);
 
-        boolean haveEnoughMinerals = AGame.hasMinerals(minMinerals);
+        boolean haveEnoughMinerals = spendableMinerals >= minMinerals;
         boolean haveEnoughBases = numberOfBases >= 7
                 && AGame.playsAsZerg() && Select.ourLarva().count() >= 2;
         boolean noBaseToConstruct = numberOfUnfinishedBases == 0;
-        boolean allowExtraExpansion = AGame.hasMinerals(minMinerals + 200)
+        boolean allowExtraExpansion = spendableMinerals >= minMinerals + 200
                 && numberOfUnfinishedBases <= 1;
 
         // Check if it makes sense to request new base
         if (haveEnoughMinerals && !haveEnoughBases && (noBaseToConstruct || allowExtraExpansion)) {
             
             // ZERG case
-            if (AGame.playsAsZerg() && AGame.hasMinerals(minMinerals)) {
+            if (AGame.playsAsZerg() && spendableMinerals >= minMinerals) {
                 ProductionOrder fakeProductionOrder = new ProductionOrder(AtlantisConfig.BASE);
                 fakeProductionOrder.setModifier(ProductionOrder.BASE_POSITION_MAIN);
                 
@@ -1,98 +1,264 @@
 package atlantis.buildings.managers;
 
 import atlantis.AGame;
-import atlantis.AtlantisConfig;
-import atlantis.debug.APainter;
+import atlantis.production.orders.ABuildOrderManager;
 import atlantis.units.AUnit;
+import atlantis.units.AUnitRole;
+import atlantis.units.AUnitRoles;
 import atlantis.units.Select;
-import atlantis.workers.AWorkerManager;
-import bwapi.Color;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+/**
+ * Keeps our gas buildings saturated according to gas demand of the production queue.
+ * <br /><br />
+ * Workers assigned to every gas building are kept in sets maintained from events (gather and stop orders,
+ * deaths, buildings completed or destroyed), so no counting over all workers is needed. Every deficit or
+ * surplus is fixed in one decision, by transferring as many workers at once as needed.
+ * <br /><br />
+ * Gas building is saturated as soon as it's completed or loses a worker. All of them are also checked every
+ * <b>VALIDATE_EVERY_FRAMES</b> frames, which catches changed gas demand and workers that wandered off.
+ */
 public class AGasManager {
 
     private static final int MAX_GAS_WORKERS_PER_BUILDING = 3;
 
+    /**
+     * Gas workers per building when upcoming production orders don't need any more gas than we have.
+     */
+    private static final int MIN_GAS_WORKERS_PER_BUILDING = 1;
+
+    /**
+     * How many next production orders are taken into account when defining gas demand.
+     */
+    private static final int ORDERS_TO_CHECK_FOR_GAS_DEMAND = 5;
+
+    /**
+     * Above this amount of gas banked we start to reduce gas workers, if gas isn't needed soon.
+     */
+    private static final int ENOUGH_GAS_BANKED = 400;
+
+    /**
+     * Assigned workers are validated against the game state once per this many frames, to catch workers
+     * that stopped gathering gas on their own, and the number of workers is adjusted to current gas demand.
+     */
+    private static final int VALIDATE_EVERY_FRAMES = 50;
+
+    /**
+     * Completed gas buildings of ours and workers assigned to each of them.
+     */
+    private static final Map<AUnit, Set<AUnit>> gasWorkers = new HashMap<>();
+
+    /**
+     * Gas building every gas worker is assigned to.
+     */
+    private static final Map<AUnit, AUnit> workerGasBuildings = new HashMap<>();
+
+    /**
+     * True while we're moving workers ourselves, so workers we release don't trigger saturation again.
+     */
+    private static boolean isSaturating = false;
+
     // =========================================================
-    
+
     /**
-     * If any of our gas extracting buildings needs worker, it will assign exactly one worker per frame (until
-     * no more needed).
+     * Safety sweep: drops workers that stopped gathering gas on their own and brings every completed gas
+     * building to the desired number of workers. Gas buildings are otherwise saturated from events.
      */
     public static void handleGasBuildings() {
-        
-        // Only once per second
-        if (AGame.getTimeFrames() % 5 != 0) {
+        if (gasWorkers.isEmpty() || AGame.getTimeFrames() % VALIDATE_EVERY_FRAMES != 0) {
             return;
         }
-        int minGasWorkersPerBuilding = defineMinGasWorkersPerBuilding();
-        
-        // =========================================================
-        
-        Collection<AUnit> gasBuildings = (Collection<AUnit>) 
-                Select.ourBuildings().ofType(AtlantisConfig.GAS_BUILDING).listUnits();
-        Collection<AUnit> workers = Select.ourWorkers().listUnits();
-        
-        // =========================================================
-        
-        for (AUnit gasBuilding : gasBuildings) {
-            if (!gasBuilding.isCompleted()) {
-                continue;
-            }
-            
-            int numberOfWorkersAssigned = AWorkerManager.getHowManyWorkersGatheringAt(gasBuilding);
-            APainter.paintTextCentered(gasBuilding, "" + numberOfWorkersAssigned, Color.Green);
-            
-            // Assign when LOWER THAN MIN
-            if (numberOfWorkersAssigned < minGasWorkersPerBuilding) {
-                AUnit worker = getWorkerForGasBuilding(gasBuilding);
-                if (worker != null) {
+
+        removeWorkersNotGatheringGas();
+
+        int desiredWorkers = defineMinGasWorkersPerBuilding();
+        for (AUnit gasBuilding : gasWorkers.keySet()) {
+            saturate(gasBuilding, desiredWorkers);
+        }
+    }
+
+    /**
+     * Brings given gas building to the desired number of workers, all at once.
+     */
+    private static void saturate(AUnit gasBuilding, int desiredWorkers) {
+        isSaturating = true;
+        try {
+            int missingWorkers = desiredWorkers - gasWorkers.get(gasBuilding).size();
+
+            // Assign when LOWER THAN DESIRED
+            if (missingWorkers > 0) {
+                for (AUnit worker : getWorkersForGasBuilding(gasBuilding, missingWorkers)) {
                     worker.gather(gasBuilding);
                 }
-                break; // Only one worker per call
             }
-            
-            // Deassign when MORE THAN MAX
-            else if (numberOfWorkersAssigned > MAX_GAS_WORKERS_PER_BUILDING) {
-                AUnit worker = AWorkerManager.getRandomWorkerAssignedTo(gasBuilding);
-                if (worker != null) {
+
+            // Deassign when MORE THAN DESIRED
+            else if (missingWorkers < 0) {
+                for (AUnit worker : getWorkersToRemoveFrom(gasBuilding, -missingWorkers)) {
                     worker.stop();
                 }
-                break; // Only one worker per call
             }
         }
-        
-        // =========================================================
-        
-//        AUnit gasBuildingNeedingWorker = AtlantisGasManager.getOneGasBuildingNeedingWorker();
-//        if (gasBuildingNeedingWorker != null) {
-//            AUnit worker = Select.ourWorkers().gatheringMinerals(true).first();
-//            if (worker != null) {
-//                worker.gather(gasBuildingNeedingWorker, false);
-//            }
-//        }
+        finally {
+            isSaturating = false;
+        }
+    }
+
+    // === Events ==============================================
+
+    /**
+     * Our gas building has been completed, start tracking it.
+     */
+    public static void onGasBuildingCompleted(AUnit gasBuilding) {
+        if (!gasWorkers.containsKey(gasBuilding)) {
+            gasWorkers.put(gasBuilding, new HashSet<AUnit>());
+            saturate(gasBuilding, defineMinGasWorkersPerBuilding());
+        }
+    }
+
+    /**
+     * Called for every gather order issued to our worker.
+     */
+    public static void onGatherOrder(AUnit worker, AUnit target) {
+        if (target.equals(workerGasBuildings.get(worker))) {
+            return;
+        }
+
+        releaseWorker(worker);
+        Set<AUnit> workers = gasWorkers.get(target);
+        if (workers != null) {
+            workers.add(worker);
+            workerGasBuildings.put(worker, target);
+            AUnitRoles.assign(worker, AUnitRole.GAS);
+        }
     }
-    
+
+    /**
+     * Worker no longer gathers gas e.g. it was stopped, became a builder or died. Unless we've moved it
+     * ourselves, its gas building gets a replacement right away.
+     */
+    public static void releaseWorker(AUnit worker) {
+        AUnit gasBuilding = workerGasBuildings.remove(worker);
+        if (gasBuilding != null) {
+            gasWorkers.get(gasBuilding).remove(worker);
+            AUnitRoles.release(worker, AUnitRole.GAS);
+
+            if (!isSaturating) {
+                saturate(gasBuilding, defineMinGasWorkersPerBuilding());
+            }
+        }
+    }
+
+    /**
+     * Called when any unit gets destroyed. Handles dead workers and lost gas buildings.
+     */
+    public static void onUnitDestroyed(AUnit unit) {
+        if (unit.isWorker()) {
+            releaseWorker(unit);
+        }
+        else if (gasWorkers.containsKey(unit)) {
+            for (AUnit worker : gasWorkers.remove(unit)) {
+                workerGasBuildings.remove(worker);
+                AUnitRoles.release(worker, AUnitRole.GAS);
+            }
+        }
+    }
+
     // =========================================================
-    
-    private static AUnit getWorkerForGasBuilding(AUnit gasBuilding) {
-        return Select.ourWorkers().gatheringMinerals(true).nearestTo(gasBuilding);
+
+    /**
+     * Returns up to <b>howMany</b> mineral gatherers closest to given gas building.
+     */
+    private static List<AUnit> getWorkersForGasBuilding(AUnit gasBuilding, int howMany) {
+        List<AUnit> candidates = Select.ourWorkers().gatheringMinerals(true).inRadius(15, gasBuilding).units()
+                .sortByDistanceTo(gasBuilding.getPosition(), true).arrayList();
+        if (candidates.isEmpty()) {
+            candidates = Select.ourWorkers().gatheringMinerals(true).units()
+                    .sortByDistanceTo(gasBuilding.getPosition(), true).arrayList();
+        }
+
+        // Skip workers sent to other gas building in this very frame
+        List<AUnit> result = new ArrayList<>();
+        for (AUnit worker : candidates) {
+            if (result.size() >= howMany) {
+                break;
+            }
+            if (!workerGasBuildings.containsKey(worker)) {
+                result.add(worker);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns <b>howMany</b> workers assigned to given gas building, preferring those not carrying gas.
+     */
+    private static List<AUnit> getWorkersToRemoveFrom(AUnit gasBuilding, int howMany) {
+        List<AUnit> result = new ArrayList<>();
+        List<AUnit> carrying = new ArrayList<>();
+        for (AUnit worker : gasWorkers.get(gasBuilding)) {
+            if (worker.isCarryingGas()) {
+                carrying.add(worker);
+            }
+            else {
+                result.add(worker);
+            }
+        }
+        result.addAll(carrying);
+
+        return result.subList(0, Math.min(howMany, result.size()));
+    }
+
+    /**
+     * Drops workers that stopped gathering gas without us telling them to.
+     */
+    private static void removeWorkersNotGatheringGas() {
+        Iterator<Map.Entry<AUnit, AUnit>> iterator = workerGasBuildings.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<AUnit, AUnit> entry = iterator.next();
+            if (!entry.getKey().isGatheringGas()) {
+                gasWorkers.get(entry.getValue()).remove(entry.getKey());
+                AUnitRoles.release(entry.getKey(), AUnitRole.GAS);
+                iterator.remove();
+            }
+        }
     }
 
+    /**
+     * Number of workers every gas building should have. It's maximal unless upcoming production orders
+     * don't need more gas than we've already banked.
+     */
     public static int defineMinGasWorkersPerBuilding() {
-        return 3;
-        
-//        int seconds = AGame.getTimeSeconds();
-//        
-//        if (seconds < 150) {
-//            return 1;
-//        }
-//        else if (seconds < 200) {
-//            return 2;
-//        }
-//        else {
-//            return 3;
-//        }
+        int gasBanked = AGame.getGas();
+        int gasDemand = ABuildOrderManager.getGasNeededForNextOrders(ORDERS_TO_CHECK_FOR_GAS_DEMAND);
+
+        if (gasBanked >= ENOUGH_GAS_BANKED && gasDemand <= gasBanked) {
+            return MIN_GAS_WORKERS_PER_BUILDING;
+        }
+
+        return MAX_GAS_WORKERS_PER_BUILDING;
+    }
+
+    /**
+     * Returns number of workers assigned to given gas building.
+     */
+    public static int getWorkersAssignedTo(AUnit gasBuilding) {
+        Set<AUnit> workers = gasWorkers.get(gasBuilding);
+        return workers != null ? workers.size() : 0;
+    }
+
+    /**
+     * Returns all tracked gas buildings.
+     */
+    public static Collection<AUnit> getGasBuildings() {
+        return gasWorkers.keySet();
     }
 
 }
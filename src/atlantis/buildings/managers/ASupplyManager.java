@@ -3,6 +3,7 @@ package atlantis.buildings.managers;
 import atlantis.AGame;
 import atlantis.AtlantisConfig;
 import atlantis.constructing.AConstructionManager;
+import atlantis.production.AResourceLedger;
 import atlantis.production.orders.ABuildOrderManager;
 import atlantis.production.orders.ZergBuildOrder;
 import atlantis.units.AUnitType;
@@ -21,7 +22,8 @@ public class ASupplyManager {
          * Check if should use auto supply manager
          */
         if (supplyTotal >= AtlantisConfig.USE_AUTO_SUPPLY_MANAGER_WHEN_SUPPLY_EXCEEDS) {
-            supplyFree = AGame.getSupplyFree();
+            // Supply of units in the build order we're about to produce is as good as used
+            supplyFree = AResourceLedger.getSupplyFreeNow() - AResourceLedger.getReservedSupply();
 
             int suppliesBeingBuilt = requestedConstructionOfSupplyNumber();
             boolean noSuppliesBeingBuilt = suppliesBeingBuilt == 0;
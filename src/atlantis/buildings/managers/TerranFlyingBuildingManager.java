@@ -5,6 +5,9 @@ import atlantis.combat.squad.missions.Mission;
 import atlantis.combat.squad.missions.Missions;
 import atlantis.position.APosition;
 import atlantis.units.AUnit;
+import atlantis.units.AUnitCounts;
+import atlantis.units.AUnitRole;
+import atlantis.units.AUnitRoles;
 import atlantis.units.AUnitType;
 import atlantis.units.Select;
 import atlantis.units.actions.UnitActions;
@@ -69,7 +72,8 @@ public class TerranFlyingBuildingManager {
             return false;
         }
         
-        if (Select.ourTanks().count() < 1) {
+        if (AUnitCounts.our().countCompleted(
+                AUnitType.Terran_Siege_Tank_Tank_Mode, AUnitType.Terran_Siege_Tank_Siege_Mode) < 1) {
             return false;
         }
         
@@ -81,18 +85,20 @@ public class TerranFlyingBuildingManager {
         if (barracks != null) {
             barracks.lift();
             flyingBuildings.add(barracks);
+            AUnitRoles.assign(barracks, AUnitRole.FLYING_BUILDING);
         }
         else {
             AUnit engBay = Select.ourOfType(AUnitType.Terran_Engineering_Bay).idle().first();
             engBay.lift();
             flyingBuildings.add(engBay);
+            AUnitRoles.assign(engBay, AUnitRole.FLYING_BUILDING);
         }
     }
     
     // =========================================================
 
     public static boolean isFlyingBuilding(AUnit unit) {
-        return unit.getType().isBuilding() && flyingBuildings.contains(unit);
+        return AUnitRoles.has(unit, AUnitRole.FLYING_BUILDING);
     }
     
 }
@@ -6,6 +6,8 @@ import atlantis.combat.squad.Squad;
 import atlantis.combat.squad.missions.Missions;
 import atlantis.units.AUnit;
 import atlantis.util.CodeProfiler;
+import java.util.ArrayList;
+import java.util.List;
 
 public class ACombatCommander {
     
@@ -20,8 +22,17 @@ public class ACombatCommander {
         if (AGame.getTimeFrames() % 20 == 0) {
             Missions.handleGlobalMission();
         }
+        ASquadManager.rebalanceSquads();
         
-        // === Handle all squads ========================================
+        // === Decide - evaluate all squad units in parallel ============
+        
+        List<AUnit> units = new ArrayList<>();
+        for (Squad squad : ASquadManager.getSquads()) {
+            units.addAll(squad.arrayList());
+        }
+        ACombatSnapshot.decide(units);
+        
+        // === Commit - handle all squads, orders are issued serially ===
         
         for (Squad squad : ASquadManager.getSquads()) {
             handleSquad(squad);
@@ -40,11 +51,14 @@ public class ACombatCommander {
      */
     private static void handleSquad(Squad squad) {
 
-        // Make sure this battle squad has up-to-date strategy
-        if (!Missions.getGlobalMission().equals(squad.getMission())) {
+        // Main squad follows global mission, other squads have missions of their own
+        if (squad == ASquadManager.getAlphaSquad() && !Missions.getGlobalMission().equals(squad.getMission())) {
             squad.setMission(Missions.getGlobalMission());
         }
 
+        // Formation slots are computed for all units at once, units just look up their slots
+        squad.getFormation().update();
+
         // =========================================================
         
         // Act with every combat unit
@@ -36,7 +36,7 @@ public class ACombatEvaluator {
     /**
      * Maximum allowed value as a result of evaluation.
      */
-    private static int MAX_VALUE = 999999999;
+    static final int MAX_VALUE = 999999999;
 
     /**
      * Stores the instances of AtlantisCombatInformation for each unit
@@ -53,7 +53,7 @@ public class ACombatEvaluator {
      */
     public static boolean isSituationFavorable(AUnit unit, boolean isPendingFight) {
         AUnit nearestEnemy = Select.enemy().nearestTo(unit);
-        if (nearestEnemy == null || unit.distanceTo(nearestEnemy) >= 15) {
+        if (nearestEnemy == null || !unit.isInRadius(nearestEnemy, 15)) {
             return true;
         }
 
@@ -88,6 +88,13 @@ public class ACombatEvaluator {
      * <b>NEGATIVE</b> when enemy is too strong and we should pull back.
      */
     public static double evaluateSituation(AUnit unit) {
+        
+        // Use value calculated in the decision phase of this frame, if present
+        Double evaluation = ACombatSnapshot.getEvaluation(unit);
+        if (evaluation != null) {
+            return updateCombatEval(unit, evaluation);
+        }
+        
         return evaluateSituation(unit, false, false);
     }
 
@@ -185,7 +192,7 @@ public class ACombatEvaluator {
                         strength += 1.3 * unitStrengthEval;
                     }
 
-                    if (PositionUtil.distanceTo(unit, againstUnit) <= 8.5) {
+                    if (PositionUtil.isInRadius(unit, againstUnit, 8.5)) {
                         enemyDefensiveBuildingInRange = true;
                     }
                 }
@@ -213,22 +220,26 @@ public class ACombatEvaluator {
     // =========================================================
     
     private static double evaluateUnitHPandDamage(AUnit evaluate, AUnit againstUnit) {
-        return evaluateUnitHPandDamage(evaluate.getType(), evaluate.getHitPoints(), againstUnit);
+        return evaluateUnitHPandDamage(evaluate.getType(), evaluate.getHitPoints(), againstUnit.isAirUnit());
     }
 
     private static double evaluateUnitHPandDamage(AUnitType evaluate, AUnit againstUnit) {
+        return evaluateUnitHPandDamage(evaluate, againstUnit.isAirUnit());
+    }
+
+    static double evaluateUnitHPandDamage(AUnitType evaluate, boolean againstAirUnit) {
 //        System.out.println(evaluate.getType() + " damage: " + evaluate.getType().getGroundWeapon().getDamageNormalized());
-        return evaluateUnitHPandDamage(evaluate, evaluate.getMaxHitPoints(), againstUnit);
+        return evaluateUnitHPandDamage(evaluate, evaluate.getMaxHitPoints(), againstAirUnit);
     }
 
-    private static double evaluateUnitHPandDamage(AUnitType evaluateType, int hp, AUnit againstUnit) {
+    static double evaluateUnitHPandDamage(AUnitType evaluateType, int hp, boolean againstAirUnit) {
         if (evaluateType.isSpiderMine() || evaluateType.isNeutralType() || evaluateType.isInvincible()) {
             return 0;
         }
         
         // =========================================================
         
-        double damage = ( againstUnit.isAirUnit()
+        double damage = ( againstAirUnit
             ? WeaponUtil.getDamageNormalized(evaluateType.getAirWeapon())
             : WeaponUtil.getDamageNormalized(evaluateType.getGroundWeapon())
         );
@@ -93,7 +93,7 @@ public class ACombatEvaluatorExtraConditions {
     // =========================================================
 
     private static boolean isNearestEnemyQuiteFar() {
-        return nearestEnemy == null || PositionUtil.distanceTo(nearestEnemy, unit) > 12.2;
+        return nearestEnemy == null || !PositionUtil.isInRadius(nearestEnemy, unit, 12.2);
     }
     
 }
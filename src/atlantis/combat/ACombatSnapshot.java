@@ -0,0 +1,325 @@
+package atlantis.combat;
+
+import atlantis.AGame;
+import atlantis.units.AUnit;
+import atlantis.units.AUnitType;
+import atlantis.units.Select;
+import atlantis.util.PositionUtil;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Frozen, per-frame copy of everything <b>ACombatEvaluator.evaluateSituation()</b> needs to know about
+ * combat units, kept in primitive arrays.
+ * <br /><br />
+ * Combat is handled in two phases:<br />
+ * - <b>decide</b> - the snapshot is read from BWMirror on the BWAPI thread, then combat evaluations of
+ * all squad units are calculated in parallel on a ForkJoin pool, touching only the arrays below,<br />
+ * - <b>commit</b> - micro managers run serially on the BWAPI thread and issue orders, using evaluations
+ * calculated in the first phase.
+ * <br /><br />
+ * BWMirror is not thread-safe, so nothing in the parallel part may call it. Game state doesn't change
+ * during one frame, so precalculated evaluation equals the one that would be calculated on demand.
+ */
+public class ACombatSnapshot {
+
+    /**
+     * Below this number of evaluated units the work is too small to be split between threads.
+     */
+    private static final int MIN_UNITS_FOR_PARALLEL = 24;
+
+    /**
+     * Number of evaluated units processed by a single ForkJoin task.
+     */
+    private static final int UNITS_PER_TASK = 8;
+
+    /**
+     * If true, every parallel evaluation is repeated serially and any difference is reported. Slow, use
+     * only for debugging.
+     */
+    public static boolean VERIFY_PARALLEL_EVALUATION = false;
+
+    private static final double ENEMY_RADIUS_SQUARED_PX = PositionUtil.radiusSquaredPx(12);
+    private static final double OUR_RADIUS_SQUARED_PX = PositionUtil.radiusSquaredPx(8.5);
+
+    private static final ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    private static ACombatSnapshot current = null;
+
+    // =========================================================
+
+    private final int frame;
+    private final Group enemies;
+    private final Group ours;
+
+    /**
+     * Units evaluated in this frame (squad members), with their own geometry.
+     */
+    private final AUnit[] units;
+    private final Group evaluated;
+    private final int[] lowHealthPenalty;
+
+    private final double[] evaluations;
+    private final Map<AUnit, Integer> indexes;
+
+    // =========================================================
+
+    private ACombatSnapshot(List<AUnit> unitsToEvaluate) {
+        frame = AGame.getTimeFrames();
+        enemies = new Group(Select.enemy().combatUnits().listUnits());
+        ours = new Group(Select.our().combatUnits().listUnits());
+
+        units = unitsToEvaluate.toArray(new AUnit[unitsToEvaluate.size()]);
+        evaluated = new Group(unitsToEvaluate);
+        lowHealthPenalty = new int[units.length];
+        indexes = new HashMap<>(units.length * 2);
+        for (int i = 0; i < units.length; i++) {
+            lowHealthPenalty[i] = (100 - units[i].getHPPercent()) / 80;
+            indexes.put(units[i], i);
+        }
+
+        evaluations = new double[units.length];
+    }
+
+    // =========================================================
+
+    /**
+     * Decision phase. Reads the snapshot for given units and evaluates all of them, in parallel if there
+     * are enough of them. Must be called from the BWAPI thread.
+     */
+    public static void decide(List<AUnit> unitsToEvaluate) {
+        current = new ACombatSnapshot(unitsToEvaluate);
+
+        if (current.units.length >= MIN_UNITS_FOR_PARALLEL && pool.getParallelism() > 1) {
+            pool.invoke(current.new EvaluateTask(0, current.units.length));
+
+            if (VERIFY_PARALLEL_EVALUATION) {
+                current.verifyAgainstSerialEvaluation();
+            }
+        }
+        else {
+            current.evaluateRange(0, current.units.length);
+        }
+    }
+
+    /**
+     * Returns combat evaluation of given unit calculated in the decision phase of the current frame or null
+     * if the unit wasn't evaluated in this frame.
+     */
+    public static Double getEvaluation(AUnit unit) {
+        if (current == null || current.frame != AGame.getTimeFrames()) {
+            return null;
+        }
+
+        Integer index = current.indexes.get(unit);
+        return index != null ? current.evaluations[index] : null;
+    }
+
+    // =========================================================
+
+    private void evaluateRange(int from, int to) {
+        for (int i = from; i < to; i++) {
+            evaluations[i] = evaluate(i);
+        }
+    }
+
+    /**
+     * Same algorithm as <b>ACombatEvaluator.evaluateSituation()</b>, but operating on the snapshot only.
+     */
+    private double evaluate(int unitIndex) {
+        int[] nearEnemies = enemies.inRadius(evaluated, unitIndex, ENEMY_RADIUS_SQUARED_PX);
+        if (nearEnemies.length == 0) {
+            return ACombatEvaluator.MAX_VALUE;
+        }
+        int[] nearOurs = ours.inRadius(evaluated, unitIndex, OUR_RADIUS_SQUARED_PX);
+
+        double enemyEvaluation = enemies.evaluateAgainst(nearEnemies, evaluated, unitIndex, true);
+        double ourEvaluation = ours.evaluateAgainst(nearOurs, enemies, nearEnemies[0], false);
+
+        return ourEvaluation / enemyEvaluation - 1 - lowHealthPenalty[unitIndex];
+    }
+
+    /**
+     * Determinism check: serial evaluation must give exactly the same results as the parallel one.
+     */
+    private void verifyAgainstSerialEvaluation() {
+        double[] parallelEvaluations = Arrays.copyOf(evaluations, evaluations.length);
+        evaluateRange(0, units.length);
+
+        for (int i = 0; i < units.length; i++) {
+            if (Double.doubleToLongBits(parallelEvaluations[i]) != Double.doubleToLongBits(evaluations[i])) {
+                System.err.println("Parallel combat evaluation differs for " + units[i] + ": "
+                        + parallelEvaluations[i] + " vs serial " + evaluations[i]);
+            }
+        }
+    }
+
+    // =========================================================
+
+    private class EvaluateTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        private EvaluateTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= UNITS_PER_TASK) {
+                evaluateRange(from, to);
+            }
+            else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new EvaluateTask(from, middle), new EvaluateTask(middle, to));
+            }
+        }
+
+    }
+
+    // =========================================================
+
+    /**
+     * Units of one kind (e.g. enemy combat units) as parallel arrays, index-aligned.
+     */
+    private static class Group {
+
+        private final int size;
+        private final int[] left;
+        private final int[] top;
+        private final int[] right;
+        private final int[] bottom;
+        private final boolean[] isAir;
+
+        /**
+         * Strength of the unit, as seen by a ground and by an air unit.
+         */
+        private final double[] strengthVsGround;
+        private final double[] strengthVsAir;
+
+        /**
+         * True if unit is a completed defensive building able to shoot at ground/air units.
+         */
+        private final boolean[] isDefensiveVsGround;
+        private final boolean[] isDefensiveVsAir;
+
+        private Group(Collection<AUnit> units) {
+            size = units.size();
+            left = new int[size];
+            top = new int[size];
+            right = new int[size];
+            bottom = new int[size];
+            isAir = new boolean[size];
+            strengthVsGround = new double[size];
+            strengthVsAir = new double[size];
+            isDefensiveVsGround = new boolean[size];
+            isDefensiveVsAir = new boolean[size];
+
+            int i = 0;
+            for (AUnit unit : units) {
+                AUnitType type = unit.getType();
+                left[i] = unit.getX() - type.getDimensionLeft();
+                top[i] = unit.getY() - type.getDimensionUp();
+                right[i] = unit.getX() + type.getDimensionRight();
+                bottom[i] = unit.getY() + type.getDimensionDown();
+                isAir[i] = unit.isAirUnit();
+
+                double evalVsGround = ACombatEvaluator.evaluateUnitHPandDamage(type, unit.getHitPoints(), false);
+                double evalVsAir = ACombatEvaluator.evaluateUnitHPandDamage(type, unit.getHitPoints(), true);
+
+                if (unit.isWorker()) {
+                    strengthVsGround[i] = 0.2 * evalVsGround;
+                    strengthVsAir[i] = 0.2 * evalVsAir;
+                }
+                else if (type.isBuilding() && unit.isCompleted()) {
+                    isDefensiveVsGround[i] = type.isMilitaryBuilding(true, false);
+                    isDefensiveVsAir[i] = type.isMilitaryBuilding(false, true);
+                    if (type.equals(AUnitType.Terran_Bunker)) {
+                        evalVsGround = 7 * ACombatEvaluator.evaluateUnitHPandDamage(AUnitType.Terran_Marine, false);
+                        evalVsAir = 7 * ACombatEvaluator.evaluateUnitHPandDamage(AUnitType.Terran_Marine, true);
+                    }
+                    else {
+                        evalVsGround *= 1.3;
+                        evalVsAir *= 1.3;
+                    }
+                    strengthVsGround[i] = isDefensiveVsGround[i] ? evalVsGround : 0;
+                    strengthVsAir[i] = isDefensiveVsAir[i] ? evalVsAir : 0;
+                }
+                else {
+                    strengthVsGround[i] = evalVsGround;
+                    strengthVsAir[i] = evalVsAir;
+                }
+                i++;
+            }
+        }
+
+        /**
+         * Squared edge-to-edge distance in pixels between unit <b>i</b> of this group and unit
+         * <b>otherIndex</b> of <b>other</b> group, the same as <b>PositionUtil.distanceSquaredPx()</b>.
+         */
+        private int distanceSquaredPx(int i, Group other, int otherIndex) {
+            return PositionUtil.edgeDistanceSquaredPx(
+                    left[i], top[i], right[i], bottom[i],
+                    other.left[otherIndex] - 1, other.top[otherIndex] - 1,
+                    other.right[otherIndex] + 1, other.bottom[otherIndex] + 1
+            );
+        }
+
+        /**
+         * Returns indexes (in original order) of units within given radius from the other unit.
+         */
+        private int[] inRadius(Group other, int otherIndex, double radiusSquaredPx) {
+            int[] result = new int[size];
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                if (distanceSquaredPx(i, other, otherIndex) <= radiusSquaredPx) {
+                    result[count++] = i;
+                }
+            }
+            return Arrays.copyOf(result, count);
+        }
+
+        /**
+         * Same as <b>ACombatEvaluator.evaluateUnitsAgainstUnit()</b>.
+         */
+        private double evaluateAgainst(int[] indexes, Group against, int againstIndex, boolean isEnemyEval) {
+            boolean againstAir = against.isAir[againstIndex];
+            double strength = 0;
+            boolean defensiveBuildingFound = false;
+            boolean defensiveBuildingInRange = false;
+
+            for (int i : indexes) {
+                strength += againstAir ? strengthVsAir[i] : strengthVsGround[i];
+
+                if (againstAir ? isDefensiveVsAir[i] : isDefensiveVsGround[i]) {
+                    defensiveBuildingFound = true;
+                    if (distanceSquaredPx(i, against, againstIndex) <= OUR_RADIUS_SQUARED_PX) {
+                        defensiveBuildingInRange = true;
+                    }
+                }
+            }
+
+            if (!isEnemyEval) {
+                if (defensiveBuildingFound) {
+                    strength += 100;
+                }
+                if (defensiveBuildingInRange) {
+                    strength += 100;
+                }
+            }
+
+            return strength;
+        }
+
+    }
+
+}
@@ -93,7 +93,7 @@ public class ACombatUnitManager extends AbstractMicroManager {
         }
         else {
             unit.setTooltip("Mission:" + squad.getMission().getName());
-            return squad.getMission().update(unit);
+            return squad.getMission().update(unit, squad.getMissionContext());
         }
     }
 
@@ -26,6 +26,9 @@ public class AAttackEnemyUnit {
         
         // Don't interrupt when shooting or starting to shoot
         if (unit.isJustShooting()) {
+            if (unit.getTarget() != null) {
+                ADamageLedger.commit(unit, unit.getTarget());
+            }
             unit.setTooltip("Shooting");
             return true;
         }
@@ -0,0 +1,194 @@
+package atlantis.combat.micro;
+
+import atlantis.AGame;
+import atlantis.units.AUnit;
+import atlantis.util.WeaponUtil;
+import bwapi.WeaponType;
+import java.util.Arrays;
+
+/**
+ * Damage that is about to hit every enemy unit, from our units already committed to attack it.
+ * <br /><br />
+ * Every attacker has exactly one entry (its target and expected damage), which is replaced when the attacker
+ * commits to another target and expires if the attacker doesn't confirm it for a frame. Totals per target
+ * are kept up to date on every change, so querying is a single array read. All data lives in primitive
+ * arrays indexed by unit ID.
+ */
+public class ADamageLedger {
+
+    /**
+     * Damage of shots fired within this many frames is counted as incoming.
+     */
+    private static final int HORIZON_FRAMES = 24;
+
+    /**
+     * Entry of an attacker which wasn't confirmed for longer than this many frames is removed.
+     */
+    private static final int EXPIRE_AFTER_FRAMES = 1;
+
+    // =========================================================
+
+    /**
+     * Incoming damage per target ID.
+     */
+    private static double[] incomingDamage = new double[1024];
+
+    /**
+     * Target ID, expected damage and frame of the last confirmation per attacker ID.
+     */
+    private static int[] attackerTarget = newIntArray(1024, -1);
+    private static double[] attackerDamage = new double[1024];
+    private static int[] attackerFrame = new int[1024];
+
+    /**
+     * IDs of attackers having an entry; only these are checked for expiration.
+     */
+    private static int[] activeAttackers = new int[256];
+    private static boolean[] isActive = new boolean[1024];
+    private static int activeAttackersCount = 0;
+
+    private static int lastExpirationFrame = -1;
+
+    // =========================================================
+
+    /**
+     * Records that given attacker is going to attack given target. Replaces the previous entry of the
+     * attacker, if any.
+     */
+    public static void commit(AUnit attacker, AUnit target) {
+        expireOldEntriesIfNeeded();
+
+        int attackerId = attacker.getID();
+        int targetId = target.getID();
+        ensureCapacity(Math.max(attackerId, targetId));
+
+        removeEntry(attackerId);
+
+        double damage = expectedDamage(attacker, target);
+        if (!isActive[attackerId]) {
+            addActive(attackerId);
+        }
+        attackerTarget[attackerId] = targetId;
+        attackerDamage[attackerId] = damage;
+        attackerFrame[attackerId] = AGame.getTimeFrames();
+        incomingDamage[targetId] += damage;
+    }
+
+    /**
+     * Returns damage other units are about to deal to given target, ignoring the contribution of
+     * <b>attacker</b> itself.
+     */
+    public static double getIncomingDamage(AUnit target, AUnit attacker) {
+        expireOldEntriesIfNeeded();
+
+        int targetId = target.getID();
+        if (targetId >= incomingDamage.length) {
+            return 0;
+        }
+
+        double damage = incomingDamage[targetId];
+        int attackerId = attacker != null ? attacker.getID() : -1;
+        if (attackerId >= 0 && attackerId < attackerTarget.length && attackerTarget[attackerId] == targetId) {
+            damage -= attackerDamage[attackerId];
+        }
+        return Math.max(0, damage);
+    }
+
+    /**
+     * Returns true if given attacker is currently committed to attack given target.
+     */
+    public static boolean isCommittedTo(AUnit attacker, AUnit target) {
+        expireOldEntriesIfNeeded();
+
+        int attackerId = attacker.getID();
+        return attackerId < attackerTarget.length && attackerTarget[attackerId] == target.getID();
+    }
+
+    /**
+     * Returns damage given unit is going to deal to given target within <b>HORIZON_FRAMES</b>, based on
+     * weapon damage, cooldown and target armor.
+     */
+    public static double expectedDamage(AUnit attacker, AUnit target) {
+        WeaponType weapon = attacker.getWeaponAgainst(target);
+        if (weapon == WeaponType.None) {
+            return 0;
+        }
+
+        double damagePerShot = Math.max(1, WeaponUtil.getDamageNormalized(weapon) - target.getType().ut().armor());
+
+        int cooldownLeft = target.isAirUnit() ? attacker.getAirWeaponCooldown() : attacker.getGroundWeaponCooldown();
+        if (cooldownLeft > HORIZON_FRAMES) {
+            return 0;
+        }
+        int shots = 1 + (HORIZON_FRAMES - cooldownLeft) / Math.max(1, weapon.damageCooldown());
+        return damagePerShot * shots;
+    }
+
+    // =========================================================
+
+    private static void removeEntry(int attackerId) {
+        int targetId = attackerTarget[attackerId];
+        if (targetId != -1) {
+            incomingDamage[targetId] -= attackerDamage[attackerId];
+            attackerTarget[attackerId] = -1;
+            attackerDamage[attackerId] = 0;
+        }
+    }
+
+    /**
+     * Removes entries of attackers that didn't confirm their target recently, e.g. they died or retreated.
+     */
+    private static void expireOldEntriesIfNeeded() {
+        int frame = AGame.getTimeFrames();
+        if (frame == lastExpirationFrame) {
+            return;
+        }
+        lastExpirationFrame = frame;
+
+        int kept = 0;
+        for (int i = 0; i < activeAttackersCount; i++) {
+            int attackerId = activeAttackers[i];
+            if (frame - attackerFrame[attackerId] > EXPIRE_AFTER_FRAMES) {
+                removeEntry(attackerId);
+                isActive[attackerId] = false;
+            }
+            else {
+                activeAttackers[kept++] = attackerId;
+            }
+        }
+        activeAttackersCount = kept;
+    }
+
+    private static void addActive(int attackerId) {
+        if (activeAttackersCount == activeAttackers.length) {
+            activeAttackers = Arrays.copyOf(activeAttackers, activeAttackers.length * 2);
+        }
+        activeAttackers[activeAttackersCount++] = attackerId;
+        isActive[attackerId] = true;
+    }
+
+    private static void ensureCapacity(int id) {
+        if (id < incomingDamage.length) {
+            return;
+        }
+
+        int newLength = incomingDamage.length;
+        while (newLength <= id) {
+            newLength *= 2;
+        }
+        int oldLength = attackerTarget.length;
+        incomingDamage = Arrays.copyOf(incomingDamage, newLength);
+        attackerTarget = Arrays.copyOf(attackerTarget, newLength);
+        Arrays.fill(attackerTarget, oldLength, newLength, -1);
+        attackerDamage = Arrays.copyOf(attackerDamage, newLength);
+        attackerFrame = Arrays.copyOf(attackerFrame, newLength);
+        isActive = Arrays.copyOf(isActive, newLength);
+    }
+
+    private static int[] newIntArray(int length, int value) {
+        int[] array = new int[length];
+        Arrays.fill(array, value);
+        return array;
+    }
+
+}
@@ -2,119 +2,180 @@ package atlantis.combat.micro;
 
 import atlantis.AGame;
 import atlantis.units.AUnit;
+import atlantis.units.AUnitGrid;
 import atlantis.units.AUnitType;
 import atlantis.units.Select;
 import atlantis.util.PositionUtil;
+import bwapi.WeaponType;
+import java.util.List;
 
+/**
+ * Chooses targets by scoring every enemy near the unit in a single pass: type priority, threat, how fast it
+ * can be killed and how far it is.
+ * <br /><br />
+ * Damage already incoming from other units (see <b>ADamageLedger</b>) is taken into account, so units focus
+ * fire on targets that will die soon, but excess attackers are redirected instead of wasting shots on
+ * targets that will be dead anyway.
+ * <br /><br />
+ * Units stick to the target they've committed to: it gets a bonus and it counts as overkill only when the
+ * damage of others exceeds what it needs by a clear surplus. Otherwise attackers handled one after another
+ * would see each other's damage as overkill, all switch targets and switch back in the next frame, losing
+ * shots every time the attack order is re-issued.
+ */
 public class AEnemyTargeting {
 
     /**
-     * For given <b>unit</b> it defines the best close range target from enemy units. The target is not
-     * necessarily in the shoot range. Will return <i>null</i> if no enemy can is visible.
+     * Only enemies this close (in tiles) are considered at all.
+     */
+    private static final double SCAN_RADIUS = 14;
+
+    /**
+     * Enemies out of shot range by less than this (in tiles) are preferred targets. Enemies further away are
+     * chased only when there's no such enemy.
+     */
+    private static final double RANGE_MARGIN = 2;
+
+    /**
+     * Game time (in seconds) before which real units get a higher score than later in the game.
+     */
+    private static final int EARLY_GAME_SECONDS = 180;
+
+    // === Score weights =======================================
+
+    private static final double SCORE_SPIDER_MINE = 1000;
+    private static final double SCORE_TOP_PRIORITY_UNIT = 60;
+    private static final double SCORE_DEFENSIVE_BUILDING = 30;
+    private static final double SCORE_REAL_UNIT_EARLY_GAME = 25;
+    private static final double SCORE_REAL_UNIT = 20;
+    private static final double SCORE_IMPORTANT_BUILDING = 10;
+    private static final double SCORE_CAN_ATTACK_US = 15;
+    private static final double SCORE_QUICK_KILL = 20;
+    private static final double SCORE_OVERKILL = -50;
+    private static final double SCORE_PER_TILE_AWAY = -0.5;
+    private static final double SCORE_PER_TILE_OUT_OF_RANGE = -3;
+    private static final double SCORE_BEYOND_RANGE_MARGIN = -500;
+    private static final double SCORE_CURRENT_TARGET = 15;
+
+    /**
+     * Current target counts as overkill only if damage of other units exceeds its hit points and shields by
+     * more than this fraction of them.
+     */
+    private static final double CURRENT_TARGET_OVERKILL_SURPLUS = 0.5;
+
+    // =========================================================
+
+    /**
+     * For given <b>unit</b> it defines the best target from enemy units within <b>SCAN_RADIUS</b>. Enemies in
+     * shoot range (or almost) are preferred; if there are none, e.g. for melee units, the best enemy further
+     * away is returned, so the unit goes for it. Will return <i>null</i> if no enemy nearby can be attacked.
      */
     public static AUnit defineBestEnemyToAttackFor(AUnit unit) {
-        Select<AUnit> enemySelector = Select.enemy();
-        if (enemySelector.inRadius(14, unit).count() == 0) {
+        List<AUnit> enemiesNearby = AUnitGrid.enemies().inRadius(unit, SCAN_RADIUS);
+        if (enemiesNearby.isEmpty()) {
             return null;
         }
-        
-        boolean canAttackGround = unit.canAttackGroundUnits(); 
-        boolean canAttackAir = unit.canAttackAirUnits(); 
-        AUnit nearestEnemy = null;
-        
-//        Select<AUnit> enemiesThatCanBeAttackedSelector = Select.enemy(canAttackGround, canAttackAir).visible();
-        Select<AUnit> enemiesThatCanBeAttackedSelector = Select.enemy().canBeAttackedBy(unit).visible();
-
-        // === Attack units nears main =============================
-        
-//        AUnit mainBase = Select.mainBase();
-//        if (mainBase != null) {
-//            nearestEnemy = enemySelector.visible()
-//                    .canBeAttackedBy(unit)
-//                    .inRadius(50, mainBase)
-//                    .nearestTo(mainBase);
-//        }
-        
-        // =========================================================
-        // Attack deadliest shit out there
-        
-        nearestEnemy = enemySelector.visible()
-                .ofType(AUnitType.Terran_Vulture_Spider_Mine)
-                .nearestTo(unit);
-        if (nearestEnemy != null) {
-            return nearestEnemy;
+
+        boolean isEarlyGame = AGame.getTimeSeconds() < EARLY_GAME_SECONDS;
+        AUnit mainBase = Select.mainBase();
+        AUnit bestTarget = null;
+        double bestScore = -Double.MAX_VALUE;
+
+        for (AUnit enemy : enemiesNearby) {
+            if (!enemy.isVisible() || enemy.getHitPoints() < 1 || !unit.canAttackThisKindOfUnit(enemy, false)) {
+                continue;
+            }
+
+            boolean isCurrentTarget = ADamageLedger.isCommittedTo(unit, enemy);
+            double score = scoreTarget(unit, enemy, isEarlyGame, mainBase, isCurrentTarget);
+            if (score > bestScore) {
+                bestScore = score;
+                bestTarget = enemy;
+            }
         }
-        
-        // =========================================================
-        // Attack top priority units
-        
-        nearestEnemy = enemiesThatCanBeAttackedSelector
-                .canBeAttackedBy(unit)
-                .ofType(
-                        AUnitType.Terran_Siege_Tank_Siege_Mode,
-                        AUnitType.Terran_Siege_Tank_Tank_Mode,
-                        AUnitType.Protoss_Reaver,
-                        AUnitType.Zerg_Lurker
-                ).nearestTo(unit);
-        if (nearestEnemy != null) {
-            return nearestEnemy;
+
+        return bestTarget;
+    }
+
+    // =========================================================
+
+    /**
+     * Returns score of given enemy as a target for given unit. Enemies further out of shoot range than
+     * <b>RANGE_MARGIN</b> score lower than any enemy within it.
+     */
+    private static double scoreTarget(AUnit unit, AUnit enemy, boolean isEarlyGame, AUnit mainBase,
+            boolean isCurrentTarget) {
+        AUnitType type = enemy.getType();
+        double distance = PositionUtil.distanceTo(unit, enemy);
+
+        // Spider mines are the deadliest thing out there, whatever the range
+        if (type.equals(AUnitType.Terran_Vulture_Spider_Mine)) {
+            return SCORE_SPIDER_MINE + distance * SCORE_PER_TILE_AWAY;
         }
-        
-        // =========================================================
-        // Attack nearest enemy
-        if (AGame.getTimeSeconds() < 180) {
-            nearestEnemy = Select.enemyRealUnits()
-                    .canBeAttackedBy(unit)
-                    .nearestTo(unit);
-            if (nearestEnemy != null && nearestEnemy.getType().isWorker() 
-                    && PositionUtil.distanceTo(nearestEnemy, Select.mainBase()) < 30) {
-//                return null;
-            }
-            else {
-                return nearestEnemy;
+
+        double outOfRange = distance - unit.getWeaponAgainst(enemy).maxRange() / 32.0;
+
+        // === Type priority =======================================
+
+        double score;
+        if (type.isType(AUnitType.Terran_Siege_Tank_Siege_Mode, AUnitType.Terran_Siege_Tank_Tank_Mode,
+                AUnitType.Protoss_Reaver, AUnitType.Zerg_Lurker)) {
+            score = SCORE_TOP_PRIORITY_UNIT;
+        }
+        else if (type.isType(AUnitType.Protoss_Photon_Cannon, AUnitType.Zerg_Sunken_Colony,
+                AUnitType.Terran_Bunker)) {
+            score = SCORE_DEFENSIVE_BUILDING;
+        }
+        else if (!type.isBuilding() && !enemy.isNotActuallyUnit()) {
+            score = SCORE_REAL_UNIT;
+
+            // Early game everything near us counts more, except for workers coming to our main base
+            if (isEarlyGame && !(type.isWorker() && mainBase != null
+                    && PositionUtil.distanceTo(enemy, mainBase) < 30)) {
+                score = SCORE_REAL_UNIT_EARLY_GAME;
             }
         }
-        
-        // =========================================================
-        // Try selecting defensive buildings
-        nearestEnemy = enemiesThatCanBeAttackedSelector	
-                .ofType(AUnitType.Protoss_Photon_Cannon, AUnitType.Zerg_Sunken_Colony, 
-                        AUnitType.Terran_Bunker)
-                .canBeAttackedBy(unit)
-                .nearestTo(unit);
-        if (nearestEnemy != null) {
-            return nearestEnemy;
+        else if (type.isType(AUnitType.Protoss_Pylon, AUnitType.Zerg_Spawning_Pool,
+                AUnitType.Terran_Command_Center)) {
+            score = SCORE_IMPORTANT_BUILDING;
         }
-        
-        // =========================================================
-        // Try selecting real units
-        nearestEnemy = Select.enemyRealUnits(canAttackGround, canAttackAir)
-                .canBeAttackedBy(unit)
-                .nearestTo(unit);
-        if (nearestEnemy != null) {
-            return nearestEnemy;
+        else {
+            score = 0;
         }
-        
-        // =========================================================
-        // If no real units found, try selecting important buildings
-        nearestEnemy = enemiesThatCanBeAttackedSelector
-                .ofType(AUnitType.Protoss_Pylon, AUnitType.Zerg_Spawning_Pool, 
-                        AUnitType.Terran_Command_Center)
-                .canBeAttackedBy(unit)
-                .nearestTo(unit);
-        if (nearestEnemy != null) {
-            return nearestEnemy;
+
+        // === Threat ==============================================
+
+        if (enemy.getWeaponAgainst(unit) != WeaponType.None) {
+            score += SCORE_CAN_ATTACK_US;
         }
-        
-        // =========================================================
-        // Okay, try targeting any-fuckin-thing
-        nearestEnemy = enemiesThatCanBeAttackedSelector
-                .canBeAttackedBy(unit)
-                .nearestTo(unit);
-        if (nearestEnemy != null) {
-            return nearestEnemy;
+
+        // === Time to kill & overkill =============================
+
+        double totalHp = enemy.getHitPoints() + enemy.getShields();
+        double remainingHp = totalHp - ADamageLedger.getIncomingDamage(enemy, unit);
+        double allowedSurplus = isCurrentTarget ? totalHp * CURRENT_TARGET_OVERKILL_SURPLUS : 0;
+        if (remainingHp <= -allowedSurplus) {
+            score += SCORE_OVERKILL;
+        }
+        else {
+            double damage = Math.max(1, ADamageLedger.expectedDamage(unit, enemy));
+            score += SCORE_QUICK_KILL * Math.min(1, damage / Math.max(1, remainingHp));
         }
-        return nearestEnemy;
+
+        if (isCurrentTarget) {
+            score += SCORE_CURRENT_TARGET;
+        }
+
+        // === Distance ============================================
+
+        score += distance * SCORE_PER_TILE_AWAY;
+        if (outOfRange > 0) {
+            score += outOfRange * SCORE_PER_TILE_OUT_OF_RANGE;
+        }
+        if (outOfRange > RANGE_MARGIN) {
+            score += SCORE_BEYOND_RANGE_MARGIN;
+        }
+
+        return score;
     }
-    
+
 }
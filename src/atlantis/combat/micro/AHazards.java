@@ -0,0 +1,243 @@
+package atlantis.combat.micro;
+
+import atlantis.AGame;
+import atlantis.Atlantis;
+import atlantis.position.APosition;
+import atlantis.units.AUnit;
+import atlantis.units.AUnitType;
+import atlantis.units.Select;
+import bwapi.Bullet;
+import bwapi.BulletType;
+import bwapi.Position;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * All area hazards in the current frame: Psionic Storms, Plague clouds, Lurker spines and spider mines.
+ * <br /><br />
+ * Built at most once per frame, from one pass over bullets and one over mines. Every hazard is put into each
+ * bucket (square of tiles) its radius touches, so checking a unit only looks at hazards from the bucket it
+ * stands in.
+ */
+public class AHazards {
+
+    /**
+     * Size of a single bucket (4 tiles). Has to be bigger than the largest hazard radius.
+     */
+    private static final int BUCKET_SIZE_PX = 128;
+
+    // === Hazards =============================================
+
+    private static final double STORM_RADIUS = 3.2;
+    private static final double STORM_ESCAPE = 2;
+    private static final double PLAGUE_RADIUS = 2.5;
+    private static final double PLAGUE_ESCAPE = 2;
+    private static final double SPINES_RADIUS = 1.5;
+    private static final double SPINES_ESCAPE = 1;
+    private static final double MINE_RADIUS = 3;
+    private static final double MINE_ESCAPE = 1;
+
+    /**
+     * Hazards pushing in opposite directions (or a unit at the very center of one) give an escape vector
+     * shorter than this (in pixels); a fallback direction is used then.
+     */
+    private static final double MIN_ESCAPE_PX = 16;
+
+    // =========================================================
+
+    private static final Map<Integer, List<Hazard>> buckets = new HashMap<>();
+    private static int bucketsFrame = -1;
+
+    // =========================================================
+
+    /**
+     * Returns where given unit should go to escape hazards it's standing in, or null if it's safe.
+     */
+    public static Escape getEscapeFor(AUnit unit) {
+        updateIfNeeded();
+
+        List<Hazard> hazards = buckets.get(bucketKey(unit.getX() / BUCKET_SIZE_PX, unit.getY() / BUCKET_SIZE_PX));
+        if (hazards == null) {
+            return null;
+        }
+
+        double escapeX = 0;
+        double escapeY = 0;
+        String reason = null;
+        Hazard nearestHazard = null;
+        double nearestDistance = Double.MAX_VALUE;
+        double maxEscapeDistance = 0;
+        for (Hazard hazard : hazards) {
+            if (!hazard.appliesTo(unit)) {
+                continue;
+            }
+
+            // Every hazard pushes the unit directly away from its center
+            double dx = unit.getX() - hazard.x;
+            double dy = unit.getY() - hazard.y;
+            double distance = Math.sqrt(dx * dx + dy * dy);
+            double length = Math.max(1, distance);
+            escapeX += dx / length * hazard.escapeDistance * 32;
+            escapeY += dy / length * hazard.escapeDistance * 32;
+            if (reason == null) {
+                reason = hazard.name;
+            }
+            if (distance < nearestDistance) {
+                nearestDistance = distance;
+                nearestHazard = hazard;
+            }
+            maxEscapeDistance = Math.max(maxEscapeDistance, hazard.escapeDistance);
+        }
+
+        if (reason == null) {
+            return null;
+        }
+
+        // Pushes cancel out: go towards our main base, or else away from the nearest hazard
+        if (Math.sqrt(escapeX * escapeX + escapeY * escapeY) < MIN_ESCAPE_PX) {
+            double dx;
+            double dy;
+            AUnit mainBase = Select.mainBase();
+            if (mainBase != null && mainBase.distanceTo(unit) > 1) {
+                dx = mainBase.getX() - unit.getX();
+                dy = mainBase.getY() - unit.getY();
+            }
+            else if (nearestDistance >= 1) {
+                dx = unit.getX() - nearestHazard.x;
+                dy = unit.getY() - nearestHazard.y;
+            }
+            else {
+                dx = 1;
+                dy = 0;
+            }
+            double length = Math.sqrt(dx * dx + dy * dy);
+            escapeX = dx / length * maxEscapeDistance * 32;
+            escapeY = dy / length * maxEscapeDistance * 32;
+        }
+
+        APosition position = new APosition(unit.getX() + (int) escapeX, unit.getY() + (int) escapeY).makeValid();
+        return new Escape(position, reason);
+    }
+
+    // =========================================================
+
+    private static void updateIfNeeded() {
+        if (bucketsFrame == AGame.getTimeFrames()) {
+            return;
+        }
+        bucketsFrame = AGame.getTimeFrames();
+        buckets.clear();
+
+        for (Bullet bullet : Atlantis.getBwapi().getBullets()) {
+            BulletType type = bullet.getType();
+            Position position = bullet.getPosition();
+            if (type.equals(BulletType.Psionic_Storm)) {
+                add(new Hazard("Psionic Storm!", position, STORM_RADIUS, STORM_ESCAPE, false, false));
+            }
+            else if (type.equals(BulletType.Plague_Cloud)) {
+                add(new Hazard("Plague!", position, PLAGUE_RADIUS, PLAGUE_ESCAPE, false, false));
+            }
+            else if (type.equals(BulletType.Subterranean_Spines)) {
+                add(new Hazard("Lurker spines!", position, SPINES_RADIUS, SPINES_ESCAPE, true, false));
+            }
+        }
+
+        for (AUnit mine : Select.allOfType(AUnitType.Terran_Vulture_Spider_Mine).listUnits()) {
+            if (mine.isCloaked()) {
+                continue;
+            }
+
+            // Our mine that is moving is about to explode; other mines are avoided only when not shooting
+            boolean onlyWhenOnCooldown = !(mine.isOurUnit() && mine.isMoving());
+            add(new Hazard("Avoid mine!", mine.getPosition(), MINE_RADIUS, MINE_ESCAPE, true, onlyWhenOnCooldown));
+        }
+    }
+
+    private static void add(Hazard hazard) {
+        int radiusPx = (int) Math.ceil(hazard.radius * 32);
+        int minBucketX = Math.max(0, (hazard.x - radiusPx) / BUCKET_SIZE_PX);
+        int maxBucketX = (hazard.x + radiusPx) / BUCKET_SIZE_PX;
+        int minBucketY = Math.max(0, (hazard.y - radiusPx) / BUCKET_SIZE_PX);
+        int maxBucketY = (hazard.y + radiusPx) / BUCKET_SIZE_PX;
+
+        for (int bucketX = minBucketX; bucketX <= maxBucketX; bucketX++) {
+            for (int bucketY = minBucketY; bucketY <= maxBucketY; bucketY++) {
+                int key = bucketKey(bucketX, bucketY);
+                List<Hazard> hazards = buckets.get(key);
+                if (hazards == null) {
+                    hazards = new ArrayList<>();
+                    buckets.put(key, hazards);
+                }
+                hazards.add(hazard);
+            }
+        }
+    }
+
+    private static int bucketKey(int bucketX, int bucketY) {
+        return (bucketX << 16) | bucketY;
+    }
+
+    // =========================================================
+
+    private static class Hazard {
+
+        private final String name;
+        private final int x;
+        private final int y;
+        private final double radius;
+        private final double escapeDistance;
+        private final boolean groundOnly;
+        private final boolean onlyWhenOnCooldown;
+
+        private Hazard(String name, Position position, double radius, double escapeDistance, boolean groundOnly,
+                boolean onlyWhenOnCooldown) {
+            this.name = name;
+            this.x = position.getX();
+            this.y = position.getY();
+            this.radius = radius;
+            this.escapeDistance = escapeDistance;
+            this.groundOnly = groundOnly;
+            this.onlyWhenOnCooldown = onlyWhenOnCooldown;
+        }
+
+        private boolean appliesTo(AUnit unit) {
+            if (groundOnly && unit.isAirUnit()) {
+                return false;
+            }
+            if (onlyWhenOnCooldown && unit.getGroundWeaponCooldown() <= 0) {
+                return false;
+            }
+
+            double dx = unit.getX() - x;
+            double dy = unit.getY() - y;
+            return dx * dx + dy * dy < radius * radius * 32 * 32;
+        }
+
+    }
+
+    /**
+     * Position to escape to and the hazard it escapes from.
+     */
+    public static class Escape {
+
+        private final APosition position;
+        private final String reason;
+
+        private Escape(APosition position, String reason) {
+            this.position = position;
+            this.reason = reason;
+        }
+
+        public APosition getPosition() {
+            return position;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+    }
+
+}
@@ -3,13 +3,14 @@ package atlantis.combat.micro;
 import atlantis.AGame;
 import atlantis.information.AMap;
 import atlantis.position.APosition;
+import atlantis.position.PackedPosition;
 import atlantis.scout.AScoutManager;
 import atlantis.units.AUnit;
 import atlantis.units.Select;
 import atlantis.units.Units;
 import atlantis.units.actions.UnitActions;
 import atlantis.util.PositionUtil;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -288,8 +289,9 @@ public class ARunManager {
         int tx = unit.getTileX();
         int ty = unit.getTileY();
 
-        // Build list of possible run positions, basically around the clock
-        ArrayList<APosition> potentialPositionsList = new ArrayList<>();
+        // Build list of possible run positions (packed), basically around the clock
+        int[] potentialPositions = new int[7 * 7 * 4];
+        int potentialPositionsCount = 0;
         double currentLength = minLength;
         double maxLength = minLength + 3;
 
@@ -345,7 +347,10 @@ public class ARunManager {
                     // If has path to given point, add it to the list of potential points
                     if (isPossibleAndReasonablePosition(unit, potentialPosition,
                             currentLength * 0.3, 1.6 * currentLength, false)) {
-                        potentialPositionsList.add(potentialPosition);
+                        if (potentialPositionsCount == potentialPositions.length) {
+                            potentialPositions = Arrays.copyOf(potentialPositions, potentialPositionsCount * 2);
+                        }
+                        potentialPositions[potentialPositionsCount++] = potentialPosition.toPacked();
 //                    AtlantisPainter.paintLine(unit.getPosition(), potentialPosition, Color.Orange);
                     }
                 }
@@ -356,13 +361,14 @@ public class ARunManager {
 
         // =========================================================
         // Find the location that would be most distant to the enemy location
-        double mostDistant = -1;
-        APosition bestPosition = null;
-        for (APosition position : potentialPositionsList) {
-            double dist = runAwayFrom.distanceTo(position);
-            if (bestPosition == null || dist >= mostDistant) {
-                bestPosition = position;
-                mostDistant = dist;
+        int runAwayFromPacked = runAwayFrom.toPacked();
+        int mostDistant = -1;
+        int bestPosition = PackedPosition.NONE;
+        for (int i = 0; i < potentialPositionsCount; i++) {
+            int distSquared = PackedPosition.distanceSquared(runAwayFromPacked, potentialPositions[i]);
+            if (distSquared >= mostDistant) {
+                bestPosition = potentialPositions[i];
+                mostDistant = distSquared;
             }
         }
         
@@ -371,7 +377,7 @@ public class ARunManager {
 //        AtlantisPainter.paintCircleFilled(unit.getPosition(), 7, Color.Purple);
 //        AtlantisPainter.paintLine(unit.getPosition(), bestPosition, Color.Green);
 //        AtlantisPainter.paintLine(unit.getPosition().translateByPixels(1, 1), bestPosition.translateByPixels(1, 1), Color.Green);
-        return bestPosition;
+        return bestPosition != PackedPosition.NONE ? APosition.fromPacked(bestPosition) : null;
     }
 
     private static Units defineCloseEnemies(AUnit unit) {
@@ -76,7 +76,7 @@ public abstract class AbstractMicroManager {
         }
 
         AUnit nearestEnemy = Select.nearestEnemy(unit.getPosition());
-        if (nearestEnemy == null || PositionUtil.distanceTo(nearestEnemy, unit) > 6) {
+        if (nearestEnemy == null || !PositionUtil.isInRadius(nearestEnemy, unit, 6)) {
             return false;
         }
 
@@ -1,11 +1,15 @@
 package atlantis.combat.micro.terran;
 
+import atlantis.AGame;
+import atlantis.repair.ASupportAssignment;
 import atlantis.units.AUnit;
+import atlantis.units.AUnitRole;
+import atlantis.units.AUnitType;
 import atlantis.units.Select;
 import atlantis.units.actions.UnitActions;
 import bwapi.TechType;
 import bwapi.UnitCommandType;
-import java.util.HashMap;
+import java.util.Collection;
 
 public class TerranMedic {
     
@@ -15,14 +19,23 @@ public class TerranMedic {
      */
     private static final int HEAL_OTHER_UNITS_MAX_DISTANCE = 6;
 
+    /**
+     * Wounded unit is worth this many tiles of distance more than a healthy one, when choosing whom to follow.
+     */
+    private static final double DAMAGE_PRIORITY = 4;
+
     /**
      * Specific units that medics should follow in order to heal them as fast as possible 
      * when they get wounded.
      */
-    private static final HashMap<AUnit, AUnit> medicsAssignments = new HashMap<>();
+    private static final ASupportAssignment medicsAssignments
+            = new ASupportAssignment("Medics", AUnitRole.MEDIC_ESCORT);
+    
+    private static int lastDemandFrame = -1;
 
     // =========================================================
     public static boolean update(AUnit medic) {
+        updateAssignmentsIfNeeded();
 
         // =========================================================
         // Define nearest wounded infantry unit
@@ -49,19 +62,49 @@ public class TerranMedic {
     }
 
     private static AUnit getInfantryAssignedForThisMedic(AUnit medic) {
-        AUnit assignment = medicsAssignments.get(medic);
+        AUnit assignment = medicsAssignments.getTargetOf(medic);
 
-        if (assignment == null || !assignment.exists() || !assignment.isAlive()) {
-            assignment = Select.ourTerranInfantryWithoutMedics().first();
-            
-            if (assignment != null) {
-                medicsAssignments.put(medic, assignment);
-            }
+        if (assignment != null && (!assignment.exists() || !assignment.isAlive())) {
+            medicsAssignments.releaseTarget(assignment);
+            assignment = null;
+        }
+        
+        // Only re-solved if anything changed since the last time
+        if (assignment == null) {
+            medicsAssignments.solve(MEDIC_CANDIDATES);
+            assignment = medicsAssignments.getTargetOf(medic);
         }
 
         return assignment;
     }
 
+    /**
+     * Every infantry unit wants one medic, wounded ones are more important. Declared for all medics at once,
+     * so that each medic follows unit nearest to it, not the same first unit on the list.
+     */
+    private static void updateAssignmentsIfNeeded() {
+        int frame = AGame.getTimeFrames();
+        if (frame == lastDemandFrame || frame % 15 != 0) {
+            return;
+        }
+        lastDemandFrame = frame;
+
+        medicsAssignments.beginDemands();
+        for (AUnit infantry : Select.ourTerranInfantryWithoutMedics().listUnits()) {
+            double priority = Math.round(DAMAGE_PRIORITY * (100 - infantry.getHPPercent()) / 100);
+            medicsAssignments.demand(infantry, 1, priority);
+        }
+        medicsAssignments.solve(MEDIC_CANDIDATES);
+    }
+
+    private static final ASupportAssignment.SupporterCandidates MEDIC_CANDIDATES
+            = new ASupportAssignment.SupporterCandidates() {
+        @Override
+        public Collection<AUnit> candidatesFor(AUnit target, int openSlots) {
+            return Select.ourOfType(AUnitType.Terran_Medic).listUnits();
+        }
+    };
+
     private static boolean handleTooFarFromRealInfantry(AUnit medic) {
         AUnit unitAssignedForMedic = getInfantryAssignedForThisMedic(medic);
         if (unitAssignedForMedic != null) {
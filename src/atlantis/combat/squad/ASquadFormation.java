@@ -0,0 +1,371 @@
+package atlantis.combat.squad;
+
+import atlantis.AGame;
+import atlantis.combat.squad.missions.Mission;
+import atlantis.information.AMap;
+import atlantis.position.APosition;
+import atlantis.position.PositionOperationsWrapper;
+import atlantis.units.AUnit;
+import atlantis.units.Select;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Squad-level geometry: median, centroid, spread and leader of the squad, cached for the current frame, plus
+ * formation slots around the mission focus point.
+ * <br /><br />
+ * Slots are computed for all units in one pass: an arc on our side of the focus point when defending, a line
+ * perpendicular to the direction of movement, a few tiles ahead of the median, when attacking. Units go to
+ * their slots instead of going to the focus point one by one, so the squad moves and arrives together.
+ */
+public class ASquadFormation {
+
+    /**
+     * Slots are recomputed once per this many frames, unless focus point or squad size changed. Slots moving
+     * every frame would mean new orders for every unit every frame.
+     */
+    private static final int SLOTS_UPDATE_FRAMES = 12;
+
+    /**
+     * Focus point moved by less than this (in tiles) isn't considered a change, so slots don't follow
+     * every step of the enemy unit being the focus.
+     */
+    private static final double FOCUS_POINT_TOLERANCE = 2;
+
+    /**
+     * Distance between neighbouring slots, in tiles.
+     */
+    private static final double SLOT_SPACING = 1.0;
+
+    /**
+     * Distance between rows of the formation, in tiles.
+     */
+    private static final double ROW_SPACING = 1.2;
+
+    /**
+     * Radius of the innermost arc of defensive formation, in tiles.
+     */
+    private static final double DEFEND_ARC_RADIUS = 3;
+
+    /**
+     * Defensive arc spans this angle to each side of its middle, in radians (60 degrees).
+     */
+    private static final double DEFEND_ARC_HALF_ANGLE = Math.PI / 3;
+
+    /**
+     * Attack line is this many tiles ahead of the squad median.
+     */
+    private static final double ATTACK_ADVANCE = 5;
+
+    /**
+     * Maximum number of units in a single row of attack line.
+     */
+    private static final int ATTACK_MAX_UNITS_PER_ROW = 10;
+
+    // =========================================================
+
+    private final Squad squad;
+
+    private int centerFrame = -1;
+    private APosition median = null;
+    private APosition centroid = null;
+    private double spread = 0;
+    private AUnit leader = null;
+
+    private int slotsFrame = -1;
+    private int slotsSquadSize = -1;
+    private APosition focusPoint = null;
+    private final Map<AUnit, APosition> slots = new HashMap<>();
+
+    // =========================================================
+
+    protected ASquadFormation(Squad squad) {
+        this.squad = squad;
+    }
+
+    // === Squad center ========================================
+
+    /**
+     * Median position of all units, computed at most once per frame.
+     */
+    public APosition getMedian() {
+        updateCenterIfNeeded();
+        return median;
+    }
+
+    /**
+     * Average position of all units, computed at most once per frame.
+     */
+    public APosition getCentroid() {
+        updateCenterIfNeeded();
+        return centroid;
+    }
+
+    /**
+     * Average distance (in tiles) of units from the median. The smaller it is, the more compact the squad.
+     */
+    public double getSpread() {
+        updateCenterIfNeeded();
+        return spread;
+    }
+
+    /**
+     * Unit closest to the median of the squad.
+     */
+    public AUnit getLeader() {
+        updateCenterIfNeeded();
+        return leader;
+    }
+
+    private void updateCenterIfNeeded() {
+        int frame = AGame.getTimeFrames();
+        if (frame == centerFrame) {
+            return;
+        }
+        centerFrame = frame;
+
+        if (squad.isEmpty()) {
+            median = null;
+            centroid = null;
+            spread = 0;
+            leader = null;
+            return;
+        }
+
+        int[] xCoordinates = squad.xCoordinates();
+        int[] yCoordinates = squad.yCoordinates();
+        long sumX = 0;
+        long sumY = 0;
+        for (int i = 0; i < xCoordinates.length; i++) {
+            sumX += xCoordinates[i];
+            sumY += yCoordinates[i];
+        }
+        centroid = new APosition((int) (sumX / xCoordinates.length), (int) (sumY / yCoordinates.length));
+
+        // Median reorders passed arrays, that's why it goes after the centroid
+        median = new APosition(
+                PositionOperationsWrapper.getPositionMedian(xCoordinates),
+                PositionOperationsWrapper.getPositionMedian(yCoordinates)
+        );
+
+        double totalDistance = 0;
+        double leaderDistance = Double.MAX_VALUE;
+        for (AUnit unit : squad.list()) {
+            double distance = median.distanceTo(unit);
+            totalDistance += distance;
+            if (distance < leaderDistance) {
+                leaderDistance = distance;
+                leader = unit;
+            }
+        }
+        spread = totalDistance / squad.size();
+    }
+
+    // === Slots ===============================================
+
+    /**
+     * Recomputes formation slots for all units, if needed. Call once per frame, before units are updated.
+     */
+    public void update() {
+        Mission mission = squad.getMission();
+        APosition newFocusPoint = squad.getFocusPoint();
+        int frame = AGame.getTimeFrames();
+
+        boolean focusChanged = newFocusPoint == null || focusPoint == null
+                ? newFocusPoint != focusPoint
+                : newFocusPoint.distanceTo(focusPoint) > FOCUS_POINT_TOLERANCE;
+        if (!focusChanged && squad.size() == slotsSquadSize && frame - slotsFrame < SLOTS_UPDATE_FRAMES) {
+            return;
+        }
+
+        focusPoint = newFocusPoint;
+        slotsFrame = frame;
+        slotsSquadSize = squad.size();
+        slots.clear();
+
+        if (focusPoint == null || squad.isEmpty() || getMedian() == null) {
+            return;
+        }
+
+        if (mission.isMissionDefend()) {
+            assignArcSlots();
+        }
+        else if (mission.isMissionAttack()) {
+            assignLineSlots();
+        }
+    }
+
+    /**
+     * Returns position given unit should take in the formation or null if it has no slot.
+     */
+    public APosition getSlot(AUnit unit) {
+        return slots.get(unit);
+    }
+
+    /**
+     * Focus point of the squad, as of the last slots update.
+     */
+    public APosition getFocusPoint() {
+        return focusPoint;
+    }
+
+    // =========================================================
+
+    /**
+     * Arc on our side of the focus point. Short ranged units take inner arcs, long ranged ones the outer.
+     */
+    private void assignArcSlots() {
+        double[] facing = directionFrom(focusPoint, median);
+        if (facing == null) {
+            AUnit mainBase = Select.mainBase();
+            facing = mainBase != null ? directionFrom(focusPoint, mainBase.getPosition()) : null;
+        }
+        if (facing == null) {
+            return;
+        }
+        double facingAngle = Math.atan2(facing[1], facing[0]);
+
+        List<AUnit> units = unitsByRange();
+        int row = 0;
+        int index = 0;
+        while (index < units.size()) {
+            double radius = DEFEND_ARC_RADIUS + row * ROW_SPACING;
+            int slotsInRow = 1 + (int) (2 * DEFEND_ARC_HALF_ANGLE * radius / SLOT_SPACING);
+            List<AUnit> rowUnits = units.subList(index, Math.min(units.size(), index + slotsInRow));
+
+            // Units sorted by angle around the focus point get slots in the same order, so paths don't cross
+            List<AUnit> sorted = sortByKey(rowUnits, new KeyFunction() {
+                @Override
+                public double key(AUnit unit) {
+                    return normalizeAngle(Math.atan2(unit.getY() - focusPoint.getY(),
+                            unit.getX() - focusPoint.getX()) - facingAngle);
+                }
+            });
+
+            double step = rowUnits.size() > 1 ? 2 * DEFEND_ARC_HALF_ANGLE / (slotsInRow - 1) : 0;
+            double firstAngle = -step * (rowUnits.size() - 1) / 2;
+            for (int i = 0; i < sorted.size(); i++) {
+                double angle = facingAngle + firstAngle + i * step;
+                addSlot(sorted.get(i), focusPoint.getX() + Math.cos(angle) * radius * 32,
+                        focusPoint.getY() + Math.sin(angle) * radius * 32);
+            }
+
+            index += rowUnits.size();
+            row++;
+        }
+    }
+
+    /**
+     * Line perpendicular to the direction from median to the focus point, a few tiles ahead of the median.
+     * Short ranged units take front rows.
+     */
+    private void assignLineSlots() {
+        final double[] direction = directionFrom(median, focusPoint);
+        if (direction == null) {
+            return;
+        }
+
+        double distanceToFocus = median.distanceTo(focusPoint);
+        double advance = Math.min(ATTACK_ADVANCE, distanceToFocus);
+        double anchorX = median.getX() + direction[0] * advance * 32;
+        double anchorY = median.getY() + direction[1] * advance * 32;
+        final double perpendicularX = -direction[1];
+        final double perpendicularY = direction[0];
+
+        List<AUnit> units = unitsByRange();
+        int row = 0;
+        for (int index = 0; index < units.size(); index += ATTACK_MAX_UNITS_PER_ROW) {
+            List<AUnit> rowUnits = units.subList(index, Math.min(units.size(), index + ATTACK_MAX_UNITS_PER_ROW));
+
+            // Units sorted along the line get slots in the same order, so paths don't cross
+            List<AUnit> sorted = sortByKey(rowUnits, new KeyFunction() {
+                @Override
+                public double key(AUnit unit) {
+                    return unit.getX() * perpendicularX + unit.getY() * perpendicularY;
+                }
+            });
+
+            double rowX = anchorX - direction[0] * row * ROW_SPACING * 32;
+            double rowY = anchorY - direction[1] * row * ROW_SPACING * 32;
+            for (int i = 0; i < sorted.size(); i++) {
+                double offset = (i - (sorted.size() - 1) / 2.0) * SLOT_SPACING * 32;
+                addSlot(sorted.get(i), rowX + perpendicularX * offset, rowY + perpendicularY * offset);
+            }
+            row++;
+        }
+    }
+
+    private void addSlot(AUnit unit, double x, double y) {
+        APosition slot = new APosition((int) x, (int) y).makeValid();
+        if (AMap.isWalkable(slot)) {
+            slots.put(unit, slot);
+        }
+    }
+
+    // =========================================================
+
+    /**
+     * Units of the squad, shortest ground weapon range first.
+     */
+    private List<AUnit> unitsByRange() {
+        return sortByKey(squad.list(), new KeyFunction() {
+            @Override
+            public double key(AUnit unit) {
+                return unit.getWeaponRangeGround();
+            }
+        });
+    }
+
+    /**
+     * Unit vector pointing from <b>from</b> towards <b>to</b>, or null if both are the same.
+     */
+    private static double[] directionFrom(APosition from, APosition to) {
+        double dx = to.getX() - from.getX();
+        double dy = to.getY() - from.getY();
+        double length = Math.sqrt(dx * dx + dy * dy);
+        if (length < 1) {
+            return null;
+        }
+        return new double[]{dx / length, dy / length};
+    }
+
+    private static double normalizeAngle(double angle) {
+        while (angle > Math.PI) {
+            angle -= 2 * Math.PI;
+        }
+        while (angle < -Math.PI) {
+            angle += 2 * Math.PI;
+        }
+        return angle;
+    }
+
+    private interface KeyFunction {
+
+        double key(AUnit unit);
+
+    }
+
+    /**
+     * Returns new list sorted by keys, each key computed only once.
+     */
+    private static List<AUnit> sortByKey(Collection<AUnit> units, KeyFunction keyFunction) {
+        final Map<AUnit, Double> keys = new HashMap<>();
+        for (AUnit unit : units) {
+            keys.put(unit, keyFunction.key(unit));
+        }
+        List<AUnit> sorted = new ArrayList<>(units);
+        Collections.sort(sorted, new Comparator<AUnit>() {
+            @Override
+            public int compare(AUnit u1, AUnit u2) {
+                return Double.compare(keys.get(u1), keys.get(u2));
+            }
+        });
+        return sorted;
+    }
+
+}
@@ -1,19 +1,82 @@
 package atlantis.combat.squad;
 
+import atlantis.AGame;
 import atlantis.combat.squad.missions.Missions;
+import atlantis.position.APosition;
 import atlantis.units.AUnit;
+import atlantis.units.Select;
+import atlantis.units.Units;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Commands all existing battle squads.
  */
 public class ASquadManager {
 
+    /**
+     * Squads are split and merged once per this many frames.
+     */
+    private static final int REBALANCE_EVERY_FRAMES = 48;
+
+    /**
+     * Enemy combat units closer than this (in tiles) to our base are a threat that needs defending.
+     */
+    private static final double THREAT_RADIUS = 15;
+
+    /**
+     * Base closer than this (in tiles) to the main squad is defended by the main squad itself.
+     */
+    private static final double MAIN_SQUAD_COVERS_RADIUS = 25;
+
+    /**
+     * Defending squad gets this many units per enemy unit, but at least <b>MIN_DEFENDERS</b>.
+     */
+    private static final double DEFENDERS_PER_ENEMY = 1.5;
+    private static final int MIN_DEFENDERS = 2;
+
+    /**
+     * Squads with the same mission closer than this (in tiles) are merged into one.
+     */
+    private static final double MERGE_DISTANCE = 8;
+
+    /**
+     * Units of the main squad closer than this (in tiles) to each other belong to the same cluster.
+     */
+    private static final double CLUSTER_LINK_DISTANCE = 6;
+
+    /**
+     * Cluster of the main squad is split off to regroup if it has at least this many units and its median is
+     * further than <b>CLUSTER_SPLIT_DISTANCE</b> (in tiles) from the median of the largest cluster.
+     */
+    private static final int MIN_CLUSTER_SIZE = 3;
+    private static final double CLUSTER_SPLIT_DISTANCE = 20;
+
+    /**
+     * Regrouping squad merges back into the main squad once their medians are closer than this (in tiles).
+     */
+    private static final double REGROUPED_DISTANCE = 10;
+
     /**
      * List of all unit squads.
      */
     protected static ArrayList<Squad> squads = new ArrayList<>();
 
+    /**
+     * Base defended by every squad that was split off the main squad to defend it.
+     */
+    private static final Map<Squad, AUnit> defendedBases = new HashMap<>();
+
+    /**
+     * Squads split off the main squad because they were too far from it; they go to the main squad and
+     * merge back into it.
+     */
+    private static final Set<Squad> regroupingSquads = new HashSet<>();
+
     // =========================================================
     
     public static void possibleCombatUnitCreated(AUnit unit) {
@@ -54,10 +117,226 @@ public class ASquadManager {
                 || unit.getType().isEgg() || unit.getType().isSpecial();
     }
 
+    // =========================================================
+    // Split & merge squads
+    
+    /**
+     * Splits off squads to defend our bases when the main squad is away, and merges them back once the
+     * threat is gone. Units of the main squad are also clustered by position, and clusters far from the main
+     * body (e.g. reinforcements) become squads of their own that regroup with it. Runs once per
+     * <b>REBALANCE_EVERY_FRAMES</b> frames.
+     */
+    public static void rebalanceSquads() {
+        if (AGame.getTimeFrames() % REBALANCE_EVERY_FRAMES != 0 || AGame.isUmtMode()) {
+            return;
+        }
+
+        Squad alphaSquad = getAlphaSquad();
+        mergeSquadsIfNeeded(alphaSquad);
+
+        if (alphaSquad.getMission().isMissionAttack()) {
+            splitDefendersIfNeeded(alphaSquad);
+            splitDistantClustersIfNeeded(alphaSquad);
+        }
+    }
+
+    /**
+     * Clusters units of the main squad. The largest cluster stays in the main squad, other big enough
+     * clusters far from it are split off to regroup.
+     */
+    private static void splitDistantClustersIfNeeded(Squad alphaSquad) {
+        List<List<AUnit>> clusters = clusterUnits(alphaSquad.arrayList());
+        if (clusters.size() <= 1) {
+            return;
+        }
+
+        List<AUnit> mainCluster = clusters.get(0);
+        for (List<AUnit> cluster : clusters) {
+            if (cluster.size() > mainCluster.size()) {
+                mainCluster = cluster;
+            }
+        }
+        APosition mainMedian = new Units().addUnits(mainCluster).median();
+
+        for (List<AUnit> cluster : clusters) {
+            if (cluster == mainCluster || cluster.size() < MIN_CLUSTER_SIZE) {
+                continue;
+            }
+
+            APosition median = new Units().addUnits(cluster).median();
+            if (median == null || mainMedian == null || median.distanceTo(mainMedian) < CLUSTER_SPLIT_DISTANCE) {
+                continue;
+            }
+
+            Squad regroupSquad = Squad.createNewSquad(null, alphaSquad.getMission());
+            squads.add(regroupSquad);
+            regroupingSquads.add(regroupSquad);
+            for (AUnit unit : cluster) {
+                moveUnit(unit, alphaSquad, regroupSquad);
+            }
+        }
+    }
+
+    /**
+     * Single-linkage clustering: units closer than <b>CLUSTER_LINK_DISTANCE</b> to each other (directly or
+     * through other units) end up in the same cluster. Units are put into grid cells first, so only units
+     * from neighbouring cells are compared.
+     */
+    private static List<List<AUnit>> clusterUnits(List<AUnit> units) {
+        int cellSizePx = (int) (CLUSTER_LINK_DISTANCE * 32) + 64;
+        Map<Integer, List<Integer>> cells = new HashMap<>();
+        for (int i = 0; i < units.size(); i++) {
+            int key = cellKey(units.get(i).getX() / cellSizePx, units.get(i).getY() / cellSizePx);
+            List<Integer> cell = cells.get(key);
+            if (cell == null) {
+                cell = new ArrayList<>();
+                cells.put(key, cell);
+            }
+            cell.add(i);
+        }
+
+        int[] parents = new int[units.size()];
+        for (int i = 0; i < parents.length; i++) {
+            parents[i] = i;
+        }
+
+        for (int i = 0; i < units.size(); i++) {
+            AUnit unit = units.get(i);
+            int cellX = unit.getX() / cellSizePx;
+            int cellY = unit.getY() / cellSizePx;
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dy = -1; dy <= 1; dy++) {
+                    List<Integer> cell = cells.get(cellKey(cellX + dx, cellY + dy));
+                    if (cell == null) {
+                        continue;
+                    }
+                    for (int j : cell) {
+                        if (j > i && unit.isInRadius(units.get(j), CLUSTER_LINK_DISTANCE)) {
+                            parents[findRoot(parents, i)] = findRoot(parents, j);
+                        }
+                    }
+                }
+            }
+        }
+
+        Map<Integer, List<AUnit>> clusters = new HashMap<>();
+        for (int i = 0; i < units.size(); i++) {
+            int root = findRoot(parents, i);
+            List<AUnit> cluster = clusters.get(root);
+            if (cluster == null) {
+                cluster = new ArrayList<>();
+                clusters.put(root, cluster);
+            }
+            cluster.add(units.get(i));
+        }
+        return new ArrayList<>(clusters.values());
+    }
+
+    private static int findRoot(int[] parents, int index) {
+        while (parents[index] != index) {
+            parents[index] = parents[parents[index]];
+            index = parents[index];
+        }
+        return index;
+    }
+
+    private static int cellKey(int cellX, int cellY) {
+        return (cellX << 16) | (cellY & 0xFFFF);
+    }
+
+    private static void splitDefendersIfNeeded(Squad alphaSquad) {
+        APosition alphaMedian = alphaSquad.getMedianUnitPosition();
+        if (alphaMedian == null) {
+            return;
+        }
+        
+        for (AUnit base : Select.ourBases().listUnits()) {
+            if (defendedBases.containsValue(base) || alphaMedian.distanceTo(base) < MAIN_SQUAD_COVERS_RADIUS) {
+                continue;
+            }
+            
+            int enemies = Select.enemy().combatUnits().inRadius(THREAT_RADIUS, base).count();
+            if (enemies == 0) {
+                continue;
+            }
+
+            // Don't leave the main squad weaker than the defenders
+            int defenders = Math.max(MIN_DEFENDERS, (int) Math.ceil(enemies * DEFENDERS_PER_ENEMY));
+            if (alphaSquad.size() - defenders < defenders) {
+                continue;
+            }
+
+            Squad defendSquad = Squad.createNewSquad(null, Missions.DEFEND);
+            squads.add(defendSquad);
+            defendedBases.put(defendSquad, base);
+            
+            List<AUnit> nearestToBase = Select.from(new ArrayList<>(alphaSquad.list())).sortDataByDistanceTo(base.getPosition(), true);
+            for (AUnit unit : nearestToBase.subList(0, defenders)) {
+                moveUnit(unit, alphaSquad, defendSquad);
+            }
+            
+            AGame.sendMessage(defendSquad.getName() + " defends base (" + defenders + " units)");
+        }
+    }
+
+    private static void mergeSquadsIfNeeded(Squad alphaSquad) {
+        for (Squad squad : new ArrayList<>(squads)) {
+            if (squad == alphaSquad) {
+                continue;
+            }
+
+            // Regrouping squad reached the main squad or main squad is back home
+            if (regroupingSquads.contains(squad)) {
+                APosition median = squad.getMedianUnitPosition();
+                APosition alphaMedian = alphaSquad.getMedianUnitPosition();
+                boolean hasReachedAlpha = median == null || alphaMedian == null
+                        || median.distanceTo(alphaMedian) < REGROUPED_DISTANCE;
+                if (squad.isEmpty() || hasReachedAlpha || !squad.getMission().equals(alphaSquad.getMission())) {
+                    mergeInto(squad, alphaSquad);
+                }
+                continue;
+            }
+
+            // Threat is gone or main squad is back home
+            AUnit base = defendedBases.get(squad);
+            boolean isThreatGone = base == null || !base.isAlive()
+                    || Select.enemy().combatUnits().inRadius(THREAT_RADIUS, base).count() == 0;
+            if (squad.isEmpty() || isThreatGone || alphaSquad.getMission().isMissionDefend()) {
+                mergeInto(squad, alphaSquad);
+                continue;
+            }
+            
+            // Two squads doing the same thing at the same place
+            for (Squad other : squads) {
+                if (other != squad && other != alphaSquad && other.getMission().equals(squad.getMission())
+                        && other.getMedianUnitPosition() != null && squad.getMedianUnitPosition() != null
+                        && other.getMedianUnitPosition().distanceTo(squad.getMedianUnitPosition()) < MERGE_DISTANCE) {
+                    mergeInto(squad, other);
+                    break;
+                }
+            }
+        }
+    }
+
+    private static void mergeInto(Squad squad, Squad intoSquad) {
+        for (AUnit unit : new ArrayList<>(squad.list())) {
+            moveUnit(unit, squad, intoSquad);
+        }
+        squads.remove(squad);
+        defendedBases.remove(squad);
+        regroupingSquads.remove(squad);
+    }
+
+    private static void moveUnit(AUnit unit, Squad from, Squad to) {
+        from.removeUnit(unit);
+        to.addUnit(unit);
+        unit.setSquad(to);
+    }
+
     // =========================================================
     // Manage squads
     /**
-     * Get first, main squad of units.
+     * Get first, main squad of units. It follows the global mission, new units join it.
      */
     public static Squad getAlphaSquad() {
 
@@ -70,6 +349,20 @@ public class ASquadManager {
         return squads.get(0);
     }
 
+    /**
+     * Returns our base given squad was split off to defend or null.
+     */
+    public static AUnit getDefendedBase(Squad squad) {
+        return defendedBases.get(squad);
+    }
+
+    /**
+     * Returns true if given squad was split off the main squad because it was too far, and goes to it.
+     */
+    public static boolean isRegrouping(Squad squad) {
+        return regroupingSquads.contains(squad);
+    }
+
     // =========================================================
     // Getters & Setters
     public static ArrayList<Squad> getSquads() {
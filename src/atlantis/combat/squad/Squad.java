@@ -1,12 +1,12 @@
 package atlantis.combat.squad;
 
 import atlantis.combat.squad.missions.Mission;
+import atlantis.combat.squad.missions.MissionContext;
 import atlantis.combat.squad.missions.Missions;
 import atlantis.position.APosition;
 import atlantis.units.AUnit;
+import atlantis.units.Select;
 import atlantis.units.Units;
-import java.util.ArrayList;
-import java.util.Collections;
 
 /**
  * Represents battle squad (unit squad) that contains multiple battle units (could be one unit as well).
@@ -26,6 +26,16 @@ public class Squad extends Units {
      */
     private Mission mission;
 
+    /**
+     * Geometry of the squad (median, spread, leader) and formation slots of its units.
+     */
+    private final ASquadFormation formation = new ASquadFormation(this);
+
+    /**
+     * What units of this squad need from the mission in the current frame.
+     */
+    private final MissionContext missionContext = new MissionContext(this);
+
     /**
      * Manager that handles microing of units.
      */
@@ -44,20 +54,37 @@ public class Squad extends Units {
     
     /**
      * Creates new squad, designated by the given name. If <b>name</b> is null, default numeration "Alpha",
-     * "Bravo", "Charlie", "Delta" will be used.
+     * "Bravo", "Charlie", "Delta" will be used, first name not used by any existing squad.
      */
     public static Squad createNewSquad(String name, Mission mission) {
 
         // Name is null, use autonaming
         if (name == null) {
-            String[] names = new String[]{"Alpha", "Bravo", "Charlie", "Delta", "Echo"};
-            name = names[ASquadManager.squads.size()];
+            String[] names = new String[]{"Alpha", "Bravo", "Charlie", "Delta", "Echo", "Foxtrot", "Golf"};
+            for (String freeName : names) {
+                if (!isNameUsed(freeName)) {
+                    name = freeName;
+                    break;
+                }
+            }
+            if (name == null) {
+                name = "Squad #" + firstFreeID;
+            }
         }
 
         Squad squad = new Squad(name, mission);
         return squad;
     }
 
+    private static boolean isNameUsed(String name) {
+        for (Squad squad : ASquadManager.squads) {
+            if (name.equals(squad.getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     // =========================================================
     
     /**
@@ -65,18 +92,43 @@ public class Squad extends Units {
      * don't affect the end result so badly.
      */
     public APosition getMedianUnitPosition() {
-        ArrayList<Integer> xCoords = new ArrayList<>();
-        ArrayList<Integer> yCoords = new ArrayList<>();
-        
-        for (AUnit unit : list()) {
-            xCoords.add(unit.getPosition().getX());
-            yCoords.add(unit.getPosition().getY());
+        return formation.getMedian();
+    }
+
+    /**
+     * Point this squad should go to: enemy nearest to the base it defends, if it was split off to defend a
+     * base, the main squad if it regroups with it, otherwise focus point of its mission.
+     */
+    public APosition getFocusPoint() {
+        AUnit defendedBase = ASquadManager.getDefendedBase(this);
+        if (defendedBase != null) {
+            AUnit nearestEnemy = Select.enemy().combatUnits().nearestTo(defendedBase);
+            return nearestEnemy != null ? nearestEnemy.getPosition() : defendedBase.getPosition();
+        }
+
+        if (ASquadManager.isRegrouping(this)) {
+            APosition alphaMedian = ASquadManager.getAlphaSquad().getMedianUnitPosition();
+            if (alphaMedian != null) {
+                return alphaMedian;
+            }
         }
         
-        Collections.sort(xCoords);
-        Collections.sort(yCoords);
-        
-        return new APosition(xCoords.get(xCoords.size() / 2), yCoords.get(yCoords.size() / 2));
+        return mission.getFormationFocusPoint();
+    }
+
+    /**
+     * Geometry of the squad and formation slots of its units.
+     */
+    public ASquadFormation getFormation() {
+        return formation;
+    }
+
+    /**
+     * Focus point, rally point etc. of the mission of this squad, defined once per frame for all its units.
+     */
+    public MissionContext getMissionContext() {
+        missionContext.refresh();
+        return missionContext;
     }
     
     // =========================================================
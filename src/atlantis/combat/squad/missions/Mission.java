@@ -1,7 +1,9 @@
 package atlantis.combat.squad.missions;
 
+import atlantis.AGame;
 import atlantis.position.APosition;
 import atlantis.units.AUnit;
+import atlantis.units.Select;
 
 
 
@@ -11,6 +13,15 @@ import atlantis.units.AUnit;
 public abstract class Mission {
 
     private String name;
+
+    private int focusPointFrame = -1;
+    private APosition focusPoint = null;
+
+    private int formationFocusPointFrame = -1;
+    private APosition formationFocusPoint = null;
+
+    private int nearestThreatFrame = -1;
+    private AUnit nearestThreatToMain = null;
     
     // =========================================================
 
@@ -21,11 +32,62 @@ public abstract class Mission {
     // =========================================================
 
     /**
-     * If returns true, it's not allowed for micro managers to act.
+     * If returns true, it's not allowed for micro managers to act. Everything shared by units of the squad is
+     * in <b>context</b>, computed once for all of them.
+     */
+    public abstract boolean update(AUnit unit, MissionContext context);
+
+    /**
+     * Point this mission is about, e.g. where the enemy is when attacking. Defined at most once per frame.
      */
-    public abstract boolean update(AUnit unit);
+    public APosition getFocusPoint() {
+        if (AGame.getTimeFrames() != focusPointFrame) {
+            focusPointFrame = AGame.getTimeFrames();
+            focusPoint = defineFocusPoint();
+        }
+        return focusPoint;
+    }
+
+    protected abstract APosition defineFocusPoint();
+
+    /**
+     * Point around which squad formation is built and which units should go to. Defined at most once per
+     * frame, not for every unit.
+     */
+    public APosition getFormationFocusPoint() {
+        if (AGame.getTimeFrames() != formationFocusPointFrame) {
+            formationFocusPointFrame = AGame.getTimeFrames();
+            formationFocusPoint = defineFormationFocusPoint();
+        }
+        return formationFocusPoint;
+    }
 
-    public abstract APosition getFocusPoint();
+    protected APosition defineFormationFocusPoint() {
+        return getFocusPoint();
+    }
+
+    /**
+     * Enemy unit nearest to our main base or null. Searched for at most once per frame, for all squads.
+     */
+    public AUnit getNearestThreatToMain() {
+        if (AGame.getTimeFrames() != nearestThreatFrame) {
+            nearestThreatFrame = AGame.getTimeFrames();
+            nearestThreatToMain = defineNearestThreatToMain();
+        }
+        return nearestThreatToMain;
+    }
+
+    protected AUnit defineNearestThreatToMain() {
+        AUnit mainBase = Select.mainBase();
+        return mainBase != null ? Select.enemy().combatUnits().nearestTo(mainBase) : null;
+    }
+
+    /**
+     * Place where units of this mission gather when there's nothing else to do, or null if there's none.
+     */
+    public APosition getRallyPoint() {
+        return null;
+    }
     
     // =========================================================
 
@@ -19,6 +19,13 @@ import bwta.BaseLocation;
 public class MissionAttack extends Mission {
     
     private static MissionAttack instance;
+
+    /**
+     * Enemy base or building to attack, as of given version of known enemy buildings and our main base.
+     */
+    private int knownTargetVersion = -1;
+    private AUnit knownTargetMainBase = null;
+    private APosition knownTarget = null;
     
     // =========================================================
 
@@ -30,32 +37,30 @@ public class MissionAttack extends Mission {
     // =========================================================
     
     @Override
-    public boolean update(AUnit unit) {
-        APosition focusPoint = getFocusPoint();
+    public boolean update(AUnit unit, MissionContext context) {
+        APosition focusPoint = context.getFormationAnchor();
         unit.setTooltip("#MA");
         
-        // === Attack units nears main =============================
-        
-        AUnit mainBase = Select.mainBase();
-        if (mainBase != null) {
-            AUnit nearestEnemy = Select.enemy().visible()
-//                    .canBeAttackedBy(unit)
-//                    .inRadius(50, mainBase)
-                    .nearestTo(mainBase);
-//            System.out.println(nearestEnemy);
-            if (nearestEnemy != null) {
-                focusPoint = nearestEnemy.getPosition();
-            }
-        }
-        
         // =========================================================
         
         // Focus point is well known
         if (focusPoint != null) {
-            if (unit.distanceTo(focusPoint) > 10 && !unit.isAttacking() && !unit.isMoving()) {
-                unit.attackPosition(focusPoint);
-                unit.setTooltip("#MA:Concentrate!"); //unit.setTooltip("Mission focus");	//TODO: DEBUG
-                return true;
+            if (unit.distanceTo(focusPoint) > 10 && !unit.isAttacking()) {
+                APosition slot = unit.getSquad() != null ? unit.getSquad().getFormation().getSlot(unit) : null;
+                
+                // Keep the place in the line, so the squad arrives together
+                if (slot != null) {
+                    if (unit.distanceTo(slot) > 1.5) {
+                        unit.attackPosition(slot);
+                        unit.setTooltip("#MA:Formation");
+                        return true;
+                    }
+                }
+                else if (!unit.isMoving()) {
+                    unit.attackPosition(focusPoint);
+                    unit.setTooltip("#MA:Concentrate!"); //unit.setTooltip("Mission focus");	//TODO: DEBUG
+                    return true;
+                }
             }
         } 
 
@@ -78,12 +83,40 @@ public class MissionAttack extends Mission {
 
     // =========================================================
 
+    /**
+     * Attack units near our main base first, otherwise go to the mission focus point.
+     */
+    @Override
+    protected APosition defineFormationFocusPoint() {
+        AUnit nearestEnemy = getNearestThreatToMain();
+        if (nearestEnemy != null) {
+            return nearestEnemy.getPosition();
+        }
+        
+        return getFocusPoint();
+    }
+
+    /**
+     * Any visible enemy unit counts as a threat, not only combat units.
+     */
+    @Override
+    protected AUnit defineNearestThreatToMain() {
+        AUnit mainBase = Select.mainBase();
+        if (mainBase == null) {
+            return null;
+        }
+        return Select.enemy().visible()
+//                    .canBeAttackedBy(unit)
+//                    .inRadius(50, mainBase)
+                .nearestTo(mainBase);
+    }
+
     /**
      * Returns the <b>position</b> (not the unit itself) where we should point our units to in hope 
      * because as far as we know, the enemy is/can be there and it makes sense to attack in this region.
      */
     @Override
-    public APosition getFocusPoint() {
+    protected APosition defineFocusPoint() {
 
         // === Handle UMT ==========================================
         
@@ -99,19 +132,10 @@ public class MissionAttack extends Mission {
         
         // =========================================================
 
-        // Try going near enemy base
-//        Position enemyBase = AtlantisEnemyInformationManager.getEnemyBase();
-        APosition enemyBase = AEnemyUnits.getEnemyBase();
-        if (enemyBase != null) {
-//        	System.out.println("focus on enemy base " + enemyBase);	//TODO debug
-            return enemyBase;
-        }
-
-        // Try going near any enemy building
-        AFoggedUnit enemyBuilding = AEnemyUnits.getNearestEnemyBuilding();
-        if (enemyBuilding != null) {
-//        	System.out.println("focus on enemy bldg " + enemyBuilding.getPosition());	//TODO debug
-            return enemyBuilding.getPosition();
+        // Try going near enemy base or any enemy building
+        APosition knownTarget = getKnownEnemyTarget();
+        if (knownTarget != null) {
+            return knownTarget;
         }
 
         // Try going to any known enemy unit
@@ -132,6 +156,31 @@ public class MissionAttack extends Mission {
         return null;
     }
     
+    /**
+     * Returns enemy base or (if we don't know any) enemy building nearest to our main base. It only depends on
+     * enemy buildings we know about and our main base, so it's searched for again only when they change.
+     */
+    private APosition getKnownEnemyTarget() {
+        int version = AEnemyUnits.getKnownBuildingsVersion();
+        AUnit mainBase = Select.mainBase();
+        if (version == knownTargetVersion && mainBase == knownTargetMainBase) {
+            return knownTarget;
+        }
+        knownTargetVersion = version;
+        knownTargetMainBase = mainBase;
+
+        // Try going near enemy base
+//        Position enemyBase = AtlantisEnemyInformationManager.getEnemyBase();
+        knownTarget = AEnemyUnits.getEnemyBase();
+        if (knownTarget == null) {
+
+            // Try going near any enemy building
+            AFoggedUnit enemyBuilding = AEnemyUnits.getNearestEnemyBuilding();
+            knownTarget = enemyBuilding != null ? enemyBuilding.getPosition() : null;
+        }
+        return knownTarget;
+    }
+    
     // =========================================================
     
     public static MissionAttack getInstance() {
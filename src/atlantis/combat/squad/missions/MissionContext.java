@@ -0,0 +1,84 @@
+package atlantis.combat.squad.missions;
+
+import atlantis.AGame;
+import atlantis.combat.squad.Squad;
+import atlantis.position.APosition;
+import atlantis.units.AUnit;
+
+/**
+ * Everything units of one squad need from their mission in the current frame: focus point of the mission,
+ * enemy nearest to our main base, rally point and the anchor point the squad formation is built around.
+ * <br /><br />
+ * It's refreshed once per frame per squad (or when the squad gets another mission) and handed to
+ * <b>Mission.update()</b> of every unit, so units don't search for targets one by one.
+ */
+public class MissionContext {
+
+    private final Squad squad;
+
+    private int frame = -1;
+    private Mission mission = null;
+
+    private APosition focusPoint = null;
+    private AUnit nearestThreatToMain = null;
+    private APosition rallyPoint = null;
+    private APosition formationAnchor = null;
+
+    // =========================================================
+
+    public MissionContext(Squad squad) {
+        this.squad = squad;
+    }
+
+    // =========================================================
+
+    /**
+     * Defines everything again, unless it's been done already in this frame for the current mission of the
+     * squad.
+     */
+    public void refresh() {
+        Mission currentMission = squad.getMission();
+        if (frame == AGame.getTimeFrames() && mission == currentMission) {
+            return;
+        }
+        frame = AGame.getTimeFrames();
+        mission = currentMission;
+
+        focusPoint = mission.getFocusPoint();
+        nearestThreatToMain = mission.getNearestThreatToMain();
+        rallyPoint = mission.getRallyPoint();
+
+        // Squads defending other bases have focus points of their own
+        APosition squadFocusPoint = squad.getFormation().getFocusPoint();
+        formationAnchor = squadFocusPoint != null ? squadFocusPoint : mission.getFormationFocusPoint();
+    }
+
+    // =========================================================
+
+    public Mission getMission() {
+        return mission;
+    }
+
+    /**
+     * Focus point of the mission, same for all squads having it.
+     */
+    public APosition getFocusPoint() {
+        return focusPoint;
+    }
+
+    public AUnit getNearestThreatToMain() {
+        return nearestThreatToMain;
+    }
+
+    public APosition getRallyPoint() {
+        return rallyPoint;
+    }
+
+    /**
+     * Point units of this squad should go to; formation slots are built around it.
+     */
+    public APosition getFormationAnchor() {
+        return formationAnchor;
+    }
+
+}
@@ -22,7 +22,7 @@ public class MissionDefend extends Mission {
     // =============================================================
     
     @Override
-    public boolean update(AUnit unit) {
+    public boolean update(AUnit unit, MissionContext context) {
         
         // === Handle UMT ==========================================
         
@@ -39,7 +39,8 @@ public class MissionDefend extends Mission {
         
         // =========================================================
         
-        APosition focusPoint = getFocusPoint();
+        APosition focusPoint = context.getFormationAnchor();
+        APosition slot = unit.getSquad() != null ? unit.getSquad().getFormation().getSlot(unit) : null;
 //        APainter.paintLine(unit, focusPoint, Color.Purple);
         
         if (focusPoint == null) {
@@ -61,6 +62,19 @@ public class MissionDefend extends Mission {
             }
         }
         
+        // =========================================================
+        // Unit has its place in the formation
+        else if (slot != null) {
+            if (unit.distanceTo(slot) > 1) {
+                unit.setTooltip("Positioning");
+                unit.move(slot, UnitActions.MOVE);
+                return true;
+            }
+            else {
+                return holdPosition(unit);
+            }
+        }
+        
         // =========================================================
         // Unit is quite close to the choke point
         else if (isCloseEnoughToFocusPoint(unit, focusPoint)) {
@@ -76,15 +90,7 @@ public class MissionDefend extends Mission {
             
             // Everything is okay, be here
             else {
-                if (unit.type().isTank() && !unit.isSieged()) {
-                    unit.siege();
-                    return true;
-                }
-                else {
-                    unit.holdPosition();
-                    unit.setTooltip("Hold");
-                    return true;
-                }
+                return holdPosition(unit);
             }
         } 
         
@@ -104,6 +110,17 @@ public class MissionDefend extends Mission {
 
     // =========================================================
     
+    private boolean holdPosition(AUnit unit) {
+        if (unit.type().isTank() && !unit.isSieged()) {
+            unit.siege();
+        }
+        else {
+            unit.holdPosition();
+            unit.setTooltip("Hold");
+        }
+        return true;
+    }
+    
     /**
      * AUnit will go towards important choke point near main base.
      */
@@ -194,7 +211,7 @@ public class MissionDefend extends Mission {
     // =========================================================
 
     @Override
-    public APosition getFocusPoint() {
+    protected APosition defineFocusPoint() {
         
         // === Handle UMT ==========================================
         
@@ -204,16 +221,21 @@ public class MissionDefend extends Mission {
         
         // === Focus enemy attacking the main base =================
         
-        AUnit mainBase = Select.mainBase();
-        if (mainBase != null) {
-            AUnit nearEnemy = Select.enemy().combatUnits().nearestTo(mainBase);
-            if (nearEnemy != null) {
-                return nearEnemy.getPosition();
-            }
+        AUnit nearEnemy = getNearestThreatToMain();
+        if (nearEnemy != null) {
+            return nearEnemy.getPosition();
         }
 
         // === Return position near the choke point ================
         
+        return getRallyPoint();
+    }
+
+    /**
+     * Center of the choke point of our natural base.
+     */
+    @Override
+    public APosition getRallyPoint() {
 //        if (Select.ourBases().count() <= 1) {
 //            return APosition.create(AtlantisMap.getChokepointForMainBase().getCenter());
 //        }
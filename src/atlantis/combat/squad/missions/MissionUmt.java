@@ -29,7 +29,7 @@ public class MissionUmt extends Mission {
     // =========================================================
     
     @Override
-    public boolean update(AUnit unit) {
+    public boolean update(AUnit unit, MissionContext context) {
         if (unit.isJustShooting() || !unit.isReadyToShoot()) {
             return false;
         }
@@ -150,8 +150,19 @@ public class MissionUmt extends Mission {
 //        return AtlantisMap.getNearestUnexploredRegion(flagshipUnit.getPosition());
 //    }
     
+    /**
+     * Depends on where the flagship is right now, so unlike other missions it isn't kept for the whole frame.
+     */
     @Override
     public APosition getFocusPoint() {
+        return defineFocusPoint();
+    }
+
+    @Override
+    protected APosition defineFocusPoint() {
+        if (flagshipUnit == null) {
+            return null;
+        }
         _tempFocusPoint = AMap.getNearestUnexploredAccessiblePosition(flagshipUnit.getPosition());
         return _tempFocusPoint;
     }
@@ -1,6 +1,7 @@
 package atlantis.combat.squad.missions;
 
 import atlantis.AGame;
+import atlantis.units.AUnitCounts;
 import atlantis.units.AUnitType;
 import atlantis.units.Select;
 
@@ -78,10 +79,11 @@ public class Missions {
         // === Terran ========================================
         
         if (AGame.playsAsTerran()) {
-            if (Select.ourOfType(AUnitType.Terran_Vulture).count() > 0) {
+            if (AUnitCounts.our().countCompleted(AUnitType.Terran_Vulture) > 0) {
                 return true;
             }
-            if (Select.ourTanks().count() < 4) {
+            if (AUnitCounts.our().countCompleted(
+                    AUnitType.Terran_Siege_Tank_Tank_Mode, AUnitType.Terran_Siege_Tank_Siege_Mode) < 4) {
                 return false;
             }
         }
@@ -40,6 +40,8 @@ public class ABuilderManager {
             } else if (constructionOrder.getStatus() == ConstructionOrderStatus.CONSTRUCTION_FINISHED) {
                 // Do nothing - construction is finished
             }
+        } else if (ABuilderPreTravel.isPreTraveling(builder)) {
+            ABuilderPreTravel.updatePreTravelingBuilder(builder);
         } else {
             System.err.println("constructionOrder null for " + builder);
         }
@@ -70,8 +72,8 @@ public class ABuilderManager {
         
         // Move builder to the build position
         if (distance > maxDistanceToIssueBuildOrder) {
-            if (!builder.isMoving() || AGame.getTimeFrames() % 10 == 0) {
-                builder.move(constructionOrder.getPositionToBuildCenter(), UnitActions.MOVE_TO_BUILD);
+            if (!builder.isMoving() || builder.getTargetPosition().distanceTo(buildPositionCenter) > 1) {
+                builder.move(buildPositionCenter, UnitActions.MOVE_TO_BUILD);
             }
             builder.setTooltip("Build " + buildingType.getShortName() + " (" + distance);
         } 
@@ -0,0 +1,265 @@
+package atlantis.constructing;
+
+import atlantis.AGame;
+import atlantis.position.APosition;
+import atlantis.production.ProductionOrder;
+import atlantis.production.orders.ABuildOrderManager;
+import atlantis.units.AUnit;
+import atlantis.units.AUnitRole;
+import atlantis.units.AUnitRoles;
+import atlantis.units.AUnitType;
+import atlantis.units.actions.UnitActions;
+import atlantis.workers.AMiningTelemetry;
+import atlantis.wrappers.ATech;
+
+/**
+ * Sends builder of the next building from the production queue towards its position before we can afford
+ * it, so that it arrives just when the resources are there.
+ * <br /><br />
+ * Construction order is created only once the building is affordable. Until then this class keeps a plan:
+ * building type, expected position and the builder chosen for it (once per plan, not every frame). The
+ * builder keeps mining until its travel time is at least the time left until we can afford the building
+ * (at current income); then it gets the <b>BUILDER</b> role and goes. When the construction order is
+ * created, it takes over this builder and the planned position.
+ * <br /><br />
+ * If no position can be found for the building, no new plan is tried for that type until a building is
+ * placed or destroyed, as only that can make room for it.
+ */
+public class ABuilderPreTravel {
+
+    /**
+     * The plan is checked this often, in frames.
+     */
+    private static final int CHECK_EVERY_FRAMES = 12;
+
+    /**
+     * Only this many next production orders are looked at when searching for the next building.
+     */
+    private static final int LOOKAHEAD_ORDERS = 4;
+
+    /**
+     * Income estimates used until the telemetry has a full minute of data, per worker per frame.
+     */
+    private static final double MINERALS_PER_WORKER_PER_FRAME = 0.045;
+    private static final double GAS_PER_WORKER_PER_FRAME = 0.027;
+
+    private static final int FRAMES_PER_MINUTE = 1440;
+
+    // =========================================================
+
+    private static AUnitType plannedType = null;
+    private static APosition plannedPosition = null;
+    private static AUnit plannedBuilder = null;
+    private static boolean isDispatched = false;
+
+    /**
+     * Type no position could be found for, since the last building placed or destroyed.
+     */
+    private static AUnitType failedPlanType = null;
+
+    private static int lastCheckFrame = -1;
+
+    // =========================================================
+
+    /**
+     * Checks whether the planned builder should start going. Called every frame.
+     */
+    public static void update() {
+        if (AGame.getTimeFrames() - lastCheckFrame < CHECK_EVERY_FRAMES) {
+            return;
+        }
+        lastCheckFrame = AGame.getTimeFrames();
+
+        int[] resourcesNeeded = AConstructionManager.countResourcesNeededForNotStartedConstructions();
+        ProductionOrder nextBuilding = findNextBuilding(resourcesNeeded);
+        if (nextBuilding == null || !nextBuilding.getUnitOrBuilding().equals(plannedType)) {
+            cancelPlan();
+            if (nextBuilding == null || nextBuilding.getUnitOrBuilding().equals(failedPlanType)
+                    || !createPlan(nextBuilding)) {
+                return;
+            }
+        }
+
+        if (plannedBuilder == null || !plannedBuilder.isAlive()) {
+            cancelPlan();
+            return;
+        }
+
+        // Chosen builder was taken for another job in the meantime
+        if (!isDispatched && AUnitRoles.hasAny(plannedBuilder, AUnitRole.SCOUT, AUnitRole.BUILDER,
+                AUnitRole.REPAIRER, AUnitRole.BUNKER_REPAIRER)) {
+            plannedBuilder = ABuilderSelection.chooseBuilder(plannedPosition);
+            if (plannedBuilder == null) {
+                cancelPlan();
+                return;
+            }
+        }
+
+        if (!isDispatched) {
+            double framesUntilAffordable = framesUntilAffordable(resourcesNeeded[0], resourcesNeeded[1]);
+            if (ABuilderSelection.getTravelFrames(plannedBuilder, plannedPosition) >= framesUntilAffordable) {
+                isDispatched = true;
+                AUnitRoles.assign(plannedBuilder, AUnitRole.BUILDER);
+                plannedBuilder.move(plannedPosition, UnitActions.MOVE_TO_BUILD);
+            }
+        }
+    }
+
+    /**
+     * Construction order of given type has just been created. Returns builder already sent there or null, and
+     * forgets the plan.
+     */
+    protected static AUnit takeBuilderFor(AUnitType building) {
+        if (!building.equals(plannedType)) {
+            return null;
+        }
+
+        // Either way the plan is used up, the next building of this type gets a new one
+        AUnit builder = isDispatched && plannedBuilder.isAlive() ? plannedBuilder : null;
+        forgetPlan();
+        return builder;
+    }
+
+    /**
+     * Returns position planned for the building of given type or null if there's no such plan.
+     */
+    protected static APosition getPlannedPositionFor(AUnitType building) {
+        return building.equals(plannedType) ? plannedPosition : null;
+    }
+
+    /**
+     * Building (of any player) has been placed or destroyed. Position that wasn't found may be there now, and
+     * position planned but not yet travelled to may be taken, so both are defined again.
+     */
+    public static void onBuildingsChanged() {
+        failedPlanType = null;
+        if (!isDispatched) {
+            forgetPlan();
+        }
+    }
+
+    /**
+     * Returns true if given unit was sent to build something, but the construction order doesn't exist yet.
+     */
+    public static boolean isPreTraveling(AUnit unit) {
+        return isDispatched && unit.equals(plannedBuilder);
+    }
+
+    /**
+     * Keeps the builder going to the planned position (doesn't repeat the move order once it's going there).
+     */
+    protected static void updatePreTravelingBuilder(AUnit builder) {
+        builder.setTooltip("Pre-travel " + plannedType.getShortName());
+        if (builder.distanceTo(plannedPosition) > 2 && !builder.isMoving()) {
+            builder.move(plannedPosition, UnitActions.MOVE_TO_BUILD);
+        }
+    }
+
+    // =========================================================
+
+    /**
+     * Returns next building from the production queue, if it's built by a worker. Costs of all orders before
+     * it (and of the building itself) are added to <b>resourcesNeeded</b>.
+     */
+    private static ProductionOrder findNextBuilding(int[] resourcesNeeded) {
+        for (ProductionOrder order : ABuildOrderManager.getProductionQueueNext(LOOKAHEAD_ORDERS)) {
+            AUnitType type = order.getUnitOrBuilding();
+            if (type != null) {
+                resourcesNeeded[0] += type.getMineralPrice();
+                resourcesNeeded[1] += type.getGasPrice();
+                if (type.isBuilding()) {
+                    return type.getWhatBuildsIt().isWorker() && !type.isAddon() ? order : null;
+                }
+            }
+            else if (order.getUpgrade() != null) {
+                int level = 1 + ATech.getUpgradeLevel(order.getUpgrade());
+                resourcesNeeded[0] += order.getUpgrade().mineralPrice() * level;
+                resourcesNeeded[1] += order.getUpgrade().gasPrice() * level;
+            }
+            else if (order.getTech() != null) {
+                resourcesNeeded[0] += order.getTech().mineralPrice();
+                resourcesNeeded[1] += order.getTech().gasPrice();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds position and builder for the building. Returns false if either can't be found.
+     */
+    private static boolean createPlan(ProductionOrder order) {
+        AUnitType type = order.getUnitOrBuilding();
+        ConstructionOrder provisionalOrder = new ConstructionOrder(type);
+        provisionalOrder.setProductionOrder(order);
+        provisionalOrder.setMaxDistance(-1);
+        provisionalOrder.assignRandomBuilderForNow();
+        if (provisionalOrder.getBuilder() == null) {
+            return false;
+        }
+
+        APosition position = provisionalOrder.findNewBuildPosition();
+        if (position == null) {
+            failedPlanType = type;
+            return false;
+        }
+
+        AUnit builder = ABuilderSelection.chooseBuilder(position);
+        if (builder == null) {
+            return false;
+        }
+
+        plannedType = type;
+        plannedPosition = position;
+        plannedBuilder = builder;
+        isDispatched = false;
+        return true;
+    }
+
+    /**
+     * Sends the dispatched builder back to work, unless it already builds something else.
+     */
+    private static void cancelPlan() {
+        if (isDispatched && plannedBuilder != null && !AConstructionManager.isBuilder(plannedBuilder)) {
+            AUnitRoles.release(plannedBuilder, AUnitRole.BUILDER);
+            if (plannedBuilder.isAlive()) {
+                plannedBuilder.stop();
+            }
+        }
+        forgetPlan();
+    }
+
+    private static void forgetPlan() {
+        plannedType = null;
+        plannedPosition = null;
+        plannedBuilder = null;
+        isDispatched = false;
+    }
+
+    /**
+     * Number of frames until we have given resources at current income, or <b>Double.MAX_VALUE</b> if we have
+     * no income of needed resource.
+     */
+    private static double framesUntilAffordable(int minerals, int gas) {
+        int missingMinerals = minerals - AGame.getMinerals();
+        int missingGas = gas - AGame.getGas();
+
+        double mineralsPerFrame;
+        if (AMiningTelemetry.ENABLED && AGame.getTimeFrames() >= FRAMES_PER_MINUTE) {
+            mineralsPerFrame = (double) AMiningTelemetry.getIncomePerMinute() / FRAMES_PER_MINUTE;
+        }
+        else {
+            mineralsPerFrame = AUnitRoles.count(AUnitRole.MINERAL) * MINERALS_PER_WORKER_PER_FRAME;
+        }
+        double gasPerFrame = AUnitRoles.count(AUnitRole.GAS) * GAS_PER_WORKER_PER_FRAME;
+
+        double frames = 0;
+        if (missingMinerals > 0) {
+            frames = mineralsPerFrame > 0 ? missingMinerals / mineralsPerFrame : Double.MAX_VALUE;
+        }
+        if (missingGas > 0) {
+            frames = Math.max(frames, gasPerFrame > 0 ? missingGas / gasPerFrame : Double.MAX_VALUE);
+        }
+        return frames;
+    }
+
+}
@@ -0,0 +1,105 @@
+package atlantis.constructing;
+
+import atlantis.information.AGroundDistanceField;
+import atlantis.position.APosition;
+import atlantis.units.AUnit;
+import atlantis.units.Select;
+import java.util.List;
+
+/**
+ * Chooses builder for a building by the time it needs to get there: ground distance (from the distance field of
+ * the build position) divided by its speed, plus the cost of interrupting what it's doing now.
+ * <br /><br />
+ * Workers carrying minerals or gas are only taken when there's no one else, as they would waste the cargo's
+ * trip. Gas workers are taken reluctantly as there are only a few of them.
+ */
+public class ABuilderSelection {
+
+    /**
+     * Penalty for interrupting a worker that carries resources; high enough to always prefer the others.
+     */
+    private static final int CARRYING_PENALTY_FRAMES = 100000;
+
+    /**
+     * Penalty for taking a worker away from gas.
+     */
+    private static final int GAS_WORKER_PENALTY_FRAMES = 120;
+
+    /**
+     * Used as worker speed when it's unknown, in pixels per frame (SCV, Probe and Drone are roughly equal).
+     */
+    private static final double DEFAULT_WORKER_SPEED = 4.92;
+
+    // =========================================================
+
+    /**
+     * Returns worker free to build that would get to given position soonest, or null if there's none.
+     */
+    public static AUnit chooseBuilder(APosition position) {
+        if (position == null) {
+            return null;
+        }
+
+        List<AUnit> candidates = Select.ourWorkersFreeToBuildOrRepair().units()
+                .sortByDistanceTo(position, true).arrayList();
+        if (candidates.isEmpty()) {
+            return null;
+        }
+
+        AGroundDistanceField field = AGroundDistanceField.getFieldTo(position);
+        AUnit best = null;
+        double bestScore = Double.MAX_VALUE;
+        for (AUnit candidate : candidates) {
+
+            // Candidates are sorted by air distance, which is never longer than ground distance, so no one
+            // further can be better
+            if (travelFrames(candidate, candidate.distanceTo(position)) >= bestScore) {
+                break;
+            }
+
+            if (ABuilderPreTravel.isPreTraveling(candidate)) {
+                continue;
+            }
+
+            double score = getTravelFrames(candidate, field, position) + interruptionPenalty(candidate);
+            if (score < bestScore) {
+                bestScore = score;
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns number of frames given worker needs to get to given position over the ground.
+     */
+    public static double getTravelFrames(AUnit worker, APosition position) {
+        return getTravelFrames(worker, AGroundDistanceField.getFieldTo(position), position);
+    }
+
+    // =========================================================
+
+    private static double getTravelFrames(AUnit worker, AGroundDistanceField field, APosition position) {
+        double groundDistance = field.getDistance(worker.getPosition());
+        if (groundDistance < 0) {
+            groundDistance = worker.distanceTo(position) * 2; // Terrain doesn't say; assume it's a detour
+        }
+        return travelFrames(worker, groundDistance);
+    }
+
+    private static double travelFrames(AUnit worker, double distanceInTiles) {
+        double speed = worker.getType().ut().topSpeed();
+        return distanceInTiles * 32 / (speed > 0 ? speed : DEFAULT_WORKER_SPEED);
+    }
+
+    private static double interruptionPenalty(AUnit worker) {
+        if (worker.isCarryingMinerals() || worker.isCarryingGas()) {
+            return CARRYING_PENALTY_FRAMES;
+        }
+        if (worker.isGatheringGas()) {
+            return GAS_WORKER_PENALTY_FRAMES;
+        }
+        return 0;
+    }
+
+}
@@ -5,20 +5,22 @@ import atlantis.AtlantisConfig;
 import atlantis.constructing.position.APositionFinder;
 import atlantis.constructing.position.AbstractPositionFinder;
 import atlantis.position.APosition;
+import atlantis.production.AResourceLedger;
 import atlantis.production.ProductionOrder;
 import atlantis.production.orders.ABuildOrderManager;
 import atlantis.units.AUnit;
+import atlantis.units.AUnitCounts;
 import atlantis.units.AUnitType;
 import atlantis.units.Select;
 import java.util.ArrayList;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.List;
 
 public class AConstructionManager {
 
     /**
-     * List of all unfinished (started or pending) constructions.
+     * All unfinished (started or pending) constructions, indexed by builder, type and status and position.
      */
-    private static ConcurrentLinkedQueue<ConstructionOrder> constructionOrders = new ConcurrentLinkedQueue<>();
+    private static final ConstructionOrders constructionOrders = new ConstructionOrders();
 
     // =========================================================
     
@@ -27,10 +29,18 @@ public class AConstructionManager {
      * finished objects etc.
      */
     public static void update() {
-        for (ConstructionOrder constructionOrder : constructionOrders) {
+
+        // If playing as ZERG...
+        if (AGame.playsAsZerg()) {
+            handleZergConstructionsWhichBecameBuildings();
+        }
+
+        for (ConstructionOrder constructionOrder : constructionOrders.all()) {
             checkForConstructionStatusChange(constructionOrder, constructionOrder.getConstruction());
             checkForBuilderStatusChange(constructionOrder, constructionOrder.getBuilder());
         }
+
+        ABuilderPreTravel.update();
     }
 
     // =========================================================
@@ -90,7 +100,13 @@ public class AConstructionManager {
 //        );
 //        newConstructionOrder.setMaxDistance(32);
         newConstructionOrder.setMaxDistance(-1);
-        APosition positionToBuild = newConstructionOrder.findNewBuildPosition();
+
+        // Use position the builder may be already travelling to, if it's still free
+        APosition positionToBuild = near == null ? ABuilderPreTravel.getPlannedPositionFor(building) : null;
+        if (positionToBuild == null || !AbstractPositionFinder.canPhysicallyBuildHere(
+                newConstructionOrder.getBuilder(), building, positionToBuild)) {
+            positionToBuild = newConstructionOrder.findNewBuildPosition();
+        }
 //        AGame.sendMessage("@@ " + building + " at " + positionToBuild + " near " + near);
 //        System.err.println("@@ " + building + " at " + positionToBuild + " near " + near);
 
@@ -180,11 +196,6 @@ public class AConstructionManager {
             }
         }
 
-        // If playing as ZERG...
-        if (AGame.playsAsZerg()) {
-            handleZergConstructionsWhichBecameBuildings();
-        }
-
         // =========================================================
 //        if (building != null) {
 //            System.out.println("==============");
@@ -239,41 +250,26 @@ public class AConstructionManager {
      * already in progress.
      */
     public static boolean isBuilder(AUnit worker) {
-        if (worker.isConstructing() || 
-                (!AGame.playsAsProtoss() && getConstructionOrderFor(worker) != null)) {
+        if (worker.isConstructing()) {
             return true;
         }
 
-        for (ConstructionOrder constructionOrder : constructionOrders) {
-            if (worker.equals(constructionOrder.getBuilder())) {
-                
-                // Pending Protoss buildings allow builder to go away
-                if (AGame.playsAsProtoss() && ConstructionOrderStatus.CONSTRUCTION_IN_PROGRESS
-                        .equals(constructionOrder.getStatus())) {
-                    return false;
-                }
-                
-                // Terran and Zerg need to use the worker until construction is finished
-                else {
-                    return true;
-                }
-            }
+        ConstructionOrder constructionOrder = constructionOrders.forBuilder(worker);
+        if (constructionOrder == null) {
+            return false;
         }
 
-        return false;
+        // Pending Protoss buildings allow builder to go away; Terran and Zerg need to use the worker until
+        // construction is finished
+        return !(AGame.playsAsProtoss()
+                && ConstructionOrderStatus.CONSTRUCTION_IN_PROGRESS.equals(constructionOrder.getStatus()));
     }
 
     /**
      * Returns ConstructionOrder object for given builder.
      */
     public static ConstructionOrder getConstructionOrderFor(AUnit builder) {
-        for (ConstructionOrder constructionOrder : constructionOrders) {
-            if (builder.equals(constructionOrder.getBuilder())) {
-                return constructionOrder;
-            }
-        }
-
-        return null;
+        return constructionOrders.forBuilder(builder);
     }
 
     /**
@@ -282,18 +278,12 @@ public class AConstructionManager {
      * then, we can e.g. "count unstarted barracks constructions".
      */
     public static int countNotStartedConstructionsOfType(AUnitType type) {
-        int total = 0;
-        for (ConstructionOrder constructionOrder : constructionOrders) {
-            if (constructionOrder.getStatus() == ConstructionOrderStatus.CONSTRUCTION_NOT_STARTED
-                    && constructionOrder.getBuildingType().equals(type)) {
-                total++;
-            }
-        }
+        int total = constructionOrders.count(type, ConstructionOrderStatus.CONSTRUCTION_NOT_STARTED);
 
         // =========================================================
         // Special case for Overlord
         if (type.equals(AUnitType.Zerg_Overlord)) {
-            total += Select.ourNotFinished().ofType(type).count();
+            total += AUnitCounts.our().countInProgress(type);
         }
 
         return total;
@@ -301,7 +291,7 @@ public class AConstructionManager {
     
     public static int countNotStartedConstructionsOfTypeInRadius(AUnitType type, double radius, APosition position) {
         int total = 0;
-        for (ConstructionOrder constructionOrder : constructionOrders) {
+        for (ConstructionOrder constructionOrder : constructionOrders.near(position, radius)) {
             if (constructionOrder.getStatus() == ConstructionOrderStatus.CONSTRUCTION_NOT_STARTED
                     && constructionOrder.getBuildingType().equals(type)
                     && position.distanceTo(constructionOrder.getPositionToBuildCenter()) <= radius) {
@@ -319,8 +309,7 @@ public class AConstructionManager {
     }
 
     public static int countNotFinishedConstructionsOfType(AUnitType type) {
-        return Select.ourNotFinished().ofType(type).count()
-                + countNotStartedConstructionsOfType(type);
+        return AUnitCounts.our().countInProgress(type) + countNotStartedConstructionsOfType(type);
     }
 
     public static int countNotFinishedConstructionsOfTypeInRadius(AUnitType type, double radius, APosition position) {
@@ -333,25 +322,19 @@ public class AConstructionManager {
      * finished).
      */
     public static int countPendingConstructionsOfType(AUnitType type) {
-        int total = 0;
-        for (ConstructionOrder constructionOrder : constructionOrders) {
-            if (constructionOrder.getStatus() == ConstructionOrderStatus.CONSTRUCTION_IN_PROGRESS
-                    && constructionOrder.getBuildingType().equals(type)) {
-                total++;
-            }
-        }
+        int total = constructionOrders.count(type, ConstructionOrderStatus.CONSTRUCTION_IN_PROGRESS);
 
         // =========================================================
         // Special case for Overlord
         if (type.equals(AUnitType.Zerg_Overlord)) {
-            total += Select.ourNotFinished().ofType(AUnitType.Zerg_Overlord).count();
+            total += AUnitCounts.our().countInProgress(AUnitType.Zerg_Overlord);
         }
 
         return total;
     }
     
     public static int countExistingAndPlannedConstructions(AUnitType type) {
-        return Select.ourOfType(type).count() + AConstructionManager.countNotFinishedConstructionsOfType(type);
+        return AUnitCounts.our().countCompleted(type) + AConstructionManager.countNotFinishedConstructionsOfType(type);
     }
     
     public static int countExistingAndPlannedConstructionsInRadius(AUnitType type, double radius, APosition position) {
@@ -369,7 +352,7 @@ public class AConstructionManager {
      */
     public static ArrayList<ConstructionOrder> getNotStartedConstructionsOfType(AUnitType type) {
         ArrayList<ConstructionOrder> notStarted = new ArrayList<>();
-        for (ConstructionOrder constructionOrder : constructionOrders) {
+        for (ConstructionOrder constructionOrder : constructionOrders.all()) {
             if (constructionOrder.getStatus() == ConstructionOrderStatus.CONSTRUCTION_NOT_STARTED
                     && (type == null || constructionOrder.getBuildingType().equals(type))) {
                 notStarted.add(constructionOrder);
@@ -385,20 +368,27 @@ public class AConstructionManager {
      * @return
      */
     public static ArrayList<ConstructionOrder> getAllConstructionOrders() {
-        return new ArrayList<>(constructionOrders);
+        return constructionOrders.all();
+    }
+
+    /**
+     * Returns construction orders whose position to build may be within given radius (in tiles) from given
+     * position. It's a superset: exact distance has to be checked by the caller.
+     */
+    public static List<ConstructionOrder> getConstructionOrdersNear(APosition position, double radius) {
+        return constructionOrders.near(position, radius);
     }
 
     /**
      * @return first int is number minerals, second int is number of gas required.
      */
     public static int[] countResourcesNeededForNotStartedConstructions() {
-        int mineralsNeeded = 0;
-        int gasNeeded = 0;
-        for (ConstructionOrder constructionOrder : AConstructionManager.getNotStartedConstructionsOfType(null)) {
-            mineralsNeeded += constructionOrder.getBuildingType().getMineralPrice();
-            gasNeeded += constructionOrder.getBuildingType().getGasPrice();
-        }
-        int[] result = {mineralsNeeded, gasNeeded};
+        int[] result = {
+            AResourceLedger.getReservedMinerals(AResourceLedger.Purpose.CONSTRUCTION)
+                    + AResourceLedger.getReservedMinerals(AResourceLedger.Purpose.EXPANSION),
+            AResourceLedger.getReservedGas(AResourceLedger.Purpose.CONSTRUCTION)
+                    + AResourceLedger.getReservedGas(AResourceLedger.Purpose.EXPANSION)
+        };
         return result;
     }
 
@@ -23,6 +23,11 @@ public class ConstructionOrder implements Comparable<ConstructionOrder> {
     private ProductionOrder productionOrder;
     private ConstructionOrderStatus status;
 
+    /**
+     * Store this order is indexed in, notified about every change of indexed fields.
+     */
+    private ConstructionOrders store = null;
+
     // private int issueFrameTime;
     // =========================================================
     
@@ -47,16 +52,18 @@ public class ConstructionOrder implements Comparable<ConstructionOrder> {
      * and we're cool, bro.
      */
     protected void assignRandomBuilderForNow() {
-        builder = Select.ourWorkers().first();
+        setBuilder(Select.ourWorkers().first());
     }
 
     /**
-     * Assigns optimal builder for this building. Worker closest to this place.
+     * Assigns optimal builder for this building: the one already sent here in advance or the worker that
+     * would get to this place soonest.
      *
      * @return  AUnit for convenience it returns
      */
     protected AUnit assignOptimalBuilder() {
-        builder = Select.ourWorkersFreeToBuildOrRepair().nearestTo(positionToBuild);
+        AUnit preTraveledBuilder = ABuilderPreTravel.takeBuilderFor(buildingType);
+        setBuilder(preTraveledBuilder != null ? preTraveledBuilder : ABuilderSelection.chooseBuilder(positionToBuild));
         return builder;
     }
 
@@ -70,7 +77,7 @@ public class ConstructionOrder implements Comparable<ConstructionOrder> {
         
         if (builder != null) {
             builder.stop();
-            builder = null;
+            setBuilder(null);
         }
         
         AConstructionManager.removeOrder(this);
@@ -114,6 +121,24 @@ public class ConstructionOrder implements Comparable<ConstructionOrder> {
         return "ConstructionOrder{" + "ID=" + ID + ", buildingType=" + buildingType + ", construction=" + construction + ", builder=" + builder + ", positionToBuild=" + positionToBuild + ", productionOrder=" + productionOrder + ", status=" + status + '}';
     }
     
+    // =========================================================
+
+    protected void setStore(ConstructionOrders store) {
+        this.store = store;
+    }
+
+    private void beforeIndexedFieldChange() {
+        if (store != null) {
+            store.unindex(this);
+        }
+    }
+
+    private void afterIndexedFieldChange() {
+        if (store != null) {
+            store.index(this);
+        }
+    }
+
     // =========================================================
     
     public APosition getPositionToBuildCenter() {
@@ -133,7 +158,9 @@ public class ConstructionOrder implements Comparable<ConstructionOrder> {
     }
 
     public void setBuildingType(AUnitType buildingType) {
+        beforeIndexedFieldChange();
         this.buildingType = buildingType;
+        afterIndexedFieldChange();
     }
 
     public AUnit getBuilder() {
@@ -141,7 +168,9 @@ public class ConstructionOrder implements Comparable<ConstructionOrder> {
     }
 
     public void setBuilder(AUnit builder) {
+        beforeIndexedFieldChange();
         this.builder = builder;
+        afterIndexedFieldChange();
     }
 
     public ConstructionOrderStatus getStatus() {
@@ -149,7 +178,9 @@ public class ConstructionOrder implements Comparable<ConstructionOrder> {
     }
 
     public void setStatus(ConstructionOrderStatus status) {
+        beforeIndexedFieldChange();
         this.status = status;
+        afterIndexedFieldChange();
     }
 
     public APosition getPositionToBuild() {
@@ -157,7 +188,9 @@ public class ConstructionOrder implements Comparable<ConstructionOrder> {
     }
 
     public void setPositionToBuild(APosition positionToBuild) {
+        beforeIndexedFieldChange();
         this.positionToBuild = positionToBuild;
+        afterIndexedFieldChange();
     }
 
     public AUnit getConstruction() {
@@ -0,0 +1,222 @@
+package atlantis.constructing;
+
+import atlantis.AGame;
+import atlantis.information.AExpansions;
+import atlantis.position.APosition;
+import atlantis.production.AResourceLedger;
+import atlantis.units.AUnit;
+import atlantis.units.AUnitRole;
+import atlantis.units.AUnitRoles;
+import atlantis.units.AUnitType;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * All unfinished construction orders, indexed by builder, by building type and status (as counters) and by
+ * position to build (in buckets of tiles).
+ * <br /><br />
+ * Orders added here notify the store about every change of builder, status, type or position, which first
+ * removes the order from all indexes and then adds it back, so indexes are never out of date. Units having at
+ * least one order that still needs them get the <b>BUILDER</b> role and not started orders reserve their
+ * cost in <b>AResourceLedger</b>.
+ */
+class ConstructionOrders {
+
+    /**
+     * Size of a single position bucket (8 tiles).
+     */
+    private static final int BUCKET_SIZE_PX = 256;
+
+    /**
+     * Center of a building can be this far (in pixels) from its top-left position to build.
+     */
+    private static final int BUILDING_CENTER_MARGIN_PX = 128;
+
+    // =========================================================
+
+    private final Set<ConstructionOrder> orders = new LinkedHashSet<>();
+    private final Map<AUnit, List<ConstructionOrder>> byBuilder = new HashMap<>();
+    private final Map<AUnitType, int[]> countsByTypeAndStatus = new HashMap<>();
+    private final Map<Integer, List<ConstructionOrder>> byPosition = new HashMap<>();
+
+    // === Adding & removing ===================================
+
+    protected void add(ConstructionOrder order) {
+        if (orders.add(order)) {
+            index(order);
+            order.setStore(this);
+        }
+    }
+
+    protected void remove(ConstructionOrder order) {
+        if (orders.remove(order)) {
+            unindex(order);
+            order.setStore(null);
+        }
+    }
+
+    // === Queries =============================================
+
+    /**
+     * Returns copy of all orders, in the order they were added.
+     */
+    protected ArrayList<ConstructionOrder> all() {
+        return new ArrayList<>(orders);
+    }
+
+    /**
+     * Returns the oldest order of given builder, or null.
+     */
+    protected ConstructionOrder forBuilder(AUnit builder) {
+        List<ConstructionOrder> builderOrders = byBuilder.get(builder);
+        if (builderOrders == null) {
+            return null;
+        }
+
+        ConstructionOrder oldest = null;
+        for (ConstructionOrder order : builderOrders) {
+            if (oldest == null || order.compareTo(oldest) < 0) {
+                oldest = order;
+            }
+        }
+        return oldest;
+    }
+
+    protected int count(AUnitType type, ConstructionOrderStatus status) {
+        int[] counts = countsByTypeAndStatus.get(type);
+        return counts != null ? counts[status.ordinal()] : 0;
+    }
+
+    /**
+     * Returns orders whose position to build may be within given radius (in tiles) from given position, i.e.
+     * all orders from the buckets around it. Callers check the exact distance themselves.
+     */
+    protected List<ConstructionOrder> near(APosition position, double radius) {
+        List<ConstructionOrder> result = new ArrayList<>();
+        int reachPx = (int) Math.ceil(radius * 32) + BUILDING_CENTER_MARGIN_PX;
+        int minBucketX = Math.max(0, (position.getX() - reachPx) / BUCKET_SIZE_PX);
+        int maxBucketX = (position.getX() + reachPx) / BUCKET_SIZE_PX;
+        int minBucketY = Math.max(0, (position.getY() - reachPx) / BUCKET_SIZE_PX);
+        int maxBucketY = (position.getY() + reachPx) / BUCKET_SIZE_PX;
+
+        for (int bucketX = minBucketX; bucketX <= maxBucketX; bucketX++) {
+            for (int bucketY = minBucketY; bucketY <= maxBucketY; bucketY++) {
+                Collection<ConstructionOrder> bucket = byPosition.get(bucketKey(bucketX, bucketY));
+                if (bucket != null) {
+                    result.addAll(bucket);
+                }
+            }
+        }
+        return result;
+    }
+
+    // === Indexes =============================================
+
+    /**
+     * Adds order to all indexes, based on its current state.
+     */
+    protected void index(ConstructionOrder order) {
+        AUnit builder = order.getBuilder();
+        if (builder != null) {
+            List<ConstructionOrder> builderOrders = byBuilder.get(builder);
+            if (builderOrders == null) {
+                builderOrders = new ArrayList<>(1);
+                byBuilder.put(builder, builderOrders);
+            }
+            builderOrders.add(order);
+            updateBuilderRole(builder, builderOrders);
+        }
+
+        AUnitType type = order.getBuildingType();
+        int[] counts = countsByTypeAndStatus.get(type);
+        if (counts == null) {
+            counts = new int[ConstructionOrderStatus.values().length];
+            countsByTypeAndStatus.put(type, counts);
+        }
+        counts[order.getStatus().ordinal()]++;
+
+        if (order.getStatus() == ConstructionOrderStatus.CONSTRUCTION_NOT_STARTED) {
+
+            // Production order that requested it no longer holds these resources
+            if (order.getProductionOrder() != null) {
+                AResourceLedger.release(order.getProductionOrder());
+            }
+            AResourceLedger.reserve(order, type.isBase() ? AResourceLedger.Purpose.EXPANSION
+                    : AResourceLedger.Purpose.CONSTRUCTION, type.getMineralPrice(), type.getGasPrice(), 0);
+        }
+
+        APosition position = order.getPositionToBuild();
+        if (position != null) {
+            AExpansions.constructionAdded(order.getPositionToBuildCenter());
+
+            int key = bucketKey(position.getX() / BUCKET_SIZE_PX, position.getY() / BUCKET_SIZE_PX);
+            List<ConstructionOrder> bucket = byPosition.get(key);
+            if (bucket == null) {
+                bucket = new ArrayList<>();
+                byPosition.put(key, bucket);
+            }
+            bucket.add(order);
+        }
+    }
+
+    /**
+     * Removes order from all indexes. Has to be called before its state changes.
+     */
+    protected void unindex(ConstructionOrder order) {
+        AUnit builder = order.getBuilder();
+        if (builder != null) {
+            List<ConstructionOrder> builderOrders = byBuilder.get(builder);
+            if (builderOrders != null) {
+                builderOrders.remove(order);
+                if (builderOrders.isEmpty()) {
+                    byBuilder.remove(builder);
+                }
+                updateBuilderRole(builder, builderOrders);
+            }
+        }
+
+        AUnitType type = order.getBuildingType();
+        countsByTypeAndStatus.get(type)[order.getStatus().ordinal()]--;
+
+        AResourceLedger.release(order);
+
+        APosition position = order.getPositionToBuild();
+        if (position != null) {
+            AExpansions.constructionRemoved(order.getPositionToBuildCenter());
+
+            int key = bucketKey(position.getX() / BUCKET_SIZE_PX, position.getY() / BUCKET_SIZE_PX);
+            List<ConstructionOrder> bucket = byPosition.get(key);
+            if (bucket != null) {
+                bucket.remove(order);
+                if (bucket.isEmpty()) {
+                    byPosition.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Builder keeps the <b>BUILDER</b> role as long as any of its orders needs it. Pending Protoss buildings
+     * allow builder to go away; Terran and Zerg need to use the worker until construction is finished.
+     */
+    private static void updateBuilderRole(AUnit builder, List<ConstructionOrder> builderOrders) {
+        for (ConstructionOrder order : builderOrders) {
+            if (!(AGame.playsAsProtoss()
+                    && order.getStatus() == ConstructionOrderStatus.CONSTRUCTION_IN_PROGRESS)) {
+                AUnitRoles.assign(builder, AUnitRole.BUILDER);
+                return;
+            }
+        }
+        AUnitRoles.release(builder, AUnitRole.BUILDER);
+    }
+
+    private static int bucketKey(int bucketX, int bucketY) {
+        return (bucketX << 16) | bucketY;
+    }
+
+}
@@ -1,6 +1,7 @@
 package atlantis.constructing.position;
 
 import atlantis.constructing.ConstructionOrder;
+import atlantis.information.AExpansions;
 import atlantis.information.AMap;
 import atlantis.position.APosition;
 import atlantis.units.AUnit;
@@ -39,7 +40,6 @@ public class ASpecialPositionFinder {
      * that doesn't have gas extracting building.
      */
     protected static APosition findPositionForGasBuilding(AUnitType building) {
-        AUnit builder = Select.ourWorkers().first();
         for (AUnit base : Select.ourBases().listUnits()) {
             AUnit geyser = (AUnit) Select.neutral().ofType(AUnitType.Resource_Vespene_Geyser).nearestTo(base);
 
@@ -79,21 +79,9 @@ public class ASpecialPositionFinder {
     // =========================================================
     
     private static APosition findPositionForBase_nearestFreeBase(AUnitType building, AUnit builder, ConstructionOrder constructionOrder) {
-        BaseLocation baseLocationToExpand;
-        int ourBasesCount = Select.ourBases().count();
-        if (ourBasesCount <= 2) {
-            baseLocationToExpand = AMap.getExpansionFreeBaseLocationNearestTo(
-                    Select.mainBase().getPosition()
-            );
-        }
-        else {
-            baseLocationToExpand = AMap.getExpansionBaseLocationMostDistantToEnemy();
-        }
-        
+        BaseLocation baseLocationToExpand = AExpansions.getNextExpansion();
         if (baseLocationToExpand == null) {
-            if (ourBasesCount <= 2) {
-                System.err.println("baseLocationToExpand is null");
-            }
+            System.err.println("baseLocationToExpand is null");
             return null;
         }
         
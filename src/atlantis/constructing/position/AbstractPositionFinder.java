@@ -71,7 +71,8 @@ public abstract class AbstractPositionFinder {
     protected static boolean isOtherConstructionTooClose(AUnit builder, AUnitType building, Position position) {
         
         // Compare against planned construction places
-        for (ConstructionOrder constructionOrder : AConstructionManager.getAllConstructionOrders()) {
+        for (ConstructionOrder constructionOrder : AConstructionManager.getConstructionOrdersNear(
+                APosition.create(position), 8)) {
             if (ConstructionOrderStatus.CONSTRUCTION_NOT_STARTED.equals(constructionOrder.getStatus())
                     && !builder.equals(constructionOrder.getBuilder())) {
                 if (constructionOrder.getPositionToBuild() != null) {
@@ -0,0 +1,302 @@
+package atlantis.debug;
+
+import atlantis.AGame;
+import atlantis.Atlantis;
+import atlantis.units.AUnit;
+import bwapi.Player;
+import bwapi.Position;
+import bwapi.Unit;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Records everything the bot gets from the game and everything it orders, to a gzipped binary file that can be
+ * read back without the game by <b>AGameReplayer</b>.
+ * <br /><br />
+ * Every frame gets a snapshot of resources and all non-neutral units, followed by commands issued to our units
+ * during the frame and how long the frame took. Unit events (create, destroy, morph...) are written as they
+ * come. Names of unit types and commands are written once and then referred to by index.
+ * <br /><br />
+ * Commands are captured in <b>AUnitOrders</b>, before they're passed to BWAPI. When the bot follows a replay
+ * (BWAPI started with a <b>.rep</b> file, see <b>AGame.isReplay()</b>), all its handlers run on the input of
+ * the recorded game, but commands are only captured and never passed to BWAPI. Running two versions of the bot
+ * on the same replay gives recordings with identical input, whose commands and frame times can be compared
+ * with <b>AGameReplayer</b>.
+ * <br /><br />
+ * Recording is off by default; files go to <b>OUTPUT_DIR</b>.
+ */
+public class AGameRecorder {
+
+    public static boolean ENABLED = false;
+
+    /**
+     * Recordings are saved here, one file per game.
+     */
+    public static final String OUTPUT_DIR = "bwapi-data/write/recordings";
+
+    // === Record types ========================================
+
+    static final byte RECORD_START = 1;
+    static final byte RECORD_NAME = 2;
+    static final byte RECORD_FRAME = 3;
+    static final byte RECORD_FRAME_END = 4;
+    static final byte RECORD_UNIT_EVENT = 5;
+    static final byte RECORD_END = 6;
+
+    // === Unit events =========================================
+
+    public static final byte EVENT_CREATE = 1;
+    public static final byte EVENT_COMPLETE = 2;
+    public static final byte EVENT_DESTROY = 3;
+    public static final byte EVENT_DISCOVER = 4;
+    public static final byte EVENT_EVADE = 5;
+    public static final byte EVENT_HIDE = 6;
+    public static final byte EVENT_MORPH = 7;
+    public static final byte EVENT_SHOW = 8;
+    public static final byte EVENT_RENEGADE = 9;
+
+    // === Unit owners =========================================
+
+    static final byte OWNER_US = 0;
+    static final byte OWNER_ENEMY = 1;
+    static final byte OWNER_NEUTRAL = 2;
+
+    // =========================================================
+
+    private static DataOutputStream out = null;
+    private static final Map<String, Integer> names = new HashMap<>();
+    private static long frameStartNanos = 0;
+    private static final List<Command> commands = new ArrayList<>();
+
+    // =========================================================
+
+    /**
+     * Opens new recording. Call once, when the game has started.
+     */
+    public static void onStart() {
+        if (!ENABLED) {
+            return;
+        }
+
+        try {
+            File dir = new File(OUTPUT_DIR);
+            dir.mkdirs();
+            String prefix = AGame.isReplay() ? "replay_" : "game_";
+            File file = new File(dir, prefix + System.currentTimeMillis() + ".rec.gz");
+            out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(file))));
+            names.clear();
+            commands.clear();
+
+            out.writeByte(RECORD_START);
+            out.writeUTF(Atlantis.getBwapi().mapFileName());
+            out.writeUTF(AGame.getPlayerUs().getRace().toString());
+            out.writeUTF(AGame.getEnemy() != null ? AGame.getEnemy().getRace().toString() : "Unknown");
+            System.out.println("Recording game to " + file.getPath());
+        }
+        catch (IOException e) {
+            System.err.println("Can't start game recording: " + e.getMessage());
+            out = null;
+        }
+    }
+
+    /**
+     * Writes snapshot of the game state seen at the start of the frame.
+     */
+    public static void onFrameStart() {
+        if (out == null) {
+            return;
+        }
+
+        try {
+            Player us = AGame.getPlayerUs();
+            List<Unit> units = new ArrayList<>();
+            for (Unit unit : Atlantis.getBwapi().getAllUnits()) {
+                if (!unit.getPlayer().isNeutral()) {
+                    units.add(unit);
+
+                    // Names have to go before the record using them
+                    defineName(unit.getType().toString());
+                }
+            }
+
+            out.writeByte(RECORD_FRAME);
+            out.writeInt(AGame.getTimeFrames());
+            out.writeInt(us.minerals());
+            out.writeInt(us.gas());
+            out.writeShort(us.supplyUsed());
+            out.writeShort(us.supplyTotal());
+            out.writeShort(units.size());
+            for (Unit unit : units) {
+                writeUnit(unit);
+            }
+        }
+        catch (IOException e) {
+            stopOnError(e);
+        }
+
+        // Time of recording itself doesn't count
+        frameStartNanos = System.nanoTime();
+    }
+
+    /**
+     * Writes commands issued to our units since the last frame end and time it took to handle the frame.
+     */
+    public static void onFrameEnd() {
+        if (out == null) {
+            return;
+        }
+        long frameNanos = System.nanoTime() - frameStartNanos;
+
+        try {
+            for (Command command : commands) {
+                defineName(command.name);
+            }
+
+            out.writeByte(RECORD_FRAME_END);
+            out.writeInt(AGame.getTimeFrames());
+            out.writeLong(frameNanos);
+            out.writeShort(commands.size());
+            for (Command command : commands) {
+                writeCommand(command);
+            }
+        }
+        catch (IOException e) {
+            stopOnError(e);
+        }
+        commands.clear();
+    }
+
+    /**
+     * Captures command that is about to be issued to our <b>unit</b>. Returns true if the command must not be
+     * passed to BWAPI, which is the case when the bot only follows a replay.
+     */
+    public static boolean isCommandOnlyRecorded(AUnit unit, String command, AUnit target, Position position) {
+        if (out != null) {
+            commands.add(new Command(AGame.getTimeFrames(), unit.getID(), command,
+                    target != null ? target.getID() : -1, position));
+        }
+        return AGame.isReplay();
+    }
+
+    /**
+     * Writes unit event, one of <b>EVENT_*</b> constants.
+     */
+    public static void onUnitEvent(byte event, Unit unit) {
+        if (out == null || unit == null) {
+            return;
+        }
+
+        try {
+            defineName(unit.getType().toString());
+            out.writeByte(RECORD_UNIT_EVENT);
+            out.writeByte(event);
+            out.writeInt(AGame.getTimeFrames());
+            writeUnit(unit);
+        }
+        catch (IOException e) {
+            stopOnError(e);
+        }
+    }
+
+    /**
+     * Closes the recording.
+     */
+    public static void onEnd(boolean winner) {
+        if (out == null) {
+            return;
+        }
+
+        try {
+            out.writeByte(RECORD_END);
+            out.writeInt(AGame.getTimeFrames());
+            out.writeBoolean(winner);
+            out.close();
+        }
+        catch (IOException e) {
+            System.err.println("Can't finish game recording: " + e.getMessage());
+        }
+        out = null;
+    }
+
+    // =========================================================
+
+    private static void writeUnit(Unit unit) throws IOException {
+        Player player = unit.getPlayer();
+        byte owner = player.isNeutral() ? OWNER_NEUTRAL
+                : (player.getID() == AGame.getPlayerUs().getID() ? OWNER_US : OWNER_ENEMY);
+        Position position = unit.getPosition();
+
+        out.writeShort(unit.getID());
+        out.writeShort(names.get(unit.getType().toString()));
+        out.writeByte(owner);
+        out.writeShort(position.getX());
+        out.writeShort(position.getY());
+        out.writeShort(unit.getHitPoints());
+        out.writeShort(unit.getShields());
+    }
+
+    private static void writeCommand(Command command) throws IOException {
+        out.writeInt(command.frame);
+        out.writeShort(command.unitId);
+        out.writeShort(names.get(command.name));
+        out.writeShort(command.targetId);
+        out.writeShort(command.position != null ? command.position.getX() : -1);
+        out.writeShort(command.position != null ? command.position.getY() : -1);
+    }
+
+    /**
+     * Writes the name record the first time given name is used.
+     */
+    private static void defineName(String name) throws IOException {
+        if (!names.containsKey(name)) {
+            int index = names.size();
+            names.put(name, index);
+            out.writeByte(RECORD_NAME);
+            out.writeShort(index);
+            out.writeUTF(name);
+        }
+    }
+
+    private static void stopOnError(IOException e) {
+        System.err.println("Game recording stopped: " + e.getMessage());
+        try {
+            out.close();
+        }
+        catch (IOException ignored) {
+        }
+        out = null;
+    }
+
+    // =========================================================
+
+    /**
+     * Command issued since the last frame end, written when the next frame ends. It keeps the frame it was
+     * issued in, as commands from unit callbacks are issued outside of the frame.
+     */
+    private static class Command {
+
+        private final int frame;
+        private final int unitId;
+        private final String name;
+        private final int targetId;
+        private final Position position;
+
+        private Command(int frame, int unitId, String name, int targetId, Position position) {
+            this.frame = frame;
+            this.unitId = unitId;
+            this.name = name;
+            this.targetId = targetId;
+            this.position = position;
+        }
+
+    }
+
+}
@@ -0,0 +1,337 @@
+package atlantis.debug;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads games recorded by <b>AGameRecorder</b>, without the game running, and feeds them to a <b>Listener</b>
+ * in the original order.
+ * <br /><br />
+ * Run from command line:
+ * <br />- with one file it prints frame time statistics and the slowest frames,
+ * <br />- with two files it prints frames in which issued commands differ.
+ * <br /><br />
+ * To compare two versions of the bot, run each of them on the same StarCraft replay (see <b>AGameRecorder</b>):
+ * both then get exactly the same input, so any difference in commands comes from the bot itself.
+ */
+public class AGameReplayer {
+
+    /**
+     * Number of slowest frames, or differing frames, printed.
+     */
+    private static final int PRINT_LIMIT = 20;
+
+    // =========================================================
+
+    private final String path;
+    private final Map<Integer, String> names = new HashMap<>();
+
+    // =========================================================
+
+    public AGameReplayer(String path) {
+        this.path = path;
+    }
+
+    /**
+     * Reads the whole recording and passes every record to given listener.
+     */
+    public void replay(Listener listener) throws IOException {
+        names.clear();
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(new FileInputStream(path))))) {
+            while (true) {
+                byte record;
+                try {
+                    record = in.readByte();
+                }
+                catch (EOFException e) {
+                    return; // Game crashed or wasn't closed properly, that's fine
+                }
+
+                switch (record) {
+                    case AGameRecorder.RECORD_START:
+                        listener.onStart(in.readUTF(), in.readUTF(), in.readUTF());
+                        break;
+
+                    case AGameRecorder.RECORD_NAME:
+                        names.put((int) in.readShort(), in.readUTF());
+                        break;
+
+                    case AGameRecorder.RECORD_FRAME:
+                        int frame = in.readInt();
+                        int minerals = in.readInt();
+                        int gas = in.readInt();
+                        int supplyUsed = in.readShort();
+                        int supplyTotal = in.readShort();
+                        RecordedUnit[] units = new RecordedUnit[in.readShort()];
+                        for (int i = 0; i < units.length; i++) {
+                            units[i] = readUnit(in);
+                        }
+                        listener.onFrame(frame, minerals, gas, supplyUsed, supplyTotal, units);
+                        break;
+
+                    case AGameRecorder.RECORD_FRAME_END:
+                        int endedFrame = in.readInt();
+                        long frameNanos = in.readLong();
+                        RecordedCommand[] commands = new RecordedCommand[in.readShort()];
+                        for (int i = 0; i < commands.length; i++) {
+                            int issuedFrame = in.readInt();
+                            int unitId = in.readShort();
+                            String name = names.get((int) in.readShort());
+                            commands[i] = new RecordedCommand(issuedFrame, unitId, name,
+                                    in.readShort(), in.readShort(), in.readShort());
+                        }
+                        listener.onFrameEnd(endedFrame, frameNanos, commands);
+                        break;
+
+                    case AGameRecorder.RECORD_UNIT_EVENT:
+                        byte event = in.readByte();
+                        int eventFrame = in.readInt();
+                        listener.onUnitEvent(event, eventFrame, readUnit(in));
+                        break;
+
+                    case AGameRecorder.RECORD_END:
+                        listener.onEnd(in.readInt(), in.readBoolean());
+                        return;
+
+                    default:
+                        throw new IOException("Corrupted recording " + path + ", unknown record: " + record);
+                }
+            }
+        }
+    }
+
+    private RecordedUnit readUnit(DataInputStream in) throws IOException {
+        return new RecordedUnit(in.readShort(), names.get((int) in.readShort()), in.readByte(),
+                in.readShort(), in.readShort(), in.readShort(), in.readShort());
+    }
+
+    // =========================================================
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 1) {
+            printFrameTimes(args[0]);
+        }
+        else if (args.length == 2) {
+            printCommandDifferences(args[0], args[1]);
+        }
+        else {
+            System.err.println("Usage: AGameReplayer <recording> [<recording to compare with>]");
+        }
+    }
+
+    private static void printFrameTimes(String path) throws IOException {
+        final List<long[]> frameTimes = new ArrayList<>();
+        final int[] commandsTotal = {0};
+
+        new AGameReplayer(path).replay(new Listener() {
+            @Override
+            public void onFrameEnd(int frame, long frameNanos, RecordedCommand[] commands) {
+                frameTimes.add(new long[]{frameNanos, frame});
+                commandsTotal[0] += commands.length;
+            }
+        });
+
+        if (frameTimes.isEmpty()) {
+            System.out.println("No frames recorded.");
+            return;
+        }
+
+        long[] sorted = new long[frameTimes.size()];
+        long total = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = frameTimes.get(i)[0];
+            total += sorted[i];
+        }
+        Arrays.sort(sorted);
+
+        System.out.println("Frames: " + sorted.length + ", commands: " + commandsTotal[0]);
+        System.out.printf("Frame time [ms]: avg %.3f, median %.3f, p99 %.3f, max %.3f%n",
+                total / 1e6 / sorted.length, sorted[sorted.length / 2] / 1e6,
+                sorted[(int) (sorted.length * 0.99)] / 1e6, sorted[sorted.length - 1] / 1e6);
+
+        Collections.sort(frameTimes, new Comparator<long[]>() {
+            @Override
+            public int compare(long[] a, long[] b) {
+                return Long.compare(b[0], a[0]);
+            }
+        });
+        System.out.println("Slowest frames:");
+        for (int i = 0; i < Math.min(PRINT_LIMIT, frameTimes.size()); i++) {
+            System.out.printf("  #%d: %.3f ms%n", frameTimes.get(i)[1], frameTimes.get(i)[0] / 1e6);
+        }
+    }
+
+    private static void printCommandDifferences(String path, String otherPath) throws IOException {
+        Map<Integer, String> commands = readCommands(path);
+        Map<Integer, String> otherCommands = readCommands(otherPath);
+
+        int differences = 0;
+        int lastFrame = Math.max(maxKey(commands), maxKey(otherCommands));
+        for (int frame = 0; frame <= lastFrame; frame++) {
+            String these = commands.containsKey(frame) ? commands.get(frame) : "";
+            String others = otherCommands.containsKey(frame) ? otherCommands.get(frame) : "";
+            if (!these.equals(others)) {
+                if (differences < PRINT_LIMIT) {
+                    System.out.println("Frame #" + frame + ":");
+                    System.out.println("  < " + these);
+                    System.out.println("  > " + others);
+                }
+                differences++;
+            }
+        }
+        System.out.println("Frames with different commands: " + differences);
+    }
+
+    /**
+     * Returns commands of every frame (having any commands) they were issued in, as a single line of text.
+     */
+    private static Map<Integer, String> readCommands(String path) throws IOException {
+        final Map<Integer, List<RecordedCommand>> commandsByFrame = new HashMap<>();
+        new AGameReplayer(path).replay(new Listener() {
+            @Override
+            public void onFrameEnd(int frame, long frameNanos, RecordedCommand[] frameCommands) {
+                for (RecordedCommand command : frameCommands) {
+                    List<RecordedCommand> commands = commandsByFrame.get(command.frame);
+                    if (commands == null) {
+                        commands = new ArrayList<>();
+                        commandsByFrame.put(command.frame, commands);
+                    }
+                    commands.add(command);
+                }
+            }
+        });
+
+        Map<Integer, String> result = new HashMap<>();
+        for (Map.Entry<Integer, List<RecordedCommand>> entry : commandsByFrame.entrySet()) {
+            List<RecordedCommand> sorted = entry.getValue();
+            Collections.sort(sorted, new Comparator<RecordedCommand>() {
+                @Override
+                public int compare(RecordedCommand a, RecordedCommand b) {
+                    return Integer.compare(a.unitId, b.unitId);
+                }
+            });
+            result.put(entry.getKey(), sorted.toString());
+        }
+        return result;
+    }
+
+    private static int maxKey(Map<Integer, String> map) {
+        int max = -1;
+        for (int key : map.keySet()) {
+            max = Math.max(max, key);
+        }
+        return max;
+    }
+
+    // =========================================================
+
+    /**
+     * Receives records of the game in the order they were recorded. Override only what's needed.
+     */
+    public static abstract class Listener {
+
+        public void onStart(String mapFileName, String ourRace, String enemyRace) {
+        }
+
+        /**
+         * Game state at the start of the frame.
+         */
+        public void onFrame(int frame, int minerals, int gas, int supplyUsed, int supplyTotal,
+                RecordedUnit[] units) {
+        }
+
+        /**
+         * Commands issued to our units in the frame and time it took the bot to handle it.
+         */
+        public void onFrameEnd(int frame, long frameNanos, RecordedCommand[] commands) {
+        }
+
+        /**
+         * One of <b>AGameRecorder.EVENT_*</b> events.
+         */
+        public void onUnitEvent(byte event, int frame, RecordedUnit unit) {
+        }
+
+        public void onEnd(int frame, boolean winner) {
+        }
+
+    }
+
+    public static class RecordedUnit {
+
+        public final int id;
+        public final String type;
+        public final byte owner;
+        public final int x;
+        public final int y;
+        public final int hitPoints;
+        public final int shields;
+
+        RecordedUnit(int id, String type, byte owner, int x, int y, int hitPoints, int shields) {
+            this.id = id;
+            this.type = type;
+            this.owner = owner;
+            this.x = x;
+            this.y = y;
+            this.hitPoints = hitPoints;
+            this.shields = shields;
+        }
+
+        public boolean isOurs() {
+            return owner == AGameRecorder.OWNER_US;
+        }
+
+        public boolean isEnemy() {
+            return owner == AGameRecorder.OWNER_ENEMY;
+        }
+
+        @Override
+        public String toString() {
+            return "#" + id + " " + type + " (" + x + "," + y + ") " + hitPoints + "/" + shields;
+        }
+
+    }
+
+    public static class RecordedCommand {
+
+        /**
+         * Frame the command was issued in; it can be earlier than the frame end it was written with.
+         */
+        public final int frame;
+        public final int unitId;
+        public final String type;
+        public final int targetId;
+        public final int targetX;
+        public final int targetY;
+
+        RecordedCommand(int frame, int unitId, String type, int targetId, int targetX, int targetY) {
+            this.frame = frame;
+            this.unitId = unitId;
+            this.type = type;
+            this.targetId = targetId;
+            this.targetX = targetX;
+            this.targetY = targetY;
+        }
+
+        @Override
+        public String toString() {
+            return "#" + unitId + " " + type + (targetId >= 0 ? " #" + targetId : "")
+                    + (targetX >= 0 ? " (" + targetX + "," + targetY + ")" : "");
+        }
+
+    }
+
+}
@@ -5,6 +5,7 @@ import atlantis.Atlantis;
 import atlantis.buildings.managers.AGasManager;
 import atlantis.combat.ACombatEvaluator;
 import atlantis.combat.squad.ASquadManager;
+import atlantis.combat.squad.Squad;
 import atlantis.combat.squad.missions.MissionAttack;
 import atlantis.constructing.AConstructionManager;
 import atlantis.constructing.ConstructionOrder;
@@ -25,6 +26,7 @@ import atlantis.units.Select;
 import atlantis.util.AtlantisUtilities;
 import atlantis.util.CodeProfiler;
 import atlantis.util.ColorUtil;
+import atlantis.workers.AMiningTelemetry;
 import atlantis.workers.AWorkerManager;
 import atlantis.wrappers.ATech;
 import atlantis.wrappers.MappingCounter;
@@ -81,6 +83,7 @@ public class APainter {
         setTextSizeMedium();
 
         paintInfo();
+        paintMiningTelemetry();
         paintKilledAndLost();
         paintProductionQueue();
         paintSidebarConstructionsPending();
@@ -144,6 +147,12 @@ public class APainter {
 
         // =========================================================
         paintSideMessage("Combat squad size: " + ASquadManager.getAlphaSquad().size(), Color.Yellow, 0);
+        for (Squad squad : ASquadManager.getSquads()) {
+            if (squad != ASquadManager.getAlphaSquad()) {
+                paintSideMessage(squad.getName() + ": " + squad.getMission().getName() + ", " + squad.size()
+                        + " units", Color.Yellow, 0);
+            }
+        }
 
         // =========================================================
         // Gas workers
@@ -155,6 +164,22 @@ public class APainter {
         paintSideMessage("Reserved gas: " + ABuildOrderManager.getGasReserved(), Color.Grey);
     }
 
+    /**
+     * Paints rolling income and mining efficiency, see AMiningTelemetry.
+     */
+    private static void paintMiningTelemetry() {
+        if (!AMiningTelemetry.ENABLED) {
+            return;
+        }
+        
+        paintSideMessage("Income/min: " + AMiningTelemetry.getIncomePerMinute() + " ("
+                + String.format("%.1f", AMiningTelemetry.getIncomePerWorker()) + " per worker)", Color.Grey);
+        paintSideMessage("Avg trip: " + String.format("%.1f", AMiningTelemetry.getAverageTripFrames())
+                + " frames", Color.Grey);
+        paintSideMessage("Idle workers: " + AMiningTelemetry.getIdleWorkers(), 
+                AMiningTelemetry.getIdleWorkers() > 0 ? Color.Red : Color.Grey);
+    }
+
     /**
      * Painting for combat units can be a little different. Put here all the related code.
      */
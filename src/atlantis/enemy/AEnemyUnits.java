@@ -4,6 +4,7 @@ import atlantis.information.AFoggedUnit;
 import atlantis.information.AMap;
 import atlantis.position.APosition;
 import atlantis.units.AUnit;
+import atlantis.units.AUnitCounts;
 import atlantis.units.AUnitType;
 import atlantis.units.Select;
 import bwta.BaseLocation;
@@ -17,6 +18,11 @@ public class AEnemyUnits {
     protected static Map<AUnit, AFoggedUnit> enemyUnitsDiscovered = new HashMap<>();
     protected static ArrayList<AUnit> enemyUnitsDestroyed = new ArrayList<>();
 
+    /**
+     * Changes every time an enemy building is discovered, destroyed, morphed or seen at a new position.
+     */
+    private static int buildingsVersion = 0;
+
     // =========================================================
     // Top abstraction methods
     
@@ -111,15 +117,24 @@ public class AEnemyUnits {
      * Saves information about enemy unit that we see for the first time.
      */
     public static void discoveredEnemyUnit(AUnit enemyUnit) {
-        enemyUnitsDiscovered.put(enemyUnit, new AFoggedUnit(enemyUnit));
+        AFoggedUnit foggedUnit = new AFoggedUnit(enemyUnit);
+        enemyUnitsDiscovered.put(enemyUnit, foggedUnit);
+        AUnitCounts.enemy().refresh(enemyUnit);
+        if (foggedUnit.getType().isBuilding()) {
+            buildingsVersion++;
+        }
     }
 
     /**
      * Saves information about given unit being destroyed, so counting units works properly.
      */
     public static void unitDestroyed(AUnit enemyUnit) {
-        enemyUnitsDiscovered.remove(enemyUnit);
+        AFoggedUnit foggedUnit = enemyUnitsDiscovered.remove(enemyUnit);
+        if (foggedUnit != null && foggedUnit.getType().isBuilding()) {
+            buildingsVersion++;
+        }
         enemyUnitsDestroyed.add(enemyUnit);
+        AUnitCounts.enemy().remove(enemyUnit);
     }
     
     /**
@@ -133,7 +148,10 @@ public class AEnemyUnits {
      * Forgets and refreshes info about given unit
      */
     public static void refreshEnemyUnit(AUnit enemyUnit) {
-        enemyUnitsDiscovered.remove(enemyUnit);
+        AFoggedUnit foggedUnit = enemyUnitsDiscovered.remove(enemyUnit);
+        if (foggedUnit != null && foggedUnit.getType().isBuilding()) {
+            buildingsVersion++;
+        }
         discoveredEnemyUnit(enemyUnit);
     }
     
@@ -141,7 +159,12 @@ public class AEnemyUnits {
      * Updates last known position of the enemy unit.
      */
     public static void updateEnemyUnitPosition(AUnit enemyUnit) {
-        enemyUnitsDiscovered.get(enemyUnit).updatePosition(enemyUnit.getPosition());
+        AFoggedUnit foggedUnit = enemyUnitsDiscovered.get(enemyUnit);
+        APosition position = enemyUnit.getPosition();
+        if (foggedUnit.getType().isBuilding() && foggedUnit.getPackedPosition() != position.toPacked()) {
+            buildingsVersion++;
+        }
+        foggedUnit.updatePosition(position);
     }
 
     // =========================================================
@@ -152,13 +175,30 @@ public class AEnemyUnits {
      * may not be visible right now.
      */
     public static int countEnemyKnownUnitsOfType(AUnitType type) {
-        int total = 0;
-        for (AUnit enemyUnit : enemyUnitsDiscovered.keySet()) {
-            if (enemyUnit.isType(type)) {
-                total++;
-            }
-        }
-        return total;
+        return AUnitCounts.enemy().countAll(type);
+    }
+
+    /**
+     * Returns frame in which we've seen enemy unit of given type for the first time or -1 if we never did.
+     */
+    public static int getFirstSeenFrame(AUnitType type) {
+        return AUnitCounts.enemy().getFirstSeenFrame(type);
+    }
+
+    /**
+     * Number that changes every time counts of known enemy units change, so anything derived from them needs
+     * to be recalculated only when it's different.
+     */
+    public static int getKnownUnitsVersion() {
+        return AUnitCounts.enemy().getVersion();
+    }
+
+    /**
+     * Number that changes every time known enemy buildings or their positions change, so anything derived
+     * only from them needs to be recalculated only when it's different.
+     */
+    public static int getKnownBuildingsVersion() {
+        return buildingsVersion;
     }
 
 }
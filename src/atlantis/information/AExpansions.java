@@ -0,0 +1,326 @@
+package atlantis.information;
+
+import atlantis.AGame;
+import atlantis.Atlantis;
+import atlantis.position.APosition;
+import atlantis.units.AUnit;
+import atlantis.units.AUnitGrid;
+import bwapi.Position;
+import bwta.BWTA;
+import bwta.BaseLocation;
+import bwta.Chokepoint;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Expansion service. At the start of the game precomputes, for every base location: ground distance to our
+ * main base and to every possible enemy start location, resources and choke exposure. Base locations are
+ * kept ranked by a score, and the ranking and ownership are updated from events (bases built, discovered,
+ * destroyed), so asking where to expand next doesn't scan the map.
+ * <br /><br />
+ * Construction orders report where they're going to build, so base locations taken by planned buildings are
+ * known without scanning the orders. Only enemy units nearby can't be tracked with events; they're checked
+ * just for the cached answer, using the grid of enemy units.
+ */
+public class AExpansions {
+
+    /**
+     * Base is considered to occupy base location if it's closer than this (in tiles).
+     */
+    private static final double BASE_AT_LOCATION_RADIUS = 7;
+
+    /**
+     * Base location is taken if we plan to build something closer than this (in tiles).
+     */
+    private static final double CONSTRUCTION_RADIUS = 8;
+
+    /**
+     * Base location isn't free if any enemy unit is closer than this (in tiles).
+     */
+    private static final double ENEMY_RADIUS = 11;
+
+    // === Score weights =======================================
+
+    private static final double SCORE_PER_1000_RESOURCES = 3;
+    private static final double SCORE_PER_TILE_FROM_OUR_MAIN = -0.12;
+    private static final double SCORE_PER_TILE_FROM_ENEMY = 0.06;
+    private static final double SCORE_PER_CHOKE_EXPOSURE = -0.4;
+
+    // =========================================================
+
+    private static final List<Expansion> ranked = new ArrayList<>();
+    private static final Map<BaseLocation, Expansion> expansions = new HashMap<>();
+    private static List<BaseLocation> enemyStartLocations = new ArrayList<>();
+    private static BaseLocation knownEnemyStart = null;
+    private static Expansion cached_nextExpansion = null;
+    private static boolean isNextExpansionValid = false;
+
+    // =========================================================
+
+    /**
+     * Precomputes distances and scores of all base locations. Call once, after BWTA analyzed the map.
+     */
+    public static void initialize() {
+        ranked.clear();
+        expansions.clear();
+
+        BaseLocation ourStart = BWTA.getStartLocation(AGame.getPlayerUs());
+        enemyStartLocations = new ArrayList<>();
+        for (BaseLocation startLocation : BWTA.getStartLocations()) {
+            if (!startLocation.equals(ourStart)) {
+                enemyStartLocations.add(startLocation);
+            }
+        }
+
+        for (BaseLocation baseLocation : AMap.getBaseLocations()) {
+            Expansion expansion = new Expansion(baseLocation, ourStart, enemyStartLocations);
+            expansions.put(baseLocation, expansion);
+            ranked.add(expansion);
+        }
+
+        if (ourStart != null && expansions.containsKey(ourStart)) {
+            expansions.get(ourStart).owner = Owner.OURS;
+        }
+
+        rerank();
+    }
+
+    // =========================================================
+
+    /**
+     * Returns the best free base location to expand to or null if there's none. The best available one is
+     * defined again only when an event changed ownership or planned constructions; then only enemies near it
+     * are checked. Other base locations are scanned just when enemies are near the best one.
+     */
+    public static BaseLocation getNextExpansion() {
+        if (!isNextExpansionValid) {
+            cached_nextExpansion = null;
+            for (Expansion expansion : ranked) {
+                if (expansion.isAvailable()) {
+                    cached_nextExpansion = expansion;
+                    break;
+                }
+            }
+            isNextExpansionValid = true;
+        }
+
+        if (cached_nextExpansion == null || !isEnemyNear(cached_nextExpansion)) {
+            return cached_nextExpansion != null ? cached_nextExpansion.baseLocation : null;
+        }
+
+        // Enemies near the best one, take the next one free of them
+        for (Expansion expansion : ranked) {
+            if (expansion.isAvailable() && !isEnemyNear(expansion)) {
+                return expansion.baseLocation;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns number of base locations where neither we nor enemy have a base.
+     */
+    public static int countFreeBaseLocations() {
+        int free = 0;
+        for (Expansion expansion : ranked) {
+            if (expansion.owner == Owner.NONE) {
+                free++;
+            }
+        }
+        return free;
+    }
+
+    // === Events ==============================================
+
+    /**
+     * Base (ours or enemy's) has been built or discovered.
+     */
+    public static void baseTaken(AUnit base) {
+        Expansion expansion = getExpansionAt(base.getPosition());
+        if (expansion == null) {
+            return;
+        }
+
+        expansion.owner = base.isOurUnit() ? Owner.OURS : Owner.ENEMY;
+        isNextExpansionValid = false;
+
+        // Enemy start location became known, distances to enemy have to be taken from this one location
+        if (!base.isOurUnit() && knownEnemyStart == null
+                && enemyStartLocations.contains(expansion.baseLocation)) {
+            knownEnemyStart = expansion.baseLocation;
+            rerank();
+        }
+    }
+
+    /**
+     * Construction order is going to build (center of the building) at given position.
+     */
+    public static void constructionAdded(APosition position) {
+        changePlannedConstructions(position, 1);
+    }
+
+    /**
+     * Construction order which was going to build at given position is finished, cancelled or moved.
+     */
+    public static void constructionRemoved(APosition position) {
+        changePlannedConstructions(position, -1);
+    }
+
+    /**
+     * Base (ours or enemy's) has been destroyed.
+     */
+    public static void baseLost(AUnit base) {
+        Expansion expansion = getExpansionAt(base.getPosition());
+        if (expansion != null) {
+            expansion.owner = Owner.NONE;
+            isNextExpansionValid = false;
+        }
+    }
+
+    // =========================================================
+
+    private static void rerank() {
+        for (Expansion expansion : ranked) {
+            expansion.updateScore();
+        }
+        Collections.sort(ranked, new Comparator<Expansion>() {
+            @Override
+            public int compare(Expansion e1, Expansion e2) {
+                return Double.compare(e2.score, e1.score);
+            }
+        });
+        isNextExpansionValid = false;
+    }
+
+    private static Expansion getExpansionAt(Position position) {
+        if (expansions.isEmpty()) {
+            return null;
+        }
+
+        BaseLocation nearest = BWTA.getNearestBaseLocation(position);
+        if (nearest == null || APosition.create(nearest.getPosition()).distanceTo(position) > BASE_AT_LOCATION_RADIUS) {
+            return null;
+        }
+        return expansions.get(nearest);
+    }
+
+    private static void changePlannedConstructions(APosition position, int change) {
+        for (Expansion expansion : ranked) {
+            if (position.distanceTo(expansion.baseLocation.getPosition()) < CONSTRUCTION_RADIUS) {
+                int before = expansion.plannedConstructions;
+                expansion.plannedConstructions += change;
+                if ((before > 0) != (expansion.plannedConstructions > 0)) {
+                    isNextExpansionValid = false;
+                }
+            }
+        }
+    }
+
+    private static boolean isEnemyNear(Expansion expansion) {
+        return AUnitGrid.enemies().isAnyInRadius(expansion.baseLocation.getPosition(), ENEMY_RADIUS);
+    }
+
+    // =========================================================
+
+    private enum Owner {
+        NONE, OURS, ENEMY
+    }
+
+    /**
+     * Precomputed information about single base location.
+     */
+    private static class Expansion {
+
+        private final BaseLocation baseLocation;
+        private final int resources;
+        private final boolean isReachable;
+        private final boolean isEnemyStart;
+
+        /**
+         * Ground distance in tiles to our main base.
+         */
+        private final double distToOurMain;
+
+        /**
+         * Ground distance in tiles to every possible enemy start location, index-aligned with
+         * <b>enemyStartLocations</b>.
+         */
+        private final double[] distToEnemyStarts;
+
+        /**
+         * Sum of widths (in tiles) of all choke points leading to the region of this base location. The
+         * wider and the more choke points, the harder the base is to defend.
+         */
+        private final double chokeExposure;
+
+        private Owner owner = Owner.NONE;
+        private double score = 0;
+
+        /**
+         * Number of construction orders planned near this base location.
+         */
+        private int plannedConstructions = 0;
+
+        private Expansion(BaseLocation baseLocation, BaseLocation ourStart, List<BaseLocation> enemyStarts) {
+            this.baseLocation = baseLocation;
+            this.resources = baseLocation.minerals() + baseLocation.gas();
+
+            double groundDist = ourStart != null ? baseLocation.getGroundDistance(ourStart) : -1;
+            this.isReachable = groundDist >= 0 && !baseLocation.isIsland();
+            this.distToOurMain = groundDist / 32;
+            this.isEnemyStart = enemyStarts.contains(baseLocation);
+
+            this.distToEnemyStarts = new double[enemyStarts.size()];
+            for (int i = 0; i < enemyStarts.size(); i++) {
+                distToEnemyStarts[i] = baseLocation.getGroundDistance(enemyStarts.get(i)) / 32;
+            }
+
+            double exposure = 0;
+            if (baseLocation.getRegion() != null) {
+                for (Chokepoint chokepoint : baseLocation.getRegion().getChokepoints()) {
+                    exposure += chokepoint.getWidth() / 32;
+                }
+            }
+            this.chokeExposure = exposure;
+        }
+
+        private void updateScore() {
+            score = resources / 1000.0 * SCORE_PER_1000_RESOURCES
+                    + distToOurMain * SCORE_PER_TILE_FROM_OUR_MAIN
+                    + getDistToEnemy() * SCORE_PER_TILE_FROM_ENEMY
+                    + chokeExposure * SCORE_PER_CHOKE_EXPOSURE;
+        }
+
+        /**
+         * Distance to enemy main if it's known, otherwise to the nearest possible enemy start location.
+         */
+        private double getDistToEnemy() {
+            if (knownEnemyStart != null) {
+                int index = enemyStartLocations.indexOf(knownEnemyStart);
+                if (index >= 0) {
+                    return distToEnemyStarts[index];
+                }
+            }
+
+            double min = distToEnemyStarts.length > 0 ? Double.MAX_VALUE : 0;
+            for (double dist : distToEnemyStarts) {
+                min = Math.min(min, dist);
+            }
+            return min;
+        }
+
+        /**
+         * Start locations are available only once we know where the enemy started, as enemy base may be there.
+         */
+        private boolean isAvailable() {
+            return owner == Owner.NONE && isReachable && resources > 0 && plannedConstructions == 0
+                    && (!isEnemyStart || (knownEnemyStart != null && !knownEnemyStart.equals(baseLocation)));
+        }
+
+    }
+
+}
@@ -13,6 +13,7 @@ import atlantis.units.AUnitType;
  */
 public class AFoggedUnit extends APositionedObject {
 
+    private int packedPosition;
     private APosition position;
     private final AUnit unit;
     private AUnitType type;
@@ -23,7 +24,7 @@ public class AFoggedUnit extends APositionedObject {
 
     public AFoggedUnit(AUnit unit) {
         this.unit = unit;
-        position = new APosition(unit.getPosition());
+        updatePosition(unit.getPosition());
 //        type = unit.getType();
         type = AUnitType.createFrom(unit.u().getType());
         _lastCachedType = type;
@@ -36,7 +37,8 @@ public class AFoggedUnit extends APositionedObject {
      * Updates last known position of this unit.
      */
     public void updatePosition(APosition position) {
-        this.position = new APosition(position);
+        this.packedPosition = position.toPacked();
+        this.position = position;
     }
     
     @Override
@@ -44,6 +46,13 @@ public class AFoggedUnit extends APositionedObject {
         return position;
     }
     
+    /**
+     * Returns last known position of this unit packed into single int, see <b>PackedPosition</b>.
+     */
+    public int getPackedPosition() {
+        return packedPosition;
+    }
+    
     // =========================================================
     
     /**
@@ -74,7 +83,7 @@ public class AFoggedUnit extends APositionedObject {
                     String.format("Unexpected unit ID. Expected %d, received %d", unit.getID(), updated.getID())
             );
         }
-        position = updated.getPosition();
+        updatePosition(updated.getPosition());
         type = unit.getType();
 
         return this;
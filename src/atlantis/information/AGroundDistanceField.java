@@ -0,0 +1,175 @@
+package atlantis.information;
+
+import atlantis.Atlantis;
+import atlantis.position.APosition;
+import bwapi.Game;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Ground distance from every build tile of the map to one target tile, computed once with a flood fill over
+ * walkable tiles (straight steps cost 1 tile, diagonal steps 1.4). Reading distance of any unit to the target
+ * is then a single array read, instead of a path query per unit.
+ * <br /><br />
+ * Only terrain is taken into account, buildings are not. Fields of the last few targets are cached.
+ */
+public class AGroundDistanceField {
+
+    /**
+     * Number of fields kept in cache, the least recently used ones are dropped.
+     */
+    private static final int CACHED_FIELDS = 8;
+
+    /**
+     * Costs of single step, in tenths of a tile.
+     */
+    private static final int STRAIGHT_COST = 10;
+    private static final int DIAGONAL_COST = 14;
+
+    private static final int UNREACHABLE = -1;
+
+    // =========================================================
+
+    private static boolean[] walkableTiles = null;
+    private static int mapWidth;
+    private static int mapHeight;
+
+    private static final Map<Integer, AGroundDistanceField> cache
+            = new LinkedHashMap<Integer, AGroundDistanceField>(CACHED_FIELDS, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, AGroundDistanceField> eldest) {
+            return size() > CACHED_FIELDS;
+        }
+    };
+
+    // =========================================================
+
+    /**
+     * Distance to the target per tile (index = tileX + tileY * mapWidth), in tenths of a tile.
+     */
+    private final int[] distances;
+
+    // =========================================================
+
+    /**
+     * Returns field of ground distances to given position, computing it if it's not cached.
+     */
+    public static AGroundDistanceField getFieldTo(APosition target) {
+        initWalkableTilesIfNeeded();
+
+        int tileX = Math.min(mapWidth - 1, Math.max(0, target.getTileX()));
+        int tileY = Math.min(mapHeight - 1, Math.max(0, target.getTileY()));
+        int key = tileX + tileY * mapWidth;
+
+        AGroundDistanceField field = cache.get(key);
+        if (field == null) {
+            field = new AGroundDistanceField(tileX, tileY);
+            cache.put(key, field);
+        }
+        return field;
+    }
+
+    /**
+     * Returns ground distance (in tiles) from given position to the target of this field, or -1 if there's no
+     * ground path.
+     */
+    public double getDistance(APosition from) {
+        int tileX = from.getTileX();
+        int tileY = from.getTileY();
+        if (tileX < 0 || tileY < 0 || tileX >= mapWidth || tileY >= mapHeight) {
+            return UNREACHABLE;
+        }
+
+        int distance = distances[tileX + tileY * mapWidth];
+        return distance != UNREACHABLE ? distance / 10.0 : UNREACHABLE;
+    }
+
+    // =========================================================
+
+    /**
+     * Dijkstra's algorithm with a bucket queue: step costs are small integers, so nodes are kept in a ring of
+     * buckets indexed by distance instead of a heap.
+     */
+    private AGroundDistanceField(int targetX, int targetY) {
+        distances = new int[mapWidth * mapHeight];
+        Arrays.fill(distances, UNREACHABLE);
+
+        int ringSize = DIAGONAL_COST + 1;
+        int[][] buckets = new int[ringSize][64];
+        int[] bucketSizes = new int[ringSize];
+        int queued = 0;
+
+        int target = targetX + targetY * mapWidth;
+        distances[target] = 0;
+        buckets[0][bucketSizes[0]++] = target;
+        queued++;
+
+        for (int distance = 0; queued > 0; distance++) {
+            int ring = distance % ringSize;
+            for (int i = 0; i < bucketSizes[ring]; i++) {
+                int tile = buckets[ring][i];
+                queued--;
+                if (distances[tile] != distance) {
+                    continue; // Already reached by a shorter path
+                }
+
+                int x = tile % mapWidth;
+                int y = tile / mapWidth;
+                for (int dy = -1; dy <= 1; dy++) {
+                    for (int dx = -1; dx <= 1; dx++) {
+                        int nx = x + dx;
+                        int ny = y + dy;
+                        if ((dx == 0 && dy == 0) || nx < 0 || ny < 0 || nx >= mapWidth || ny >= mapHeight) {
+                            continue;
+                        }
+
+                        int neighbour = nx + ny * mapWidth;
+                        if (!walkableTiles[neighbour]) {
+                            continue;
+                        }
+
+                        // Don't cut corners between two unwalkable tiles
+                        if (dx != 0 && dy != 0
+                                && (!walkableTiles[nx + y * mapWidth] || !walkableTiles[x + ny * mapWidth])) {
+                            continue;
+                        }
+
+                        int newDistance = distance + (dx != 0 && dy != 0 ? DIAGONAL_COST : STRAIGHT_COST);
+                        if (distances[neighbour] == UNREACHABLE || newDistance < distances[neighbour]) {
+                            distances[neighbour] = newDistance;
+                            int newRing = newDistance % ringSize;
+                            if (bucketSizes[newRing] == buckets[newRing].length) {
+                                buckets[newRing] = Arrays.copyOf(buckets[newRing], bucketSizes[newRing] * 2);
+                            }
+                            buckets[newRing][bucketSizes[newRing]++] = neighbour;
+                            queued++;
+                        }
+                    }
+                }
+            }
+            bucketSizes[ring] = 0;
+        }
+    }
+
+    /**
+     * Build tile is walkable if the walk tile in its center is walkable. Terrain doesn't change, so it's done
+     * once per game.
+     */
+    private static void initWalkableTilesIfNeeded() {
+        if (walkableTiles != null) {
+            return;
+        }
+
+        Game game = Atlantis.getBwapi();
+        mapWidth = game.mapWidth();
+        mapHeight = game.mapHeight();
+        walkableTiles = new boolean[mapWidth * mapHeight];
+        for (int tileY = 0; tileY < mapHeight; tileY++) {
+            for (int tileX = 0; tileX < mapWidth; tileX++) {
+                walkableTiles[tileX + tileY * mapWidth] = game.isWalkable(tileX * 4 + 2, tileY * 4 + 2);
+            }
+        }
+    }
+
+}
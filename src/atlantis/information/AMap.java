@@ -1,5 +1,6 @@
 package atlantis.information;
 
+import atlantis.AGame;
 import atlantis.Atlantis;
 import atlantis.constructing.AConstructionManager;
 import atlantis.constructing.ConstructionOrder;
@@ -80,7 +81,7 @@ public class AMap {
                 if (mainRegion != null) {
 
                     // Define localization of the second base to expand
-                    BaseLocation naturalBase = getNaturalBaseLocation(Atlantis.getBwapi().self()
+                    BaseLocation naturalBase = getNaturalBaseLocation(AGame.getPlayerUs()
                             .getStartLocation().toPosition());
                     // System.out.println("secondBase = " + secondBase);
                     if (naturalBase == null) {
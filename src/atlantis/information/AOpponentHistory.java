@@ -0,0 +1,263 @@
+package atlantis.information;
+
+import atlantis.AGame;
+import atlantis.Atlantis;
+import atlantis.production.orders.ABuildOrder;
+import atlantis.strategy.AEnemyStrategy;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * History of games against the current opponent, one file per opponent.
+ * <br /><br />
+ * Every game appends one record: opponent, map, our build order, enemy strategy we've recognized and the result.
+ * At the start of the game the history is read from <b>bwapi-data/read</b> into a small summary (games and wins
+ * of every build order), which is used to choose the build order. At the end of the game the new record is
+ * appended to the file in <b>bwapi-data/write</b>; it's a few dozen bytes, so it's written right away.
+ */
+public class AOpponentHistory {
+
+    public static final String READ_DIR = "bwapi-data/read";
+    public static final String WRITE_DIR = "bwapi-data/write";
+
+    /**
+     * Format version written at the start of every record, so the format can change without breaking older files.
+     */
+    private static final byte RECORD_VERSION = 1;
+
+    /**
+     * Build orders are scored as if they had already been played this many times with <b>PRIOR_WIN_RATIO</b>,
+     * so a build order not tried yet isn't automatically preferred over one that keeps winning.
+     */
+    private static final double PRIOR_GAMES = 2;
+    private static final double PRIOR_WIN_RATIO = 0.5;
+
+    // =========================================================
+
+    /**
+     * Build order name -> [games, wins].
+     */
+    private static final Map<String, int[]> buildOrderResults = new HashMap<>();
+
+    /**
+     * Enemy strategy name -> number of games it was recognized in.
+     */
+    private static final Map<String, Integer> enemyStrategies = new HashMap<>();
+
+    private static int gamesTotal = 0;
+    private static String fileName = null;
+
+    // =========================================================
+
+    /**
+     * Reads history of games against the current opponent. Call once, at the start of the game.
+     */
+    public static void load() {
+        buildOrderResults.clear();
+        enemyStrategies.clear();
+        gamesTotal = 0;
+        fileName = defineFileName();
+
+        File file = new File(READ_DIR, fileName);
+        if (!file.exists()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            while (true) {
+                int length;
+                try {
+                    length = in.readUnsignedShort();
+                }
+                catch (EOFException e) {
+                    break;
+                }
+
+                byte[] record = new byte[length];
+                try {
+                    in.readFully(record);
+                }
+                catch (EOFException e) {
+                    System.err.println("Opponent history: last record is incomplete, skipping it.");
+                    break;
+                }
+                readRecord(record);
+            }
+        }
+        catch (IOException e) {
+            System.err.println("Can't read opponent history: " + e.getMessage());
+        }
+
+        System.out.println("Opponent history: " + gamesTotal + " games loaded in "
+                + (System.nanoTime() - start) / 1000 + " us, most common enemy strategy: "
+                + getMostCommonEnemyStrategy());
+    }
+
+    /**
+     * Returns build order, from all build orders of the same race as <b>defaultBuildOrder</b>, that has worked
+     * best against this opponent. Build orders not tried yet start from a prior of an average result, so
+     * they're tried only once the ones played so far don't do better than that.
+     */
+    public static ABuildOrder chooseBuildOrder(ABuildOrder defaultBuildOrder) {
+        if (gamesTotal == 0) {
+            return defaultBuildOrder;
+        }
+
+        ABuildOrder best = defaultBuildOrder;
+        double bestScore = -1;
+        for (ABuildOrder buildOrder : ABuildOrder.getAllBuildOrders()) {
+            if (!buildOrder.getClass().equals(defaultBuildOrder.getClass())) {
+                continue;
+            }
+
+            // Upper confidence bound: win ratio plus bonus for build orders tried less often
+            int[] results = buildOrderResults.get(buildOrder.getName());
+            double games = PRIOR_GAMES + (results != null ? results[0] : 0);
+            double wins = PRIOR_GAMES * PRIOR_WIN_RATIO + (results != null ? results[1] : 0);
+            double score = wins / games + Math.sqrt(2 * Math.log(gamesTotal) / games);
+
+            if (score > bestScore) {
+                bestScore = score;
+                best = buildOrder;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns name of the enemy strategy recognized most often against this opponent or null.
+     */
+    public static String getMostCommonEnemyStrategy() {
+        String mostCommon = null;
+        int mostGames = 0;
+        for (Map.Entry<String, Integer> entry : enemyStrategies.entrySet()) {
+            if (entry.getValue() > mostGames) {
+                mostGames = entry.getValue();
+                mostCommon = entry.getKey();
+            }
+        }
+        return mostCommon;
+    }
+
+    public static int getGamesTotal() {
+        return gamesTotal;
+    }
+
+    // =========================================================
+
+    /**
+     * Appends record of the game that has just ended.
+     */
+    public static void saveGameResult(ABuildOrder buildOrder, boolean winner) {
+        if (fileName == null) {
+            return;
+        }
+
+        byte[] record;
+        try {
+            AEnemyStrategy enemyStrategy = AEnemyStrategy.getEnemyStrategy();
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(RECORD_VERSION);
+            out.writeUTF(AGame.getEnemy() != null ? AGame.getEnemy().getName() : "Unknown");
+            out.writeUTF(Atlantis.getBwapi().mapFileName());
+            out.writeUTF(buildOrder != null ? buildOrder.getName() : "");
+            out.writeUTF(enemyStrategy != null ? enemyStrategy.getName() : "");
+            out.writeBoolean(winner);
+            out.writeInt(AGame.getTimeFrames());
+            record = bytes.toByteArray();
+        }
+        catch (IOException e) {
+            System.err.println("Can't create opponent history record: " + e.getMessage());
+            return;
+        }
+
+        appendRecord(fileName, record);
+    }
+
+    // =========================================================
+
+    private static void readRecord(byte[] record) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        if (in.readByte() != RECORD_VERSION) {
+            return;
+        }
+        in.readUTF(); // Opponent; the file is per opponent already
+        in.readUTF(); // Map
+        String buildOrder = in.readUTF();
+        String enemyStrategy = in.readUTF();
+        boolean won = in.readBoolean();
+
+        int[] results = buildOrderResults.get(buildOrder);
+        if (results == null) {
+            results = new int[2];
+            buildOrderResults.put(buildOrder, results);
+        }
+        results[0]++;
+        if (won) {
+            results[1]++;
+        }
+
+        if (!enemyStrategy.isEmpty()) {
+            Integer games = enemyStrategies.get(enemyStrategy);
+            enemyStrategies.put(enemyStrategy, games != null ? games + 1 : 1);
+        }
+        gamesTotal++;
+    }
+
+    /**
+     * Appends record to the file in the write directory. If there's no such file yet, history from the read
+     * directory is copied first, so no games are lost.
+     */
+    private static void appendRecord(String fileName, byte[] record) {
+        File writeFile = new File(WRITE_DIR, fileName);
+        try {
+            writeFile.getParentFile().mkdirs();
+
+            File readFile = new File(READ_DIR, fileName);
+            if (!writeFile.exists() && readFile.exists()) {
+                copyFile(readFile, writeFile);
+            }
+
+            try (DataOutputStream out = new DataOutputStream(new FileOutputStream(writeFile, true))) {
+                out.writeShort(record.length);
+                out.write(record);
+            }
+        }
+        catch (IOException e) {
+            System.err.println("Can't save opponent history: " + e.getMessage());
+        }
+    }
+
+    private static void copyFile(File from, File to) throws IOException {
+        try (InputStream in = new FileInputStream(from); OutputStream out = new FileOutputStream(to)) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                out.write(buffer, 0, read);
+            }
+        }
+    }
+
+    /**
+     * File name for the current opponent, with characters not allowed in file names replaced.
+     */
+    private static String defineFileName() {
+        String opponent = AGame.getEnemy() != null ? AGame.getEnemy().getName() : "Unknown";
+        return opponent.replaceAll("[^a-zA-Z0-9_.-]", "_") + ".history";
+    }
+
+}
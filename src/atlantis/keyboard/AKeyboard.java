@@ -1,7 +1,6 @@
 package atlantis.keyboard;
 
 import atlantis.AGame;
-import atlantis.AtlantisConfig;
 import atlantis.debug.APainter;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -48,19 +47,18 @@ public class AKeyboard implements NativeKeyListener {
             // Key "PauseBreak"
             case 3653:
                 AGame.pauseModeToggle();
-                System.out.println("Notice: " + (AGame.isPaused() ? "" : "UN") + "PAUSED");
                 break;
             
             // Keys "-" and NumPad "-"
             case 12: case 3658:
                 AGame.changeSpeedBy(+20);
-                System.out.println("Notice: SPEED SLOWER (" + AtlantisConfig.GAME_SPEED + ")");
+                System.out.println("Notice: SPEED SLOWER");
                 break;
 
             // Keys "+" and NumPad "+"
             case 13: case 3662: 
                 AGame.changeSpeedBy(-20);
-                System.out.println("Notice: SPEED FASTER (" + AtlantisConfig.GAME_SPEED + ")");
+                System.out.println("Notice: SPEED FASTER");
                 break;
 
             // Key "ESCAPE"
@@ -9,9 +9,6 @@ import bwapi.Color;
 import bwapi.Position;
 import bwta.BWTA;
 import bwta.Region;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Objects;
 
 /**
  * Atlantis uses wrapper for BWMirror native classes which can't extended due to private constructors.
@@ -32,25 +29,14 @@ public class APosition extends Position implements Comparable<Position> {
 //    public static final int PIXELS_TO_MAP_BOUNDARIES_CONSIDERED_CLOSE = 110;
     public static final int PIXELS_TO_MAP_BOUNDARIES_CONSIDERED_CLOSE = 32;
     
-    private static final Map<Position, APosition> instances = new HashMap<>();
-    
-    private Position p;
-    
     // =========================================================
 
     public APosition(APosition position) {
         super(position.getX(), position.getY());
-        this.p = new Position(position.getX(), position.getY());
     }
 
     public APosition(int pixelX, int pixelY) {
         super(pixelX, pixelY);
-        this.p = new Position(pixelX, pixelY);
-    }
-
-    private APosition(Position p) {
-        super(p.getX(), p.getY());
-        this.p = p;
     }
     
     /**
@@ -61,14 +47,17 @@ public class APosition extends Position implements Comparable<Position> {
      * <b>Notice:</b> whenever possible, try to use APosition in place of Position.
      */
     public static APosition create(Position p) {
-        if (instances.containsKey(p)) {
-            return instances.get(p);
-        }
-        else {
-            APosition position = new APosition(p);
-            instances.put(p, position);
-            return position;
+        if (p instanceof APosition) {
+            return (APosition) p;
         }
+        return new APosition(p.getX(), p.getY());
+    }
+    
+    /**
+     * Creates APosition from position packed with <b>PackedPosition</b>.
+     */
+    public static APosition fromPacked(int packed) {
+        return PackedPosition.toPosition(packed);
     }
     
     /**
@@ -88,7 +77,14 @@ public class APosition extends Position implements Comparable<Position> {
      * APosition class should be used always in place of Position when possible.
      */
     public Position p() {
-        return p;
+        return this;
+    }
+    
+    /**
+     * Returns this position packed into single int, see <b>PackedPosition</b>.
+     */
+    public int toPacked() {
+        return PackedPosition.pack(getX(), getY());
     }
 
     // =========================================================
@@ -174,8 +170,8 @@ public class APosition extends Position implements Comparable<Position> {
 //        p = p.makeValid();
 
         boolean somethingChanged = false;
-        int px = p.getX();
-        int py = p.getY();
+        int px = getX();
+        int py = getY();
         
         if (px < 1) {
             px = 1;
@@ -209,8 +205,8 @@ public class APosition extends Position implements Comparable<Position> {
      */
     public APosition makeValidFarFromBounds() {
         boolean somethingChanged = false;
-        int px = p.getX();
-        int py = p.getY();
+        int px = getX();
+        int py = getY();
         
         if (px < PIXELS_TO_MAP_BOUNDARIES_CONSIDERED_CLOSE) {
             px = PIXELS_TO_MAP_BOUNDARIES_CONSIDERED_CLOSE;
@@ -249,9 +245,7 @@ public class APosition extends Position implements Comparable<Position> {
 
     @Override
     public int hashCode() {
-        int hash = 3;
-        hash = 29 * hash + Objects.hashCode(this.p);
-        return hash;
+        return toPacked();
     }
     
     @Override
@@ -296,8 +290,8 @@ public class APosition extends Position implements Comparable<Position> {
     }
 
     public boolean isCloseToMapBounds() {
-        int px = p.getX();
-        int py = p.getY();
+        int px = getX();
+        int py = getY();
         
         if (px < PIXELS_TO_MAP_BOUNDARIES_CONSIDERED_CLOSE) {
             return true;
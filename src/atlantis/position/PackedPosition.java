@@ -0,0 +1,107 @@
+package atlantis.position;
+
+import bwapi.Position;
+
+/**
+ * Position packed into a single <b>int</b> as (x << 16 | y), both coordinates in pixels. Use it in hot
+ * paths instead of creating <b>APosition</b> objects and convert back with <b>toPosition()</b> only when
+ * the position has to be passed to BWMirror or to the rest of Atlantis.
+ * <br /><br />
+ * Both coordinates are stored as signed 16-bit values, so positions slightly outside the map (e.g. after
+ * translation) survive the round trip.
+ */
+public class PackedPosition {
+
+    /**
+     * Value that never results from packing a position on the map, can be used as "no position".
+     */
+    public static final int NONE = pack(-32768, -32768);
+
+    // =========================================================
+
+    public static int pack(int pixelX, int pixelY) {
+        return (pixelX << 16) | (pixelY & 0xFFFF);
+    }
+
+    public static int pack(Position position) {
+        return pack(position.getX(), position.getY());
+    }
+
+    /**
+     * Returns X coordinate in pixels.
+     */
+    public static int x(int packed) {
+        return packed >> 16;
+    }
+
+    /**
+     * Returns Y coordinate in pixels.
+     */
+    public static int y(int packed) {
+        return (short) packed;
+    }
+
+    /**
+     * Returns X coordinate in tiles, 1 tile = 32 pixels.
+     */
+    public static int tileX(int packed) {
+        return x(packed) / 32;
+    }
+
+    /**
+     * Returns Y coordinate in tiles, 1 tile = 32 pixels.
+     */
+    public static int tileY(int packed) {
+        return y(packed) / 32;
+    }
+
+    /**
+     * Creates <b>APosition</b> object from packed position. Use it only at the API boundaries.
+     */
+    public static APosition toPosition(int packed) {
+        return new APosition(x(packed), y(packed));
+    }
+
+    // === Distance ============================================
+
+    /**
+     * Returns squared distance in pixels. Compare it against squared thresholds to avoid sqrt.
+     */
+    public static int distanceSquared(int packedA, int packedB) {
+        int dx = x(packedA) - x(packedB);
+        int dy = y(packedA) - y(packedB);
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * Returns distance in build tiles (1 tile = 32 pixels).
+     */
+    public static double distanceTo(int packedA, int packedB) {
+        return Math.sqrt(distanceSquared(packedA, packedB)) / 32;
+    }
+
+    /**
+     * Returns true if positions are no further than <b>maxDistTiles</b> from each other.
+     */
+    public static boolean isInRadius(int packedA, int packedB, double maxDistTiles) {
+        double maxDistPixels = maxDistTiles * 32;
+        return distanceSquared(packedA, packedB) <= maxDistPixels * maxDistPixels;
+    }
+
+    // === Translate ===========================================
+
+    /**
+     * Returns position translated by [dx, dy] pixels.
+     */
+    public static int translateByPixels(int packed, int pixelDX, int pixelDY) {
+        return pack(x(packed) + pixelDX, y(packed) + pixelDY);
+    }
+
+    /**
+     * Returns position translated by [dx, dy] tiles.
+     */
+    public static int translateByTiles(int packed, int tileDX, int tileDY) {
+        return pack(x(packed) + tileDX * 32, y(packed) + tileDY * 32);
+    }
+
+}
@@ -4,10 +4,8 @@ import atlantis.units.AUnit;
 import atlantis.units.Units;
 import bwapi.AbstractPoint;
 import bwapi.Position;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -25,34 +23,25 @@ public class PositionOperationsWrapper {
             return null;
         }
 
-        ArrayList<Integer> xCoordinates = new ArrayList<>();
-        ArrayList<Integer> yCoordinates = new ArrayList<>();
+        int[] xCoordinates = new int[units.size()];
+        int[] yCoordinates = new int[units.size()];
+        int index = 0;
         for (AUnit unit : units) {
-            xCoordinates.add(unit.getPosition().getX());	//TODO: check whether position is in Pixels
-            yCoordinates.add(unit.getPosition().getX());
+            xCoordinates[index] = unit.getX();
+            yCoordinates[index] = unit.getY();
+            index++;
         }
-        Collections.sort(xCoordinates);
-        Collections.sort(yCoordinates);
 
         return new APosition(
-                xCoordinates.get(xCoordinates.size() / 2),
-                yCoordinates.get(yCoordinates.size() / 2)
+                getPositionMedian(xCoordinates),
+                getPositionMedian(yCoordinates)
         );
     }
     
     public static APosition getPositionMedian(Units units) {
-        ArrayList<Integer> xCoordinates = new ArrayList<>();
-        ArrayList<Integer> yCoordinates = new ArrayList<>();
-        
-        for (Iterator<AUnit> iterator = units.iterator(); iterator.hasNext();) {
-            AUnit unit = iterator.next();
-            xCoordinates.add(unit.getX());
-            yCoordinates.add(unit.getY());
-        }
-
         return new APosition(
-                getPositionMedian(xCoordinates),
-                getPositionMedian(yCoordinates)
+                getPositionMedian(units.xCoordinates()),
+                getPositionMedian(units.yCoordinates())
         );
     }
     
@@ -61,13 +50,22 @@ public class PositionOperationsWrapper {
         return collection.get(collection.size() / 2);
     }
     
+    /**
+     * Returns element that would be at index <b>length / 2</b> if the array was sorted. It uses O(n)
+     * selection and <b>reorders the passed array</b>.
+     */
+    public static int getPositionMedian(int[] coordinates) {
+        return selectKth(coordinates, coordinates.length / 2);
+    }
+    
     public static APosition getPositionMedian(Collection<APosition> positions) {
-        ArrayList<Integer> xCoordinates = new ArrayList<>();
-        ArrayList<Integer> yCoordinates = new ArrayList<>();
-
+        int[] xCoordinates = new int[positions.size()];
+        int[] yCoordinates = new int[positions.size()];
+        int index = 0;
         for (APosition position : positions) {
-            xCoordinates.add(position.getX());
-            yCoordinates.add(position.getY());
+            xCoordinates[index] = position.getX();
+            yCoordinates[index] = position.getY();
+            index++;
         }
 
         return new APosition(
@@ -76,6 +74,47 @@ public class PositionOperationsWrapper {
         );
     }
     
+    /**
+     * Quickselect: returns k-th smallest element (0-based) of the array, partially reordering it.
+     */
+    private static int selectKth(int[] values, int k) {
+        int left = 0;
+        int right = values.length - 1;
+        
+        while (left < right) {
+            int pivot = values[(left + right) >>> 1];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (values[i] < pivot) {
+                    i++;
+                }
+                while (values[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    int tmp = values[i];
+                    values[i] = values[j];
+                    values[j] = tmp;
+                    i++;
+                    j--;
+                }
+            }
+            
+            if (k <= j) {
+                right = j;
+            }
+            else if (k >= i) {
+                left = i;
+            }
+            else {
+                return values[k];
+            }
+        }
+        
+        return values[k];
+    }
+    
     // === Position between A and B ======================
     
     public static APosition getPositionMovedPercentTowards(Position from, AbstractPoint<Position> movedToward, double percent) {
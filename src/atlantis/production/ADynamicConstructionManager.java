@@ -5,9 +5,9 @@ import atlantis.AtlantisConfig;
 import atlantis.buildings.managers.AExpansionManager;
 import atlantis.constructing.AConstructionManager;
 import atlantis.constructing.AConstructionManager;
-import atlantis.production.orders.ABuildOrderManager;
 import atlantis.production.requests.TerranRequests;
 import atlantis.units.AUnit;
+import atlantis.units.AUnitCounts;
 import atlantis.units.AUnitType;
 import atlantis.units.Select;
 
@@ -46,7 +46,7 @@ public class ADynamicConstructionManager {
         
         int numberOfBases = Select.ourBases().count();
         if (numberOfBases >= 2) {
-            int numberOfGasBuildings = Select.ourIncludingUnfinished().ofType(AtlantisConfig.GAS_BUILDING).count();
+            int numberOfGasBuildings = AUnitCounts.our().countAll(AtlantisConfig.GAS_BUILDING);
             if (numberOfBases > numberOfGasBuildings && !AGame.canAfford(0, 350) 
                     && AConstructionManager.countNotStartedConstructionsOfType(AtlantisConfig.GAS_BUILDING) == 0) {
                 AConstructionManager.requestConstructionOf(AtlantisConfig.GAS_BUILDING);
@@ -57,8 +57,7 @@ public class ADynamicConstructionManager {
     // =========================================================
     
     protected static boolean canAfford(int minerals, int gas) {
-        return AGame.canAfford(minerals + ABuildOrderManager.getMineralsReserved(), gas + ABuildOrderManager.getGasReserved()
-        );
+        return AResourceLedger.canAffordAfterReservations(minerals, gas);
     }
     
 }
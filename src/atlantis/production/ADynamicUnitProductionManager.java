@@ -28,8 +28,8 @@ public class ADynamicUnitProductionManager {
     private static void handleFactoryProductionIfNeeded() {
         for (AUnit factory : Select.ourOfType(AUnitType.Terran_Factory).listUnits()) {
             if (!factory.isTrainingAnyUnit()) {
-                boolean cantAffordTankButCanAffordVulture = AGame.hasMinerals(250)
-                        && !AGame.hasGas(70);
+                boolean cantAffordTankButCanAffordVulture = AResourceLedger.getMineralsNow() >= 250
+                        && AResourceLedger.getGasNow() < 70;
                 
                 if (cantAffordTankButCanAffordVulture) {
                     factory.train(AUnitType.Terran_Vulture);
@@ -1,6 +1,5 @@
 package atlantis.production;
 
-import atlantis.AGame;
 import atlantis.AtlantisConfig;
 import atlantis.units.AUnit;
 import atlantis.units.Select;
@@ -43,12 +42,12 @@ public class ADynamicWorkerProductionManager {
     public static boolean shouldTrainWorkers(boolean checkSupplyAndMinerals) {
 
         // Check MINERALS
-        if (checkSupplyAndMinerals && AGame.getMinerals() < 50) {
+        if (checkSupplyAndMinerals && AResourceLedger.getMineralsNow() < 50) {
             return false;
         }
 
         // Check FREE SUPPLY
-        if (checkSupplyAndMinerals && AGame.getSupplyFree() == 0) {
+        if (checkSupplyAndMinerals && AResourceLedger.getSupplyFreeNow() <= 0) {
             return false;
         }
 
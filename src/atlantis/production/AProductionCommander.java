@@ -15,6 +15,9 @@ public class AProductionCommander {
     public static void update() {
         CodeProfiler.startMeasuring(CodeProfiler.ASPECT_PRODUCTION);
         
+        // Check research that should be done by now.
+        ATechTree.update();
+        
         // Check if need to increase supply and if so, take care of it.
         ASupplyManager.update();
         
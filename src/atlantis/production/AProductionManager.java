@@ -74,7 +74,7 @@ public class AProductionManager {
     private static void produceUnit(AUnitType unitType) {
         
         // Supply: OVERLORD / PYLON / DEPOT
-        if (AGame.getSupplyFree() == 0 && !unitType.isSupplyUnit() && !unitType.isBuilding()) {
+        if (AResourceLedger.getSupplyFreeNow() <= 0 && !unitType.isSupplyUnit() && !unitType.isBuilding()) {
             // Supply production is handled by AtlantisSupplyManager
             return;
         }
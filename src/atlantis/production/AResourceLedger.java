@@ -0,0 +1,240 @@
+package atlantis.production;
+
+import atlantis.AGame;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Minerals, gas and supply we've already promised to something: not started constructions, production orders
+ * we're producing or saving up for, research and expansions.
+ * <br /><br />
+ * Everything that plans to spend resources <b>reserve()</b>s them under some owner object (e.g. construction
+ * order) and <b>release()</b>s them once it's done or cancelled; totals are kept up to date on every change,
+ * so "can we afford it after reservations?" is O(1). Commands that spend resources (train, research...)
+ * <b>spend()</b> them: BWAPI subtracts the cost only in the next frame, so without it two managers could
+ * spend the same minerals in one frame. Spending also releases a production or research reservation made for
+ * the same thing, so the cost isn't counted twice.
+ */
+public class AResourceLedger {
+
+    /**
+     * What the resources are reserved for.
+     */
+    public enum Purpose {
+        CONSTRUCTION, EXPANSION, PRODUCTION, RESEARCH
+    }
+
+    // =========================================================
+
+    private static final Map<Object, Reservation> reservations = new IdentityHashMap<>();
+
+    /**
+     * Reserved resources per purpose ordinal.
+     */
+    private static final int[] reservedMinerals = new int[Purpose.values().length];
+    private static final int[] reservedGas = new int[Purpose.values().length];
+    private static final int[] reservedSupply = new int[Purpose.values().length];
+
+    private static int totalMinerals = 0;
+    private static int totalGas = 0;
+    private static int totalSupply = 0;
+
+    /**
+     * Resources spent by commands issued in <b>spentFrame</b>, not yet subtracted by BWAPI.
+     */
+    private static int spentMinerals = 0;
+    private static int spentGas = 0;
+    private static int spentSupply = 0;
+    private static int spentFrame = -1;
+
+    // === Reservations ========================================
+
+    /**
+     * Reserves resources for given owner, replacing its previous reservation if it has one.
+     */
+    public static void reserve(Object owner, Purpose purpose, int minerals, int gas, int supply) {
+        reserve(owner, purpose, null, minerals, gas, supply);
+    }
+
+    /**
+     * Reserves resources for given owner, to be spent on <b>what</b> (unit type, upgrade or tech).
+     */
+    public static void reserve(Object owner, Purpose purpose, Object what, int minerals, int gas, int supply) {
+        release(owner);
+
+        Reservation reservation = new Reservation(purpose, what, minerals, gas, supply);
+        reservations.put(owner, reservation);
+        add(reservation, 1);
+    }
+
+    /**
+     * Releases resources reserved for given owner. Does nothing if it has no reservation.
+     */
+    public static void release(Object owner) {
+        Reservation reservation = reservations.remove(owner);
+        if (reservation != null) {
+            add(reservation, -1);
+        }
+    }
+
+    /**
+     * Releases all reservations made for given purpose.
+     */
+    public static void releaseAll(Purpose purpose) {
+        for (Iterator<Reservation> iterator = reservations.values().iterator(); iterator.hasNext();) {
+            Reservation reservation = iterator.next();
+            if (reservation.purpose == purpose) {
+                iterator.remove();
+                add(reservation, -1);
+            }
+        }
+    }
+
+    public static boolean isReserved(Object owner) {
+        return reservations.containsKey(owner);
+    }
+
+    /**
+     * Command costing these resources has just been issued to produce <b>what</b>. One production or
+     * research reservation made for it is released, as these resources are now counted as spent.
+     */
+    public static void spend(Object what, int minerals, int gas, int supply) {
+        refreshSpent();
+        spentMinerals += minerals;
+        spentGas += gas;
+        spentSupply += supply;
+
+        for (Iterator<Reservation> iterator = reservations.values().iterator(); iterator.hasNext();) {
+            Reservation reservation = iterator.next();
+            if ((reservation.purpose == Purpose.PRODUCTION || reservation.purpose == Purpose.RESEARCH)
+                    && what.equals(reservation.what)) {
+                iterator.remove();
+                add(reservation, -1);
+                return;
+            }
+        }
+    }
+
+    // === Totals ==============================================
+
+    public static int getReservedMinerals() {
+        return totalMinerals;
+    }
+
+    public static int getReservedGas() {
+        return totalGas;
+    }
+
+    public static int getReservedSupply() {
+        return totalSupply;
+    }
+
+    public static int getReservedMinerals(Purpose purpose) {
+        return reservedMinerals[purpose.ordinal()];
+    }
+
+    public static int getReservedGas(Purpose purpose) {
+        return reservedGas[purpose.ordinal()];
+    }
+
+    // === Spendable ===========================================
+
+    /**
+     * Minerals we have, minus those spent by commands issued this frame.
+     */
+    public static int getMineralsNow() {
+        refreshSpent();
+        return AGame.getMinerals() - spentMinerals;
+    }
+
+    /**
+     * Gas we have, minus gas spent by commands issued this frame.
+     */
+    public static int getGasNow() {
+        refreshSpent();
+        return AGame.getGas() - spentGas;
+    }
+
+    /**
+     * Free supply, minus supply taken by units we've ordered to train this frame.
+     */
+    public static int getSupplyFreeNow() {
+        refreshSpent();
+        return AGame.getSupplyFree() - spentSupply;
+    }
+
+    /**
+     * Minerals left after all reservations; can be negative if we're saving up.
+     */
+    public static int getSpendableMinerals() {
+        return getMineralsNow() - totalMinerals;
+    }
+
+    /**
+     * Gas left after all reservations; can be negative if we're saving up.
+     */
+    public static int getSpendableGas() {
+        return getGasNow() - totalGas;
+    }
+
+    /**
+     * Returns true if we can pay for it right now, no matter what's reserved.
+     */
+    public static boolean canAffordNow(int minerals, int gas) {
+        return getMineralsNow() >= minerals && getGasNow() >= gas;
+    }
+
+    /**
+     * Returns true if we can pay for it without touching resources reserved for anything else.
+     */
+    public static boolean canAffordAfterReservations(int minerals, int gas) {
+        return getSpendableMinerals() >= minerals && getSpendableGas() >= gas;
+    }
+
+    // =========================================================
+
+    private static void add(Reservation reservation, int sign) {
+        int purpose = reservation.purpose.ordinal();
+        reservedMinerals[purpose] += sign * reservation.minerals;
+        reservedGas[purpose] += sign * reservation.gas;
+        reservedSupply[purpose] += sign * reservation.supply;
+        totalMinerals += sign * reservation.minerals;
+        totalGas += sign * reservation.gas;
+        totalSupply += sign * reservation.supply;
+    }
+
+    /**
+     * Resources spent in previous frames are already subtracted by BWAPI.
+     */
+    private static void refreshSpent() {
+        int now = AGame.getTimeFrames();
+        if (now != spentFrame) {
+            spentFrame = now;
+            spentMinerals = 0;
+            spentGas = 0;
+            spentSupply = 0;
+        }
+    }
+
+    // =========================================================
+
+    private static class Reservation {
+
+        private final Purpose purpose;
+        private final Object what;
+        private final int minerals;
+        private final int gas;
+        private final int supply;
+
+        private Reservation(Purpose purpose, Object what, int minerals, int gas, int supply) {
+            this.purpose = purpose;
+            this.what = what;
+            this.minerals = minerals;
+            this.gas = gas;
+            this.supply = supply;
+        }
+
+    }
+
+}
@@ -0,0 +1,377 @@
+package atlantis.production;
+
+import atlantis.AGame;
+import atlantis.units.AUnitCounts;
+import atlantis.units.AUnitType;
+import bwapi.TechType;
+import bwapi.UpgradeType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Our tech tree: which unit types we have (finished or not), which techs and upgrades we have or are
+ * researching, and what's needed for anything else.
+ * <br /><br />
+ * Requirements of every type are read from BWAPI only once. Units we have are counted by <b>AUnitCounts</b>
+ * and research is kept up to date by research and upgrade orders, so questions like "can we produce it
+ * now?" are answered with array reads instead of selecting units or calling BWAPI. Research in progress is
+ * checked with BWAPI only once it's expected to be finished.
+ */
+public class ATechTree {
+
+    /**
+     * Research that should have finished, but hasn't, is checked again after this many frames.
+     */
+    private static final int RESEARCH_RECHECK_FRAMES = 24;
+
+    /**
+     * Requirement chains are never deeper than this; protects against loops in the data.
+     */
+    private static final int MAX_DEPTH = 12;
+
+    // === Unit types ==========================================
+
+    /**
+     * Requirements per unit type ID, read once.
+     */
+    private static Requirements[] requirements = new Requirements[256];
+
+    // === Techs and upgrades ==================================
+
+    private static final Map<TechType, Integer> techIndexes = new HashMap<>();
+    private static final List<TechType> techs = new ArrayList<>();
+    private static final BitSet researchedTechs = new BitSet();
+    private static final BitSet researchingTechs = new BitSet();
+    private static int[] techFinishFrame = new int[64];
+
+    private static final Map<UpgradeType, Integer> upgradeIndexes = new HashMap<>();
+    private static final List<UpgradeType> upgrades = new ArrayList<>();
+    private static final BitSet upgradingUpgrades = new BitSet();
+    private static int[] upgradeLevels = new int[64];
+    private static int[] upgradeFinishFrame = new int[64];
+
+    // =========================================================
+    // Queries
+
+    /**
+     * Returns true if we have every required unit and tech to produce given type now.
+     */
+    public static boolean canProduce(AUnitType type) {
+        return hasRequiredUnits(type) && hasRequiredTech(type);
+    }
+
+    /**
+     * Returns true if we have enough finished units of every type required for given type.
+     */
+    public static boolean hasRequiredUnits(AUnitType type) {
+        Requirements required = getRequirements(type);
+        for (int i = 0; i < required.types.length; i++) {
+            if (AUnitCounts.our().countCompleted(required.types[i]) < required.amounts[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if tech required for given type (if any) is researched.
+     */
+    public static boolean hasRequiredTech(AUnitType type) {
+        TechType tech = getRequirements(type).tech;
+        return tech == null || isResearched(tech);
+    }
+
+    /**
+     * Returns true if we have at least one finished unit of given type.
+     */
+    public static boolean hasFinished(AUnitType type) {
+        return AUnitCounts.our().hasCompleted(type);
+    }
+
+    /**
+     * Returns unit types we need to produce before we can produce given type, prerequisites first. Types we
+     * already have (also unfinished) aren't returned.
+     */
+    public static List<AUnitType> getMissingUnits(AUnitType type) {
+        List<AUnitType> missing = new ArrayList<>();
+        addMissingUnits(type, missing, 0);
+        return missing;
+    }
+
+    /**
+     * Returns tech required for given type that isn't researched nor being researched, or null.
+     */
+    public static TechType getMissingTech(AUnitType type) {
+        TechType tech = getRequirements(type).tech;
+        if (tech == null || isResearched(tech) || isResearching(tech)) {
+            return null;
+        }
+        return tech;
+    }
+
+    /**
+     * Returns the earliest frame we could start producing given type, judging only by the tech tree: build
+     * times of missing units and research times of missing techs. Resources aren't taken into account.
+     */
+    public static int getEarliestFrameAvailable(AUnitType type) {
+        return AGame.getTimeFrames() + framesUntilAvailable(type, 0);
+    }
+
+    // === Techs and upgrades ==================================
+
+    public static boolean isResearched(TechType tech) {
+        return researchedTechs.get(techIndex(tech));
+    }
+
+    public static boolean isResearching(TechType tech) {
+        return researchingTechs.get(techIndex(tech));
+    }
+
+    public static int getUpgradeLevel(UpgradeType upgrade) {
+        return upgradeLevels[upgradeIndex(upgrade)];
+    }
+
+    public static boolean isUpgrading(UpgradeType upgrade) {
+        return upgradingUpgrades.get(upgradeIndex(upgrade));
+    }
+
+    public static List<TechType> getTechsBeingResearched() {
+        List<TechType> result = new ArrayList<>();
+        for (int i = researchingTechs.nextSetBit(0); i >= 0; i = researchingTechs.nextSetBit(i + 1)) {
+            result.add(techs.get(i));
+        }
+        return result;
+    }
+
+    public static List<UpgradeType> getUpgradesInProgress() {
+        List<UpgradeType> result = new ArrayList<>();
+        for (int i = upgradingUpgrades.nextSetBit(0); i >= 0; i = upgradingUpgrades.nextSetBit(i + 1)) {
+            result.add(upgrades.get(i));
+        }
+        return result;
+    }
+
+    // =========================================================
+    // Events
+
+    /**
+     * Research of given tech has been ordered.
+     */
+    public static void onResearchStarted(TechType tech) {
+        int index = techIndex(tech);
+        researchingTechs.set(index);
+        techFinishFrame[index] = AGame.getTimeFrames() + tech.researchTime();
+    }
+
+    /**
+     * Upgrade to the next level has been ordered.
+     */
+    public static void onUpgradeStarted(UpgradeType upgrade) {
+        int index = upgradeIndex(upgrade);
+        upgradingUpgrades.set(index);
+        upgradeFinishFrame[index] = AGame.getTimeFrames() + upgrade.upgradeTime(upgradeLevels[index] + 1);
+    }
+
+    /**
+     * Checks research that should be finished by now. Called every frame.
+     */
+    public static void update() {
+        int now = AGame.getTimeFrames();
+
+        for (int i = researchingTechs.nextSetBit(0); i >= 0; i = researchingTechs.nextSetBit(i + 1)) {
+            if (now >= techFinishFrame[i]) {
+                TechType tech = techs.get(i);
+                if (AGame.getPlayerUs().hasResearched(tech)) {
+                    researchedTechs.set(i);
+                    researchingTechs.clear(i);
+                }
+                else if (AGame.getPlayerUs().isResearching(tech)) {
+                    techFinishFrame[i] = now + RESEARCH_RECHECK_FRAMES;
+                }
+                else {
+                    researchingTechs.clear(i); // The order didn't work
+                }
+            }
+        }
+
+        for (int i = upgradingUpgrades.nextSetBit(0); i >= 0; i = upgradingUpgrades.nextSetBit(i + 1)) {
+            if (now >= upgradeFinishFrame[i]) {
+                UpgradeType upgrade = upgrades.get(i);
+                if (AGame.getPlayerUs().isUpgrading(upgrade)) {
+                    upgradeFinishFrame[i] = now + RESEARCH_RECHECK_FRAMES;
+                }
+                else {
+                    upgradeLevels[i] = AGame.getPlayerUs().getUpgradeLevel(upgrade);
+                    upgradingUpgrades.clear(i);
+                }
+            }
+        }
+    }
+
+    // =========================================================
+
+    private static void addMissingUnits(AUnitType type, List<AUnitType> missing, int depth) {
+        if (depth > MAX_DEPTH) {
+            return;
+        }
+
+        Requirements required = getRequirements(type);
+        for (int i = 0; i < required.types.length; i++) {
+            AUnitType requiredType = required.types[i];
+            if (AUnitCounts.our().countAll(requiredType) < required.amounts[i] && !missing.contains(requiredType)) {
+                addMissingUnits(requiredType, missing, depth + 1);
+                missing.add(requiredType);
+            }
+        }
+
+        TechType tech = getMissingTech(type);
+        if (tech != null) {
+            AUnitType researcher = AUnitType.createFrom(tech.whatResearches());
+            if (AUnitCounts.our().countAll(researcher) == 0 && !missing.contains(researcher)) {
+                addMissingUnits(researcher, missing, depth + 1);
+                missing.add(researcher);
+            }
+        }
+    }
+
+    private static int framesUntilAvailable(AUnitType type, int depth) {
+        if (depth > MAX_DEPTH) {
+            return 0;
+        }
+
+        int frames = 0;
+        Requirements required = getRequirements(type);
+        for (int i = 0; i < required.types.length; i++) {
+            frames = Math.max(frames, framesUntilFinished(required.types[i], required.amounts[i], depth));
+        }
+
+        TechType tech = required.tech;
+        if (tech != null && !isResearched(tech)) {
+            int techFrames;
+            if (isResearching(tech)) {
+                techFrames = Math.max(0, techFinishFrame[techIndex(tech)] - AGame.getTimeFrames());
+            }
+            else {
+                AUnitType researcher = AUnitType.createFrom(tech.whatResearches());
+                techFrames = Math.max(
+                        framesUntilFinished(researcher, 1, depth), framesUntilAvailable(researcher, depth + 1)
+                ) + tech.researchTime();
+            }
+            frames = Math.max(frames, techFrames);
+        }
+        return frames;
+    }
+
+    /**
+     * Frames until we have <b>amount</b> finished units of given type (assuming we start producing them now if
+     * we don't have them).
+     */
+    private static int framesUntilFinished(AUnitType type, int amount, int depth) {
+        AUnitCounts counts = AUnitCounts.our();
+        if (counts.countCompleted(type) >= amount) {
+            return 0;
+        }
+
+        if (counts.countAll(type) >= amount) {
+            int earliest = counts.getEarliestCompletedFrame(type);
+            if (earliest >= 0) {
+                return Math.max(0, earliest - AGame.getTimeFrames());
+            }
+        }
+
+        return framesUntilAvailable(type, depth + 1) + type.ut().buildTime();
+    }
+
+    /**
+     * Returns requirements of given type, reading them from BWAPI the first time. Larva isn't a requirement,
+     * as it's always there for Zerg.
+     */
+    private static Requirements getRequirements(AUnitType type) {
+        int typeId = type.getID();
+        ensureTypeCapacity(typeId);
+        if (requirements[typeId] != null) {
+            return requirements[typeId];
+        }
+
+        Map<AUnitType, Integer> requiredUnits = type.getRequiredUnits();
+        requiredUnits.remove(AUnitType.Zerg_Larva);
+        AUnitType[] types = requiredUnits.keySet().toArray(new AUnitType[requiredUnits.size()]);
+        int[] amounts = new int[types.length];
+        for (int i = 0; i < types.length; i++) {
+            amounts[i] = requiredUnits.get(types[i]);
+        }
+
+        TechType tech = type.getRequiredTech();
+        if (tech != null && tech.equals(TechType.None)) {
+            tech = null;
+        }
+
+        requirements[typeId] = new Requirements(types, amounts, tech);
+        return requirements[typeId];
+    }
+
+    /**
+     * Returns index of given tech, reading its state from BWAPI the first time it's asked about.
+     */
+    private static int techIndex(TechType tech) {
+        Integer index = techIndexes.get(tech);
+        if (index == null) {
+            index = techs.size();
+            techs.add(tech);
+            techIndexes.put(tech, index);
+            if (index >= techFinishFrame.length) {
+                techFinishFrame = Arrays.copyOf(techFinishFrame, techFinishFrame.length * 2);
+            }
+            if (AGame.getPlayerUs().hasResearched(tech)) {
+                researchedTechs.set(index);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Returns index of given upgrade, reading its level from BWAPI the first time it's asked about.
+     */
+    private static int upgradeIndex(UpgradeType upgrade) {
+        Integer index = upgradeIndexes.get(upgrade);
+        if (index == null) {
+            index = upgrades.size();
+            upgrades.add(upgrade);
+            upgradeIndexes.put(upgrade, index);
+            if (index >= upgradeLevels.length) {
+                upgradeLevels = Arrays.copyOf(upgradeLevels, upgradeLevels.length * 2);
+                upgradeFinishFrame = Arrays.copyOf(upgradeFinishFrame, upgradeFinishFrame.length * 2);
+            }
+            upgradeLevels[index] = AGame.getPlayerUs().getUpgradeLevel(upgrade);
+        }
+        return index;
+    }
+
+    private static void ensureTypeCapacity(int typeId) {
+        if (typeId >= requirements.length) {
+            int size = Math.max(typeId + 1, requirements.length * 2);
+            requirements = Arrays.copyOf(requirements, size);
+        }
+    }
+
+    // =========================================================
+
+    private static class Requirements {
+
+        private final AUnitType[] types;
+        private final int[] amounts;
+        private final TechType tech;
+
+        private Requirements(AUnitType[] types, int[] amounts, TechType tech) {
+            this.types = types;
+            this.amounts = amounts;
+            this.tech = tech;
+        }
+
+    }
+
+}
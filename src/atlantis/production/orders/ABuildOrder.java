@@ -2,6 +2,7 @@ package atlantis.production.orders;
 
 import atlantis.units.AUnitType;
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  *
@@ -9,6 +10,8 @@ import java.util.ArrayList;
  */
 public abstract class ABuildOrder {
 
+    private static final List<ABuildOrder> allBuildOrders = new ArrayList<>();
+
     /**
      * Relative path to build order file as seen from project root.
      */
@@ -18,6 +21,7 @@ public abstract class ABuildOrder {
 
     public ABuildOrder(String filename) {
         this.buildOrderRelativePath = filename + ".txt";
+        allBuildOrders.add(this);
     }
 
     // === Abstract methods ====================================
@@ -40,6 +44,13 @@ public abstract class ABuildOrder {
 
     // === Getters =============================================
 
+    /**
+     * Returns every defined build order, of all races.
+     */
+    public static List<ABuildOrder> getAllBuildOrders() {
+        return allBuildOrders;
+    }
+
     /**
      * Returns relative file path as seen from project root.
      */
@@ -2,11 +2,11 @@ package atlantis.production.orders;
 
 import atlantis.AGame;
 import atlantis.constructing.AConstructionManager;
+import atlantis.production.AResourceLedger;
 import atlantis.production.ProductionOrder;
+import atlantis.units.AUnitCounts;
 import atlantis.units.AUnitType;
-import atlantis.units.Select;
 import atlantis.wrappers.ATech;
-import atlantis.wrappers.MappingCounter;
 import bwapi.TechType;
 import bwapi.UpgradeType;
 import java.util.ArrayList;
@@ -36,16 +36,6 @@ public abstract class ABuildOrderManager {
      * training/building new unit"
      */
     protected static ArrayList<ProductionOrder> currentProductionQueue = new ArrayList<>();
-
-    /**
-     * Number of minerals reserved to produce some units/buildings.
-     */
-    private static int mineralsNeeded = 0;
-
-    /**
-     * Number of gas reserved to produce some units/buildings.
-     */
-    private static int gasNeeded = 0;
     
     // =========================================================
     
@@ -74,16 +64,17 @@ public abstract class ABuildOrderManager {
      * want to get units, use <b>onlyUnits</b> set to true. This merhod iterates over latest build orders and
      * returns those build orders that we can build in this very moment (we can afford them and they match our
      * strategy).
+     * <br /><br />
+     * Every order returned (and the first one we can't afford yet, as we're saving up for it) reserves its
+     * cost in <b>AResourceLedger</b>; reservations of the previous call are released first.
      *
      * @param int mode use this classes constants; if MODE_ONLY_UNITS it will only return "units" as opposed
      * to buildings (keep in mind AUnit is both "unit" and building)
      */
     public static ArrayList<ProductionOrder> getThingsToProduceRightNow(int mode) {
         ArrayList<ProductionOrder> result = new ArrayList<>();
-        int[] resourcesNeededForNotStartedBuildings
-                = AConstructionManager.countResourcesNeededForNotStartedConstructions();
-        mineralsNeeded = resourcesNeededForNotStartedBuildings[0];
-        gasNeeded = resourcesNeededForNotStartedBuildings[1];
+        AResourceLedger.releaseAll(AResourceLedger.Purpose.PRODUCTION);
+        AResourceLedger.releaseAll(AResourceLedger.Purpose.RESEARCH);
 
         // =========================================================
         // The idea as follows: as long as we can afford next enqueued production order, 
@@ -102,7 +93,7 @@ public abstract class ABuildOrderManager {
             // ===  Protoss fix: wait for at least one Pylon ============
             if (AGame.playsAsProtoss() && unitOrBuilding != null
                     && !unitOrBuilding.isType(AUnitType.Protoss_Pylon, AUnitType.Protoss_Assimilator)
-                    && Select.our().countUnitsOfType(AUnitType.Protoss_Pylon) == 0) {
+                    && !AUnitCounts.our().hasCompleted(AUnitType.Protoss_Pylon)) {
                 continue;
             }
 
@@ -113,21 +104,24 @@ public abstract class ABuildOrderManager {
                     continue;
                 }
 
-                mineralsNeeded += unitOrBuilding.getMineralPrice();
-                gasNeeded += unitOrBuilding.getGasPrice();
+                AResourceLedger.reserve(order, AResourceLedger.Purpose.PRODUCTION, unitOrBuilding,
+                        unitOrBuilding.getMineralPrice(), unitOrBuilding.getGasPrice(),
+                        unitOrBuilding.isBuilding() ? 0 : unitOrBuilding.getSupplyRequired());
             } // UPGRADE
             else if (upgrade != null) {
-                mineralsNeeded += upgrade.mineralPrice() * (1 + ATech.getUpgradeLevel(upgrade));
-                gasNeeded += upgrade.gasPrice() * (1 + ATech.getUpgradeLevel(upgrade));
+                int level = 1 + ATech.getUpgradeLevel(upgrade);
+                AResourceLedger.reserve(order, AResourceLedger.Purpose.RESEARCH, upgrade,
+                        upgrade.mineralPrice() * level, upgrade.gasPrice() * level, 0);
             } // TECH
             else if (tech != null) {
-                mineralsNeeded += tech.mineralPrice();
-                gasNeeded += tech.gasPrice();
+                AResourceLedger.reserve(order, AResourceLedger.Purpose.RESEARCH, tech,
+                        tech.mineralPrice(), tech.gasPrice(), 0);
             }
 
             // =========================================================
-            // If we can afford this order (and all previous ones as well), add it to CurrentToProduceList.
-            if (AGame.canAfford(mineralsNeeded, gasNeeded)) {
+            // If we can afford this order (and all previous ones, and not started constructions, as well), add
+            // it to CurrentToProduceList.
+            if (AResourceLedger.canAffordAfterReservations(0, 0)) {
                 result.add(order);
             } // We can't afford to produce this order (possibly other, previous orders are blocking it). 
             // Return current list of production orders (can be empty).
@@ -142,7 +136,7 @@ public abstract class ABuildOrderManager {
         // Produce some generic units (preferably combat units) if queue is empty.
         // This can mean that we run out of build orders from build order file.
         // For proper build order files this feature will activate in late game.
-        if (result.isEmpty() && AGame.canAfford(300, 200)
+        if (result.isEmpty() && AResourceLedger.canAffordNow(300, 200)
                 && (AGame.getSupplyUsed() >= 30 || initialProductionQueue.isEmpty())) {
             for (AUnitType unitType : currentBuildOrder.produceWhenNoProductionOrders()) {
                 if (AGame.hasBuildingsToProduce(unitType, false)) {
@@ -167,9 +161,9 @@ public abstract class ABuildOrderManager {
         // Clear old production queue.
         currentProductionQueue.clear();
 
-        // It will store [UnitType->(int)howMany] mapping as we gonna process initial production queue and check if we
-        // currently have units needed
-        MappingCounter<AUnitType> virtualCounter = new MappingCounter<>();
+        // It will store how many units of given type (indexed by type ID) are in the initial production queue so
+        // far, as we gonna process it and check if we currently have units needed
+        int[] virtualCounter = new int[AUnitType.getMaxID() + 1];
 
         // =========================================================
 
@@ -180,11 +174,11 @@ public abstract class ABuildOrderManager {
             // Unit
             if (order.getUnitOrBuilding() != null) {
                 AUnitType type = order.getUnitOrBuilding();
-                virtualCounter.incrementValueFor(type);
+                virtualCounter[type.getID()]++;
 
                 int shouldHaveThisManyUnits = (type.isWorker() ? 4 : 0) 
                         + (type.isBase() ? (type.isPrimaryBase() ? 1 : 0) : 0)
-                        + (type.isOverlord() ? 1 : 0) + virtualCounter.getValueFor(type);
+                        + (type.isOverlord() ? 1 : 0) + virtualCounter[type.getID()];
                 
                 int weHaveThisManyUnits = countUnitsOfGivenTypeOrSimilar(type);
 
@@ -227,23 +221,23 @@ public abstract class ABuildOrderManager {
      * need to count sunkens as well.
      */
     private static int countUnitsOfGivenTypeOrSimilar(AUnitType type) {
+        AUnitCounts counts = AUnitCounts.our();
         if (type.equals(AUnitType.Zerg_Creep_Colony)) {
-            return Select.ourIncludingUnfinished().ofType(type).count()
-                    + Select.ourIncludingUnfinished().ofType(AUnitType.Zerg_Spore_Colony).count()
-                    + Select.ourIncludingUnfinished().ofType(AUnitType.Zerg_Sunken_Colony).count();
+            return counts.countAll(type, AUnitType.Zerg_Spore_Colony, AUnitType.Zerg_Sunken_Colony);
         } 
         else if (type.isPrimaryBase()) {
-            return Select.ourIncludingUnfinished().bases().count() 
+            return counts.countAll(AUnitType.Terran_Command_Center, AUnitType.Protoss_Nexus,
+                    AUnitType.Zerg_Hatchery, AUnitType.Zerg_Lair, AUnitType.Zerg_Hive)
                     + AConstructionManager.countNotStartedConstructionsOfType(type)
                     + AConstructionManager.countNotStartedConstructionsOfType(AUnitType.Zerg_Lair)
                     + AConstructionManager.countNotStartedConstructionsOfType(AUnitType.Zerg_Hive);
         }
         else if (type.isBase() && !type.isPrimaryBase()) {
-            return Select.ourIncludingUnfinished().ofType(type).count()
+            return counts.countAll(type)
                     + AConstructionManager.countNotStartedConstructionsOfType(type);
         }
         else {
-            return Select.ourIncludingUnfinished().ofType(type).count();
+            return counts.countAll(type);
         }
     }
 
@@ -269,6 +263,23 @@ public abstract class ABuildOrderManager {
         return result;
     }
 
+    /**
+     * Returns total gas cost of <b>howMany</b> next production orders, no matter if we can afford them.
+     */
+    public static int getGasNeededForNextOrders(int howMany) {
+        int gas = 0;
+        for (ProductionOrder order : getProductionQueueNext(howMany)) {
+            if (order.getUnitOrBuilding() != null) {
+                gas += order.getUnitOrBuilding().getGasPrice();
+            } else if (order.getUpgrade() != null) {
+                gas += order.getUpgrade().gasPrice() * (1 + ATech.getUpgradeLevel(order.getUpgrade()));
+            } else if (order.getTech() != null) {
+                gas += order.getTech().gasPrice();
+            }
+        }
+        return gas;
+    }
+
     // =========================================================
     // Getters
     
@@ -280,19 +291,19 @@ public abstract class ABuildOrderManager {
     }
     
     /**
-     * Number of minerals reserved to produce some units/buildings in the build order that according to it
-     * should be produced right now (judging by the supply used).
+     * Number of minerals reserved for not started constructions and for units/buildings in the build order
+     * that according to it should be produced right now, see <b>AResourceLedger</b>.
      */
     public static int getMineralsReserved() {
-        return mineralsNeeded;
+        return AResourceLedger.getReservedMinerals();
     }
 
     /**
-     * Number of gas reserved to produce some units/buildings in the build order that according to it
-     * should be produced right now (judging by the supply used).
+     * Number of gas reserved for not started constructions and for units/buildings in the build order that
+     * according to it should be produced right now, see <b>AResourceLedger</b>.
      */
     public static int getGasReserved() {
-        return gasNeeded;
+        return AResourceLedger.getReservedGas();
     }    
 
 }
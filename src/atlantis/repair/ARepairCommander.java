@@ -7,9 +7,14 @@ import atlantis.information.AMap;
 import atlantis.scout.AScoutManager;
 import atlantis.strategy.AEnemyStrategy;
 import atlantis.units.AUnit;
+import atlantis.units.AUnitRole;
+import atlantis.units.AUnitRoles;
 import atlantis.units.AUnitType;
 import atlantis.units.Select;
 import bwta.Chokepoint;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 /**
  *
@@ -17,12 +22,31 @@ import bwta.Chokepoint;
  */
 public class ARepairCommander {
 
+    /**
+     * Repairers will go this much further (in tiles) for a bunker than for an ordinary unit.
+     */
+    private static final double BUNKER_PRIORITY = 10;
+    
+    /**
+     * Repairers will go this much further (in tiles) for a tank than for an ordinary unit.
+     */
+    private static final double TANK_PRIORITY = 6;
+    
+    /**
+     * Repairers will go this much further (in tiles) for a unit with no HP left than for a healthy one.
+     */
+    private static final double DAMAGE_PRIORITY = 5;
+    
+    /**
+     * How many nearest free workers per open slot are considered as repairers.
+     */
+    private static final int CANDIDATES_PER_SLOT = 3;
+    
+    // =========================================================
+
     public static void update() {
         if (AGame.getTimeFrames() % 15 == 0) {
             assignConstantBunkerRepairersIfNeeded();
-        }
-
-        if (AGame.getTimeFrames() % 15 == 0) {
             assignUnitRepairersToWoundedUnits();
         }
 
@@ -40,88 +64,74 @@ public class ARepairCommander {
     // === Asign repairers if needed =============================
     
     private static void assignUnitRepairersToWoundedUnits() {
+        ARepairManager.unitRepairs.beginDemands();
         
         for (AUnit woundedUnit : Select.our().repairable(true).listUnits()) {
 
             // Some units shouldn't be repaired
             if (AScoutManager.isScout(woundedUnit) || TerranFlyingBuildingManager.isFlyingBuilding(woundedUnit)) {
-//                    || ARepairManager.isConstantBunkerRepairer(woundedUnit)) {
                 continue;
             }
 
-            // =========================================================
-            
-            int numberOfRepairers = ARepairManager.countRepairersForUnit(woundedUnit)
-                    + ARepairManager.countConstantRepairersForBunker(woundedUnit);
-
-            // === Repair bunker ========================================
-            
-            if (woundedUnit.type().isBunker()) {
-                int shouldHaveThisManyRepairers = defineOptimalRepairersForBunker(woundedUnit);
-                assignConstantBunkerRepairers(woundedUnit, shouldHaveThisManyRepairers - numberOfRepairers);
-            } 
-
-            // === Repair ordinary unit =================================
-            else {
-                assignUnitRepairers(woundedUnit, 2 - numberOfRepairers);
+            // Bunker repairers take care of it, don't pull extra repairers for the same bunker
+            if (ARepairManager.bunkerRepairs.isDemanded(woundedUnit)) {
+                continue;
             }
+
+            // Rounded, so that every scratch doesn't make assignment to be solved again
+            double priority = (woundedUnit.type().isTank() ? TANK_PRIORITY : 0) 
+                    + Math.round(DAMAGE_PRIORITY * (100 - woundedUnit.getHPPercent()) / 100);
+            ARepairManager.unitRepairs.demand(woundedUnit, 2, priority);
         }
+        
+        ARepairManager.unitRepairs.solve(new RepairerCandidates(true));
     }
 
     private static void assignConstantBunkerRepairersIfNeeded() {
 
         // If mission is not DEFEND, release all bunker repairers
         if (Missions.getGlobalMission() == null || !Missions.getGlobalMission().isMissionDefend()) {
-            for (AUnit bunkerRepairer : ARepairManager.getConstantBunkerRepairers()) {
-                ARepairManager.removeConstantBunkerRepairer(bunkerRepairer);
+            if (AUnitRoles.count(AUnitRole.BUNKER_REPAIRER) > 0) {
+                for (AUnit bunkerRepairer : ARepairManager.getConstantBunkerRepairers()) {
+                    ARepairManager.removeConstantBunkerRepairer(bunkerRepairer);
+                }
             }
+
+            // No bunker demand, so wounded bunkers get ordinary unit repairers
+            ARepairManager.bunkerRepairs.beginDemands();
+            ARepairManager.bunkerRepairs.solve(new RepairerCandidates(false));
             return;
         }
 
         // =========================================================
+        
+        ARepairManager.bunkerRepairs.beginDemands();
         Select<AUnit> bunkers = Select.ourOfType(AUnitType.Terran_Bunker);
-//        int bunkersCounter = bunkers.count();
-        // Assign two repairers to a bunker if it's not surrounded by many of our combat units
-//        if (bunkersCounter == 1) {
-//        for (AUnit bunker : bunkers.list()) {
+        
+        // Assign repairers to a bunker at the natural if it's not surrounded by many of our combat units
         Chokepoint chokepointForNaturalBase = AMap.getChokepointForNaturalBase();
         if (chokepointForNaturalBase != null) {
             AUnit bunker = bunkers.nearestTo(chokepointForNaturalBase.getCenter());
-            if (bunker == null) {
-                return;
-            }
-                    
-            int numberOfCombatUnitsNearby = Select.ourCombatUnits().inRadius(6, bunker).count();
-            if (numberOfCombatUnitsNearby <= 7) {
-                int numberOfRepairersAssigned = ARepairManager.countConstantRepairersForBunker(bunker);
-                System.out.println(defineOptimalConstantBunkerRepairers());
-                assignConstantBunkerRepairers(
-                        bunker, defineOptimalConstantBunkerRepairers() - numberOfRepairersAssigned
-                );
-            }
-        }
-//        }
-//        }
-    }
-
-    // =========================================================
-    
-    private static void assignConstantBunkerRepairers(AUnit bunker, int numberOfRepairersToAssign) {
-        for (int i = 0; i < numberOfRepairersToAssign; i++) {
-            AUnit worker = defineBestRepairerFor(bunker, false);
-            if (worker != null) {
-                ARepairManager.addConstantBunkerRepairer(worker, bunker);
+            if (bunker != null) {
+                int numberOfCombatUnitsNearby = Select.ourCombatUnits().inRadius(6, bunker).count();
+                if (numberOfCombatUnitsNearby <= 7) {
+                    ARepairManager.bunkerRepairs.demand(
+                            bunker, defineOptimalConstantBunkerRepairers(), BUNKER_PRIORITY
+                    );
+                }
             }
         }
-    }
-
-    private static void assignUnitRepairers(AUnit unitToRepair, int numberOfRepairersToAssign) {
-        for (int i = 0; i < numberOfRepairersToAssign; i++) {
-            AUnit worker = defineBestRepairerFor(unitToRepair, true);
-            if (worker != null) {
-                ARepairManager.addUnitRepairer(worker, unitToRepair);
+        
+        // Every wounded bunker
+        for (AUnit bunker : bunkers.listUnits()) {
+            if (bunker.isCompleted() && bunker.getHPPercent() < 100) {
+                ARepairManager.bunkerRepairs.demand(
+                        bunker, defineOptimalRepairersForBunker(bunker), BUNKER_PRIORITY
+                );
             }
         }
+        
+        ARepairManager.bunkerRepairs.solve(new RepairerCandidates(false));
     }
 
     // =========================================================
@@ -183,12 +193,38 @@ public class ARepairCommander {
         return Math.min(7, (int) Math.ceil(optimalNumber));
     }
 
-    private static AUnit defineBestRepairerFor(AUnit unitToRepair, boolean criticallyImportant) {
-        if (criticallyImportant) {
-            return Select.ourWorkers().notRepairing().notConstructing().nearestTo(unitToRepair);
-        } else {
-            return Select.ourWorkers().notCarrying().notRepairing().notConstructing().nearestTo(unitToRepair);
+    /**
+     * Nearest workers that are free to become repairers. Workers already assigned as repairers of any kind
+     * (also by the other assignment, e.g. to a bunker) are skipped before the nearest ones are taken, so
+     * nobody repairs two things and there are always enough candidates if there are enough workers.
+     */
+    private static class RepairerCandidates implements ASupportAssignment.SupporterCandidates {
+        
+        private final boolean criticallyImportant;
+
+        private RepairerCandidates(boolean criticallyImportant) {
+            this.criticallyImportant = criticallyImportant;
+        }
+
+        @Override
+        public Collection<AUnit> candidatesFor(AUnit target, int openSlots) {
+            Select<AUnit> workers = Select.ourWorkers().notRepairing().notConstructing();
+            if (!criticallyImportant) {
+                workers = workers.notCarrying();
+            }
+            
+            List<AUnit> candidates = new ArrayList<>();
+            for (AUnit worker : workers.sortDataByDistanceTo(target.getPosition(), true)) {
+                if (candidates.size() >= openSlots * CANDIDATES_PER_SLOT) {
+                    break;
+                }
+                if (!ARepairManager.isRepairerOfAnyKind(worker) && !worker.equals(target)) {
+                    candidates.add(worker);
+                }
+            }
+            return candidates;
         }
+        
     }
 
 }
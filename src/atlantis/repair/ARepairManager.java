@@ -1,14 +1,12 @@
 package atlantis.repair;
 
-import atlantis.AGame;
 import atlantis.combat.squad.missions.Missions;
 import atlantis.units.AUnit;
+import atlantis.units.AUnitRole;
+import atlantis.units.AUnitRoles;
 import atlantis.units.Select;
 import atlantis.units.actions.UnitActions;
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  *
@@ -16,13 +14,17 @@ import java.util.Map;
  */
 public class ARepairManager {
     
-    // Bunker repairers
-    protected static Map<AUnit, AUnit> repairersConstantToBunker = new HashMap<>();
-    protected static Map<AUnit, ArrayList<AUnit>> bunkersToRepairers = new HashMap<>();
+    /**
+     * Repairers kept near bunkers, also when the bunker is healthy.
+     */
+    protected static final ASupportAssignment bunkerRepairs
+            = new ASupportAssignment("Bunker repairers", AUnitRole.BUNKER_REPAIRER);
     
-    // Unit repairers
-    protected static Map<AUnit, AUnit> repairersToUnit = new HashMap<>();
-    protected static Map<AUnit, ArrayList<AUnit>> unitsToRepairers = new HashMap<>();
+    /**
+     * Repairers of wounded mechanical units, released once the unit is repaired.
+     */
+    protected static final ASupportAssignment unitRepairs
+            = new ASupportAssignment("Unit repairers", AUnitRole.REPAIRER);
     
     // =========================================================
     
@@ -119,88 +121,55 @@ public class ARepairManager {
     // =========================================================
     
     public static boolean isConstantBunkerRepairer(AUnit repairer) {
-        return repairersConstantToBunker.containsKey(repairer);
+        return AUnitRoles.has(repairer, AUnitRole.BUNKER_REPAIRER);
     }
     
     public static boolean isUnitRepairer(AUnit repairer) {
-        return repairersToUnit.containsKey(repairer);
+        return AUnitRoles.has(repairer, AUnitRole.REPAIRER);
     }
     
     public static AUnit getConstantBunkerToRepairFor(AUnit repairer) {
-        return repairersConstantToBunker.get(repairer);
+        return bunkerRepairs.getTargetOf(repairer);
     }
     
     public static AUnit getUnitToRepairFor(AUnit repairer) {
-        return repairersToUnit.get(repairer);
+        return unitRepairs.getTargetOf(repairer);
     }
 
     public static void removeConstantBunkerRepairer(AUnit repairer) {
-        AUnit bunker = repairersConstantToBunker.get(repairer);
-        if (bunker != null && bunkersToRepairers.containsKey(bunker)) {
-            bunkersToRepairers.get(bunker).remove(repairer);
-
+        if (bunkerRepairs.getTargetOf(repairer) != null) {
             repairer.stop();
             repairer.setTooltip("Stop");
         }
-        repairersConstantToBunker.remove(repairer);
+        bunkerRepairs.release(repairer);
     }
 
     public static void removeUnitRepairer(AUnit repairer) {
-        AUnit unitToRepair = repairersToUnit.get(repairer);
-        if (unitToRepair != null && unitsToRepairers.containsKey(unitToRepair)) {
-            unitsToRepairers.get(unitToRepair).remove(repairer);
-        
+        if (unitRepairs.getTargetOf(repairer) != null) {
             repairer.stop();
             repairer.setTooltip("Stop");
         }
-        repairersToUnit.remove(repairer);
-    }
-    
-    public static void addConstantBunkerRepairer(AUnit repairer, AUnit bunker) {
-        if (!bunker.isBunker()) {
-            System.err.println("Repair: this ain't no bunker dude (" + bunker + ")");
-        }
-        
-        repairersConstantToBunker.put(repairer, bunker);
-        if (!bunkersToRepairers.containsKey(bunker)) {
-            bunkersToRepairers.put(bunker, new ArrayList<>());
-        }
-        bunkersToRepairers.get(bunker).add(repairer);
-        
-        AGame.sendMessage("Repairer for bunker");
-    }
-    
-    public static void addUnitRepairer(AUnit repairer, AUnit unitToRepair) {
-        repairersConstantToBunker.put(repairer, unitToRepair);
-        if (!unitsToRepairers.containsKey(unitToRepair)) {
-            unitsToRepairers.put(unitToRepair, new ArrayList<>());
-        }
-        unitsToRepairers.get(unitToRepair).add(repairer);
-        AGame.sendMessage("Repairer for " + unitToRepair.getShortName());
+        unitRepairs.release(repairer);
     }
 
     public static int countConstantRepairersForBunker(AUnit bunker) {
-        return bunkersToRepairers.containsKey(bunker) ? bunkersToRepairers.get(bunker).size() : 0;
+        return bunkerRepairs.countSupportersOf(bunker);
     }
 
     public static int countRepairersForUnit(AUnit unit) {
-        return unitsToRepairers.containsKey(unit) ? unitsToRepairers.get(unit).size() : 0;
+        return unitRepairs.countSupportersOf(unit);
     }
 
     public static boolean isRepairerOfAnyKind(AUnit worker) {
-        return repairersConstantToBunker.containsKey(worker) || repairersToUnit.containsKey(worker);
+        return AUnitRoles.hasAny(worker, AUnitRole.BUNKER_REPAIRER, AUnitRole.REPAIRER);
     }
 
     public static Collection<AUnit> getConstantBunkerRepairers() {
-        ArrayList<AUnit> result = new ArrayList<>();
-        result.addAll(repairersConstantToBunker.keySet());
-        return result;
+        return bunkerRepairs.getSupporters();
     }
 
     public static Collection<AUnit> getUnitRepairers() {
-        ArrayList<AUnit> result = new ArrayList<>();
-        result.addAll(repairersToUnit.keySet());
-        return result;
+        return unitRepairs.getSupporters();
     }
     
 }
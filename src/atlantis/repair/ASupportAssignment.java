@@ -0,0 +1,366 @@
+package atlantis.repair;
+
+import atlantis.AGame;
+import atlantis.units.AUnit;
+import atlantis.units.AUnitRole;
+import atlantis.units.AUnitRoles;
+import atlantis.util.PositionUtil;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Assigns supporters (SCVs repairing, Medics healing) to targets that need support.
+ * <br /><br />
+ * Every target declares demand: how many supporters it wants and how important it is. Open slots are then
+ * matched with free supporters so that total cost (distance minus priority) is minimal, not greedily one
+ * target after another. Existing assignments are kept as long as they're valid, so supporters don't keep
+ * switching targets, and nothing is solved again unless demand changed, a supporter was released or a unit
+ * died.
+ */
+public class ASupportAssignment {
+
+    /**
+     * Every instance, so unit deaths can be handled in one place.
+     */
+    private static final List<ASupportAssignment> allAssignments = new ArrayList<>();
+
+    /**
+     * Cost of leaving a slot empty. Must be higher than any real cost.
+     */
+    private static final double UNASSIGNED_COST = 1000000;
+
+    /**
+     * When there weren't enough supporters for all slots, nothing changed, but new supporters may have
+     * become free in the meantime. Try again after this many frames.
+     */
+    private static final int RETRY_UNMET_DEMAND_FRAMES = 48;
+
+    // =========================================================
+
+    private final String name;
+
+    /**
+     * Role every supporter has while assigned, or null if supporters don't get a role.
+     */
+    private final AUnitRole role;
+
+    private final Map<AUnit, AUnit> supporterToTarget = new HashMap<>();
+    private final Map<AUnit, Set<AUnit>> targetToSupporters = new HashMap<>();
+
+    /**
+     * Demand declared in the last round: target -> [slots, priority].
+     */
+    private Map<AUnit, double[]> demands = new HashMap<>();
+    private Map<AUnit, double[]> newDemands = null;
+    private boolean isDirty = true;
+    private int unmetDemandFrame = -1;
+
+    // =========================================================
+
+    public ASupportAssignment(String name, AUnitRole role) {
+        this.name = name;
+        this.role = role;
+        allAssignments.add(this);
+    }
+
+    // === Demand ==============================================
+
+    /**
+     * Starts new round of declaring demand. Targets not declared until <b>solve()</b> keep their current
+     * supporters, but won't get any new ones.
+     */
+    public void beginDemands() {
+        newDemands = new HashMap<>();
+    }
+
+    /**
+     * Given target wants <b>slots</b> supporters. The higher <b>priority</b>, the further supporters will
+     * go for it and the sooner it gets them when there's not enough supporters for everyone. One point of
+     * priority is worth one tile of distance.
+     */
+    public void demand(AUnit target, int slots, double priority) {
+        double[] existing = newDemands.get(target);
+        if (existing == null || existing[0] < slots) {
+            newDemands.put(target, new double[]{slots, priority});
+        }
+    }
+
+    /**
+     * Ends the round of declaring demand and assigns free supporters to open slots, if anything changed
+     * since the last time.
+     *
+     * @param candidates free supporters; only evaluated when there's anything to solve
+     */
+    public void solve(SupporterCandidates candidates) {
+        if (newDemands != null) {
+            if (!sameDemands(demands, newDemands)) {
+                isDirty = true;
+            }
+            demands = newDemands;
+            newDemands = null;
+        }
+
+        boolean retryUnmetDemand = unmetDemandFrame >= 0
+                && AGame.getTimeFrames() - unmetDemandFrame >= RETRY_UNMET_DEMAND_FRAMES;
+        if (!isDirty && !retryUnmetDemand) {
+            return;
+        }
+        isDirty = false;
+        unmetDemandFrame = -1;
+
+        // === Define open slots ===================================
+
+        List<AUnit> slots = new ArrayList<>();
+        for (Map.Entry<AUnit, double[]> entry : demands.entrySet()) {
+            int openSlots = (int) entry.getValue()[0] - countSupportersOf(entry.getKey());
+            for (int i = 0; i < openSlots; i++) {
+                slots.add(entry.getKey());
+            }
+        }
+        if (slots.isEmpty()) {
+            return;
+        }
+
+        // === Define free supporters ==============================
+
+        Set<AUnit> freeSupporters = new HashSet<>();
+        for (AUnit target : new HashSet<>(slots)) {
+            int openSlots = (int) demands.get(target)[0] - countSupportersOf(target);
+            for (AUnit supporter : candidates.candidatesFor(target, openSlots)) {
+                if (!supporterToTarget.containsKey(supporter) && !supporter.equals(target)) {
+                    freeSupporters.add(supporter);
+                }
+            }
+        }
+        if (freeSupporters.isEmpty()) {
+            unmetDemandFrame = AGame.getTimeFrames();
+            return;
+        }
+
+        // === Solve ===============================================
+
+        List<AUnit> supporters = new ArrayList<>(freeSupporters);
+        double[][] cost = new double[slots.size()][supporters.size()];
+        for (int i = 0; i < slots.size(); i++) {
+            AUnit target = slots.get(i);
+            double priority = demands.get(target)[1];
+            for (int j = 0; j < supporters.size(); j++) {
+                cost[i][j] = PositionUtil.distanceTo(supporters.get(j), target) - priority;
+            }
+        }
+
+        int[] slotToSupporter = solveMinCostAssignment(cost);
+        for (int i = 0; i < slots.size(); i++) {
+            if (slotToSupporter[i] >= 0) {
+                assign(supporters.get(slotToSupporter[i]), slots.get(i));
+            }
+        }
+
+        // Slots left empty because of lack of supporters
+        if (slots.size() > supporters.size()) {
+            unmetDemandFrame = AGame.getTimeFrames();
+        }
+    }
+
+    // === Assignments =========================================
+
+    /**
+     * Assigns supporter to target outside of solving, e.g. when it's forced by other logic.
+     */
+    public void assign(AUnit supporter, AUnit target) {
+        release(supporter);
+        supporterToTarget.put(supporter, target);
+        Set<AUnit> supporters = targetToSupporters.get(target);
+        if (supporters == null) {
+            supporters = new HashSet<>();
+            targetToSupporters.put(target, supporters);
+        }
+        supporters.add(supporter);
+        if (role != null) {
+            AUnitRoles.assign(supporter, role);
+        }
+    }
+
+    /**
+     * Supporter is no longer assigned to anything.
+     */
+    public void release(AUnit supporter) {
+        AUnit target = supporterToTarget.remove(supporter);
+        if (target != null) {
+            Set<AUnit> supporters = targetToSupporters.get(target);
+            supporters.remove(supporter);
+            if (supporters.isEmpty()) {
+                targetToSupporters.remove(target);
+            }
+            if (role != null) {
+                AUnitRoles.release(supporter, role);
+            }
+            isDirty = true;
+        }
+    }
+
+    /**
+     * Forgets given target, releasing all of its supporters.
+     */
+    public void releaseTarget(AUnit target) {
+        Set<AUnit> supporters = targetToSupporters.remove(target);
+        if (supporters != null) {
+            for (AUnit supporter : supporters) {
+                supporterToTarget.remove(supporter);
+                if (role != null) {
+                    AUnitRoles.release(supporter, role);
+                }
+            }
+        }
+        demands.remove(target);
+        isDirty = true;
+    }
+
+    /**
+     * Returns true if given target was declared in the last round of demand.
+     */
+    public boolean isDemanded(AUnit target) {
+        return demands.containsKey(target);
+    }
+
+    public AUnit getTargetOf(AUnit supporter) {
+        return supporterToTarget.get(supporter);
+    }
+
+    public boolean isSupporter(AUnit unit) {
+        return supporterToTarget.containsKey(unit);
+    }
+
+    public int countSupportersOf(AUnit target) {
+        Set<AUnit> supporters = targetToSupporters.get(target);
+        return supporters != null ? supporters.size() : 0;
+    }
+
+    public Collection<AUnit> getSupporters() {
+        return new ArrayList<>(supporterToTarget.keySet());
+    }
+
+    // === Events ==============================================
+
+    /**
+     * Removes dead unit from every assignment, whether it was a supporter or a target.
+     */
+    public static void onUnitDestroyed(AUnit unit) {
+        for (ASupportAssignment assignment : allAssignments) {
+            assignment.release(unit);
+            if (assignment.targetToSupporters.containsKey(unit) || assignment.demands.containsKey(unit)) {
+                assignment.releaseTarget(unit);
+            }
+        }
+    }
+
+    // =========================================================
+
+    private static boolean sameDemands(Map<AUnit, double[]> a, Map<AUnit, double[]> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (Map.Entry<AUnit, double[]> entry : a.entrySet()) {
+            double[] other = b.get(entry.getKey());
+            if (other == null || other[0] != entry.getValue()[0] || other[1] != entry.getValue()[1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Hungarian algorithm. Returns, for every row, index of the column assigned to it or -1 if the row was
+     * left unassigned (possible only when there are more rows than columns).
+     */
+    private static int[] solveMinCostAssignment(double[][] cost) {
+        int rows = cost.length;
+        int cols = cost[0].length;
+
+        // Algorithm requires rows <= columns; pad with columns meaning "unassigned"
+        int n = rows;
+        int m = Math.max(rows, cols);
+
+        double[] u = new double[n + 1];
+        double[] v = new double[m + 1];
+        int[] p = new int[m + 1];
+        int[] way = new int[m + 1];
+
+        for (int i = 1; i <= n; i++) {
+            p[0] = i;
+            int j0 = 0;
+            double[] minv = new double[m + 1];
+            boolean[] used = new boolean[m + 1];
+            Arrays.fill(minv, Double.MAX_VALUE);
+            do {
+                used[j0] = true;
+                int i0 = p[j0];
+                int j1 = 0;
+                double delta = Double.MAX_VALUE;
+                for (int j = 1; j <= m; j++) {
+                    if (!used[j]) {
+                        double c = (j <= cols ? cost[i0 - 1][j - 1] : UNASSIGNED_COST) - u[i0] - v[j];
+                        if (c < minv[j]) {
+                            minv[j] = c;
+                            way[j] = j0;
+                        }
+                        if (minv[j] < delta) {
+                            delta = minv[j];
+                            j1 = j;
+                        }
+                    }
+                }
+                for (int j = 0; j <= m; j++) {
+                    if (used[j]) {
+                        u[p[j]] += delta;
+                        v[j] -= delta;
+                    }
+                    else {
+                        minv[j] -= delta;
+                    }
+                }
+                j0 = j1;
+            } while (p[j0] != 0);
+            do {
+                int j1 = way[j0];
+                p[j0] = p[j1];
+                j0 = j1;
+            } while (j0 != 0);
+        }
+
+        int[] result = new int[rows];
+        Arrays.fill(result, -1);
+        for (int j = 1; j <= cols; j++) {
+            if (p[j] != 0) {
+                result[p[j] - 1] = j - 1;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + supporterToTarget.size() + " supporters, " + demands.size() + " targets)";
+    }
+
+    // =========================================================
+
+    /**
+     * Provides free supporters for given target, only asked when there's something to solve.
+     */
+    public interface SupporterCandidates {
+
+        /**
+         * Returns supporters that could support given target, e.g. a few nearest idle workers.
+         */
+        Collection<AUnit> candidatesFor(AUnit target, int openSlots);
+
+    }
+
+}
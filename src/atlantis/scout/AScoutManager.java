@@ -11,6 +11,8 @@ import atlantis.position.APosition;
 import atlantis.position.PositionOperationsWrapper;
 import atlantis.position.Positions;
 import atlantis.units.AUnit;
+import atlantis.units.AUnitRole;
+import atlantis.units.AUnitRoles;
 import atlantis.units.AUnitType;
 import atlantis.units.Select;
 import atlantis.units.actions.UnitActions;
@@ -183,6 +185,7 @@ public class AScoutManager {
             AUnit scout = iterator.next();
             if (!scout.isAlive()) {
                 iterator.remove();
+                AUnitRoles.release(scout, AUnitRole.SCOUT);
                 anyScoutBeenKilled = true;
             }
         }
@@ -199,7 +202,7 @@ public class AScoutManager {
                         for (AUnit worker : Select.ourWorkers().list()) {
                             if (!worker.isBuilder()) {
                                 System.err.println(worker.getID());
-                                scouts.add(worker);
+                                addScout(worker);
                                 break;
                             }
                         }
@@ -207,14 +210,28 @@ public class AScoutManager {
                 }
             } // Haven't discovered any enemy building
             else {
-                scouts.clear();
-                scouts.addAll(Select.ourCombatUnits().listUnits());
+                removeAllScouts();
+                for (AUnit unit : Select.ourCombatUnits().listUnits()) {
+                    addScout(unit);
+                }
             }
         } // =========================================================
         // TERRAN + PRTOSSS
         else if (scouts.isEmpty() && Select.ourWorkers().count() >= AtlantisConfig.SCOUT_IS_NTH_WORKER) {
-            scouts.add(Select.ourWorkers().first());
+            addScout(Select.ourWorkers().first());
+        }
+    }
+
+    private static void addScout(AUnit unit) {
+        scouts.add(unit);
+        AUnitRoles.assign(unit, AUnitRole.SCOUT);
+    }
+
+    private static void removeAllScouts() {
+        for (AUnit scout : scouts) {
+            AUnitRoles.release(scout, AUnitRole.SCOUT);
         }
+        scouts.clear();
     }
 
     private static void scoutForTheNextBase(AUnit scout) {
@@ -317,7 +334,7 @@ public class AScoutManager {
      * Returns true if given unit has been assigned to explore the map.
      */
     public static boolean isScout(AUnit unit) {
-        return scouts.contains(unit);
+        return AUnitRoles.has(unit, AUnitRole.SCOUT);
     }
 
     public static boolean hasAnyScoutBeenKilled() {
@@ -1,8 +1,8 @@
 package atlantis.strategy;
 
-import atlantis.AGame;
 import atlantis.units.AUnitType;
-import atlantis.units.Select;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  *
@@ -58,46 +58,37 @@ public class AEnemyProtossStrategy extends AEnemyStrategy {
     
     // =========================================================
     
-    public static AEnemyStrategy detectStrategy() {
-        int seconds = AGame.getTimeSeconds();
-        int gateways = Select.enemy().countUnitsOfType(AUnitType.Protoss_Gateway);
-        int nexus = Select.enemy().countUnitsOfType(AUnitType.Protoss_Nexus);
-        int citadel = Select.enemy().countUnitsOfType(AUnitType.Protoss_Citadel_of_Adun);
+    /**
+     * Decision table used by <b>AEnemyStrategyRecognizer</b>, most specific strategies first.
+     */
+    protected static List<AStrategyRule> rules() {
+        return Arrays.asList(
 
-        // === Dark Templar ========================================
-        
-        if (citadel >= 1 && seconds < 320) {
-            return AEnemyProtossStrategy.PROTOSS_2_Gate_DT;
-        }
+                // === Dark Templar ========================================
 
-        // === Three Gateway =======================================
-        
-        if (gateways >= 3 && seconds < 300) {
-            return AEnemyProtossStrategy.PROTOSS_3_Gate;
-        }
+                new AStrategyRule(PROTOSS_2_Gate_DT)
+                        .seenBefore(AUnitType.Protoss_Citadel_of_Adun, 320),
 
-        // === Two Gateway =========================================
-        
-        if (gateways == 2 && seconds < 290) {
-            return AEnemyProtossStrategy.PROTOSS_2_Gate;
-        }
+                // === Three Gateway =======================================
 
-        // === 12 Nexus ============================================
-        
-        if (nexus == 2 && seconds < 290) {
-            return AEnemyProtossStrategy.PROTOSS_12_Nexus;
-        }
-        
-        // === Carrier Push ========================================
-        
-        int cannons = Select.enemy().countUnitsOfType(AUnitType.Protoss_Photon_Cannon);
-        if (cannons >= 1 && nexus >= 2) {
-            return PROTOSS_Carrier_Push;
-        }
-        
-        // =========================================================
-        
-        return null;
+                new AStrategyRule(PROTOSS_3_Gate)
+                        .atLeast(3, AUnitType.Protoss_Gateway).before(300),
+
+                // === Two Gateway =========================================
+
+                new AStrategyRule(PROTOSS_2_Gate)
+                        .exactly(2, AUnitType.Protoss_Gateway).before(290),
+
+                // === 12 Nexus ============================================
+
+                new AStrategyRule(PROTOSS_12_Nexus)
+                        .exactly(2, AUnitType.Protoss_Nexus).before(290),
+
+                // === Carrier Push ========================================
+
+                new AStrategyRule(PROTOSS_Carrier_Push)
+                        .atLeast(1, AUnitType.Protoss_Photon_Cannon).atLeast(2, AUnitType.Protoss_Nexus)
+        );
     }
-    
+
 }
@@ -0,0 +1,81 @@
+package atlantis.strategy;
+
+import atlantis.AGame;
+import atlantis.enemy.AEnemyUnits;
+import java.util.List;
+
+/**
+ * Recognizes enemy strategy with the decision table of enemy race (see <b>rules()</b> in race strategy
+ * classes): the first rule whose conditions are met wins.
+ * <br /><br />
+ * The table is evaluated again only when counts of known enemy units changed or the game time passed the end
+ * of any rule's time window, and a verdict is reported only when it's different from the previous one.
+ */
+public class AEnemyStrategyRecognizer {
+
+    private static List<AStrategyRule> rules = null;
+
+    private static AEnemyStrategy lastVerdict = null;
+    private static int lastKnownUnitsVersion = -1;
+    private static int nextTimeWindowEnd = -1;
+
+    // =========================================================
+
+    /**
+     * Returns newly recognized enemy strategy if it's different than the last one, null otherwise.
+     */
+    public static AEnemyStrategy update() {
+        if (rules == null) {
+            rules = defineRulesForEnemyRace();
+            if (rules == null) {
+                return null;
+            }
+        }
+
+        int seconds = AGame.getTimeSeconds();
+        int knownUnitsVersion = AEnemyUnits.getKnownUnitsVersion();
+        if (knownUnitsVersion == lastKnownUnitsVersion && (nextTimeWindowEnd < 0 || seconds < nextTimeWindowEnd)) {
+            return null;
+        }
+        lastKnownUnitsVersion = knownUnitsVersion;
+        nextTimeWindowEnd = -1;
+
+        AEnemyStrategy verdict = null;
+        for (AStrategyRule rule : rules) {
+            int windowEnd = rule.getBeforeSeconds();
+            if (windowEnd > seconds && windowEnd != Integer.MAX_VALUE
+                    && (nextTimeWindowEnd < 0 || windowEnd < nextTimeWindowEnd)) {
+                nextTimeWindowEnd = windowEnd;
+            }
+
+            if (verdict == null && rule.matches(seconds)) {
+                verdict = rule.getStrategy();
+            }
+        }
+
+        if (verdict == null || verdict == lastVerdict) {
+            return null;
+        }
+        lastVerdict = verdict;
+        return verdict;
+    }
+
+    // =========================================================
+
+    /**
+     * Returns decision table for the race of the enemy, or null if we don't know it yet (enemy is Random).
+     */
+    private static List<AStrategyRule> defineRulesForEnemyRace() {
+        if (AGame.isEnemyProtoss()) {
+            return AEnemyProtossStrategy.rules();
+        }
+        else if (AGame.isEnemyTerran()) {
+            return AEnemyTerranStrategy.rules();
+        }
+        else if (AGame.isEnemyZerg()) {
+            return AEnemyZergStrategy.rules();
+        }
+        return null;
+    }
+
+}
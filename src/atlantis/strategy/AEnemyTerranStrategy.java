@@ -1,8 +1,8 @@
 package atlantis.strategy;
 
-import atlantis.AGame;
 import atlantis.units.AUnitType;
-import atlantis.units.Select;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  *
@@ -57,40 +57,31 @@ public class AEnemyTerranStrategy extends AEnemyStrategy {
     
     // =========================================================
     
-    public static AEnemyStrategy detectStrategy() {
-        int seconds = AGame.getTimeSeconds();
-        int barracks = Select.enemy().countUnitsOfType(AUnitType.Terran_Barracks);
-        int bases = Select.enemy().countUnitsOfType(AUnitType.Terran_Command_Center);
-        int factories = Select.enemy().countUnitsOfType(AUnitType.Terran_Factory);
-        int bunkers = Select.enemy().countUnitsOfType(AUnitType.Terran_Bunker);
-        int marines = Select.enemy().countUnitsOfType(AUnitType.Terran_Marine);
-        int medics = Select.enemy().countUnitsOfType(AUnitType.Terran_Medic);
-        
-        // === Cheese ==============================================
-        
-        if (barracks >= 3 && seconds < 350) {
-            return AEnemyTerranStrategy.TERRAN_3_Rax_MnM;
-        }
-        
-        if (barracks >= 2 && seconds < 200) {
-            return AEnemyTerranStrategy.TERRAN_BBS;
-        }
+    /**
+     * Decision table used by <b>AEnemyStrategyRecognizer</b>, most specific strategies first.
+     */
+    protected static List<AStrategyRule> rules() {
+        return Arrays.asList(
 
-        // === Expansion ===========================================
-        
-        if (bases >= 2 && factories >= 1 && seconds < 300) {
-            return AEnemyTerranStrategy.TERRAN_1_Rax_FE;
-        }
+                // === Cheese ==============================================
 
-        // === Rush ================================================
-        
-        if (barracks >= 2 && seconds < 350) {
-            return AEnemyTerranStrategy.TERRAN_2_Rax_MnM;
-        }
-        
-        // =========================================================
-        
-        return null;
+                new AStrategyRule(TERRAN_3_Rax_MnM)
+                        .atLeast(3, AUnitType.Terran_Barracks).before(350),
+
+                new AStrategyRule(TERRAN_BBS)
+                        .atLeast(2, AUnitType.Terran_Barracks).before(200),
+
+                // === Expansion ===========================================
+
+                new AStrategyRule(TERRAN_1_Rax_FE)
+                        .atLeast(2, AUnitType.Terran_Command_Center).atLeast(1, AUnitType.Terran_Factory)
+                        .before(300),
+
+                // === Rush ================================================
+
+                new AStrategyRule(TERRAN_2_Rax_MnM)
+                        .atLeast(2, AUnitType.Terran_Barracks).before(350)
+        );
     }
-    
+
 }
@@ -1,8 +1,8 @@
 package atlantis.strategy;
 
-import atlantis.AGame;
 import atlantis.units.AUnitType;
-import atlantis.units.Select;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  *
@@ -72,60 +72,51 @@ public class AEnemyZergStrategy extends AEnemyStrategy {
         
     }
     
-    public static AEnemyStrategy detectStrategy() {
-        int seconds = AGame.getTimeSeconds();
-        int bases = Select.enemy().bases().count();
-        int lair = Select.enemy().countUnitsOfType(AUnitType.Zerg_Lair);
-        int pool = Select.enemy().countUnitsOfType(AUnitType.Zerg_Spawning_Pool);
-        int extractor = Select.enemy().countUnitsOfType(AUnitType.Zerg_Extractor);
-        int spires = Select.enemy().countUnitsOfType(AUnitType.Zerg_Spire);
-        int hydraliskDen = Select.enemy().countUnitsOfType(AUnitType.Zerg_Hydralisk_Den);
-        int drones = Select.enemy().countUnitsOfType(AUnitType.Zerg_Drone);
-        int lings = Select.enemy().countUnitsOfType(AUnitType.Zerg_Zergling);
-        
-        // === Expansion ===========================================
-        
-        if (pool == 0 && bases >= 3 && seconds <= 350) {
-            return ZERG_3_Hatch_Before_Pool;
-        }
-        
-        // === Tech ================================================
-        
-        if (extractor >= 1 && hydraliskDen == 0 && bases >= 2 && drones >= 12 || spires >= 1) {
-            return ZERG_13_Pool_Muta;
-        }
-        
-        if (extractor >= 1 && pool >= 1 && lair >= 1 && bases < 2) {
-            return ZERG_1_Hatch_Lurker;
-        }
-        
-        if (extractor >= 1 && pool >= 1 && lair >= 1 && bases >= 2) {
-            return ZERG_2_Hatch_Lurker;
-        }
-        
-        // === Cheese ==============================================
-        
-        if (pool == 1 && drones <= 4 && seconds < 120) {
-            return AEnemyZergStrategy.ZERG_4_Pool;
-        }
-        
-        if (pool == 1 && drones <= 5 && seconds < 140) {
-            return AEnemyZergStrategy.ZERG_5_Pool;
-        }
-        
-        if (pool == 1 && drones <= 6 && seconds < 160) {
-            return AEnemyZergStrategy.ZERG_6_Pool;
-        }
-        
-        // === Rushes ==============================================
-        
-        if (pool == 1 && drones <= 10 && seconds < 220) {
-            return AEnemyZergStrategy.ZERG_9_Pool;
-        }
-        
-        // =========================================================
-        
-        return null;
+    /**
+     * Decision table used by <b>AEnemyStrategyRecognizer</b>, most specific strategies first.
+     */
+    protected static List<AStrategyRule> rules() {
+        AUnitType[] bases = {AUnitType.Zerg_Hatchery, AUnitType.Zerg_Lair, AUnitType.Zerg_Hive};
+
+        return Arrays.asList(
+
+                // === Expansion ===========================================
+
+                new AStrategyRule(ZERG_3_Hatch_Before_Pool)
+                        .exactly(0, AUnitType.Zerg_Spawning_Pool).atLeast(3, bases).before(351),
+
+                // === Tech ================================================
+
+                new AStrategyRule(ZERG_13_Pool_Muta)
+                        .atLeast(1, AUnitType.Zerg_Extractor).exactly(0, AUnitType.Zerg_Hydralisk_Den)
+                        .atLeast(2, bases).atLeast(12, AUnitType.Zerg_Drone),
+                new AStrategyRule(ZERG_13_Pool_Muta)
+                        .atLeast(1, AUnitType.Zerg_Spire),
+
+                new AStrategyRule(ZERG_1_Hatch_Lurker)
+                        .atLeast(1, AUnitType.Zerg_Extractor).atLeast(1, AUnitType.Zerg_Spawning_Pool)
+                        .atLeast(1, AUnitType.Zerg_Lair).atMost(1, bases),
+
+                new AStrategyRule(ZERG_2_Hatch_Lurker)
+                        .atLeast(1, AUnitType.Zerg_Extractor).atLeast(1, AUnitType.Zerg_Spawning_Pool)
+                        .atLeast(1, AUnitType.Zerg_Lair).atLeast(2, bases),
+
+                // === Cheese ==============================================
+
+                new AStrategyRule(ZERG_4_Pool)
+                        .exactly(1, AUnitType.Zerg_Spawning_Pool).atMost(4, AUnitType.Zerg_Drone).before(120),
+
+                new AStrategyRule(ZERG_5_Pool)
+                        .exactly(1, AUnitType.Zerg_Spawning_Pool).atMost(5, AUnitType.Zerg_Drone).before(140),
+
+                new AStrategyRule(ZERG_6_Pool)
+                        .exactly(1, AUnitType.Zerg_Spawning_Pool).atMost(6, AUnitType.Zerg_Drone).before(160),
+
+                // === Rushes ==============================================
+
+                new AStrategyRule(ZERG_9_Pool)
+                        .exactly(1, AUnitType.Zerg_Spawning_Pool).atMost(10, AUnitType.Zerg_Drone).before(220)
+        );
     }
-    
+
 }
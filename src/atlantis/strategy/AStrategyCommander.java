@@ -16,16 +16,11 @@ public class AStrategyCommander {
             autoInitialize();
         }
         
-        // If we don't know enemy strategy, try to define it based on enemy buildings/units we know
-        if (AGame.getTimeSeconds() < 500 && AGame.getTimeFrames() % 12 == 0) {
-            if (AGame.isEnemyProtoss()) {
-                defineEnemyStrategyWhenEnemyIsProtoss();
-            }
-            else if (AGame.isEnemyTerran()) {
-                defineEnemyStrategyWhenEnemyIsTerran();
-            }
-            else if (AGame.isEnemyZerg()) {
-                defineEnemyStrategyWhenEnemyIsZerg();
+        // Recognize enemy strategy based on enemy buildings/units we know; reported only when it changes
+        if (AGame.getTimeSeconds() < 500) {
+            AEnemyStrategy recognizedStrategy = AEnemyStrategyRecognizer.update();
+            if (recognizedStrategy != null) {
+                changeEnemyStrategyTo(recognizedStrategy);
             }
         }
 
@@ -47,29 +42,6 @@ public class AStrategyCommander {
     
     // =========================================================
 
-    private static void defineEnemyStrategyWhenEnemyIsProtoss() {
-        AEnemyStrategy detectedStrategy = AEnemyProtossStrategy.detectStrategy();
-        if (detectedStrategy != null) {
-            changeEnemyStrategyTo(detectedStrategy);
-        }
-    }
-
-    private static void defineEnemyStrategyWhenEnemyIsTerran() {
-        AEnemyStrategy detectedStrategy = AEnemyTerranStrategy.detectStrategy();
-        if (detectedStrategy != null) {
-            changeEnemyStrategyTo(detectedStrategy);
-        }
-    }
-
-    private static void defineEnemyStrategyWhenEnemyIsZerg() {
-        AEnemyStrategy detectedStrategy = AEnemyZergStrategy.detectStrategy();
-        if (detectedStrategy != null) {
-            changeEnemyStrategyTo(detectedStrategy);
-        }
-    }
-    
-    // =========================================================
-
     private static void changeEnemyStrategyTo(AEnemyStrategy strategy) {
         if (!AEnemyStrategy.isEnemyStrategyKnown()) {
             AGame.sendMessage("Enemy strategy: " + strategy);
@@ -20,6 +20,19 @@ public class AStrategyResponse {
         if (defBuildingAntiLand < AStrategyInformations.needDefBuildingAntiLand) {
             ARequests.getInstance().requestDefBuildingAntiLand(null);
         }
+
+        // Quick requests add one step of a multi-building chain per call, so keep repeating them
+        if (AEnemyStrategy.isEnemyStrategyKnown()) {
+            AEnemyStrategy enemyStrategy = AEnemyStrategy.getEnemyStrategy();
+
+            if (enemyStrategy.isGoingHiddenUnits() && AGame.getTimeFrames() % 19 == 0) {
+                ARequests.getInstance().requestDetectorQuick(null);
+            }
+
+            if (enemyStrategy.isGoingAirUnitsQuickly() && AGame.getTimeFrames() % 28 == 0) {
+                ARequests.getInstance().requestAntiAirQuick(null);
+            }
+        }
     }
     
     // =========================================================
@@ -36,15 +49,11 @@ public class AStrategyResponse {
         // === Tech ========================================
         
         if (enemyStrategy.isGoingHiddenUnits()) {
-            if (AGame.getTimeFrames() % 19 == 0) {
-                ARequests.getInstance().requestDetectorQuick(null);
-            }
+            ARequests.getInstance().requestDetectorQuick(null);
         }
         
         if (enemyStrategy.isGoingAirUnitsQuickly()) {
-            if (AGame.getTimeFrames() % 28 == 0) {
-                ARequests.getInstance().requestAntiAirQuick(null);
-            }
+            ARequests.getInstance().requestAntiAirQuick(null);
         }
     }
     
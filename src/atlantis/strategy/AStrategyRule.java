@@ -0,0 +1,120 @@
+package atlantis.strategy;
+
+import atlantis.enemy.AEnemyUnits;
+import atlantis.units.AUnitType;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Single row of the enemy strategy decision table: the strategy and the conditions that all have to be met to
+ * recognize it.
+ * <br /><br />
+ * Conditions are limits on number of known enemy units (of one or more types together), game time windows and
+ * times when given type was seen for the first time. All of them are checked against counters from
+ * <b>AEnemyUnits</b>, so units that went back into the fog still count.
+ */
+public class AStrategyRule {
+
+    private final AEnemyStrategy strategy;
+
+    private final List<AUnitType[]> countedTypes = new ArrayList<>();
+    private final List<int[]> countLimits = new ArrayList<>();
+    private final List<AUnitType> seenTypes = new ArrayList<>();
+    private final List<Integer> seenBeforeSeconds = new ArrayList<>();
+    private int beforeSeconds = Integer.MAX_VALUE;
+
+    // =========================================================
+
+    public AStrategyRule(AEnemyStrategy strategy) {
+        this.strategy = strategy;
+    }
+
+    // === Conditions ==========================================
+
+    /**
+     * Enemy has at least <b>min</b> units of given types, all types counted together.
+     */
+    public AStrategyRule atLeast(int min, AUnitType... types) {
+        return count(min, Integer.MAX_VALUE, types);
+    }
+
+    /**
+     * Enemy has at most <b>max</b> units of given types, all types counted together.
+     */
+    public AStrategyRule atMost(int max, AUnitType... types) {
+        return count(0, max, types);
+    }
+
+    /**
+     * Enemy has exactly <b>count</b> units of given types, all types counted together.
+     */
+    public AStrategyRule exactly(int count, AUnitType... types) {
+        return count(count, count, types);
+    }
+
+    /**
+     * Game time is less than given number of seconds.
+     */
+    public AStrategyRule before(int seconds) {
+        beforeSeconds = Math.min(beforeSeconds, seconds);
+        return this;
+    }
+
+    /**
+     * Unit of given type has been seen for the first time before given number of seconds of game time.
+     */
+    public AStrategyRule seenBefore(AUnitType type, int seconds) {
+        seenTypes.add(type);
+        seenBeforeSeconds.add(seconds);
+        return this;
+    }
+
+    private AStrategyRule count(int min, int max, AUnitType... types) {
+        countedTypes.add(types);
+        countLimits.add(new int[]{min, max});
+        return this;
+    }
+
+    // =========================================================
+
+    /**
+     * Returns true if all conditions are met at given game time.
+     */
+    public boolean matches(int seconds) {
+        if (seconds >= beforeSeconds) {
+            return false;
+        }
+
+        for (int i = 0; i < countedTypes.size(); i++) {
+            int total = 0;
+            for (AUnitType type : countedTypes.get(i)) {
+                total += AEnemyUnits.countEnemyKnownUnitsOfType(type);
+            }
+            int[] limits = countLimits.get(i);
+            if (total < limits[0] || total > limits[1]) {
+                return false;
+            }
+        }
+
+        for (int i = 0; i < seenTypes.size(); i++) {
+            int firstSeenFrame = AEnemyUnits.getFirstSeenFrame(seenTypes.get(i));
+            if (firstSeenFrame < 0 || firstSeenFrame / 30 >= seenBeforeSeconds.get(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Game time (in seconds) from which this rule can't match anymore, or <b>Integer.MAX_VALUE</b>.
+     */
+    public int getBeforeSeconds() {
+        return beforeSeconds;
+    }
+
+    public AEnemyStrategy getStrategy() {
+        return strategy;
+    }
+
+}
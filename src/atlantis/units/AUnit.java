@@ -9,10 +9,11 @@ import atlantis.enemy.AEnemyUnits;
 import atlantis.information.AOurUnitsExtraInfo;
 import atlantis.position.APosition;
 import atlantis.position.APositionedObject;
+import atlantis.position.PackedPosition;
 import atlantis.repair.ARepairManager;
 import atlantis.units.actions.UnitAction;
 import atlantis.units.actions.UnitActions;
-import atlantis.wrappers.ACachedValue;
+import atlantis.util.PositionUtil;
 import bwapi.Player;
 import bwapi.Position;
 import bwapi.Unit;
@@ -37,9 +38,6 @@ public class AUnit extends APositionedObject implements Comparable, AUnitOrders
     // Mapping of native unit IDs to AUnit objects
     private static final Map<Integer, AUnit> instances = new HashMap<>();
     
-    // Cached distances to other units - reduces time on calculating unit1.distanceTo(unit2)
-    public static final ACachedValue<Double> unitDistancesCached = new ACachedValue<>();
-
     private Unit u;
     private AUnitType _lastCachedType;
 
@@ -120,6 +118,14 @@ public class AUnit extends APositionedObject implements Comparable, AUnitOrders
         return APosition.create(u.getPosition());
     }
 
+    /**
+     * Returns current position packed into single int, see <b>PackedPosition</b>. Prefer it in hot paths
+     * as it doesn't create any objects.
+     */
+    public int getPackedPosition() {
+        return PackedPosition.pack(u.getX(), u.getY());
+    }
+
     /**
      * <b>AVOID USAGE AS MUCH AS POSSIBLE</b> outside AUnit class. AUnit class should be used always in place
      * of Unit.
@@ -191,6 +197,34 @@ public class AUnit extends APositionedObject implements Comparable, AUnitOrders
         }
     }
     
+    /**
+     * Returns edge-to-edge distance in tiles (1 tile = 32 pixels) to the other unit.
+     */
+    public double distanceTo(AUnit otherUnit) {
+        return PositionUtil.distanceTo(this, otherUnit);
+    }
+
+    /**
+     * Returns distance in tiles (1 tile = 32 pixels) from the edge of this unit to the position.
+     */
+    public double distanceTo(Position position) {
+        return PositionUtil.distanceTo(this, position);
+    }
+    
+    /**
+     * Returns true if the other unit is at most <b>maxDistTiles</b> away. Cheaper than distanceTo().
+     */
+    public boolean isInRadius(AUnit otherUnit, double maxDistTiles) {
+        return PositionUtil.isInRadius(this, otherUnit, maxDistTiles);
+    }
+    
+    /**
+     * Returns true if the position is at most <b>maxDistTiles</b> away. Cheaper than distanceTo().
+     */
+    public boolean isInRadius(Position position, double maxDistTiles) {
+        return PositionUtil.isInRadius(this, position, maxDistTiles);
+    }
+    
     /**
      * Returns true if any close enemy can either shoot or hit this unit.
      */
@@ -563,9 +597,13 @@ public class AUnit extends APositionedObject implements Comparable, AUnitOrders
             return false;
         }
         
-        double dist = this.distanceTo(targetUnit);
-        return (dist - safetyMargin) <= (weaponAgainstThisUnit.maxRange() / 32)
-                && (dist + 0.02) >= (weaponAgainstThisUnit.minRange() / 32);
+        int distSquared = PositionUtil.distanceSquaredPx(this, targetUnit);
+        if (distSquared > PositionUtil.radiusSquaredPx(weaponAgainstThisUnit.maxRange() / 32 + safetyMargin)) {
+            return false;
+        }
+        
+        int minRangeTiles = weaponAgainstThisUnit.minRange() / 32;
+        return minRangeTiles == 0 || distSquared >= PositionUtil.radiusSquaredPx(minRangeTiles - 0.02);
     }
 
     /**
@@ -913,6 +951,10 @@ public class AUnit extends APositionedObject implements Comparable, AUnitOrders
         return u.isMorphing();
     }
 
+    public int getRemainingBuildTime() {
+        return u.getRemainingBuildTime();
+    }
+
     public boolean isMoving() {
         return u.isMoving();
     }
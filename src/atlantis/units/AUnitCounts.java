@@ -0,0 +1,418 @@
+package atlantis.units;
+
+import atlantis.AGame;
+import atlantis.enemy.AEnemyUnits;
+import atlantis.information.AFoggedUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Number of units of every type of one player, as int arrays indexed by <b>AUnitType.getID()</b>: finished
+ * units and units in progress (being built, trained or morphed) are counted separately.
+ * <br /><br />
+ * Counts are kept up to date by unit events (create, complete, morph, discover, destroy), so counting units
+ * of a type is an array read instead of selecting all units. Our eggs are counted as the unit they will hatch
+ * into. Enemy counts are what we remember: every discovered enemy unit not known to be destroyed, no matter
+ * if it's visible now. Spider Mines aren't counted.
+ * <br /><br />
+ * When <b>VALIDATE</b> is true, counts are periodically compared against a full scan of units; differences
+ * are reported and fixed.
+ */
+public class AUnitCounts {
+
+    /**
+     * If true, counts are compared against a full scan every <b>VALIDATE_EVERY_FRAMES</b> frames.
+     */
+    public static boolean VALIDATE = false;
+
+    private static final int VALIDATE_EVERY_FRAMES = 120;
+
+    /**
+     * Marks units not counted as any type; type IDs are never negative.
+     */
+    private static final int NOT_COUNTED = -1;
+
+    private static final AUnitCounts our = new AUnitCounts(true);
+    private static final AUnitCounts enemy = new AUnitCounts(false);
+
+    private static int lastValidationFrame = 0;
+
+    // =========================================================
+
+    private final boolean isOur;
+
+    /**
+     * Number of units per type ID: finished ones and the ones in progress.
+     */
+    private int[] completedCounts = new int[256];
+    private int[] inProgressCounts = new int[256];
+
+    /**
+     * Frame in which unit of given type was counted for the first time (-1 if never), per type ID.
+     */
+    private int[] firstSeenFrames = newFilledArray(256, -1);
+
+    /**
+     * Type ID each unit is counted as (<b>NOT_COUNTED</b> if not counted), whether it's counted as finished and
+     * when it's expected to be finished, per unit ID.
+     */
+    private int[] countedType = newFilledArray(1024, NOT_COUNTED);
+    private boolean[] countedCompleted = new boolean[1024];
+    private int[] expectedCompletedFrame = new int[1024];
+
+    /**
+     * Units counted as in progress, checked every frame until they're finished.
+     */
+    private final Set<AUnit> unfinishedUnits = new LinkedHashSet<>();
+
+    private int version = 0;
+
+    // =========================================================
+
+    private AUnitCounts(boolean isOur) {
+        this.isOur = isOur;
+    }
+
+    /**
+     * Counts of our units.
+     */
+    public static AUnitCounts our() {
+        return our;
+    }
+
+    /**
+     * Counts of enemy units we know about.
+     */
+    public static AUnitCounts enemy() {
+        return enemy;
+    }
+
+    // =========================================================
+    // Counts
+
+    public int countCompleted(AUnitType type) {
+        int typeId = type.getID();
+        return typeId < completedCounts.length ? completedCounts[typeId] : 0;
+    }
+
+    /**
+     * Returns number of finished units of all given types.
+     */
+    public int countCompleted(AUnitType... types) {
+        int total = 0;
+        for (AUnitType type : types) {
+            total += countCompleted(type);
+        }
+        return total;
+    }
+
+    public int countInProgress(AUnitType type) {
+        int typeId = type.getID();
+        return typeId < inProgressCounts.length ? inProgressCounts[typeId] : 0;
+    }
+
+    /**
+     * Returns number of finished and unfinished units of given type.
+     */
+    public int countAll(AUnitType type) {
+        return countCompleted(type) + countInProgress(type);
+    }
+
+    /**
+     * Returns number of finished and unfinished units of all given types.
+     */
+    public int countAll(AUnitType... types) {
+        int total = 0;
+        for (AUnitType type : types) {
+            total += countAll(type);
+        }
+        return total;
+    }
+
+    public boolean hasCompleted(AUnitType type) {
+        return countCompleted(type) > 0;
+    }
+
+    /**
+     * Returns frame in which unit of given type was counted for the first time or -1 if it never was.
+     */
+    public int getFirstSeenFrame(AUnitType type) {
+        int typeId = type.getID();
+        return typeId < firstSeenFrames.length ? firstSeenFrames[typeId] : -1;
+    }
+
+    /**
+     * Returns the earliest frame in which unfinished unit of given type is expected to be finished, or -1 if
+     * there's no such unit.
+     */
+    public int getEarliestCompletedFrame(AUnitType type) {
+        int typeId = type.getID();
+        int earliest = -1;
+        for (AUnit unit : unfinishedUnits) {
+            int unitId = unit.getID();
+            if (countedType[unitId] == typeId && (earliest < 0 || expectedCompletedFrame[unitId] < earliest)) {
+                earliest = expectedCompletedFrame[unitId];
+            }
+        }
+        return earliest;
+    }
+
+    /**
+     * Number that changes every time any count changes, so anything derived from the counts needs to be
+     * recalculated only when it's different.
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    // =========================================================
+    // Events
+
+    /**
+     * Counts units we have at the start of the game.
+     */
+    public static void initialize() {
+        for (AUnit unit : Select.ourIncludingUnfinished().listUnits()) {
+            our.refresh(unit);
+        }
+    }
+
+    /**
+     * Unit was created, finished, discovered, morphed or changed owner. Counts it again with its current type
+     * and state (or stops counting it, if it isn't this player's unit anymore).
+     */
+    public void refresh(AUnit unit) {
+        int unitId = unit.getID();
+        ensureUnitCapacity(unitId);
+        uncount(unitId);
+
+        if (!isCounted(unit)) {
+            return;
+        }
+
+        AUnitType type = countedTypeOf(unit);
+        boolean completed = unit.isCompleted() && !unit.isMorphing();
+        count(unitId, type.getID(), completed);
+        if (!completed) {
+            int remaining = unit.getRemainingBuildTime();
+            expectedCompletedFrame[unitId] = AGame.getTimeFrames()
+                    + (remaining > 0 ? remaining : type.ut().buildTime());
+            unfinishedUnits.add(unit);
+        }
+    }
+
+    /**
+     * Unit was destroyed (or is forgotten); stops counting it.
+     */
+    public void remove(AUnit unit) {
+        int unitId = unit.getID();
+        ensureUnitCapacity(unitId);
+        uncount(unitId);
+        unfinishedUnits.remove(unit);
+    }
+
+    /**
+     * Any unit was destroyed.
+     */
+    public static void onUnitDestroyed(AUnit unit) {
+        our.remove(unit);
+        enemy.remove(unit);
+    }
+
+    /**
+     * Counts units which got finished and, if enabled, validates counts. Called every frame.
+     */
+    public static void update() {
+        our.updateUnfinishedUnits();
+        enemy.updateUnfinishedUnits();
+
+        if (VALIDATE && AGame.getTimeFrames() - lastValidationFrame >= VALIDATE_EVERY_FRAMES) {
+            lastValidationFrame = AGame.getTimeFrames();
+            our.validate(Select.ourIncludingUnfinished().listUnits(), null);
+
+            List<AUnit> enemyUnits = new ArrayList<>();
+            List<AUnitType> enemyTypes = new ArrayList<>();
+            for (AFoggedUnit foggedUnit : AEnemyUnits.getEnemyDiscoveredAndAliveUnits()) {
+                enemyUnits.add(foggedUnit.getUnit());
+                enemyTypes.add(foggedUnit.getType());
+            }
+            enemy.validate(enemyUnits, enemyTypes);
+        }
+    }
+
+    // =========================================================
+
+    /**
+     * Unfinished units are polled, because completion of enemy units (and of morphing ones) isn't reported by
+     * any event. Enemy units are only checked while we can see them.
+     */
+    private void updateUnfinishedUnits() {
+        List<AUnit> finishedUnits = new ArrayList<>();
+        for (Iterator<AUnit> iterator = unfinishedUnits.iterator(); iterator.hasNext(); ) {
+            AUnit unit = iterator.next();
+            if (countedType[unit.getID()] == NOT_COUNTED || countedCompleted[unit.getID()]) {
+                iterator.remove();
+            }
+            else if ((isOur || unit.isVisible()) && unit.isCompleted() && !unit.isMorphing()) {
+                iterator.remove();
+                finishedUnits.add(unit);
+            }
+        }
+
+        // Refreshed only after iterating, as refreshing may modify the set
+        for (AUnit unit : finishedUnits) {
+            refresh(unit);
+        }
+    }
+
+    /**
+     * Compares counts with given units (and their types, if they can't be read from the units themselves).
+     * Any difference is reported and counts are rebuilt from these units.
+     */
+    private void validate(List<AUnit> units, List<AUnitType> types) {
+        int[] scannedCounts = new int[completedCounts.length];
+        for (int i = 0; i < units.size(); i++) {
+            AUnitType type = types != null ? types.get(i) : countedTypeOf(units.get(i));
+            if (type != null && !type.equals(AUnitType.Terran_Vulture_Spider_Mine)) {
+                ensureTypeCapacity(type.getID());
+                if (type.getID() >= scannedCounts.length) {
+                    scannedCounts = Arrays.copyOf(scannedCounts, completedCounts.length);
+                }
+                scannedCounts[type.getID()]++;
+            }
+        }
+
+        boolean isValid = true;
+        for (AUnitType type : AUnitType.getAllUnitTypes()) {
+            int typeId = type.getID();
+            int scanned = typeId < scannedCounts.length ? scannedCounts[typeId] : 0;
+            if (scanned != countAll(type)) {
+                System.err.println("AUnitCounts (" + (isOur ? "our" : "enemy") + "): " + type
+                        + " counted " + countAll(type) + ", but there's " + scanned);
+                isValid = false;
+            }
+        }
+
+        if (!isValid) {
+            resync(units, types);
+        }
+    }
+
+    /**
+     * Counts all given units from scratch. State of enemy units we can't see is taken from previous counts.
+     */
+    private void resync(List<AUnit> units, List<AUnitType> types) {
+        boolean[] wasCompleted = countedCompleted.clone();
+        Arrays.fill(completedCounts, 0);
+        Arrays.fill(inProgressCounts, 0);
+        Arrays.fill(countedType, NOT_COUNTED);
+        Arrays.fill(countedCompleted, false);
+        unfinishedUnits.clear();
+
+        for (int i = 0; i < units.size(); i++) {
+            AUnit unit = units.get(i);
+            if (isOur || unit.isVisible()) {
+                refresh(unit);
+            }
+            else if (types.get(i) != null && !types.get(i).equals(AUnitType.Terran_Vulture_Spider_Mine)) {
+                int unitId = unit.getID();
+                ensureUnitCapacity(unitId);
+                count(unitId, types.get(i).getID(), unitId < wasCompleted.length && wasCompleted[unitId]);
+                if (!countedCompleted[unitId]) {
+                    unfinishedUnits.add(unit);
+                }
+            }
+        }
+        version++;
+    }
+
+    /**
+     * Enemy units are counted whenever <b>AEnemyUnits</b> remembers them; units that morphed are on its list of
+     * destroyed units, so they can't be required to be alive.
+     */
+    private boolean isCounted(AUnit unit) {
+        return (isOur ? unit.isOurUnit() && unit.isAlive() : unit.isEnemyUnit()) && unit.getType() != null
+                && !unit.getType().equals(AUnitType.Terran_Vulture_Spider_Mine);
+    }
+
+    /**
+     * Our eggs and cocoons are counted as the unit they will hatch into.
+     */
+    private AUnitType countedTypeOf(AUnit unit) {
+        AUnitType type = unit.getType();
+        if (isOur && type != null
+                && type.isType(AUnitType.Zerg_Egg, AUnitType.Zerg_Lurker_Egg, AUnitType.Zerg_Cocoon)) {
+            AUnitType buildType = unit.getBuildType();
+            if (buildType != null && !buildType.equals(AUnitType.None)) {
+                return buildType;
+            }
+        }
+        return type;
+    }
+
+    private void count(int unitId, int typeId, boolean completed) {
+        ensureTypeCapacity(typeId);
+        countedType[unitId] = typeId;
+        countedCompleted[unitId] = completed;
+        if (completed) {
+            completedCounts[typeId]++;
+        }
+        else {
+            inProgressCounts[typeId]++;
+        }
+        if (firstSeenFrames[typeId] < 0) {
+            firstSeenFrames[typeId] = AGame.getTimeFrames();
+        }
+        version++;
+    }
+
+    private void uncount(int unitId) {
+        int typeId = countedType[unitId];
+        if (typeId == NOT_COUNTED) {
+            return;
+        }
+
+        if (countedCompleted[unitId]) {
+            completedCounts[typeId]--;
+        }
+        else {
+            inProgressCounts[typeId]--;
+        }
+        countedType[unitId] = NOT_COUNTED;
+        countedCompleted[unitId] = false;
+        version++;
+    }
+
+    private void ensureTypeCapacity(int typeId) {
+        if (typeId >= completedCounts.length) {
+            int size = Math.max(typeId + 1, completedCounts.length * 2);
+            int oldSize = firstSeenFrames.length;
+            completedCounts = Arrays.copyOf(completedCounts, size);
+            inProgressCounts = Arrays.copyOf(inProgressCounts, size);
+            firstSeenFrames = Arrays.copyOf(firstSeenFrames, size);
+            Arrays.fill(firstSeenFrames, oldSize, size, -1);
+        }
+    }
+
+    private void ensureUnitCapacity(int unitId) {
+        if (unitId >= countedType.length) {
+            int size = Math.max(unitId + 1, countedType.length * 2);
+            int oldSize = countedType.length;
+            countedType = Arrays.copyOf(countedType, size);
+            Arrays.fill(countedType, oldSize, size, NOT_COUNTED);
+            countedCompleted = Arrays.copyOf(countedCompleted, size);
+            expectedCompletedFrame = Arrays.copyOf(expectedCompletedFrame, size);
+        }
+    }
+
+    private static int[] newFilledArray(int size, int value) {
+        int[] array = new int[size];
+        Arrays.fill(array, value);
+        return array;
+    }
+
+}
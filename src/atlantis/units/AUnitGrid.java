@@ -0,0 +1,120 @@
+package atlantis.units;
+
+import atlantis.AGame;
+import atlantis.util.PositionUtil;
+import bwapi.Position;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Spatial index of units: units are put into square cells, so finding units in radius only checks units
+ * from cells overlapping the radius, not all units.
+ * <br /><br />
+ * Grid of visible enemy units is built at most once per frame, see <b>enemies()</b>.
+ */
+public class AUnitGrid {
+
+    /**
+     * Size of a single cell (8 tiles).
+     */
+    private static final int CELL_SIZE_PX = 256;
+
+    private static AUnitGrid enemies = null;
+    private static int enemiesFrame = -1;
+
+    // =========================================================
+
+    private final Map<Integer, List<AUnit>> cells = new HashMap<>();
+
+    // =========================================================
+
+    public AUnitGrid(Collection<AUnit> units) {
+        for (AUnit unit : units) {
+            int key = cellKey(unit.getX() / CELL_SIZE_PX, unit.getY() / CELL_SIZE_PX);
+            List<AUnit> cell = cells.get(key);
+            if (cell == null) {
+                cell = new ArrayList<>();
+                cells.put(key, cell);
+            }
+            cell.add(unit);
+        }
+    }
+
+    /**
+     * Grid of all enemy units (as <b>Select.enemy()</b>) in the current frame.
+     */
+    public static AUnitGrid enemies() {
+        if (enemies == null || enemiesFrame != AGame.getTimeFrames()) {
+            enemies = new AUnitGrid(Select.enemy().listUnits());
+            enemiesFrame = AGame.getTimeFrames();
+        }
+        return enemies;
+    }
+
+    // =========================================================
+
+    /**
+     * Returns units whose edge is at most <b>maxDistTiles</b> from the edge of given unit.
+     */
+    public List<AUnit> inRadius(AUnit center, double maxDistTiles) {
+        List<AUnit> result = new ArrayList<>();
+
+        // Unit edges can be up to half of the largest unit size further than their centers
+        int reachPx = (int) Math.ceil(maxDistTiles * 32) + 64;
+        int minCellX = Math.max(0, (center.getX() - reachPx) / CELL_SIZE_PX);
+        int maxCellX = (center.getX() + reachPx) / CELL_SIZE_PX;
+        int minCellY = Math.max(0, (center.getY() - reachPx) / CELL_SIZE_PX);
+        int maxCellY = (center.getY() + reachPx) / CELL_SIZE_PX;
+
+        for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+            for (int cellY = minCellY; cellY <= maxCellY; cellY++) {
+                List<AUnit> cell = cells.get(cellKey(cellX, cellY));
+                if (cell == null) {
+                    continue;
+                }
+                for (AUnit unit : cell) {
+                    if (PositionUtil.isInRadius(center, unit, maxDistTiles)) {
+                        result.add(unit);
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns true if the edge of any unit is at most <b>maxDistTiles</b> from given position.
+     */
+    public boolean isAnyInRadius(Position position, double maxDistTiles) {
+        int reachPx = (int) Math.ceil(maxDistTiles * 32) + 64;
+        int minCellX = Math.max(0, (position.getX() - reachPx) / CELL_SIZE_PX);
+        int maxCellX = (position.getX() + reachPx) / CELL_SIZE_PX;
+        int minCellY = Math.max(0, (position.getY() - reachPx) / CELL_SIZE_PX);
+        int maxCellY = (position.getY() + reachPx) / CELL_SIZE_PX;
+
+        for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+            for (int cellY = minCellY; cellY <= maxCellY; cellY++) {
+                List<AUnit> cell = cells.get(cellKey(cellX, cellY));
+                if (cell == null) {
+                    continue;
+                }
+                for (AUnit unit : cell) {
+                    if (PositionUtil.isInRadius(unit, position, maxDistTiles)) {
+                        return true;
+                    }
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private static int cellKey(int cellX, int cellY) {
+        return (cellX << 16) | cellY;
+    }
+
+}
@@ -1,9 +1,15 @@
 package atlantis.units;
 
 import atlantis.AGame;
+import atlantis.buildings.managers.AGasManager;
+import atlantis.combat.micro.ADamageLedger;
+import atlantis.debug.AGameRecorder;
 import atlantis.position.APosition;
+import atlantis.production.AResourceLedger;
 import atlantis.units.actions.UnitAction;
 import atlantis.units.actions.UnitActions;
+import atlantis.workers.AMineralGathering;
+import atlantis.wrappers.ATech;
 import bwapi.Position;
 import bwapi.PositionOrUnit;
 import bwapi.TechType;
@@ -22,6 +28,17 @@ public interface AUnitOrders {
 
     AUnit unit();
     
+    // =========================================================
+
+    /**
+     * Every command goes through here right before it's passed to BWAPI, so it's recorded by
+     * <b>AGameRecorder</b>. Returns true if the command must not be passed to BWAPI at all, because we only
+     * follow a replay (then the command is treated as successful).
+     */
+    default boolean isOnlyRecorded(String command, AUnit target, Position position) {
+        return AGameRecorder.isCommandOnlyRecorded(unit(), command, target, position);
+    }
+
     // =========================================================
     
     default boolean attackUnit(AUnit target) {
@@ -32,6 +49,7 @@ public interface AUnitOrders {
         }
 
         unit().setUnitAction(UnitActions.ATTACK_UNIT);
+        ADamageLedger.commit(unit(), target);
 
         // Do NOT issue double orders
         if (unit().isUnitAction(UnitActions.ATTACK_UNIT)
@@ -44,7 +62,9 @@ public interface AUnitOrders {
 //            System.out.println("getTarget = " + unit().getTarget());
 //            System.out.println(unit().getID() + " attacks " + target.getShortName());
 //            AGame.sendMessage("#" + unit().getID() + " attacks #" + target.getID());
-            u().attack(target.u());
+            if (!isOnlyRecorded("Attack_Unit", target, null)) {
+                u().attack(target.u());
+            }
             unit().setOrderWasIssued();
             return true;
         }
@@ -58,7 +78,9 @@ public interface AUnitOrders {
             unit().setUnitAction(UnitActions.ATTACK_POSITION);
             return true;
         } else {
-            u().attack(target);
+            if (!isOnlyRecorded("Attack_Move", null, target)) {
+                u().attack(target);
+            }
             unit().setUnitAction(UnitActions.ATTACK_POSITION);
             unit().setLastUnitActionNow();
             return true;
@@ -67,17 +89,29 @@ public interface AUnitOrders {
 
     default boolean train(AUnitType unitToTrain) {
         unit().setUnitAction(UnitActions.TRAIN);
-        return u().train(unitToTrain.ut());
+        boolean result = isOnlyRecorded("Train " + unitToTrain, null, null) || u().train(unitToTrain.ut());
+        if (result) {
+            AResourceLedger.spend(unitToTrain, unitToTrain.getMineralPrice(), unitToTrain.getGasPrice(),
+                    unitToTrain.getSupplyRequired());
+        }
+        return result;
     }
 
     default boolean morph(AUnitType into) {
         unit().setUnitAction(UnitActions.MORPH);
-        return u().morph(into.ut());
+        boolean result = isOnlyRecorded("Morph " + into, null, null) || u().morph(into.ut());
+
+        // Buildings are paid from their construction order's reservation
+        if (result && !into.isBuilding()) {
+            AResourceLedger.spend(into, into.getMineralPrice(), into.getGasPrice(), 0);
+        }
+        return result;
     }
 
     default boolean build(AUnitType buildingType, TilePosition buildTilePosition, UnitAction unitAction) {
         unit().setUnitAction(UnitActions.BUILD);
-        boolean result = u().build(buildingType.ut(), buildTilePosition);
+        boolean result = isOnlyRecorded("Build " + buildingType, null,
+                buildTilePosition.toPosition()) || u().build(buildingType.ut(), buildTilePosition);
         unit().setTooltip("Construct " + buildingType.getShortName());
         unit().setLastUnitActionNow();
         return result;
@@ -85,17 +119,32 @@ public interface AUnitOrders {
 
     default boolean buildAddon(AUnitType addon) {
         unit().setUnitAction(UnitActions.BUILD);
-        return u().buildAddon(addon.ut());
+        boolean result = isOnlyRecorded("Build_Addon " + addon, null, null) || u().buildAddon(addon.ut());
+        if (result) {
+            AResourceLedger.spend(addon, addon.getMineralPrice(), addon.getGasPrice(), 0);
+        }
+        return result;
     }
 
     default boolean upgrade(UpgradeType upgrade) {
         unit().setUnitAction(UnitActions.RESEARCH_OR_UPGRADE);
-        return u().upgrade(upgrade);
+        boolean result = isOnlyRecorded("Upgrade " + upgrade, null, null) || u().upgrade(upgrade);
+        if (result) {
+            int level = 1 + ATech.getUpgradeLevel(upgrade);
+            AResourceLedger.spend(upgrade, upgrade.mineralPrice() * level, upgrade.gasPrice() * level, 0);
+            ATech.markAsBeingUpgraded(upgrade);
+        }
+        return result;
     }
 
     default boolean research(TechType tech) {
         unit().setUnitAction(UnitActions.RESEARCH_OR_UPGRADE);
-        return u().research(tech);
+        boolean result = isOnlyRecorded("Research " + tech, null, null) || u().research(tech);
+        if (result) {
+            AResourceLedger.spend(tech, tech.mineralPrice(), tech.gasPrice(), 0);
+            ATech.markAsBeingResearched(tech);
+        }
+        return result;
     }
 
     default boolean move(Position target, UnitAction unitAction) {
@@ -129,7 +178,9 @@ public interface AUnitOrders {
 //            System.out.println(u().getID() + " MOVE at " + AGame.getTimeFrames());
 //        if (!unit().isMoving() || AGame.getTimeFrames() % 4 != 0) {
         if (!unit().isUnitActionMove() || AGame.getTimeFrames() % 5 == 0) {
-            u().move(target);
+            if (!isOnlyRecorded("Move", null, target)) {
+                u().move(target);
+            }
             unit().setOrderWasIssued();
             unit().setUnitAction(unitAction);
             return true;
@@ -154,7 +205,7 @@ public interface AUnitOrders {
      */
     default boolean patrol(APosition target, UnitAction unitAction) {
         unit().setUnitAction(UnitActions.PATROL);
-        return u().patrol(target);
+        return isOnlyRecorded("Patrol", null, target) || u().patrol(target);
     }
 
     /**
@@ -166,7 +217,7 @@ public interface AUnitOrders {
      */
     default boolean holdPosition() {
         unit().setUnitAction(UnitActions.HOLD_POSITION);
-        return u().holdPosition();
+        return isOnlyRecorded("Hold_Position", null, null) || u().holdPosition();
     }
 
     /**
@@ -178,7 +229,8 @@ public interface AUnitOrders {
      */
     default boolean stop() {
         unit().setUnitAction(UnitActions.STOP);
-        return u().stop();
+        AGasManager.releaseWorker(unit());
+        return isOnlyRecorded("Stop", null, null) || u().stop();
     }
 
     /**
@@ -192,7 +244,7 @@ public interface AUnitOrders {
      */
     default boolean follow(AUnit target) {
         unit().setUnitAction(UnitActions.FOLLOW);
-        return u().follow(target.u());
+        return isOnlyRecorded("Follow", target, null) || u().follow(target.u());
     }
 
     /**
@@ -210,8 +262,10 @@ public interface AUnitOrders {
             unit().setUnitAction(UnitActions.GATHER_GAS);
         }
         unit().setLastUnitActionNow();
+        AMineralGathering.onGatherOrder(unit(), target);
+        AGasManager.onGatherOrder(unit(), target);
 
-        return u().gather(target.u());
+        return isOnlyRecorded("Gather", target, null) || u().gather(target.u());
     }
 
     /**
@@ -225,7 +279,7 @@ public interface AUnitOrders {
      */
     default boolean returnCargo() {
         unit().setUnitAction(UnitActions.MOVE);
-        return u().returnCargo();
+        return isOnlyRecorded("Return_Cargo", null, null) || u().returnCargo();
     }
 
     /**
@@ -245,7 +299,7 @@ public interface AUnitOrders {
             unit().setUnitAction(UnitActions.REPAIR);
             if (unit().getTarget() == null || !unit().getTarget().equals(target) || !unit().isRepairing()) {
                 unit().setLastUnitActionNow();
-                return u().repair(target.u());
+                return isOnlyRecorded("Repair", target, null) || u().repair(target.u());
             }
             else {
                 return true;
@@ -262,7 +316,7 @@ public interface AUnitOrders {
      */
     default boolean burrow() {
         unit().setUnitAction(UnitActions.BURROW);
-        return u().burrow();
+        return isOnlyRecorded("Burrow", null, null) || u().burrow();
     }
 
     /**
@@ -272,7 +326,7 @@ public interface AUnitOrders {
      */
     default boolean unburrow() {
         unit().setUnitAction(UnitActions.UNBURROW);
-        return u().unburrow();
+        return isOnlyRecorded("Unburrow", null, null) || u().unburrow();
     }
 
     /**
@@ -282,7 +336,7 @@ public interface AUnitOrders {
      */
     default boolean cloak() {
         unit().setUnitAction(UnitActions.CLOAK);
-        return u().cloak();
+        return isOnlyRecorded("Cloak", null, null) || u().cloak();
     }
 
     /**
@@ -292,7 +346,7 @@ public interface AUnitOrders {
      */
     default boolean decloak() {
         unit().setUnitAction(UnitActions.LOAD);
-        return u().decloak();
+        return isOnlyRecorded("Decloak", null, null) || u().decloak();
     }
 
     /**
@@ -303,7 +357,7 @@ public interface AUnitOrders {
     default boolean siege() {
         unit().setUnitAction(UnitActions.SIEGE);
         unit().setLastUnitActionNow();
-        return u().siege();
+        return isOnlyRecorded("Siege", null, null) || u().siege();
     }
 
     /**
@@ -314,7 +368,7 @@ public interface AUnitOrders {
     default boolean unsiege() {
         unit().setUnitAction(UnitActions.UNSIEGE);
         unit().setLastUnitActionNow();
-        return u().unsiege();
+        return isOnlyRecorded("Unsiege", null, null) || u().unsiege();
     }
 
     /**
@@ -331,7 +385,7 @@ public interface AUnitOrders {
      */
     default boolean lift() {
         unit().setUnitAction(UnitActions.LIFT);
-        return u().lift();
+        return isOnlyRecorded("Lift", null, null) || u().lift();
     }
 
     /**
@@ -342,7 +396,7 @@ public interface AUnitOrders {
      */
     default boolean land(TilePosition target) {
         unit().setUnitAction(UnitActions.LAND);
-        return u().land(target);
+        return isOnlyRecorded("Land", null, target.toPosition()) || u().land(target);
     }
 
     /**
@@ -357,7 +411,7 @@ public interface AUnitOrders {
     default boolean load(AUnit target) {
         unit().setUnitAction(UnitActions.LOAD);
         unit().setLastUnitActionNow();
-        return u().load(target.u());
+        return isOnlyRecorded("Load", target, null) || u().load(target.u());
     }
 
     /**
@@ -370,7 +424,7 @@ public interface AUnitOrders {
     default boolean unload(AUnit target) {
         unit().setUnitAction(UnitActions.UNLOAD);
         unit().setLastUnitActionNow();
-        return u().unload(target.u());
+        return isOnlyRecorded("Unload", target, null) || u().unload(target.u());
     }
 
     /**
@@ -385,7 +439,7 @@ public interface AUnitOrders {
     default boolean unloadAll() {
         unit().setUnitAction(UnitActions.UNLOAD);
         unit().setLastUnitActionNow();
-        return u().unloadAll();
+        return isOnlyRecorded("Unload_All", null, null) || u().unloadAll();
     }
 
     /**
@@ -400,7 +454,7 @@ public interface AUnitOrders {
     default boolean unloadAll(APosition target) {
         unit().setUnitAction(UnitActions.UNLOAD);
         unit().setLastUnitActionNow();
-        return u().unloadAll(target);
+        return isOnlyRecorded("Unload_All_Position", null, target) || u().unloadAll(target);
     }
 
     /**
@@ -430,7 +484,7 @@ public interface AUnitOrders {
      */
     default boolean haltConstruction() {
         unit().setUnitAction(null);
-        return u().haltConstruction();
+        return isOnlyRecorded("Halt_Construction", null, null) || u().haltConstruction();
     }
 
     /**
@@ -441,7 +495,7 @@ public interface AUnitOrders {
      */
     default boolean cancelConstruction() {
         unit().setUnitAction(null);
-        return u().cancelConstruction();
+        return isOnlyRecorded("Cancel_Construction", null, null) || u().cancelConstruction();
     }
 
     /**
@@ -452,7 +506,7 @@ public interface AUnitOrders {
      */
     default boolean cancelAddon() {
         unit().setUnitAction(null);
-        return u().cancelAddon();
+        return isOnlyRecorded("Cancel_Addon", null, null) || u().cancelAddon();
     }
 
     /**
@@ -465,12 +519,12 @@ public interface AUnitOrders {
      */
     default boolean cancelTrain() {
         unit().setUnitAction(null);
-        return u().cancelTrain();
+        return isOnlyRecorded("Cancel_Train", null, null) || u().cancelTrain();
     }
 
     default boolean cancelTrain(int slot) {
         unit().setUnitAction(null);
-        return u().cancelTrain(slot);
+        return isOnlyRecorded("Cancel_Train_Slot", null, null) || u().cancelTrain(slot);
     }
 
     /**
@@ -479,7 +533,7 @@ public interface AUnitOrders {
      * for a command to fail after it has been passed to Broodwar. See also morph, isMorphing, canCancelMorph
      */
     default boolean cancelMorph() {
-        return u().cancelMorph();
+        return isOnlyRecorded("Cancel_Morph", null, null) || u().cancelMorph();
     }
 
     /**
@@ -489,7 +543,7 @@ public interface AUnitOrders {
      * getTech, canCancelResearch
      */
     default boolean cancelResearch() {
-        return u().cancelResearch();
+        return isOnlyRecorded("Cancel_Research", null, null) || u().cancelResearch();
     }
 
     /**
@@ -499,7 +553,7 @@ public interface AUnitOrders {
      * getUpgrade, canCancelUpgrade
      */
     default boolean cancelUpgrade() {
-        return u().cancelUpgrade();
+        return isOnlyRecorded("Cancel_Upgrade", null, null) || u().cancelUpgrade();
     }
 
     /**
@@ -511,22 +565,22 @@ public interface AUnitOrders {
      */
     default boolean useTech(TechType tech) {
         unit().setUnitAction(UnitActions.USING_TECH);
-        return u().useTech(tech);
+        return isOnlyRecorded("Use_Tech " + tech, null, null) || u().useTech(tech);
     }
 
     default boolean useTech(TechType tech, APosition target) {
         unit().setUnitAction(UnitActions.USING_TECH);
-        return u().useTech(tech, target);
+        return isOnlyRecorded("Use_Tech_Position " + tech, null, target) || u().useTech(tech, target);
     }
 
     default boolean useTech(TechType tech, AUnit target) {
         unit().setUnitAction(UnitActions.USING_TECH);
-        return u().useTech(tech, target.u());
+        return isOnlyRecorded("Use_Tech_Unit " + tech, target, null) || u().useTech(tech, target.u());
     }
 
     default boolean useTech(TechType tech, PositionOrUnit target) {
         unit().setUnitAction(UnitActions.USING_TECH);
-        return u().useTech(tech, target);
+        return isOnlyRecorded("Use_Tech " + tech, null, null) || u().useTech(tech, target);
     }
 
 }
@@ -0,0 +1,33 @@
+package atlantis.units;
+
+/**
+ * Jobs our units can be given by managers. A unit can have several roles at once, e.g. a worker gathering
+ * minerals that has just been picked to build something, until the gathering role is released.
+ * <br /><br />
+ * Roles are declared in order of importance: the first one a unit has is its main role (see
+ * <b>AUnitRoles.getRole()</b>).
+ */
+public enum AUnitRole {
+
+    SCOUT,
+    BUNKER_REPAIRER,
+    REPAIRER,
+    DEFENDER,
+    BUILDER,
+    MEDIC_ESCORT,
+    FLYING_BUILDING,
+    GAS,
+    MINERAL;
+
+    // =========================================================
+
+    private final int bit = 1 << ordinal();
+
+    /**
+     * Bit of this role in the bitset of roles of a unit.
+     */
+    public int getBit() {
+        return bit;
+    }
+
+}
@@ -0,0 +1,126 @@
+package atlantis.units;
+
+import java.util.Arrays;
+
+/**
+ * Roles of all our units, as a bitset of <b>AUnitRole</b> per unit ID.
+ * <br /><br />
+ * Managers keep their own data (which mineral, which bunker), but every change of a role goes through
+ * <b>assign()</b> and <b>release()</b>, which keep number of units per role up to date.
+ * Checking a role or counting units with it is a single array read.
+ */
+public class AUnitRoles {
+
+    private static final AUnitRole[] ROLES = AUnitRole.values();
+
+    // =========================================================
+
+    /**
+     * Bitset of roles per unit ID.
+     */
+    private static int[] roles = new int[1024];
+
+    /**
+     * Number of units having given role, per role ordinal.
+     */
+    private static final int[] counts = new int[ROLES.length];
+
+    // === Changing roles ======================================
+
+    /**
+     * Gives role to the unit. Does nothing if it already has it.
+     */
+    public static void assign(AUnit unit, AUnitRole role) {
+        int id = unit.getID();
+        ensureCapacity(id);
+        if ((roles[id] & role.getBit()) != 0) {
+            return;
+        }
+
+        roles[id] |= role.getBit();
+        counts[role.ordinal()]++;
+    }
+
+    /**
+     * Takes role away from the unit. Does nothing if it doesn't have it.
+     */
+    public static void release(AUnit unit, AUnitRole role) {
+        int id = unit.getID();
+        if (id >= roles.length || (roles[id] & role.getBit()) == 0) {
+            return;
+        }
+
+        roles[id] &= ~role.getBit();
+        counts[role.ordinal()]--;
+    }
+
+    /**
+     * Takes all roles away from the unit, e.g. because it has been destroyed.
+     */
+    public static void releaseAll(AUnit unit) {
+        int id = unit.getID();
+        while (id < roles.length && roles[id] != 0) {
+            release(unit, ROLES[Integer.numberOfTrailingZeros(roles[id])]);
+        }
+    }
+
+    // === Queries =============================================
+
+    public static boolean has(AUnit unit, AUnitRole role) {
+        int id = unit.getID();
+        return id < roles.length && (roles[id] & role.getBit()) != 0;
+    }
+
+    /**
+     * Returns true if unit has at least one of given roles.
+     */
+    public static boolean hasAny(AUnit unit, AUnitRole... anyOfRoles) {
+        int id = unit.getID();
+        if (id >= roles.length) {
+            return false;
+        }
+
+        for (AUnitRole role : anyOfRoles) {
+            if ((roles[id] & role.getBit()) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the most important role of given unit (the first one in <b>AUnitRole</b>) or null if it has none.
+     */
+    public static AUnitRole getRole(AUnit unit) {
+        int id = unit.getID();
+        if (id >= roles.length || roles[id] == 0) {
+            return null;
+        }
+        return ROLES[Integer.numberOfTrailingZeros(roles[id])];
+    }
+
+    /**
+     * Returns number of our units having given role.
+     */
+    public static int count(AUnitRole role) {
+        return counts[role.ordinal()];
+    }
+
+    // === Events ==============================================
+
+    /**
+     * Dead units lose all their roles.
+     */
+    public static void onUnitDestroyed(AUnit unit) {
+        releaseAll(unit);
+    }
+
+    // =========================================================
+
+    private static void ensureCapacity(int id) {
+        if (id >= roles.length) {
+            roles = Arrays.copyOf(roles, Math.max(id + 1, roles.length * 2));
+        }
+    }
+
+}
@@ -22,6 +22,10 @@ public class AUnitType implements Comparable<AUnitType> {
 
     private static final HashMap<UnitType, AUnitType> instances = new HashMap<>();
 
+    // Has to be initialized before the constants below, otherwise first of them would get ID 0 and the
+    // ones created later would reuse IDs of the constants
+    private static int firstFreeID = 1;
+
     private UnitType ut;
 
     // =========================================================
@@ -31,6 +35,11 @@ public class AUnitType implements Comparable<AUnitType> {
         }
         this.ut = ut;
         this.ID = firstFreeID++;
+
+        // Constants below are the instances returned by createFrom(), so every type has a single ID
+        if (!instances.containsKey(ut)) {
+            instances.put(ut, this);
+        }
     }
 
     /**
@@ -297,11 +306,13 @@ public class AUnitType implements Comparable<AUnitType> {
     // =========================================================
     // =========================================================
     // =========================================================
-    private static int firstFreeID = 1;
-
     private int ID;
     private String _name = null;
     private String _shortName = null;
+    private int _dimensionLeft = -1;
+    private int _dimensionRight = -1;
+    private int _dimensionUp = -1;
+    private int _dimensionDown = -1;
     public static boolean disableErrorReporting = false;
 
     // =========================================================
@@ -309,6 +320,14 @@ public class AUnitType implements Comparable<AUnitType> {
         return instances.values();
     }
 
+    /**
+     * Returns the highest ID given to any type so far, so arrays indexed by type ID can be sized by it. Not
+     * every type with an ID is among <b>getAllUnitTypes()</b>, as constants may share the same type.
+     */
+    public static int getMaxID() {
+        return firstFreeID - 1;
+    }
+
     /**
      * You can "Terran_Marine" or "Terran Marine" or even "Marine".
      */
@@ -450,6 +469,13 @@ public class AUnitType implements Comparable<AUnitType> {
         return _shortName;
     }
 
+    /**
+     * Unique, small number of this type, can be used as an array index.
+     */
+    public int getID() {
+        return ID;
+    }
+
     // =========================================================
     // Override
     @Override
@@ -618,6 +644,13 @@ public class AUnitType implements Comparable<AUnitType> {
         return ut.mineralPrice();
     }
 
+    /**
+     * Supply taken by one unit of this type, rounded up (BWAPI counts halves for Zerglings and Scourges).
+     */
+    public int getSupplyRequired() {
+        return (ut.supplyRequired() + 1) / 2;
+    }
+
     public boolean isOrganic() {
         return ut.isOrganic();
     }
@@ -717,19 +750,31 @@ public class AUnitType implements Comparable<AUnitType> {
     }
 
     public int getDimensionLeft() {
-        return ut.dimensionLeft();
+        if (_dimensionLeft < 0) {
+            _dimensionLeft = ut.dimensionLeft();
+        }
+        return _dimensionLeft;
     }
 
     public int getDimensionRight() {
-        return ut.dimensionRight();
+        if (_dimensionRight < 0) {
+            _dimensionRight = ut.dimensionRight();
+        }
+        return _dimensionRight;
     }
 
     public int getDimensionUp() {
-        return ut.dimensionUp();
+        if (_dimensionUp < 0) {
+            _dimensionUp = ut.dimensionUp();
+        }
+        return _dimensionUp;
     }
 
     public int getDimensionDown() {
-        return ut.dimensionDown();
+        if (_dimensionDown < 0) {
+            _dimensionDown = ut.dimensionDown();
+        }
+        return _dimensionDown;
     }
 
     /**
@@ -7,6 +7,7 @@ import atlantis.constructing.AConstructionManager;
 import atlantis.information.AFoggedUnit;
 import atlantis.position.APosition;
 import atlantis.position.APositionedObject;
+import atlantis.position.PackedPosition;
 import atlantis.repair.ARepairManager;
 import atlantis.scout.AScoutManager;
 import atlantis.util.AtlantisUtilities;
@@ -16,6 +17,7 @@ import bwapi.Position;
 import bwapi.PositionedObject;
 import bwapi.Unit;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -384,7 +386,7 @@ public class Select<T> {
         while (unitsIterator.hasNext()) {
 //            APositionedObject unit = (APositionedObject) unitsIterator.next();
             AUnit unit = (AUnit) unitsIterator.next();
-            if (unit.distanceTo(otherUnit) > maxDist) {
+            if (!PositionUtil.isInRadius(unit, otherUnit, maxDist)) {
                 unitsIterator.remove();
             }
         }
@@ -398,8 +400,11 @@ public class Select<T> {
     public Select<?> inRadius(double maxDist, Position position) {
         Iterator<T> unitsIterator = data.iterator();// units.iterator();
         while (unitsIterator.hasNext()) {
-            APositionedObject unit = (APositionedObject) unitsIterator.next();
-            if (unit.distanceTo(position) > maxDist) {
+            Object unitOrData = unitsIterator.next();
+            boolean isInRadius = unitOrData instanceof AUnit
+                    ? PositionUtil.isInRadius((AUnit) unitOrData, position, maxDist)
+                    : PositionUtil.isInRadius(((APositionedObject) unitOrData).getPosition(), position, maxDist);
+            if (!isInRadius) {
                 unitsIterator.remove();
             }
         }
@@ -941,17 +946,7 @@ public class Select<T> {
             return null;
         }
 
-        Position position;
-        if (positionOrUnit instanceof APosition) {
-            position = (APosition) positionOrUnit;
-        } else if (positionOrUnit instanceof Position) {
-            position = (Position) positionOrUnit;
-        } else {
-            position = ((AUnit) positionOrUnit).getPosition();
-        }
-
-        sortDataByDistanceTo(position, true);
-        return (AUnit) data.get(0);
+        return unitFrom(data.get(indexOfNearestTo(packedPositionOf(positionOrUnit))));
     }
     
     /**
@@ -962,17 +957,9 @@ public class Select<T> {
             return null;
         }
 
-        Position position;
-        if (positionOrUnit instanceof APosition) {
-            position = (APosition) positionOrUnit;
-        } else if (positionOrUnit instanceof Position) {
-            position = (Position) positionOrUnit;
-        } else {
-            position = ((AUnit) positionOrUnit).getPosition();
-        }
-
-        sortDataByDistanceTo(position, true);
-        AUnit nearestUnit = (AUnit) data.get(0);
+        AUnit nearestUnit = unitFrom(data.get(indexOfNearestTo(packedPositionOf(positionOrUnit))));
+        Position position = positionOrUnit instanceof Position
+                ? (Position) positionOrUnit : ((AUnit) positionOrUnit).getPosition();
         
         if (nearestUnit != null && nearestUnit.distanceTo(position) < maxLength) {
             return nearestUnit;
@@ -1201,28 +1188,55 @@ public class Select<T> {
             return null;
         }
 
-        Collections.sort(data, new Comparator<T>() {
-            @Override
-            public int compare(T p1, T p2) {
-                if (p1 == null || !(p1 instanceof PositionedObject)) {
-                    return -1;
-                }
-                if (p2 == null || !(p2 instanceof PositionedObject)) {
-                    return 1;
-                }
-                AFoggedUnit data1 = dataFrom(p1);
-                AFoggedUnit data2 = dataFrom(p2);
-                double distance1 = PositionUtil.distanceTo(position, data1.getPosition());	//TODO: check whether this doesn't mix up position types
-                double distance2 = PositionUtil.distanceTo(position, data2.getPosition());
-                if (distance1 == distance2) {
-                    return 0;
-                } else {
-                    return distance1 < distance2 ? (nearestFirst ? -1 : 1) : (nearestFirst ? 1 : -1);
-                }
-            }
-        });
+        // Every squared distance is packed with its index, so sorting is done on primitives and every
+        // element's position is read only once
+        int packedPosition = PackedPosition.pack(position);
+        int size = data.size();
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            long distSquared = PackedPosition.distanceSquared(packedPosition, packedPositionOf(data.get(i)));
+            keys[i] = ((nearestFirst ? distSquared : -distSquared) << 32) | i;
+        }
+        Arrays.sort(keys);
+
+        List<T> sorted = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            sorted.add(data.get((int) keys[i]));
+        }
+        data = sorted;
 
         return data;
     }
+    
+    /**
+     * Returns index of the element (center-to-center) closest to given packed position.
+     */
+    private int indexOfNearestTo(int packedPosition) {
+        int bestIndex = 0;
+        int bestDistSquared = Integer.MAX_VALUE;
+        for (int i = 0; i < data.size(); i++) {
+            int distSquared = PackedPosition.distanceSquared(packedPosition, packedPositionOf(data.get(i)));
+            if (distSquared < bestDistSquared) {
+                bestDistSquared = distSquared;
+                bestIndex = i;
+            }
+        }
+        return bestIndex;
+    }
+    
+    /**
+     * Returns packed position of AUnit, AFoggedUnit or Position.
+     */
+    private static int packedPositionOf(Object positionOrUnit) {
+        if (positionOrUnit instanceof AUnit) {
+            return ((AUnit) positionOrUnit).getPackedPosition();
+        } else if (positionOrUnit instanceof AFoggedUnit) {
+            return ((AFoggedUnit) positionOrUnit).getPackedPosition();
+        } else if (positionOrUnit instanceof Position) {
+            return PackedPosition.pack((Position) positionOrUnit);
+        } else {
+            return PackedPosition.pack(((APositionedObject) positionOrUnit).getPosition());
+        }
+    }
 
 }
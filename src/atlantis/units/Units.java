@@ -1,31 +1,58 @@
 package atlantis.units;
 
 import atlantis.position.APosition;
-import atlantis.position.APositionedObject;
 import atlantis.position.PositionOperationsWrapper;
 import atlantis.util.AtlantisUtilities;
 import bwapi.Position;
-import bwapi.PositionedObject;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
-import java.util.Set;
+import java.util.NoSuchElementException;
 
 /**
  * This class is wrapper for ArrayList<AUnit>. It allows some helpful methods to be executed upon squad of
  * units like sorting etc.
+ * <br /><br />
+ * Units are kept in dense, parallel arrays (unit, unit ID, extra value), so index-based access, shuffling
+ * and sorting are done in place without boxing. Membership is checked with a bitset indexed by unit ID, and
+ * units are looked up by ID (e.g. to get their extra value) through an index built on first lookup.
  */
 public class Units {
 
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Units in their current order.
+     */
+    private AUnit[] units = new AUnit[INITIAL_CAPACITY];
+
+    /**
+     * Unit IDs, index-aligned with <b>units</b>.
+     */
+    private int[] ids = new int[INITIAL_CAPACITY];
+
+    /**
+     * Extra values assigned to units e.g. if units represents mineral fields, we can easily store info how
+     * many workers are gathering each mineral field. Index-aligned with <b>units</b>.
+     */
+    private double[] values = new double[INITIAL_CAPACITY];
+
+    /**
+     * Bit is set for every unit ID contained in this object.
+     */
+    private final BitSet members = new BitSet();
+
     /**
-     * This mapping can be used to store extra values assigned to units e.g. if units represents mineral fields,
-     * we can easily store info how many workers are gathering each mineral field thanks to this mapping.
+     * Index in the arrays above plus one (0 means no such unit) per unit ID. It's built only when a unit is
+     * looked up for the first time, kept up to date when units are added and dropped when they're reordered
+     * or removed.
      */
-    private LinkedHashMap<AUnit, Double> units = new LinkedHashMap<>();
-    
+    private int[] indexById = null;
+
+    private int size = 0;
+
     // =====================================================================
 
     public Units() {
@@ -34,84 +61,83 @@ public class Units {
     // === Base functionality ==============================================
 
     public Units addUnit(AUnit unitToAdd) {
-        units.put(unitToAdd, null);
+        if (!contains(unitToAdd)) {
+            append(unitToAdd, 0);
+        }
         return this;
     }
 
     public Units addUnits(Collection<AUnit> unitsToAdd) {
         for (AUnit unit : unitsToAdd) {
-            units.put(unit, null);
+            addUnit(unit);
         }
         return this;
     }
 
     public Units removeUnits(Collection<AUnit> unitsToRemove) {
         for (AUnit unit : unitsToRemove) {
-            units.remove(unit);
+            removeUnit(unit);
         }
         return this;
     }
 
     public Units removeUnit(AUnit unitToRemove) {
-        units.remove(unitToRemove);
+        int index = indexOf(unitToRemove);
+        if (index >= 0) {
+            removeAt(index);
+        }
         return this;
     }
 
+    /**
+     * Returns true if given unit is contained in this object.
+     */
+    public boolean contains(AUnit unit) {
+        return unit != null && members.get(unit.getID());
+    }
+
     public int size() {
-        return units.size();
+        return size;
     }
 
     public boolean isEmpty() {
-        return units.isEmpty();
+        return size == 0;
     }
 
     /**
      * Returns first unit from the set.
      */
     public AUnit first() {
-        return isEmpty() ? null : units.keySet().iterator().next();
+        return isEmpty() ? null : units[0];
     }
 
     /**
      * Returns random unit from the set.
      */
     public AUnit random() {
-        return (AUnit) AtlantisUtilities.getRandomElement(units.keySet());
+        return isEmpty() ? null : units[AtlantisUtilities.random.nextInt(size)];
     }
-    
+
     /**
      * Returns unit with <b>N</b>-th index.
      */
     public AUnit get(int index) {
-        Set<AUnit> keySet = units.keySet();
-
-        int currentIndex = 0;
-        for (AUnit unit : keySet) {
-            if (currentIndex == index) {
-                return unit;
-            }
-            else {
-                currentIndex++;
-            }
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Units.get(" + index + ") is invalid, size: " + size);
         }
-        throw new RuntimeException("Units.get(index) is invalid, shouldn't reach here");
+        return units[index];
     }
 
     // === Special methods =====================================
-    
+
     /**
      * Shuffle units to have random sequence in the list.
      */
     public Units shuffle() {
-        Set<AUnit> keySet = units.keySet();
-
-        // Create new mapping, with new order
-        LinkedHashMap<AUnit, Double> newUnits = new LinkedHashMap<>();
-        for (AUnit unit : keySet) {
-            newUnits.put(unit, getValueFor(unit));
+        for (int i = size - 1; i > 0; i--) {
+            swap(i, AtlantisUtilities.random.nextInt(i + 1));
         }
-        this.units = newUnits;
-        
+
         return this;
     }
 
@@ -119,16 +145,17 @@ public class Units {
      * Returns random units.
      */
     public AUnit getRandom() {
-        return (AUnit) AtlantisUtilities.getRandomElement(units.keySet());
+        return random();
     }
 
     // === Value mapping methods ===============================
-    
+
     public void changeValueBy(AUnit unit, double deltaValue) {
-        if (units.containsKey(unit)) {
-            units.put(unit, units.get(unit) + deltaValue);
+        int index = indexOf(unit);
+        if (index >= 0) {
+            values[index] += deltaValue;
         } else {
-            units.put(unit, deltaValue);
+            append(unit, deltaValue);
         }
     }
 
@@ -136,21 +163,21 @@ public class Units {
         if (unit == null) {
             throw new IllegalArgumentException("Units unit shouldn't be null");
         }
-        
-        units.put(unit, newValue);
+
+        int index = indexOf(unit);
+        if (index >= 0) {
+            values[index] = newValue;
+        } else {
+            append(unit, newValue);
+        }
     }
 
+    /**
+     * Returns extra value assigned to given unit or 0 if there's no such unit.
+     */
     public double getValueFor(AUnit unit) {
-//        if (unit == null) {
-//            throw new IllegalArgumentException("Units unit shouldn't be null");
-//        }
-        
-        if (units == null) {
-            return 0;
-        }
-        else {
-            return units.get(unit);
-        }
+        int index = indexOf(unit);
+        return index >= 0 ? values[index] : 0;
     }
 
     public AUnit getUnitWithLowestValue() {
@@ -162,39 +189,22 @@ public class Units {
     }
 
     private AUnit getUnitWithExtremeValue(boolean returnLowest) {
-        if (units.isEmpty()) {
+        if (isEmpty()) {
             return null;
         }
 
-        AUnit bestUnit = null;
-        
-        // We're interested in MIN
-        if (returnLowest) {
-            double bestValue = Integer.MAX_VALUE;
-            for (AUnit unit : units.keySet()) {
-                if (bestUnit == null || getValueFor(unit) < bestValue) {
-                    bestValue = getValueFor(unit);
-                    bestUnit = unit;
-                }
-            }
-        }
-        
-        // We're interested in MAX
-        else {
-            double bestValue = Integer.MIN_VALUE;
-            for (AUnit unit : units.keySet()) {
-                if (bestUnit == null || getValueFor(unit) > bestValue) {
-                    bestValue = getValueFor(unit);
-                    bestUnit = unit;
-                }
+        int bestIndex = 0;
+        for (int i = 1; i < size; i++) {
+            if (returnLowest ? values[i] < values[bestIndex] : values[i] > values[bestIndex]) {
+                bestIndex = i;
             }
         }
 
-        return bestUnit;
+        return units[bestIndex];
     }
 
     // === Location-related ====================================
-    
+
     /**
      * Sorts all units according to the distance to <b>position</b>. If <b>nearestFirst</b> is true, then
      * after sorting first unit will be the one closest to given position.
@@ -203,36 +213,17 @@ public class Units {
         if (position == null) {
             return null;
         }
-        
-        ArrayList<AUnit> unitsList = new ArrayList<>();
-        unitsList.addAll(units.keySet());
-        
-        Collections.sort(unitsList, new Comparator<APositionedObject>() {
-            @Override
-            public int compare(APositionedObject p1, APositionedObject p2) {
-                if (p1 == null || !(p1 instanceof PositionedObject)) {
-                    return -1;
-                }
-                if (p2 == null || !(p2 instanceof PositionedObject)) {
-                    return 1;
-                }
-                double distance1 = p1.distanceTo(position);	//TODO: check whether this doesn't mix up position types
-                double distance2 = p2.distanceTo(position);
-                if (distance1 == distance2) {
-                    return 0;
-                }
-                else {
-                    return distance1 < distance2 ? (nearestFirst ? -1 : 1) : (nearestFirst ? 1 : -1);
-                }
-            }
-        });
-        
-        // Create new mapping, with new order
-        LinkedHashMap<AUnit, Double> newUnits = new LinkedHashMap<>();
-        for (AUnit unit : unitsList) {
-            newUnits.put(unit, getValueFor(unit));
+
+        int px = position.getX();
+        int py = position.getY();
+        int[] keys = new int[size];
+        for (int i = 0; i < size; i++) {
+            long dx = units[i].getX() - px;
+            long dy = units[i].getY() - py;
+            int distSquared = (int) Math.min(dx * dx + dy * dy, Integer.MAX_VALUE);
+            keys[i] = nearestFirst ? distSquared : -distSquared;
         }
-        this.units = newUnits;
+        sortByKeys(keys);
 
         return this;
     }
@@ -244,32 +235,18 @@ public class Units {
         if (isEmpty()) {
             return null;
         }
-        
+
         return PositionOperationsWrapper.getPositionMedian(this);
+    }
 
-//        ArrayList<Integer> xCoordinates = new ArrayList<>();
-//        ArrayList<Integer> yCoordinates = new ArrayList<>();
-//        for (AUnit unit : units.keySet()) {
-//            xCoordinates.add(unit.getPosition().getX());	//TODO: check whether position is in Pixels
-//            yCoordinates.add(unit.getPosition().getY());
-//        }
-//        Collections.sort(xCoordinates);
-//        Collections.sort(yCoordinates);
-//
-//        return new Position(
-//                xCoordinates.get(xCoordinates.size() / 2),
-//                yCoordinates.get(yCoordinates.size() / 2)
-//        );
-    }
-    
     // =========================================================
     // Override methods
     @Override
     public String toString() {
-        String string = "Units (" + units.size() + "):\n";
+        String string = "Units (" + size + "):\n";
 
-        for (AUnit unit : units.keySet()) {
-            string += "   - " + unit.getType() + " (ID:" + unit.getID() + ")\n";
+        for (int i = 0; i < size; i++) {
+            string += "   - " + units[i].getType() + " (ID:" + ids[i] + ")\n";
         }
 
         return string;
@@ -279,39 +256,176 @@ public class Units {
     // Auxiliary
     public void print() {
         System.out.println("Units in list:");
-        for (AUnit unit : list()) {
-//            System.out.println(unit + " // Dist to main base: " + (PositionUtil.distanceTo(unit, Select.mainBase())));
-            System.out.println(unit + ", extra value: " + getValueFor(unit));
+        for (int i = 0; i < size; i++) {
+            System.out.println(units[i] + ", extra value: " + values[i]);
         }
         System.out.println();
     }
 
+    private int indexOf(AUnit unit) {
+        if (!contains(unit)) {
+            return -1;
+        }
+
+        if (indexById == null) {
+            indexById = new int[members.length()];
+            for (int i = 0; i < size; i++) {
+                indexById[ids[i]] = i + 1;
+            }
+        }
+        return indexById[unit.getID()] - 1;
+    }
+
+    private void append(AUnit unit, double value) {
+        if (size == units.length) {
+            int newCapacity = size * 2;
+            units = Arrays.copyOf(units, newCapacity);
+            ids = Arrays.copyOf(ids, newCapacity);
+            values = Arrays.copyOf(values, newCapacity);
+        }
+
+        units[size] = unit;
+        ids[size] = unit.getID();
+        values[size] = value;
+        members.set(ids[size]);
+        if (indexById != null) {
+            if (ids[size] >= indexById.length) {
+                indexById = Arrays.copyOf(indexById, Math.max(ids[size] + 1, indexById.length * 2));
+            }
+            indexById[ids[size]] = size + 1;
+        }
+        size++;
+    }
+
+    private void removeAt(int index) {
+        members.clear(ids[index]);
+        indexById = null;
+
+        int toMove = size - index - 1;
+        if (toMove > 0) {
+            System.arraycopy(units, index + 1, units, index, toMove);
+            System.arraycopy(ids, index + 1, ids, index, toMove);
+            System.arraycopy(values, index + 1, values, index, toMove);
+        }
+        size--;
+        units[size] = null;
+    }
+
+    private void swap(int i, int j) {
+        indexById = null;
+
+        AUnit unit = units[i];
+        units[i] = units[j];
+        units[j] = unit;
+
+        int id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+
+        double value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+    }
+
+    /**
+     * Reorders units in place so that their <b>keys</b> (index-aligned) are ascending. Every key is packed
+     * with its index into a single long, so sorting is done on primitives only and keys stay exact.
+     */
+    private void sortByKeys(int[] keys) {
+        indexById = null;
+
+        long[] packed = new long[size];
+        for (int i = 0; i < size; i++) {
+            packed[i] = ((long) keys[i] << 32) | i;
+        }
+        Arrays.sort(packed);
+
+        AUnit[] oldUnits = Arrays.copyOf(units, size);
+        int[] oldIds = Arrays.copyOf(ids, size);
+        double[] oldValues = Arrays.copyOf(values, size);
+        for (int i = 0; i < size; i++) {
+            int from = (int) packed[i];
+            units[i] = oldUnits[from];
+            ids[i] = oldIds[from];
+            values[i] = oldValues[from];
+        }
+    }
+
     // =========================================================
     // Getters
     /**
      * Returns iterable collection of units in this object.
      */
     public Collection<AUnit> list() {
-        ArrayList<AUnit> copy = new ArrayList<AUnit>();
-        copy.addAll(units.keySet());
-        return copy;
+        return arrayList();
     }
 
     /**
      * Returns iterable ArrayList of units in this object.
      */
     public ArrayList<AUnit> arrayList() {
-        ArrayList<AUnit> copy = new ArrayList<AUnit>();
-        copy.addAll(units.keySet());
+        ArrayList<AUnit> copy = new ArrayList<AUnit>(size);
+        for (int i = 0; i < size; i++) {
+            copy.add(units[i]);
+        }
         return copy;
     }
 
+    /**
+     * Returns X coordinates (in pixels) of all units, index-aligned with <b>get(index)</b>.
+     */
+    public int[] xCoordinates() {
+        int[] xCoordinates = new int[size];
+        for (int i = 0; i < size; i++) {
+            xCoordinates[i] = units[i].getX();
+        }
+        return xCoordinates;
+    }
+
+    /**
+     * Returns Y coordinates (in pixels) of all units, index-aligned with <b>get(index)</b>.
+     */
+    public int[] yCoordinates() {
+        int[] yCoordinates = new int[size];
+        for (int i = 0; i < size; i++) {
+            yCoordinates[i] = units[i].getY();
+        }
+        return yCoordinates;
+    }
+
     /**
      * @return iterator object for inner collection with the units.
      *
      */
     public Iterator<AUnit> iterator() {
-        return units.keySet().iterator();
+        return new Iterator<AUnit>() {
+            private int cursor = 0;
+            private int lastReturned = -1;
+
+            @Override
+            public boolean hasNext() {
+                return cursor < size;
+            }
+
+            @Override
+            public AUnit next() {
+                if (cursor >= size) {
+                    throw new NoSuchElementException();
+                }
+                lastReturned = cursor++;
+                return units[lastReturned];
+            }
+
+            @Override
+            public void remove() {
+                if (lastReturned < 0) {
+                    throw new IllegalStateException();
+                }
+                removeAt(lastReturned);
+                cursor = lastReturned;
+                lastReturned = -1;
+            }
+        };
     }
 
 }
@@ -1,6 +1,6 @@
 package atlantis.util;
 
-import atlantis.position.APosition;
+import atlantis.position.APositionedObject;
 import atlantis.units.AUnit;
 import atlantis.units.AUnitType;
 import bwapi.Position;
@@ -12,52 +12,18 @@ public class PositionUtil {
      * Returns distance from one position to other in build tiles. One build tile equals to 32 pixels. Usage
      * of build tiles instead of pixels is preferable, because it's easier to imagine distances if one knows
      * building dimensions.
+     * <br /><br />
+     * Prefer typed variants below, this one only dispatches on the runtime types.
      */
     public static double distanceTo(Object object1, Object object2) {
-//        if (object1 == null || object2 == null) {
-//            return -1;
-//        }
-        
-        // === Convert object1 to position or unit ====================
-        
-        Position fromPosition = null;
-        Unit fromUnit = null;
-        
-        if (object1 instanceof AUnit) {
-            fromUnit = ((AUnit) object1).u();
-        }
-        else if (object1 instanceof Unit) {
-            fromUnit = (Unit) object1;
-        }
-        else if (object1 instanceof APosition) {
-            fromPosition = (APosition) object1;
-        }
-        else if (object1 instanceof Position) {
-            fromPosition = (Position) object1;
-        }
+        AUnit fromUnit = toUnit(object1);
+        AUnit toUnit = toUnit(object2);
+        Position fromPosition = fromUnit == null ? toPosition(object1) : null;
+        Position toPosition = toUnit == null ? toPosition(object2) : null;
         
         if (fromPosition == null && fromUnit == null) {
             throw new RuntimeException("Invalid class for argument `from`: " + object1);
         }
-        
-        // === Convert object2 to position or unit ===================
-        
-        Position toPosition = null;
-        Unit toUnit = null;
-        
-        if (object2 instanceof AUnit) {
-            toUnit = ((AUnit) object2).u();
-        }
-        else if (object2 instanceof Unit) {
-            toUnit = (Unit) object2;
-        }
-        else if (object2 instanceof APosition) {
-            toPosition = (APosition) object2;
-        }
-        else if (object2 instanceof Position) {
-            toPosition = (Position) object2;
-        }
-        
         if (toPosition == null && toUnit == null) {
             throw new RuntimeException("Invalid class for argument `to`: " + object2);
         }
@@ -66,26 +32,190 @@ public class PositionUtil {
 
         // From is POSITION
         if (fromPosition != null) {
-            if (toPosition != null) {
-                return (double) fromPosition.getDistance(toPosition) / 32;
-            }
-            else {
-                return (double) fromPosition.getDistance(toUnit) / 32;
-            }
+            return toPosition != null ? distanceTo(fromPosition, toPosition) : distanceTo(toUnit, fromPosition);
         }
         
         // From is UNIT
         else {
-            if (toPosition != null) {
-                return (double) fromUnit.getDistance(toPosition) / 32;
+            return toPosition != null ? distanceTo(fromUnit, toPosition) : distanceTo(fromUnit, toUnit);
+        }
+    }
+    
+    // === Typed distance kernel ===============================
+    
+    /**
+     * Returns edge-to-edge distance (in build tiles) between two units, using unit type dimensions and the
+     * approximate distance formula the same way BWAPI does (and the game engine for weapon ranges).
+     */
+    public static double distanceTo(AUnit unit, AUnit otherUnit) {
+        return Math.sqrt(distanceSquaredPx(unit, otherUnit)) / 32;
+    }
+    
+    /**
+     * Returns distance (in build tiles) from the edge of the unit to given position.
+     */
+    public static double distanceTo(AUnit unit, Position position) {
+        return Math.sqrt(distanceSquaredPx(unit, position)) / 32;
+    }
+    
+    /**
+     * Returns distance (in build tiles) from given position to the edge of the unit.
+     */
+    public static double distanceTo(Position position, AUnit unit) {
+        return distanceTo(unit, position);
+    }
+    
+    /**
+     * Returns distance (in build tiles) between two positions.
+     */
+    public static double distanceTo(Position position, Position otherPosition) {
+        return Math.sqrt(distanceSquaredPx(position, otherPosition)) / 32;
+    }
+    
+    /**
+     * Returns squared edge-to-edge distance in pixels between two units, see <b>edgeDistanceSquaredPx()</b>.
+     */
+    public static int distanceSquaredPx(AUnit unit, AUnit otherUnit) {
+        AUnitType type = unit.getType();
+        AUnitType otherType = otherUnit.getType();
+        int x = unit.getX();
+        int y = unit.getY();
+        int otherX = otherUnit.getX();
+        int otherY = otherUnit.getY();
+        
+        return edgeDistanceSquaredPx(
+                x - type.getDimensionLeft(), y - type.getDimensionUp(),
+                x + type.getDimensionRight(), y + type.getDimensionDown(),
+                otherX - otherType.getDimensionLeft() - 1, otherY - otherType.getDimensionUp() - 1,
+                otherX + otherType.getDimensionRight() + 1, otherY + otherType.getDimensionDown() + 1
+        );
+    }
+    
+    /**
+     * Returns squared distance in pixels from the edge of the unit to given position, see
+     * <b>edgeDistanceSquaredPx()</b>.
+     */
+    public static int distanceSquaredPx(AUnit unit, Position position) {
+        AUnitType type = unit.getType();
+        int x = unit.getX();
+        int y = unit.getY();
+        int px = position.getX();
+        int py = position.getY();
+        
+        return edgeDistanceSquaredPx(
+                x - type.getDimensionLeft(), y - type.getDimensionUp(),
+                x + type.getDimensionRight(), y + type.getDimensionDown(),
+                px - 1, py - 1, px + 1, py + 1
+        );
+    }
+    
+    /**
+     * Returns squared distance in pixels between two positions.
+     */
+    public static int distanceSquaredPx(Position position, Position otherPosition) {
+        int dx = position.getX() - otherPosition.getX();
+        int dy = position.getY() - otherPosition.getY();
+        return dx * dx + dy * dy;
+    }
+    
+    /**
+     * Returns true if edge-to-edge distance between units is at most <b>maxDistTiles</b>. Doesn't use sqrt.
+     */
+    public static boolean isInRadius(AUnit unit, AUnit otherUnit, double maxDistTiles) {
+        return maxDistTiles >= 0 && distanceSquaredPx(unit, otherUnit) <= radiusSquaredPx(maxDistTiles);
+    }
+    
+    /**
+     * Returns true if distance from the edge of the unit to position is at most <b>maxDistTiles</b>. 
+     * Doesn't use sqrt.
+     */
+    public static boolean isInRadius(AUnit unit, Position position, double maxDistTiles) {
+        return maxDistTiles >= 0 && distanceSquaredPx(unit, position) <= radiusSquaredPx(maxDistTiles);
+    }
+    
+    /**
+     * Returns true if distance between positions is at most <b>maxDistTiles</b>. Doesn't use sqrt.
+     */
+    public static boolean isInRadius(Position position, Position otherPosition, double maxDistTiles) {
+        return maxDistTiles >= 0 && distanceSquaredPx(position, otherPosition) <= radiusSquaredPx(maxDistTiles);
+    }
+    
+    /**
+     * Converts radius in build tiles into squared radius in pixels.
+     */
+    public static double radiusSquaredPx(double radiusTiles) {
+        double radiusPx = radiusTiles * 32;
+        return radiusPx * radiusPx;
+    }
+    
+    /**
+     * Squared distance in pixels between rectangle [left, top, right, bottom] and the other one, BWAPI
+     * style. Pass the other rectangle already expanded by 1 pixel, like unit-to-unit methods above do.
+     * <br /><br />
+     * The distance is <b>approxDistancePx()</b> like in BWAPI's Unit.getDistance(), not the Euclidean one,
+     * so range checks agree with the game. It's only squared, so it can be compared with squared radiuses.
+     */
+    public static int edgeDistanceSquaredPx(int left, int top, int right, int bottom,
+            int otherLeft, int otherTop, int otherRight, int otherBottom) {
+        int xDist = left - otherRight;
+        if (xDist < 0) {
+            xDist = otherLeft - right;
+            if (xDist < 0) {
+                xDist = 0;
             }
-            
-            // UNIT to UNIT distance - can be cached
-            else {
-//                return (double) fromUnit.getDistance(toUnit) / 32;
-                return AUnit.unitDistancesCached.getDistanceBetweenUnits(fromUnit, toUnit);
+        }
+        
+        int yDist = top - otherBottom;
+        if (yDist < 0) {
+            yDist = otherTop - bottom;
+            if (yDist < 0) {
+                yDist = 0;
             }
         }
+        
+        int distance = approxDistancePx(xDist, yDist);
+        return distance * distance;
+    }
+    
+    /**
+     * Approximate length of vector [dx, dy] in pixels, computed exactly like the game engine (and BWAPI's
+     * getApproxDistance()) does it, so it can be up to a few percent off the Euclidean one.
+     */
+    public static int approxDistancePx(int dx, int dy) {
+        int min = Math.abs(dx);
+        int max = Math.abs(dy);
+        if (max < min) {
+            int swap = min;
+            min = max;
+            max = swap;
+        }
+        
+        if (min < (max >> 2)) {
+            return max;
+        }
+        
+        int minCalc = (3 * min) >> 3;
+        return (minCalc >> 5) + minCalc + max - (max >> 4) - (max >> 6);
+    }
+    
+    private static AUnit toUnit(Object object) {
+        if (object instanceof AUnit) {
+            return (AUnit) object;
+        }
+        else if (object instanceof Unit) {
+            return AUnit.createFrom((Unit) object);
+        }
+        return null;
+    }
+    
+    private static Position toPosition(Object object) {
+        if (object instanceof Position) {
+            return (Position) object;
+        }
+        else if (object instanceof APositionedObject) {
+            return ((APositionedObject) object).getPosition();
+        }
+        return null;
     }
     
 //    public static double distanceTo(Position one, Position other) {
@@ -142,28 +272,19 @@ public class PositionUtil {
      */
     public static double getEdgeToEdgeDistanceBetween(AUnit building, Position positionForNewBuilding,
             AUnitType newBuildingType) {
-        int targetRight = positionForNewBuilding.getX() + newBuildingType.ut().dimensionRight(); //dimension* returns distance in pixels
-        int targetLeft = positionForNewBuilding.getX() - newBuildingType.ut().dimensionLeft();
-        int targetTop = positionForNewBuilding.getY() - newBuildingType.ut().dimensionUp();
-        int targetBottom = positionForNewBuilding.getY() + newBuildingType.ut().dimensionDown();
-
-        //TODO: check whether get{Left,Right,Top,Bottom}PixelBoundary replacements have expected behavior
-        //get{left,right,top,bottom} returns distances in pixels
-        int xDist = building.getType().ut().dimensionLeft() - (targetRight + 1);
-        if (xDist < 0) {
-            xDist = targetLeft - (building.getType().ut().dimensionRight()+ 1);
-            if (xDist < 0) {
-                xDist = 0;
-            }
-        }
-        int yDist = building.getType().ut().dimensionUp()- (targetBottom + 1);
-        if (yDist < 0) {
-            yDist = targetTop - (building.getType().ut().dimensionDown()+ 1);
-            if (yDist < 0) {
-                yDist = 0;
-            }
-        }
-        return PositionUtil.distanceTo(new Position(0, 0), new Position(xDist, yDist));
+        AUnitType buildingType = building.getType();
+        int x = building.getX();
+        int y = building.getY();
+        int newX = positionForNewBuilding.getX();
+        int newY = positionForNewBuilding.getY();
+        
+        int distSquared = edgeDistanceSquaredPx(
+                x - buildingType.getDimensionLeft(), y - buildingType.getDimensionUp(),
+                x + buildingType.getDimensionRight(), y + buildingType.getDimensionDown(),
+                newX - newBuildingType.getDimensionLeft() - 1, newY - newBuildingType.getDimensionUp() - 1,
+                newX + newBuildingType.getDimensionRight() + 1, newY + newBuildingType.getDimensionDown() + 1
+        );
+        return Math.sqrt(distSquared) / 32;
     }
     
 }
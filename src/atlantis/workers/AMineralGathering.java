@@ -2,22 +2,49 @@ package atlantis.workers;
 
 import atlantis.AGame;
 import atlantis.units.AUnit;
+import atlantis.units.AUnitRole;
+import atlantis.units.AUnitRoles;
 import atlantis.units.Select;
+import atlantis.util.PositionUtil;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-
-
 
 /**
- * Auxiliary class that's supposed to assign workers to minerals at the beginning of game.
+ * Assigns workers to minerals, using persistent mining model of every base (see <b>AMiningBase</b>).
+ * <br /><br />
+ * Saturation of every mineral field is maintained from events (gather orders, worker taken for other job,
+ * unit destroyed) instead of being recounted from all workers, so choosing a mineral for a worker doesn't
+ * depend on the number of workers.
  */
 public class AMineralGathering {
 
     /**
-     * Assign all 4 workers to optimal (closest) minerals fields.
+     * Bases closer than this (in tiles) are considered the same mining location, no transfers between them.
+     */
+    private static final double MIN_TRANSFER_DISTANCE = 6;
+
+    /**
+     * Mining model for every base of ours.
+     */
+    private static final Map<AUnit, AMiningBase> miningBases = new HashMap<>();
+
+    /**
+     * Patch for every mineral field belonging to any of our bases.
+     */
+    private static final Map<AUnit, AMineralPatch> patchesByMineral = new HashMap<>();
+
+    /**
+     * Patch every worker is assigned to.
+     */
+    private static final Map<AUnit, AMineralPatch> workerPatches = new HashMap<>();
+
+    // =========================================================
+
+    /**
+     * Assign all initial workers to optimal (closest) minerals fields.
      */
     public static void initialAssignWorkersToMinerals() {
         AUnit mainBase = Select.mainBase();
@@ -26,23 +53,15 @@ public class AMineralGathering {
             AGame.setUmtMode(true);
             return;
         }
-        
-        // =========================================================
-
-        // Get minerals near to our main base and sort them from closest to most distant one
-        List<AUnit> minerals = (List<AUnit>) Select.minerals().inRadius(12, mainBase)
-                .sortDataByDistanceTo(mainBase.getPosition(), true);
-
-        // Get our workers
-        Collection<AUnit> workers = Select.ourWorkers().listUnits();
 
-        // Assign every worker to the next free mineral
-        int counter = 0;
-        for (AUnit unit : workers) {
-            AUnit mineral = minerals.get(counter);
-            unit.gather(mineral);
+        // =========================================================
 
-            counter++;
+        AMiningBase miningBase = getMiningBase(mainBase);
+        for (AUnit worker : Select.ourWorkers().listUnits()) {
+            AMineralPatch patch = miningBase.getBestPatch();
+            if (patch != null) {
+                worker.gather(patch.getMineral());
+            }
         }
     }
 
@@ -56,67 +75,191 @@ public class AMineralGathering {
         }
     }
 
+    /**
+     * Every base should have similar saturation. Moves at most one worker from an oversaturated base to a
+     * base with free mineral slots.
+     */
+    public static void transferWorkersBetweenBasesIfNeeded() {
+
+        // Don't run every frame
+        if (AGame.getTimeFrames() % 30 != 0 || miningBases.size() <= 1) {
+            return;
+        }
+
+        // =========================================================
+
+        AMiningBase mostSaturated = null;
+        AMiningBase leastSaturated = null;
+        for (AMiningBase miningBase : miningBases.values()) {
+            if (mostSaturated == null || miningBase.getFreeSlots() < mostSaturated.getFreeSlots()) {
+                mostSaturated = miningBase;
+            }
+            if (leastSaturated == null || miningBase.getFreeSlots() > leastSaturated.getFreeSlots()) {
+                leastSaturated = miningBase;
+            }
+        }
+
+        if (mostSaturated.getFreeSlots() >= 0 || leastSaturated.getFreeSlots() <= 0
+                || PositionUtil.distanceTo(mostSaturated.getBase(), leastSaturated.getBase()) < MIN_TRANSFER_DISTANCE) {
+            return;
+        }
+
+        // === Perform worker transfer from base to base ========================================
+
+        AMineralPatch targetPatch = leastSaturated.getBestPatch();
+        for (Map.Entry<AUnit, AMineralPatch> entry : workerPatches.entrySet()) {
+            AUnit worker = entry.getKey();
+            if (entry.getValue().getMiningBase() == mostSaturated && !worker.isCarryingMinerals()) {
+                worker.gather(targetPatch.getMineral());
+                return;
+            }
+        }
+    }
+
+    // === Events ==============================================
+
+    /**
+     * Called for every gather order issued to our worker. Keeps saturation of mineral fields up to date.
+     */
+    public static void onGatherOrder(AUnit worker, AUnit target) {
+        AMineralPatch currentPatch = workerPatches.get(worker);
+        AMineralPatch newPatch = patchesByMineral.get(target);
+        if (currentPatch == newPatch) {
+            return;
+        }
+
+        releaseWorker(worker);
+        if (newPatch != null) {
+            newPatch.addWorker();
+            workerPatches.put(worker, newPatch);
+            AUnitRoles.assign(worker, AUnitRole.MINERAL);
+        }
+    }
+
+    /**
+     * Worker no longer gathers minerals e.g. it became a builder, a scout or a repairer.
+     */
+    public static void releaseWorker(AUnit worker) {
+        AMineralPatch patch = workerPatches.remove(worker);
+        if (patch != null) {
+            patch.removeWorker();
+            AUnitRoles.release(worker, AUnitRole.MINERAL);
+        }
+    }
+
+    /**
+     * Called when any unit gets destroyed. Handles dead workers, mined out mineral fields and lost bases.
+     */
+    public static void onUnitDestroyed(AUnit unit) {
+        if (unit.isWorker()) {
+            releaseWorker(unit);
+        }
+        else if (unit.getType().isMineralField()) {
+            AMineralPatch patch = patchesByMineral.remove(unit);
+            if (patch != null) {
+                releaseWorkersOf(patch.getMiningBase(), patch);
+                patch.getMiningBase().removePatch(patch);
+            }
+        }
+        else if (miningBases.containsKey(unit)) {
+            AMiningBase miningBase = miningBases.remove(unit);
+            for (AMineralPatch patch : miningBase.getPatches()) {
+                patchesByMineral.remove(patch.getMineral());
+            }
+            releaseWorkersOf(miningBase, null);
+        }
+    }
+
     // =========================================================
-    
-    private static AUnit getMineralFieldToGather(AUnit worker) {
 
-        // Get nearest base for this unit
-        AUnit base = Select.ourBases().nearestTo(worker);
-        if (base == null) {
+    private static AUnit getMineralFieldToGather(AUnit worker) {
+        AMiningBase miningBase = getMiningBaseFor(worker);
+        if (miningBase == null) {
             return null;
         }
 
-        // Get minerals near to our main base and sort them from closest to most distant one
-        List<AUnit> minerals = (List<AUnit>) Select.minerals().inRadius(12, base).listUnits();
-        if (!minerals.isEmpty()) {
-
-            // Count how many other workers gather this mineral
-            Map<AUnit, Integer> workersPerMineral = new HashMap<>();
-
-            Collection<AUnit> ourWorkersInRange = (Collection<AUnit>) Select.ourWorkers().inRadius(12, base).list();
-//            for (AUnit otherWorker : ourWorkersInRange) {
-//                if (otherWorker.isGatheringMinerals()) {
-//                    AUnit mineralMined = otherWorker.getTarget();
-//                    if (mineralMined != null) {
-//                        //increments the number of workers in this mineral
-//                        int previousNumber = (workersPerMineral.get(mineralMined) == null ? 0 : workersPerMineral.get(mineralMined));
-//                        workersPerMineral.put(mineralMined, previousNumber + 1);
-//                        //minerals.changeValueBy(mineralMined, 1);
-//                    }
-//                }
-//            }
-            for (AUnit mineral : minerals) {
-                for (AUnit ourWorker : ourWorkersInRange) {
-                    AUnit mineralMinedByWorker = ourWorker.getTarget();
-                    if (ourWorker.isGatheringMinerals() && mineral.equals(mineralMinedByWorker)) {
-                        workersPerMineral.put(mineralMinedByWorker, (workersPerMineral.containsKey(mineral) ? 
-                                workersPerMineral.get(mineralMinedByWorker) : 0) + 1);
-                    }
-                    else {
-                        if (!workersPerMineral.containsKey(mineral)) {
-                            workersPerMineral.put(mineral, 0);
-                        }
-                    }
-                }
+        // This is our optimal mineral to gather near given unit
+        AMineralPatch patch = miningBase.getBestPatch();
+        if (patch != null) {
+            return patch.getMineral();
+        }
+
+        // If no minerals found, return nearest mineral
+        else {
+            return Select.minerals().nearestTo(miningBase.getBase());
+        }
+    }
+
+    /**
+     * Returns the nearest base which still has free mineral slots or the nearest base if all are saturated.
+     */
+    private static AMiningBase getMiningBaseFor(AUnit worker) {
+        AMiningBase nearest = null;
+        AMiningBase nearestWithFreeSlots = null;
+        double nearestDist = Double.MAX_VALUE;
+        double nearestWithFreeSlotsDist = Double.MAX_VALUE;
+
+        for (AUnit base : Select.ourBases().listUnits()) {
+            AMiningBase miningBase = getMiningBase(base);
+            double dist = PositionUtil.distanceTo(worker, base);
+            if (dist < nearestDist) {
+                nearestDist = dist;
+                nearest = miningBase;
+            }
+            if (miningBase.getFreeSlots() > 0 && dist < nearestWithFreeSlotsDist) {
+                nearestWithFreeSlotsDist = dist;
+                nearestWithFreeSlots = miningBase;
             }
+        }
 
-            // Get least gathered mineral
-            AUnit leastGatheredMineral = null;
-            int minimumWorkersPerMineral = 1000;
-            for (Entry<AUnit, Integer> workersAtMineral : workersPerMineral.entrySet()) {
-                if (workersAtMineral.getValue() < minimumWorkersPerMineral) {
-                    minimumWorkersPerMineral = workersAtMineral.getValue();
-                    leastGatheredMineral = workersAtMineral.getKey();
-                    break;
-                }
+        return nearestWithFreeSlots != null ? nearestWithFreeSlots : nearest;
+    }
+
+    /**
+     * Returns mining model for given base, creating it when the base is seen for the first time.
+     */
+    private static AMiningBase getMiningBase(AUnit base) {
+        AMiningBase miningBase = miningBases.get(base);
+        if (miningBase == null) {
+            miningBase = new AMiningBase(base);
+            miningBases.put(base, miningBase);
+            for (AMineralPatch patch : miningBase.getPatches()) {
+                patchesByMineral.put(patch.getMineral(), patch);
             }
+        }
+        return miningBase;
+    }
 
-            // This is our optimal mineral to gather near given unit
-            return leastGatheredMineral;
-        } // If no minerals found, return nearest mineral
-        else {
-            return Select.minerals().nearestTo(base);
+    /**
+     * Releases all workers assigned to given patch, or to any patch of the base if <b>patch</b> is null.
+     * Released workers will get new mineral once they become idle.
+     */
+    private static void releaseWorkersOf(AMiningBase miningBase, AMineralPatch patch) {
+        List<AUnit> toRelease = new ArrayList<>();
+        for (Map.Entry<AUnit, AMineralPatch> entry : workerPatches.entrySet()) {
+            if (patch != null ? entry.getValue() == patch : entry.getValue().getMiningBase() == miningBase) {
+                toRelease.add(entry.getKey());
+            }
+        }
+        for (AUnit worker : toRelease) {
+            releaseWorker(worker);
         }
     }
 
+    // =========================================================
+
+    /**
+     * Returns mineral patch given worker is assigned to or null.
+     */
+    public static AMineralPatch getPatchOf(AUnit worker) {
+        return workerPatches.get(worker);
+    }
+
+    /**
+     * Returns mining models of all our bases.
+     */
+    public static Collection<AMiningBase> getMiningBases() {
+        return miningBases.values();
+    }
+
 }
@@ -0,0 +1,76 @@
+package atlantis.workers;
+
+import atlantis.units.AUnit;
+import atlantis.util.PositionUtil;
+
+/**
+ * Single mineral field as seen by the mining model: its base, round-trip distance between the mineral and
+ * the base and number of workers currently assigned to it.
+ */
+public class AMineralPatch {
+
+    private final AUnit mineral;
+    private final AMiningBase miningBase;
+
+    /**
+     * Round-trip distance in tiles, measured edge-to-edge between the mineral field and the base.
+     */
+    private final double roundTrip;
+
+    /**
+     * Number of workers assigned to this mineral field, maintained from gather orders and worker events.
+     */
+    private int workers = 0;
+
+    // =========================================================
+
+    protected AMineralPatch(AUnit mineral, AMiningBase miningBase) {
+        this.mineral = mineral;
+        this.miningBase = miningBase;
+        this.roundTrip = 2 * PositionUtil.distanceTo(mineral, miningBase.getBase());
+    }
+
+    // =========================================================
+
+    protected void addWorker() {
+        workers++;
+        miningBase.changeWorkersBy(+1);
+    }
+
+    protected void removeWorker() {
+        workers--;
+        miningBase.changeWorkersBy(-1);
+    }
+
+    /**
+     * Returns true if adding another worker to this mineral wouldn't increase its income.
+     */
+    public boolean isSaturated() {
+        return workers >= AMiningBase.OPTIMAL_WORKERS_PER_PATCH;
+    }
+
+    // =========================================================
+
+    public AUnit getMineral() {
+        return mineral;
+    }
+
+    public AMiningBase getMiningBase() {
+        return miningBase;
+    }
+
+    public double getRoundTrip() {
+        return roundTrip;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    @Override
+    public String toString() {
+        return "AMineralPatch{" + mineral + ", roundTrip=" + String.format("%.1f", roundTrip)
+                + ", workers=" + workers + "}";
+    }
+
+}
@@ -0,0 +1,107 @@
+package atlantis.workers;
+
+import atlantis.units.AUnit;
+import atlantis.units.Select;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Mining model of a single base of ours: mineral patches around it, ordered by round-trip distance to the
+ * base (closest first), and saturation of every patch.
+ * <br /><br />
+ * Patches are discovered only once, when the model is created. Later they're removed one by one as they
+ * get mined out.
+ */
+public class AMiningBase {
+
+    /**
+     * Number of workers per mineral field above which income of the field doesn't grow.
+     */
+    public static final int OPTIMAL_WORKERS_PER_PATCH = 2;
+
+    /**
+     * Mineral fields within this radius (in tiles) from the base belong to it.
+     */
+    private static final double MINERALS_RADIUS = 12;
+
+    private final AUnit base;
+
+    /**
+     * Patches sorted by round-trip distance, closest first.
+     */
+    private final List<AMineralPatch> patches = new ArrayList<>();
+
+    private int workers = 0;
+
+    // =========================================================
+
+    protected AMiningBase(AUnit base) {
+        this.base = base;
+
+        for (AUnit mineral : Select.minerals().inRadius(MINERALS_RADIUS, base).listUnits()) {
+            patches.add(new AMineralPatch(mineral, this));
+        }
+        Collections.sort(patches, new Comparator<AMineralPatch>() {
+            @Override
+            public int compare(AMineralPatch p1, AMineralPatch p2) {
+                return Double.compare(p1.getRoundTrip(), p2.getRoundTrip());
+            }
+        });
+    }
+
+    // =========================================================
+
+    /**
+     * Returns patch the next worker should be sent to: the closest one without any worker, then the
+     * closest one with a single worker and so on. Returns null if there are no minerals left.
+     * <br /><br />
+     * Number of patches near a base is a small constant (usually 8-9), so this is constant-time.
+     */
+    public AMineralPatch getBestPatch() {
+        AMineralPatch best = null;
+        for (AMineralPatch patch : patches) {
+            if (best == null || patch.getWorkers() < best.getWorkers()) {
+                best = patch;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns how many more workers could be assigned to this base before it's saturated. Negative if
+     * the base is oversaturated.
+     */
+    public int getFreeSlots() {
+        return patches.size() * OPTIMAL_WORKERS_PER_PATCH - workers;
+    }
+
+    protected void removePatch(AMineralPatch patch) {
+        patches.remove(patch);
+    }
+
+    protected void changeWorkersBy(int delta) {
+        workers += delta;
+    }
+
+    // =========================================================
+
+    public AUnit getBase() {
+        return base;
+    }
+
+    public List<AMineralPatch> getPatches() {
+        return patches;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    @Override
+    public String toString() {
+        return "AMiningBase{" + base + ", patches=" + patches.size() + ", workers=" + workers + "}";
+    }
+
+}
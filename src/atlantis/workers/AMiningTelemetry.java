@@ -0,0 +1,329 @@
+package atlantis.workers;
+
+import atlantis.AGame;
+import atlantis.units.AUnit;
+import bwapi.Order;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Economy telemetry: records mining trips of every worker (trip duration, time spent waiting at the mineral
+ * field, bounces to other fields) and aggregates them per mineral patch and per base into rolling income.
+ * <br /><br />
+ * Observing a worker costs two or three BWAPI calls, so it's cheap enough to stay enabled in tournaments. Use it to
+ * tell whether a change to gathering helps or hurts.
+ */
+public class AMiningTelemetry {
+
+    /**
+     * Turn off to skip all observations.
+     */
+    public static boolean ENABLED = true;
+
+    /**
+     * Minerals delivered by a single worker trip.
+     */
+    private static final int MINERALS_PER_TRIP = 8;
+
+    /**
+     * Rolling income window is one game minute at the fastest speed, split into one-second buckets.
+     */
+    private static final int FRAMES_PER_BUCKET = 24;
+    private static final int BUCKETS = 60;
+
+    // =========================================================
+
+    private static final Map<AUnit, WorkerStats> workers = new HashMap<>();
+    private static final Map<AUnit, PatchStats> patches = new HashMap<>();
+    private static final Map<AUnit, IncomeWindow> baseIncome = new HashMap<>();
+    private static final IncomeWindow totalIncome = new IncomeWindow();
+
+    /**
+     * Trips of workers that are gone (dead or morphed), so that the average trip covers the whole game.
+     */
+    private static long retiredTrips = 0;
+    private static long retiredTripFramesTotal = 0;
+
+    private static int idleWorkers = 0;
+    private static int idleWorkersFrame = -1;
+    private static int idleWorkerFramesTotal = 0;
+
+    // =========================================================
+    // Observations
+
+    /**
+     * Called every frame for every worker gathering minerals.
+     */
+    public static void observeMiningWorker(AUnit worker) {
+        if (!ENABLED) {
+            return;
+        }
+
+        int frame = AGame.getTimeFrames();
+        WorkerStats stats = workers.get(worker);
+        if (stats == null) {
+            stats = new WorkerStats();
+            workers.put(worker, stats);
+        }
+
+        boolean isCarrying = worker.isCarryingMinerals();
+        Order order = worker.u().getOrder();
+        AMineralPatch patch = AMineralGathering.getPatchOf(worker);
+
+        // === Returned cargo - trip ends and the next one starts ==============
+
+        if (stats.wasCarrying && !isCarrying) {
+            if (stats.tripStartFrame >= 0) {
+                int tripFrames = frame - stats.tripStartFrame;
+                stats.trips++;
+                stats.tripFramesTotal += tripFrames;
+                if (patch != null) {
+                    patchStats(patch).recordTrip(tripFrames);
+                }
+            }
+            if (patch != null) {
+                incomeWindow(patch.getMiningBase().getBase()).add(frame, MINERALS_PER_TRIP);
+            }
+            totalIncome.add(frame, MINERALS_PER_TRIP);
+            stats.tripStartFrame = frame;
+        }
+        stats.wasCarrying = isCarrying;
+
+        // === Waiting at the mineral field ====================================
+
+        if (Order.WaitForMinerals.equals(order)) {
+            if (stats.waitStartFrame < 0) {
+                stats.waitStartFrame = frame;
+            }
+        }
+        else if (stats.waitStartFrame >= 0) {
+            if (patch != null) {
+                patchStats(patch).waitFramesTotal += frame - stats.waitStartFrame;
+            }
+            stats.waitStartFrame = -1;
+        }
+
+        // === Bounce - mineral field was taken, Starcraft sends worker elsewhere
+
+        if (!isCarrying && (Order.MoveToMinerals.equals(order) || Order.WaitForMinerals.equals(order))) {
+            AUnit mineral = worker.getOrderTarget();
+            if (mineral != null) {
+                if (stats.lastMineral != null && !stats.lastMineral.equals(mineral) && patch != null
+                        && !patch.getMineral().equals(mineral)) {
+                    patchStats(patch).bounces++;
+                }
+                stats.lastMineral = mineral;
+            }
+        }
+    }
+
+    /**
+     * Called for every worker that has nothing to do in the current frame.
+     */
+    public static void observeIdleWorker(AUnit worker) {
+        if (!ENABLED) {
+            return;
+        }
+
+        int frame = AGame.getTimeFrames();
+        if (idleWorkersFrame != frame) {
+            idleWorkersFrame = frame;
+            idleWorkers = 0;
+        }
+        idleWorkers++;
+        idleWorkerFramesTotal++;
+    }
+
+    // =========================================================
+    // Events
+
+    /**
+     * Forgets stats of destroyed worker, mined out mineral field or lost base.
+     */
+    public static void onUnitDestroyed(AUnit unit) {
+        if (unit.isWorker()) {
+            releaseWorker(unit);
+        }
+        else if (unit.getType().isMineralField()) {
+            patches.remove(unit);
+        }
+        else {
+            baseIncome.remove(unit);
+        }
+    }
+
+    /**
+     * Worker is gone (e.g. drone morphed into a building), its trips are kept only in the totals.
+     */
+    public static void releaseWorker(AUnit worker) {
+        WorkerStats stats = workers.remove(worker);
+        if (stats != null) {
+            retiredTrips += stats.trips;
+            retiredTripFramesTotal += stats.tripFramesTotal;
+        }
+    }
+
+    // =========================================================
+    // Metrics
+
+    /**
+     * Minerals gathered during the last game minute, by all workers.
+     */
+    public static int getIncomePerMinute() {
+        return totalIncome.sum(AGame.getTimeFrames());
+    }
+
+    /**
+     * Minerals gathered during the last game minute, by workers assigned to given base.
+     */
+    public static int getIncomePerMinute(AUnit base) {
+        IncomeWindow window = baseIncome.get(base);
+        return window != null ? window.sum(AGame.getTimeFrames()) : 0;
+    }
+
+    /**
+     * Income per minute divided by the number of workers mining minerals.
+     */
+    public static double getIncomePerWorker() {
+        int miningWorkers = 0;
+        for (AMiningBase miningBase : AMineralGathering.getMiningBases()) {
+            miningWorkers += miningBase.getWorkers();
+        }
+        return miningWorkers > 0 ? (double) getIncomePerMinute() / miningWorkers : 0;
+    }
+
+    /**
+     * Average duration of a mining trip (patch - base - patch) in frames, for all workers.
+     */
+    public static double getAverageTripFrames() {
+        long trips = retiredTrips;
+        long frames = retiredTripFramesTotal;
+        for (WorkerStats stats : workers.values()) {
+            trips += stats.trips;
+            frames += stats.tripFramesTotal;
+        }
+        return trips > 0 ? (double) frames / trips : 0;
+    }
+
+    /**
+     * Number of idle workers in the current frame.
+     */
+    public static int getIdleWorkers() {
+        return idleWorkersFrame == AGame.getTimeFrames() ? idleWorkers : 0;
+    }
+
+    /**
+     * Prints summary of the whole game to the console.
+     */
+    public static void printSummary() {
+        System.out.println();
+        System.out.println("=== Mining telemetry ===");
+        System.out.println("Income per minute: " + getIncomePerMinute()
+                + ", per worker: " + String.format("%.1f", getIncomePerWorker()));
+        System.out.println("Average trip: " + String.format("%.1f", getAverageTripFrames()) + " frames"
+                + ", idle worker frames: " + idleWorkerFramesTotal);
+
+        for (AMiningBase miningBase : AMineralGathering.getMiningBases()) {
+            System.out.println(miningBase + ", income per minute: " + getIncomePerMinute(miningBase.getBase()));
+            for (AMineralPatch patch : miningBase.getPatches()) {
+                PatchStats stats = patches.get(patch.getMineral());
+                if (stats != null) {
+                    System.out.println("   - " + patch + ", " + stats);
+                }
+            }
+        }
+    }
+
+    // =========================================================
+
+    private static PatchStats patchStats(AMineralPatch patch) {
+        PatchStats stats = patches.get(patch.getMineral());
+        if (stats == null) {
+            stats = new PatchStats();
+            patches.put(patch.getMineral(), stats);
+        }
+        return stats;
+    }
+
+    private static IncomeWindow incomeWindow(AUnit base) {
+        IncomeWindow window = baseIncome.get(base);
+        if (window == null) {
+            window = new IncomeWindow();
+            baseIncome.put(base, window);
+        }
+        return window;
+    }
+
+    // =========================================================
+
+    private static class WorkerStats {
+
+        private boolean wasCarrying = false;
+        private int tripStartFrame = -1;
+        private int waitStartFrame = -1;
+        private AUnit lastMineral = null;
+        private int trips = 0;
+        private long tripFramesTotal = 0;
+
+    }
+
+    private static class PatchStats {
+
+        private int trips = 0;
+        private long tripFramesTotal = 0;
+        private long waitFramesTotal = 0;
+        private int bounces = 0;
+
+        private void recordTrip(int tripFrames) {
+            trips++;
+            tripFramesTotal += tripFrames;
+        }
+
+        @Override
+        public String toString() {
+            return "trips: " + trips
+                    + ", avg trip: " + (trips > 0 ? tripFramesTotal / trips : 0)
+                    + ", avg wait: " + (trips > 0 ? waitFramesTotal / trips : 0)
+                    + ", bounces: " + bounces;
+        }
+
+    }
+
+    /**
+     * Sum of values over the last <b>BUCKETS</b> buckets of <b>FRAMES_PER_BUCKET</b> frames each.
+     */
+    private static class IncomeWindow {
+
+        private final int[] buckets = new int[BUCKETS];
+        private int lastBucket = 0;
+
+        private void add(int frame, int value) {
+            advanceTo(frame / FRAMES_PER_BUCKET);
+            buckets[lastBucket % BUCKETS] += value;
+        }
+
+        private int sum(int frame) {
+            advanceTo(frame / FRAMES_PER_BUCKET);
+            int sum = 0;
+            for (int value : buckets) {
+                sum += value;
+            }
+            return sum;
+        }
+
+        /**
+         * Clears buckets which fell out of the window.
+         */
+        private void advanceTo(int bucket) {
+            int toClear = Math.min(bucket - lastBucket, BUCKETS);
+            for (int i = 1; i <= toClear; i++) {
+                buckets[(lastBucket + i) % BUCKETS] = 0;
+            }
+            if (bucket > lastBucket) {
+                lastBucket = bucket;
+            }
+        }
+
+    }
+
+}
@@ -1,25 +1,34 @@
 package atlantis.workers;
 
+import atlantis.buildings.managers.AGasManager;
 import atlantis.combat.micro.AAvoidMeleeUnitsManager;
 import atlantis.constructing.ABuilderManager;
-import atlantis.constructing.AConstructionManager;
-import atlantis.repair.ARepairManager;
-import atlantis.scout.AScoutManager;
 import atlantis.units.AUnit;
+import atlantis.units.AUnitRole;
+import atlantis.units.AUnitRoles;
 import atlantis.units.Select;
 
 public class AWorkerManager {
 
     /**
-     * Executed for every worker unit.
+     * Executed for every worker unit. What the worker does depends on its main role (see <b>AUnitRoles</b>).
      */
     public static boolean update(AUnit worker) {
         worker.removeTooltip();
-        if (AScoutManager.isScout(worker)) {
-            return false;
-        }
-        if (ARepairManager.isRepairerOfAnyKind(worker)) {
-            return false;
+        AUnitRole role = AUnitRoles.getRole(worker);
+
+        // Scouts, repairers and defenders are handled by their own managers
+        if (role != null) {
+            switch (role) {
+                case SCOUT:
+                case BUNKER_REPAIRER:
+                case REPAIRER:
+                case DEFENDER:
+                    releaseFromGathering(worker);
+                    return false;
+                default:
+                    break;
+            }
         }
         
         // =========================================================
@@ -32,9 +41,9 @@ public class AWorkerManager {
         // === END OF Worker micro =================================
         // =========================================================
 
-        // =========================================================
-        // Act as BUILDER if needed
-        if (AConstructionManager.isBuilder(worker)) {
+        // Act as BUILDER if needed, also when constructing without an order we know of
+        if (role == AUnitRole.BUILDER || worker.isConstructing()) {
+            releaseFromGathering(worker);
             ABuilderManager.update(worker);
             if (worker.getTooltip() == null) {
                 worker.setTooltip("Builder");
@@ -59,7 +68,11 @@ public class AWorkerManager {
         worker.removeTooltip();
 
         // Don't react if already gathering
-        if (worker.isGatheringGas() || worker.isGatheringMinerals()) {
+        if (worker.isGatheringMinerals()) {
+            AMiningTelemetry.observeMiningWorker(worker);
+            return;
+        }
+        if (worker.isGatheringGas()) {
             return;
         }
 
@@ -75,10 +88,19 @@ public class AWorkerManager {
                 || (!worker.isGatheringMinerals() && !worker.isGatheringGas() && !worker.isMoving()
                 && !worker.isConstructing() && !worker.isAttacking() && !worker.isRepairing())) {
             worker.setTooltip("Move ya ass!");
+            AMiningTelemetry.observeIdleWorker(worker);
             AMineralGathering.gatherResources(worker);
         }
     }
 
+    /**
+     * Worker was taken for other job than gathering resources.
+     */
+    private static void releaseFromGathering(AUnit worker) {
+        AMineralGathering.releaseWorker(worker);
+        AGasManager.releaseWorker(worker);
+    }
+
     // =========================================================
     // Auxiliary
     /**
@@ -1,10 +1,10 @@
 package atlantis.wrappers;
 
-import atlantis.AGame;
+import atlantis.production.ATechTree;
 import atlantis.production.ProductionOrder;
 import bwapi.TechType;
 import bwapi.UpgradeType;
-import java.util.ArrayList;
+import java.util.List;
 
 /**
  *
@@ -12,11 +12,6 @@ import java.util.ArrayList;
  */
 public class ATech {
     
-    private static ArrayList<TechType> currentlyResearching = new ArrayList<>();
-    private static ArrayList<UpgradeType> currentlyUpgrading = new ArrayList<>();
-    
-    // =========================================================
-
     public static boolean isResearched(TechType tech) {
         return isResearchedTech(tech);
     }
@@ -47,35 +42,35 @@ public class ATech {
      * Returns level of given upgrade. 0 is initially, it can raise up to 3.
      */
     public static int getUpgradeLevel(UpgradeType upgrade) {
-        return AGame.getPlayerUs().getUpgradeLevel(upgrade);
+        return ATechTree.getUpgradeLevel(upgrade);
     }
     
     // =========================================================
 
     public static void markAsBeingResearched(TechType tech) {
-        currentlyResearching.add(tech);
+        ATechTree.onResearchStarted(tech);
     }
 
     public static void markAsBeingUpgraded(UpgradeType upgrade) {
-        currentlyUpgrading.add(upgrade);
+        ATechTree.onUpgradeStarted(upgrade);
     }
     
     // =========================================================
     
     private static boolean isResearchedTech(TechType tech) {
-        return AGame.getPlayerUs().hasResearched(tech);
+        return ATechTree.isResearched(tech);
     }
     
     private static boolean isResearchedUpgrade(UpgradeType upgrade, int expectedUpgradeLevel) {
         return getUpgradeLevel(upgrade) >= Math.min(expectedUpgradeLevel, 3);
     }
 
-    public static ArrayList<TechType> getCurrentlyResearching() {
-        return currentlyResearching;
+    public static List<TechType> getCurrentlyResearching() {
+        return ATechTree.getTechsBeingResearched();
     }
 
-    public static ArrayList<UpgradeType> getCurrentlyUpgrading() {
-        return currentlyUpgrading;
+    public static List<UpgradeType> getCurrentlyUpgrading() {
+        return ATechTree.getUpgradesInProgress();
     }
 
 }